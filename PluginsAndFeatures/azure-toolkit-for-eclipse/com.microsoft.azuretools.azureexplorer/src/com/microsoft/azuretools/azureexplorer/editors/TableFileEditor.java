@@ -22,19 +22,22 @@
 
 package com.microsoft.azuretools.azureexplorer.editors;
 
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.viewers.ILabelProviderListener;
-import org.eclipse.jface.viewers.IStructuredContentProvider;
+import org.eclipse.jface.viewers.ILazyContentProvider;
 import org.eclipse.jface.viewers.ITableLabelProvider;
 import org.eclipse.jface.viewers.TableViewer;
 import org.eclipse.jface.viewers.Viewer;
@@ -48,6 +51,7 @@ import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.layout.RowLayout;
 import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.FileDialog;
 import org.eclipse.swt.widgets.TableColumn;
 import org.eclipse.swt.widgets.Text;
 import org.eclipse.ui.IEditorInput;
@@ -62,6 +66,9 @@ import com.microsoft.azuretools.azureexplorer.forms.TableEntityForm;
 import com.microsoft.azuretools.core.utils.PluginUtil;
 import com.microsoft.azuretools.azurecommons.helpers.AzureCmdException;
 import com.microsoft.tooling.msservices.helpers.azure.sdk.StorageClientSDKManager;
+import com.microsoft.tooling.msservices.helpers.azure.sdk.TableEntityBatchResult;
+import com.microsoft.tooling.msservices.helpers.azure.sdk.TableEntityCsvReader;
+import com.microsoft.tooling.msservices.helpers.azure.sdk.TableEntityPager;
 import com.microsoft.tooling.msservices.model.storage.ClientStorageAccount;
 import com.microsoft.tooling.msservices.model.storage.Table;
 import com.microsoft.tooling.msservices.model.storage.TableEntity;
@@ -76,20 +83,27 @@ public class TableFileEditor extends EditorPart {
     private static final String EXECUTE = "Execute";
     private static final String DELETE = "Delete";
     private static final String REFRESH = "Refresh";
+    private static final String IMPORT_CSV = "Import CSV";
+
+    // Load the next page when a row this close to the end of the loaded rows is shown
+    private static final int PREFETCH_ROWS = 200;
 
     private ClientStorageAccount storageAccount;
+    private String connectionString;
     private Table table;
     private Button refreshButton;
 //    private Button newEntityButton;
     private Button deleteButton;
+    private Button importButton;
     private Text queryTextField;
     private Button queryButton;
 //    private Button queryDesignerButton;
     private org.eclipse.swt.widgets.Table entitiesTable;
     private TableViewer tableViewer;
-    private List<TableEntity> tableEntities;
-    private Map<String, List<String>> columnData;
-    private List<String> data;
+    private TableEntityPager pager;
+    private List<String> data = new ArrayList<String>();
+    private boolean isPageLoading = false;
+    private int fillGridGeneration = 0;
 
     private FileEditorVirtualNode<EditorPart> fileEditorVirtualNode;
 
@@ -106,6 +120,7 @@ public class TableFileEditor extends EditorPart {
         setSite(site);
         setInput(input);
 //        storageAccount = ((StorageEditorInput) input).getStorageAccount();
+        connectionString = ((StorageEditorInput) input).getConnectionString();
         table = (Table) ((StorageEditorInput) input).getItem();
         setPartName(table.getName() + " [Table]");
         fileEditorVirtualNode = createVirtualNode(table.getName());
@@ -131,6 +146,13 @@ public class TableFileEditor extends EditorPart {
             }
         });
 
+        node.addAction(IMPORT_CSV, new NodeActionListener() {
+            @Override
+            protected void actionPerformed(NodeActionEvent e) throws AzureCmdException {
+                importCsv();
+            }
+        });
+
         node.addAction(REFRESH, new NodeActionListener() {
             @Override
             protected void actionPerformed(NodeActionEvent e) throws AzureCmdException {
@@ -186,6 +208,10 @@ public class TableFileEditor extends EditorPart {
         deleteButton.setToolTipText(DELETE);
         deleteButton.setEnabled(false);
 
+        importButton = new Button(buttonsContainer, SWT.PUSH);
+        importButton.setImage(Activator.getImageDescriptor("icons/storageupload.png").createImage());
+        importButton.setToolTipText(IMPORT_CSV);
+
 //        queryDesignerButton = new Button(buttonsContainer, SWT.PUSH);
 //        queryDesignerButton.setImage(Activator.getImageDescriptor("icons/query_builder.png").createImage());
         SelectionListener queryActionListener = new SelectionAdapter() {
@@ -205,6 +231,13 @@ public class TableFileEditor extends EditorPart {
             }
         });
 
+        importButton.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                fileEditorVirtualNode.doAction(IMPORT_CSV);
+            }
+        });
+
 //        newEntityButton.addSelectionListener(new SelectionAdapter() {
 //            @Override
 //            public void widgetSelected(SelectionEvent e) {
@@ -255,58 +288,147 @@ public class TableFileEditor extends EditorPart {
 
     public void fillGrid() {
         final String queryText = queryTextField.getText();
+        final int generation = ++fillGridGeneration;
+        final TableEntityPager newPager = new TableEntityPager(connectionString, table.getName(), queryText);
 
-        DefaultLoader.getIdeHelper().runInBackground(null, "Loading entities", false, true, "Loading entities", new Runnable() {
-            public void run() {
-                /*try {
-                    tableEntities = StorageClientSDKManager.getManager().getTableEntities(storageAccount, table, queryText);
+        if (pager != null) {
+            pager.cancel();
+        }
 
-                    refreshGrid();
+        isPageLoading = true;
+
+        Job job = new Job("Loading entities") {
+            @Override
+            protected IStatus run(IProgressMonitor monitor) {
+                monitor.beginTask("Loading entities", IProgressMonitor.UNKNOWN);
+
+                try {
+                    final List<TableEntity> firstPage = newPager.loadNextPage();
+
+                    DefaultLoader.getIdeHelper().invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (generation != fillGridGeneration || entitiesTable.isDisposed()) {
+                                // Another query has started or the editor is closed
+                                newPager.cancel();
+                                return;
+                            }
+
+                            isPageLoading = false;
+                            pager = newPager;
+                            data = new ArrayList<String>();
+                            data.add(PARTITION_KEY);
+                            data.add(ROW_KEY);
+                            data.add(TIMESTAMP);
+                            addColumns(firstPage);
+
+                            refreshGrid();
+                        }
+                    });
+
+                    return Status.OK_STATUS;
                 } catch (AzureCmdException e) {
-                    DefaultLoader.getUIHelper().showException("Error querying entities", e, "Service Explorer", false, true);
-                }*/
+                    onPageLoadingFailed(e);
+
+                    return Status.CANCEL_STATUS;
+                }
             }
-        });
+
+            @Override
+            protected void canceling() {
+                newPager.cancel();
+            }
+        };
+        job.schedule();
     }
 
-    private void refreshGrid() {
+    private void loadNextPage(final TableEntityPager currentPager) {
+        if (isPageLoading || !currentPager.hasMore()) {
+            return;
+        }
+
+        isPageLoading = true;
+
+        Job job = new Job("Loading more entities") {
+            @Override
+            protected IStatus run(IProgressMonitor monitor) {
+                monitor.beginTask("Loading more entities", IProgressMonitor.UNKNOWN);
+
+                try {
+                    final List<TableEntity> page = currentPager.loadNextPage();
+
+                    DefaultLoader.getIdeHelper().invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            isPageLoading = false;
+
+                            if (currentPager != pager || entitiesTable.isDisposed()) {
+                                return;
+                            }
+
+                            if (addColumns(page)) {
+                                refreshGrid();
+                            } else {
+                                tableViewer.setItemCount(pager.size());
+                            }
+                        }
+                    });
+
+                    return Status.OK_STATUS;
+                } catch (AzureCmdException e) {
+                    onPageLoadingFailed(e);
+
+                    return Status.CANCEL_STATUS;
+                }
+            }
+
+            @Override
+            protected void canceling() {
+                currentPager.cancel();
+            }
+        };
+        job.schedule();
+    }
+
+    private void onPageLoadingFailed(AzureCmdException e) {
         DefaultLoader.getIdeHelper().invokeLater(new Runnable() {
             @Override
             public void run() {
-                columnData = new LinkedHashMap<String, List<String>>();
-                data = new ArrayList<String>();
-                data.add(PARTITION_KEY);
-                data.add(ROW_KEY);
-                data.add(TIMESTAMP);
-                columnData.put(PARTITION_KEY, new ArrayList<String>());
-                columnData.put(ROW_KEY, new ArrayList<String>());
-                columnData.put(TIMESTAMP, new ArrayList<String>());
-
-                for (TableEntity tableEntity : tableEntities) {
-                    columnData.get(PARTITION_KEY).add(tableEntity.getPartitionKey());
-                    columnData.get(ROW_KEY).add(tableEntity.getRowKey());
-                    columnData.get(TIMESTAMP).add(new SimpleDateFormat().format(tableEntity.getTimestamp().getTime()));
-
-                    for (String entityColumn : tableEntity.getProperties().keySet()) {
-                        if (!data.contains(entityColumn)) {
-                            data.add(entityColumn);
-                        }
-                        if (!columnData.keySet().contains(entityColumn)) {
-                            columnData.put(entityColumn, new ArrayList<String>());
-                        }
-                    }
+                isPageLoading = false;
+            }
+        });
+
+        DefaultLoader.getUIHelper().showException("Error querying entities", e, "Service Explorer", false, true);
+    }
 
+    /**
+     * Add the columns of the new properties found in the entities.
+     *
+     * @return whether any column is added
+     */
+    private boolean addColumns(List<TableEntity> entities) {
+        boolean isColumnAdded = false;
+
+        for (TableEntity tableEntity : entities) {
+            for (String entityColumn : tableEntity.getProperties().keySet()) {
+                if (!data.contains(entityColumn)) {
+                    data.add(entityColumn);
+                    isColumnAdded = true;
                 }
+            }
+        }
 
-                for (TableEntity tableEntity : tableEntities) {
-                    for (String column : columnData.keySet()) {
-                        if (!column.equals(PARTITION_KEY) && !column.equals(ROW_KEY) && !column.equals(TIMESTAMP)) {
-                            columnData.get(column).add(tableEntity.getProperties().containsKey(column)
-                                    ? getFormattedProperty(tableEntity.getProperties().get(column))
-                                    : "");
-                        }
-                    }
+        return isColumnAdded;
+    }
+
+    private void refreshGrid() {
+        DefaultLoader.getIdeHelper().invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                if (pager == null || entitiesTable.isDisposed()) {
+                    return;
                 }
+
                 entitiesTable.setRedraw(false);
                 while (entitiesTable.getColumnCount() > 0 ) {
                     entitiesTable.getColumns()[0].dispose();
@@ -318,7 +440,9 @@ public class TableFileEditor extends EditorPart {
                 }
                 entitiesTable.setRedraw(true);
 
-                tableViewer.setInput(tableEntities);
+                // The rows are virtual, the content provider fills them when they are shown
+                tableViewer.setInput(pager);
+                tableViewer.setItemCount(pager.size());
             }
         });
     }
@@ -326,69 +450,128 @@ public class TableFileEditor extends EditorPart {
     private void deleteSelection() {
         final TableEntity[] selectedEntities = getSelectedEntities();
 
+        if (selectedEntities == null || selectedEntities.length == 0) {
+            return;
+        }
+
+        final TableEntityPager currentPager = pager;
+
         Job job = new Job("Deleting entities") {
             @Override
             protected IStatus run(IProgressMonitor monitor) {
                 monitor.beginTask("Deleting entities", IProgressMonitor.UNKNOWN);
-//                try {
-                    if (selectedEntities != null) {
-                        for (int i = 0; i < selectedEntities.length; i++) {
-                            monitor.worked(i * 100 / selectedEntities.length);
 
-//                            StorageClientSDKManager.getManager().deleteTableEntity(storageAccount, selectedEntities[i]);
+                try {
+                    List<TableEntityBatchResult> results = StorageClientSDKManager.getManager().deleteTableEntities(
+                            connectionString, table.getName(), Arrays.asList(selectedEntities));
+                    final List<TableEntity> deletedEntities = new ArrayList<TableEntity>();
+
+                    for (TableEntityBatchResult result : results) {
+                        if (result.isSucceeded()) {
+                            deletedEntities.add(result.getEntity());
                         }
-                        DefaultLoader.getIdeHelper().invokeLater(new Runnable() {
-                            @Override
-                            public void run() {
-                                tableEntities.removeAll(Arrays.asList(selectedEntities));
+                    }
+
+                    DefaultLoader.getIdeHelper().invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (currentPager == pager) {
+                                pager.removeAll(deletedEntities);
+                                entitiesTable.deselectAll();
+                                deleteButton.setEnabled(false);
 
                                 refreshGrid();
                             }
-                        });
-                    }
+                        }
+                    });
+
+                    showBatchFailures("delete", results);
+
                     return Status.OK_STATUS;
-//                } catch (AzureCmdException ex) {
-//                    DefaultLoader.getUIHelper().showException("Error deleting entities", ex, "Service Explorer", false, true);
-//                    return Status.CANCEL_STATUS;
-//                }
+                } catch (AzureCmdException ex) {
+                    DefaultLoader.getUIHelper().showException("Error deleting entities", ex, "Service Explorer", false, true);
+                    return Status.CANCEL_STATUS;
+                }
             }
         };
         job.schedule();
     }
 
-    private TableEntity[] getSelectedEntities() {
-        if (tableEntities == null) {
-            return null;
+    private void importCsv() {
+        FileDialog dialog = new FileDialog(PluginUtil.getParentShell(), SWT.OPEN);
+        dialog.setText("Import entities from CSV, with PartitionKey and RowKey columns");
+        dialog.setFilterExtensions(new String[] {"*.csv", "*.*"});
+        final String file = dialog.open();
+
+        if (file == null) {
+            return;
         }
 
-        int partitionIdIndex = -1;
-        int rowIdIndex = -1;
+        Job job = new Job("Importing entities") {
+            @Override
+            protected IStatus run(IProgressMonitor monitor) {
+                monitor.beginTask("Importing entities", IProgressMonitor.UNKNOWN);
 
-//        for (int i = 0; i < entitiesTable.getColumnCount(); i++) {
-//            String columnName = entitiesTable.getColumnName(i);
-//
-//            if (columnName.equals(PARTITION_KEY)) {
-//                partitionIdIndex = i;
-//            }
-//
-//            if (columnName.equals(ROW_KEY)) {
-//                rowIdIndex = i;
-//            }
-//        }
+                try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+                    List<TableEntity> entities = new TableEntityCsvReader(reader).read(table.getName());
+                    List<TableEntityBatchResult> results = StorageClientSDKManager.getManager()
+                            .insertOrReplaceTableEntities(connectionString, table.getName(), entities);
+
+                    showBatchFailures("import", results);
+
+                    DefaultLoader.getIdeHelper().invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            fillGrid();
+                        }
+                    });
+
+                    return Status.OK_STATUS;
+                } catch (AzureCmdException | IOException ex) {
+                    DefaultLoader.getUIHelper().showException("Error importing entities", ex, "Service Explorer", false, true);
+                    return Status.CANCEL_STATUS;
+                }
+            }
+        };
+        job.schedule();
+    }
+
+    private void showBatchFailures(String action, List<TableEntityBatchResult> results) {
+        TableEntityBatchResult firstFailure = null;
+        int failureCount = 0;
+
+        for (TableEntityBatchResult result : results) {
+            if (!result.isSucceeded()) {
+                failureCount++;
+
+                if (firstFailure == null) {
+                    firstFailure = result;
+                }
+            }
+        }
+
+        if (firstFailure == null) {
+            return;
+        }
+
+        String message = String.format("Failed to %s %d of %d entities. The first failure is %s/%s.",
+                action, failureCount, results.size(),
+                firstFailure.getEntity().getPartitionKey(), firstFailure.getEntity().getRowKey());
+        DefaultLoader.getUIHelper().showException(message, firstFailure.getError(), "Service Explorer", false, true);
+    }
+
+    private TableEntity[] getSelectedEntities() {
+        if (pager == null) {
+            return null;
+        }
 
         ArrayList<TableEntity> selectedEntities = new ArrayList<TableEntity>();
 
-//        for (int i : entitiesTable.getSelectedRows()) {
-//            for (TableEntity tableEntity : tableEntities) {
-//                String partitionValue = entitiesTable.getValueAt(i, partitionIdIndex).toString();
-//                String rowIdValue = entitiesTable.getValueAt(i, rowIdIndex).toString();
-//
-//                if (tableEntity.getPartitionKey().equals(partitionValue)
-//                        && tableEntity.getRowKey().equals(rowIdValue)) {
-//                    selectedEntities.add(tableEntity);
-//                }
-//            }
-//        }
+        for (int i : entitiesTable.getSelectionIndices()) {
+            if (i < pager.size()) {
+                selectedEntities.add(pager.get(i));
+            }
+        }
 
         return selectedEntities.toArray(new TableEntity[selectedEntities.size()]);
     }
@@ -419,7 +602,8 @@ public class TableFileEditor extends EditorPart {
     }
 
     private void createTable(Composite parent) {
-        entitiesTable = new org.eclipse.swt.widgets.Table(parent, SWT.MULTI | SWT.BORDER | SWT.FULL_SELECTION);
+        entitiesTable = new org.eclipse.swt.widgets.Table(parent,
+                SWT.MULTI | SWT.BORDER | SWT.FULL_SELECTION | SWT.VIRTUAL);
 
         entitiesTable.setHeaderVisible(true);
         entitiesTable.setLinesVisible(true);
@@ -430,6 +614,13 @@ public class TableFileEditor extends EditorPart {
         gridData.grabExcessHorizontalSpace = true;
         entitiesTable.setLayoutData(gridData);
 
+        entitiesTable.addSelectionListener(new SelectionAdapter() {
+            @Override
+            public void widgetSelected(SelectionEvent e) {
+                deleteButton.setEnabled(entitiesTable.getSelectionCount() > 0);
+            }
+        });
+
         tableViewer = new TableViewer(entitiesTable);
         tableViewer.setUseHashlookup(true);
         tableViewer.setContentProvider(new TableContentProvider());
@@ -443,7 +634,7 @@ public class TableFileEditor extends EditorPart {
 
     }
 
-    private class TableContentProvider implements IStructuredContentProvider {
+    private class TableContentProvider implements ILazyContentProvider {
         public void dispose() {
 
         }
@@ -452,8 +643,16 @@ public class TableFileEditor extends EditorPart {
 
         }
 
-        public Object[] getElements(Object o) {
-            return tableEntities.toArray();
+        public void updateElement(int index) {
+            if (pager == null || index >= pager.size()) {
+                return;
+            }
+
+            tableViewer.replace(pager.get(index), index);
+
+            if (index >= entitiesTable.getItemCount() - PREFETCH_ROWS) {
+                loadNextPage(pager);
+            }
         }
     }
 
@@ -27,6 +27,7 @@ import static redis.clients.jedis.ScanParams.SCAN_POINTER_START;
 import com.microsoft.azuretools.azurecommons.helpers.RedisKeyType;
 import com.microsoft.azuretools.azureexplorer.Activator;
 import com.microsoft.azuretools.core.components.AzureListenerWrapper;
+import com.microsoft.azuretools.core.mvp.ui.rediscache.RedisPoolMetrics;
 import com.microsoft.azuretools.core.mvp.ui.rediscache.RedisScanResult;
 import com.microsoft.azuretools.core.mvp.ui.rediscache.RedisValueData;
 import com.microsoft.tooling.msservices.serviceexplorer.azure.rediscache.RedisExplorerMvpView;
@@ -420,6 +421,11 @@ public class RedisExplorerEditor extends EditorPart implements RedisExplorerMvpV
         clearValueArea();
     }
 
+    @Override
+    public void showPoolMetrics(RedisPoolMetrics metrics) {
+        lstKey.setToolTipText(metrics.toString());
+    }
+
     @Override
     public void setFocus() {
         // Set the focus
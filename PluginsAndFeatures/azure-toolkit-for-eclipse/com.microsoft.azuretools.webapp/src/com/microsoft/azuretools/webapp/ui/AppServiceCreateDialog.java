@@ -1217,7 +1217,7 @@ public class AppServiceCreateDialog extends AppServiceBaseDialog {
                             webApp.update().withAppSettings(appSettings).apply();
                         }
                         monitor.setTaskName(UPDATING_AZURE_LOCAL_CACHE);
-                        AzureModelController.updateResourceGroupMaps(new UpdateProgressIndicator(monitor));
+                        AzureModelController.updateResourceGroupMaps(new UpdateProgressIndicator(monitor), true);
                         initAspCache();
                         Display.getDefault().asyncExec(() -> AppServiceCreateDialog.super.okPressed());
                         if (AzureUIRefreshCore.listeners != null) {
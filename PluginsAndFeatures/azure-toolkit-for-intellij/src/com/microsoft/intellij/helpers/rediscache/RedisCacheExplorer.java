@@ -25,6 +25,7 @@ package com.microsoft.intellij.helpers.rediscache;
 import static redis.clients.jedis.ScanParams.SCAN_POINTER_START;
 
 import com.microsoft.azuretools.azurecommons.helpers.RedisKeyType;
+import com.microsoft.azuretools.core.mvp.ui.rediscache.RedisPoolMetrics;
 import com.microsoft.azuretools.core.mvp.ui.rediscache.RedisScanResult;
 import com.microsoft.azuretools.core.mvp.ui.rediscache.RedisValueData;
 import com.microsoft.intellij.helpers.base.BaseEditor;
@@ -272,6 +273,11 @@ public class RedisCacheExplorer extends BaseEditor implements RedisExplorerMvpVi
         clearValueArea();
     }
 
+    @Override
+    public void showPoolMetrics(RedisPoolMetrics metrics) {
+        lstKey.setToolTipText(metrics.toString());
+    }
+
     @Override
     public void onErrorWithException(String message, Exception ex) {
         DefaultLoader.getUIHelper().showError(ex.getMessage(), message);
@@ -37,6 +37,8 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Key;
 import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VirtualFileWrapper;
+import com.microsoft.azure.storage.ResultContinuation;
+import com.microsoft.azure.storage.ResultSegment;
 import com.microsoft.azuretools.authmanage.AuthMethodManager;
 import com.microsoft.azuretools.authmanage.ISubscriptionSelectionListener;
 import com.microsoft.azuretools.azurecommons.helpers.AzureCmdException;
@@ -107,6 +109,7 @@ public class BlobExplorerFileEditor implements FileEditor, TelemetryProperties {
 
     private LinkedList<BlobDirectory> directoryQueue = new LinkedList<BlobDirectory>();
     private List<BlobItem> blobItems;
+    private volatile int fillGridGeneration = 0;
 
     private ISubscriptionSelectionListener subscriptionListener;
     private FileEditorVirtualNode fileEditorVirtualNode;
@@ -316,7 +319,10 @@ public class BlobExplorerFileEditor implements FileEditor, TelemetryProperties {
     public void fillGrid() {
         setUIState(true);
 
-        ProgressManager.getInstance().run(new Task.Backgroundable(project, "Loading blobs...", false) {
+        final int generation = ++fillGridGeneration;
+        final String namePrefix = queryTextField.getText();
+
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, "Loading blobs...", true) {
             @Override
             public void run(@NotNull ProgressIndicator progressIndicator) {
                 try {
@@ -326,61 +332,84 @@ public class BlobExplorerFileEditor implements FileEditor, TelemetryProperties {
                         directoryQueue.addLast(StorageClientSDKManager.getManager().getRootDirectory(connectionString, blobContainer));
                     }
 
-                    blobItems = StorageClientSDKManager.getManager().getBlobItems(connectionString, directoryQueue.peekLast());
-
-                    if (!queryTextField.getText().isEmpty()) {
-                        for (int i = blobItems.size() - 1; i >= 0; i--) {
-                            BlobItem blobItem = blobItems.get(i);
-
-                            if (blobItem instanceof BlobFile && !blobItem.getName().startsWith(queryTextField.getText())) {
-                                blobItems.remove(i);
-                            }
-                        }
-                    }
+                    BlobDirectory directory = directoryQueue.peekLast();
+                    ResultContinuation continuationToken = null;
+                    boolean isFirstPage = true;
+                    int loadedCount = 0;
+
+                    // The first page is always loaded to refresh the grid, the rest are appended as they arrive
+                    // until the user cancels or another directory or query is filled
+                    do {
+                        ResultSegment<BlobItem> page = StorageClientSDKManager.getManager().getBlobItems(
+                                connectionString, directory, namePrefix, continuationToken,
+                                StorageClientSDKManager.DEFAULT_BLOB_PAGE_SIZE);
+
+                        continuationToken = page.getContinuationToken();
+                        loadedCount += page.getLength();
+                        progressIndicator.setText(String.format("Loading blobs... %d loaded", loadedCount));
+
+                        appendBlobItems(generation, directory, page.getResults(), isFirstPage);
+                        isFirstPage = false;
+                    } while (continuationToken != null && !progressIndicator.isCanceled()
+                            && generation == fillGridGeneration);
+                } catch (AzureCmdException ex) {
+                    String msg = "An error occurred while attempting to query blob list." + "\n" + String.format(message("webappExpMsg"), ex.getMessage());
+                    PluginUtil.displayErrorDialogAndLog(message("errTtl"), msg, ex);
+                }
+            }
+        });
+    }
 
-                    ApplicationManager.getApplication().invokeLater(new Runnable() {
-                        @Override
-                        public void run() {
+    private void appendBlobItems(final int generation,
+                                 @NotNull final BlobDirectory directory,
+                                 @NotNull final List<BlobItem> pageItems,
+                                 final boolean isFirstPage) {
+        ApplicationManager.getApplication().invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                if (generation != fillGridGeneration) {
+                    // Another fill has started, the page is stale
+                    return;
+                }
 
-                            pathLabel.setText(directoryQueue.peekLast().getPath());
-                            DefaultTableModel model = (DefaultTableModel) blobListTable.getModel();
+                DefaultTableModel model = (DefaultTableModel) blobListTable.getModel();
 
-                            while (model.getRowCount() > 0) {
-                                model.removeRow(0);
-                            }
+                if (isFirstPage) {
+                    pathLabel.setText(directory.getPath());
+                    blobItems = new ArrayList<BlobItem>();
+                    model.setRowCount(0);
+                }
 
-                            for (BlobItem blobItem : blobItems) {
-                                if (blobItem instanceof BlobDirectory) {
-                                    model.addRow(new Object[]{
-                                        UIHelperImpl.loadIcon("storagefolder.png"),
-                                        blobItem.getName(),
-                                        "",
-                                        "",
-                                        "",
-                                        blobItem.getUri()
-                                    });
-                                } else {
-                                    BlobFile blobFile = (BlobFile) blobItem;
-
-                                    model.addRow(new String[]{
-                                        "",
-                                        blobFile.getName(),
-                                        UIHelperImpl.readableFileSize(blobFile.getSize()),
-                                        new SimpleDateFormat().format(blobFile.getLastModified().getTime()),
-                                        blobFile.getContentType(),
-                                        blobFile.getUri()
-                                    });
-                                }
-                            }
+                blobItems.addAll(pageItems);
+
+                for (BlobItem blobItem : pageItems) {
+                    if (blobItem instanceof BlobDirectory) {
+                        model.addRow(new Object[]{
+                            UIHelperImpl.loadIcon("storagefolder.png"),
+                            blobItem.getName(),
+                            "",
+                            "",
+                            "",
+                            blobItem.getUri()
+                        });
+                    } else {
+                        BlobFile blobFile = (BlobFile) blobItem;
+
+                        model.addRow(new String[]{
+                            "",
+                            blobFile.getName(),
+                            UIHelperImpl.readableFileSize(blobFile.getSize()),
+                            new SimpleDateFormat().format(blobFile.getLastModified().getTime()),
+                            blobFile.getContentType(),
+                            blobFile.getUri()
+                        });
+                    }
+                }
 
-                            setUIState(false);
+                if (isFirstPage) {
+                    setUIState(false);
 
-                            blobListTable.clearSelection();
-                        }
-                    });
-                } catch (AzureCmdException ex) {
-                    String msg = "An error occurred while attempting to query blob list." + "\n" + String.format(message("webappExpMsg"), ex.getMessage());
-                    PluginUtil.displayErrorDialogAndLog(message("errTtl"), msg, ex);
+                    blobListTable.clearSelection();
                 }
             }
         });
@@ -604,69 +633,62 @@ public class BlobExplorerFileEditor implements FileEditor, TelemetryProperties {
                             }
                         }
 
-                        final BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(new FileOutputStream(targetFile), 65536) {
-                            private long runningCount = 0;
-
+                        final CallableSingleArg<Void, Long> callable = new CallableSingleArg<Void, Long>() {
                             @Override
-                            public synchronized void write(@NotNull byte[] bytes, int i, int i1) throws IOException {
-                                super.write(bytes, i, i1);
-
-                                runningCount += i1;
+                            public Void call(Long downloadedBytes) throws Exception {
+                                double progress = (double) downloadedBytes / fileSelection.getSize();
 
-                                double progress = (double) runningCount / fileSelection.getSize();
                                 progressIndicator.setFraction(progress);
                                 progressIndicator.setText2(String.format("%s%% downloaded", (int) (progress * 100)));
+
+                                return null;
                             }
                         };
 
-                        try {
-                            Future<?> future = ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
-                                @Override
-                                public void run() {
-                                    try {
-                                        StorageClientSDKManager.getManager().downloadBlobFileContent(connectionString, fileSelection, bufferedOutputStream);
+                        Future<?> future = ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
+                            @Override
+                            public void run() {
+                                try {
+                                    StorageClientSDKManager.getManager().downloadBlobFileContent(connectionString, fileSelection, targetFile, callable);
 
-                                        if (open && targetFile.exists()) {
-                                            Desktop.getDesktop().open(targetFile);
-                                        }
-                                    } catch (AzureCmdException e) {
-                                        Throwable connectionFault = e.getCause().getCause();
-
-                                        progressIndicator.setText("Error downloading Blob");
-                                        progressIndicator.setText2((connectionFault instanceof SocketTimeoutException) ?
-                                                                   "Connection timed out" : connectionFault.getMessage());
-                                    } catch (IOException ex) {
-                                        try {
-                                            final Process p;
-                                            Runtime runtime = Runtime.getRuntime();
-                                            p = runtime.exec(
-                                                    new String[]{"open", "-R", targetFile.getName()},
-                                                    null,
-                                                    targetFile.getParentFile());
-
-                                            InputStream errorStream = p.getErrorStream();
-                                            String errResponse = new String(IOUtils.readFully(errorStream, -1));
-
-                                            if (p.waitFor() != 0) {
-                                                throw new Exception(errResponse);
-                                            }
-                                        } catch (Exception e) {
-                                            progressIndicator.setText("Error openning file");
-                                            progressIndicator.setText2(ex.getMessage());
+                                    if (open && targetFile.exists()) {
+                                        Desktop.getDesktop().open(targetFile);
+                                    }
+                                } catch (AzureCmdException e) {
+                                    Throwable connectionFault = e.getCause().getCause();
+
+                                    progressIndicator.setText("Error downloading Blob");
+                                    progressIndicator.setText2((connectionFault instanceof SocketTimeoutException) ?
+                                                               "Connection timed out" : connectionFault.getMessage());
+                                } catch (IOException ex) {
+                                    try {
+                                        final Process p;
+                                        Runtime runtime = Runtime.getRuntime();
+                                        p = runtime.exec(
+                                                new String[]{"open", "-R", targetFile.getName()},
+                                                null,
+                                                targetFile.getParentFile());
+
+                                        InputStream errorStream = p.getErrorStream();
+                                        String errResponse = new String(IOUtils.readFully(errorStream, -1));
+
+                                        if (p.waitFor() != 0) {
+                                            throw new Exception(errResponse);
                                         }
+                                    } catch (Exception e) {
+                                        progressIndicator.setText("Error openning file");
+                                        progressIndicator.setText2(ex.getMessage());
                                     }
                                 }
-                            });
+                            }
+                        });
 
-                            while (!future.isDone()) {
-                                progressIndicator.checkCanceled();
+                        while (!future.isDone()) {
+                            progressIndicator.checkCanceled();
 
-                                if (progressIndicator.isCanceled()) {
-                                    future.cancel(true);
-                                }
+                            if (progressIndicator.isCanceled()) {
+                                future.cancel(true);
                             }
-                        } finally {
-                            bufferedOutputStream.close();
                         }
                     } catch (IOException e) {
                         PluginUtil.displayErrorDialogAndLog(message("errTtl"), "An error occurred while attempting to download Blob.", e);
@@ -705,108 +727,93 @@ public class BlobExplorerFileEditor implements FileEditor, TelemetryProperties {
         ProgressManager.getInstance().run(new Task.Backgroundable(project, "Uploading blob...", true) {
             @Override
             public void run(@NotNull final ProgressIndicator progressIndicator) {
-                try {
-                    final BlobDirectory blobDirectory = directoryQueue.peekLast();
-
-                    final BufferedInputStream bufferedInputStream = new BufferedInputStream(new FileInputStream(selectedFile));
+                final BlobDirectory blobDirectory = directoryQueue.peekLast();
 
-                    progressIndicator.setIndeterminate(false);
-                    progressIndicator.setText("Uploading blob...");
-                    progressIndicator.setText2("0% uploaded");
+                progressIndicator.setIndeterminate(false);
+                progressIndicator.setText("Uploading blob...");
+                progressIndicator.setText2("0% uploaded");
 
-                    try {
-                        final CallableSingleArg<Void, Long> callable = new CallableSingleArg<Void, Long>() {
-                            @Override
-                            public Void call(Long uploadedBytes) throws Exception {
-                                double progress = ((double) uploadedBytes) / selectedFile.length();
-
-                                progressIndicator.setFraction(progress);
-                                progressIndicator.setText2(String.format("%s%% uploaded", (int) (progress * 100)));
+                try {
+                    final CallableSingleArg<Void, Long> callable = new CallableSingleArg<Void, Long>() {
+                        @Override
+                        public Void call(Long uploadedBytes) throws Exception {
+                            double progress = ((double) uploadedBytes) / selectedFile.length();
 
-                                return null;
-                            }
-                        };
+                            progressIndicator.setFraction(progress);
+                            progressIndicator.setText2(String.format("%s%% uploaded", (int) (progress * 100)));
 
-                        Future<Void> future = ApplicationManager.getApplication().executeOnPooledThread(new Callable<Void>() {
-                            @Override
-                            public Void call() throws AzureCmdException {
-                                try {
-                                    StorageClientSDKManager.getManager().uploadBlobFileContent(
-                                            connectionString,
-                                            blobContainer,
-                                            path,
-                                            bufferedInputStream,
-                                            callable,
-                                            1024 * 1024,
-                                            selectedFile.length());
-                                } finally {
-                                    try {
-                                        bufferedInputStream.close();
-                                    } catch (IOException ignored) {
-                                    }
-                                }
+                            return null;
+                        }
+                    };
 
-                                return null;
-                            }
-                        });
+                    Future<Void> future = ApplicationManager.getApplication().executeOnPooledThread(new Callable<Void>() {
+                        @Override
+                        public Void call() throws AzureCmdException {
+                            StorageClientSDKManager.getManager().uploadBlobFileContent(
+                                    connectionString,
+                                    blobContainer,
+                                    path,
+                                    selectedFile,
+                                    callable,
+                                    1024 * 1024);
+
+                            return null;
+                        }
+                    });
 
-                        while (!future.isDone()) {
-                            Thread.sleep(500);
-                            progressIndicator.checkCanceled();
+                    while (!future.isDone()) {
+                        Thread.sleep(500);
+                        progressIndicator.checkCanceled();
 
-                            if (progressIndicator.isCanceled()) {
-                                future.cancel(true);
-                                bufferedInputStream.close();
+                        if (progressIndicator.isCanceled()) {
+                            future.cancel(true);
 
-                                for (BlobItem blobItem : StorageClientSDKManager.getManager().getBlobItems(connectionString, blobDirectory)) {
-                                    if (blobItem instanceof BlobFile && blobItem.getPath().equals(path)) {
-                                        StorageClientSDKManager.getManager().deleteBlobFile(connectionString, (BlobFile) blobItem);
-                                    }
+                            for (BlobItem blobItem : StorageClientSDKManager.getManager().getBlobItems(connectionString, blobDirectory)) {
+                                if (blobItem instanceof BlobFile && blobItem.getPath().equals(path)) {
+                                    StorageClientSDKManager.getManager().deleteBlobFile(connectionString, (BlobFile) blobItem);
                                 }
                             }
                         }
+                    }
 
-                        try {
-                            directoryQueue.clear();
-                            directoryQueue.addLast(StorageClientSDKManager.getManager().getRootDirectory(connectionString, blobContainer));
+                    try {
+                        directoryQueue.clear();
+                        directoryQueue.addLast(StorageClientSDKManager.getManager().getRootDirectory(connectionString, blobContainer));
 
-                            for (String pathDir : path.split("/")) {
-                                for (BlobItem blobItem : StorageClientSDKManager.getManager().getBlobItems(connectionString, directoryQueue.getLast())) {
-                                    if (blobItem instanceof BlobDirectory && blobItem.getName().equals(pathDir)) {
-                                        directoryQueue.addLast((BlobDirectory) blobItem);
-                                    }
+                        for (String pathDir : path.split("/")) {
+                            for (BlobItem blobItem : StorageClientSDKManager.getManager().getBlobItems(connectionString, directoryQueue.getLast())) {
+                                if (blobItem instanceof BlobDirectory && blobItem.getName().equals(pathDir)) {
+                                    directoryQueue.addLast((BlobDirectory) blobItem);
                                 }
                             }
-                        } catch (AzureCmdException e) {
-                            String msg = "An error occurred while attempting to show new blob." + "\n" + String.format(message("webappExpMsg"), e.getMessage());
-                            PluginUtil.displayErrorDialogAndLog(message("errTtl"), msg, e);
                         }
+                    } catch (AzureCmdException e) {
+                        String msg = "An error occurred while attempting to show new blob." + "\n" + String.format(message("webappExpMsg"), e.getMessage());
+                        PluginUtil.displayErrorDialogAndLog(message("errTtl"), msg, e);
+                    }
 
-                        ApplicationManager.getApplication().invokeLater(new Runnable() {
-                            @Override
-                            public void run() {
-                                fillGrid();
-                            }
-                        });
-                    } catch (Exception e) {
-                        Throwable connectionFault = e.getCause();
-                        Throwable realFault = null;
-
-                        if (connectionFault != null) {
-                            realFault = connectionFault.getCause();
+                    ApplicationManager.getApplication().invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            fillGrid();
                         }
+                    });
+                } catch (Exception e) {
+                    Throwable connectionFault = e.getCause();
+                    Throwable realFault = null;
 
-                        progressIndicator.setText("Error uploading Blob");
-                        String message = realFault == null ? null : realFault.getMessage();
+                    if (connectionFault != null) {
+                        realFault = connectionFault.getCause();
+                    }
 
-                        if (connectionFault != null && message == null) {
-                            message = "Error type " + connectionFault.getClass().getName();
-                        }
+                    progressIndicator.setText("Error uploading Blob");
+                    String message = realFault == null ? null : realFault.getMessage();
 
-                        progressIndicator.setText2((connectionFault instanceof SocketTimeoutException) ? "Connection timed out" : message);
+                    if (connectionFault != null && message == null) {
+                        message = "Error type " + connectionFault.getClass().getName();
                     }
-                } catch (IOException e) {
-                    PluginUtil.displayErrorDialogAndLog(message("errTtl"), "An error occurred while attempting to upload Blob.", e);
+
+                    progressIndicator.setText2((connectionFault instanceof SocketTimeoutException) ? "Connection timed out" : message);
                 }
             }
         });
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.intellij.helpers.storage;
+
+import com.microsoft.tooling.msservices.helpers.azure.sdk.TableEntityPager;
+import com.microsoft.tooling.msservices.model.storage.TableEntity;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.table.AbstractTableModel;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.microsoft.intellij.helpers.storage.TableFileEditor.PARTITION_KEY;
+import static com.microsoft.intellij.helpers.storage.TableFileEditor.ROW_KEY;
+import static com.microsoft.intellij.helpers.storage.TableFileEditor.TIMESTAMP;
+
+/**
+ * The table model over the entities loaded by a {@link TableEntityPager}. The cells are formatted when they are
+ * painted, so only the visible rows cost more than the entities themselves. The columns grow with the properties
+ * found in the appended pages.
+ *
+ * All methods run in the event dispatch thread.
+ */
+class TableEntityTableModel extends AbstractTableModel {
+    @NotNull
+    private final TableEntityPager pager;
+
+    @NotNull
+    private final List<String> columns = new ArrayList<String>();
+
+    @NotNull
+    private final Set<String> columnSet = new LinkedHashSet<String>();
+
+    private int rowCount = 0;
+
+    TableEntityTableModel(@NotNull TableEntityPager pager) {
+        this.pager = pager;
+
+        addColumn(PARTITION_KEY);
+        addColumn(ROW_KEY);
+        addColumn(TIMESTAMP);
+    }
+
+    @NotNull
+    TableEntityPager getPager() {
+        return pager;
+    }
+
+    @NotNull
+    TableEntity getEntity(int row) {
+        return pager.get(row);
+    }
+
+    /**
+     * Show the entities appended to the pager.
+     *
+     * @return whether new columns are added, which resets the column widths of the table
+     */
+    boolean appendEntities(@NotNull List<TableEntity> entities) {
+        boolean isColumnAdded = false;
+
+        for (TableEntity entity : entities) {
+            for (String property : entity.getProperties().keySet()) {
+                isColumnAdded |= addColumn(property);
+            }
+        }
+
+        int firstRow = rowCount;
+        rowCount = pager.size();
+
+        if (isColumnAdded) {
+            fireTableStructureChanged();
+        } else if (rowCount > firstRow) {
+            fireTableRowsInserted(firstRow, rowCount - 1);
+        }
+
+        return isColumnAdded;
+    }
+
+    void addEntity(@NotNull TableEntity entity) {
+        pager.add(entity);
+        appendEntities(Collections.singletonList(entity));
+    }
+
+    void setEntity(int row, @NotNull TableEntity entity) {
+        pager.set(row, entity);
+        fireTableRowsUpdated(row, row);
+    }
+
+    void removeEntities(@NotNull List<TableEntity> entities) {
+        pager.removeAll(entities);
+        rowCount = pager.size();
+        fireTableDataChanged();
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns.get(column);
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        TableEntity entity = pager.get(row);
+        String key = columns.get(column);
+
+        if (key.equals(PARTITION_KEY)) {
+            return entity.getPartitionKey();
+        } else if (key.equals(ROW_KEY)) {
+            return entity.getRowKey();
+        } else if (key.equals(TIMESTAMP)) {
+            return new SimpleDateFormat().format(entity.getTimestamp().getTime());
+        }
+
+        return entity.getProperties().containsKey(key)
+                ? TableFileEditor.getFormattedProperty(entity.getProperties().get(key))
+                : "";
+    }
+
+    private boolean addColumn(@NotNull String column) {
+        if (!columnSet.add(column)) {
+            return false;
+        }
+
+        columns.add(column);
+
+        return true;
+    }
+}
@@ -58,6 +58,7 @@ public class TableExplorerFileEditorProvider implements FileEditorProvider, Dumb
 
         tableFileEditor.setTable(table);
 //        tableFileEditor.setStorageAccount(storageAccount);
+        tableFileEditor.setAzureStorageAccount(storageAccount);
 
         tableFileEditor.fillGrid();
 
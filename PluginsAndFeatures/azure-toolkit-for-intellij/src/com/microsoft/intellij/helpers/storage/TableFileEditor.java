@@ -25,6 +25,8 @@ package com.microsoft.intellij.helpers.storage;
 import com.intellij.codeHighlighting.BackgroundEditorHighlighter;
 import com.intellij.ide.structureView.StructureViewBuilder;
 import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.fileChooser.FileChooser;
+import com.intellij.openapi.fileChooser.FileChooserDescriptor;
 import com.intellij.openapi.fileEditor.FileEditor;
 import com.intellij.openapi.fileEditor.FileEditorLocation;
 import com.intellij.openapi.fileEditor.FileEditorState;
@@ -34,9 +36,16 @@ import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.microsoft.azure.management.storage.StorageAccount;
 import com.microsoft.azuretools.azurecommons.helpers.AzureCmdException;
 import com.microsoft.intellij.forms.TableEntityForm;
 import com.microsoft.intellij.forms.TablesQueryDesigner;
+import com.microsoft.intellij.util.PluginUtil;
+import com.microsoft.tooling.msservices.helpers.azure.sdk.StorageClientSDKManager;
+import com.microsoft.tooling.msservices.helpers.azure.sdk.TableEntityBatchResult;
+import com.microsoft.tooling.msservices.helpers.azure.sdk.TableEntityCsvReader;
+import com.microsoft.tooling.msservices.helpers.azure.sdk.TableEntityPager;
 import com.microsoft.tooling.msservices.model.storage.ClientStorageAccount;
 import com.microsoft.tooling.msservices.model.storage.Table;
 import com.microsoft.tooling.msservices.model.storage.TableEntity;
@@ -46,27 +55,37 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
-import javax.swing.table.DefaultTableModel;
+import java.awt.*;
 import java.awt.event.*;
 import java.beans.PropertyChangeListener;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+
+import static com.microsoft.intellij.ui.messages.AzureBundle.message;
 
 public class TableFileEditor implements FileEditor {
     public static final String PARTITION_KEY = "Partition key";
     public static final String ROW_KEY = "Row key";
-    private static final String TIMESTAMP = "Timestamp";
+    static final String TIMESTAMP = "Timestamp";
 
     private static final String EDIT = "Edit";
     private static final String DELETE = "Delete";
     private static final String QUERY = "Query";
     private static final String QUERY_DESIGNER = "QueryDesigner";
     private static final String NEW_ENTITY = "NewEntity";
+    private static final String IMPORT_CSV = "Import CSV";
+
+    // Load the next page when the last visible row is this close to the end of the loaded rows
+    private static final int PREFETCH_ROWS = 200;
 
     private ClientStorageAccount storageAccount;
     private Project project;
@@ -79,7 +98,11 @@ public class TableFileEditor implements FileEditor {
     private JButton queryButton;
     private JButton queryDesignerButton;
     private JTable entitiesTable;
-    private List<TableEntity> tableEntities;
+    private StorageAccount azureStorageAccount;
+    private String connectionString;
+    private TableEntityTableModel tableModel;
+    private boolean isPageLoading = false;
+    private int fillGridGeneration = 0;
 
     private FileEditorVirtualNode fileEditorVirtualNode;
 
@@ -132,7 +155,10 @@ public class TableFileEditor implements FileEditor {
                     int r = entitiesTable.rowAtPoint(me.getPoint());
 
                     if (r >= 0 && r < entitiesTable.getRowCount()) {
-                        entitiesTable.setRowSelectionInterval(r, r);
+                        // Keep the multiple selection for the popup menu to delete
+                        if (!entitiesTable.isRowSelected(r)) {
+                            entitiesTable.setRowSelectionInterval(r, r);
+                        }
                     } else {
                         entitiesTable.clearSelection();
                     }
@@ -149,6 +175,15 @@ public class TableFileEditor implements FileEditor {
             }
         });
 
+        if (entitiesTable.getParent() instanceof JViewport) {
+            ((JViewport) entitiesTable.getParent()).addChangeListener(new ChangeListener() {
+                @Override
+                public void stateChanged(ChangeEvent changeEvent) {
+                    loadMoreIfNeeded();
+                }
+            });
+        }
+
         entitiesTable.addKeyListener(new KeyListener() {
             @Override
             public void keyTyped(KeyEvent keyEvent) {
@@ -181,6 +216,12 @@ public class TableFileEditor implements FileEditor {
                 deleteSelection();
             }
         });
+        fileEditorVirtualNode.addAction(IMPORT_CSV, new NodeActionListener() {
+            @Override
+            protected void actionPerformed(NodeActionEvent e) {
+                importCsv();
+            }
+        });
         fileEditorVirtualNode.addAction(QUERY, new NodeActionListener() {
             @Override
             protected void actionPerformed(NodeActionEvent e) {
@@ -207,16 +248,18 @@ public class TableFileEditor implements FileEditor {
                 form.setTableName(table.getName());
                 form.setStorageAccount(storageAccount);
                 form.setTableEntity(null);
-                form.setTableEntityList(tableEntities);
+                form.setTableEntityList(tableModel == null
+                        ? new ArrayList<TableEntity>()
+                        : tableModel.getPager().getEntities());
 
                 form.setTitle("Add Entity");
 
                 form.setOnFinish(new Runnable() {
                     @Override
                     public void run() {
-                        tableEntities.add(form.getTableEntity());
-
-                        refreshGrid();
+                        if (tableModel != null) {
+                            tableModel.addEntity(form.getTableEntity());
+                        }
                     }
                 });
 
@@ -230,6 +273,8 @@ public class TableFileEditor implements FileEditor {
         JPopupMenu menu = new JPopupMenu();
         menu.add(fileEditorVirtualNode.createJMenuItem(EDIT));
         menu.add(fileEditorVirtualNode.createJMenuItem(DELETE));
+        menu.addSeparator();
+        menu.add(fileEditorVirtualNode.createJMenuItem(IMPORT_CSV));
         return menu;
     }
 
@@ -249,8 +294,7 @@ public class TableFileEditor implements FileEditor {
             form.setOnFinish(new Runnable() {
                 @Override
                 public void run() {
-                    tableEntities.set(entitiesTable.getSelectedRow(), form.getTableEntity());
-                    refreshGrid();
+                    tableModel.setEntity(entitiesTable.getSelectedRow(), form.getTableEntity());
                 }
             });
 
@@ -260,138 +304,251 @@ public class TableFileEditor implements FileEditor {
 
     public void fillGrid() {
         final String queryText = queryTextField.getText();
+        final int generation = ++fillGridGeneration;
+
+        if (tableModel != null) {
+            tableModel.getPager().cancel();
+        }
+
+        isPageLoading = true;
+
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, "Loading entities", true) {
+            private volatile TableEntityPager pager;
 
-        ProgressManager.getInstance().run(new Task.Backgroundable(project, "Loading entities", false) {
             @Override
             public void run(@NotNull ProgressIndicator progressIndicator) {
                 progressIndicator.setIndeterminate(true);
-                /*try {
-                    tableEntities = StorageClientSDKManager.getManager().getTableEntities(storageAccount, table, queryText);
-                    refreshGrid();
-                } catch (AzureCmdException e) {
-                    String msg = "An error occurred while attempting to query entities." + "\n" + String.format(message("webappExpMsg"), e.getMessage());
-                    PluginUtil.displayErrorDialogAndLog(message("errTtl"), msg, e);
-                }*/
+
+                try {
+                    pager = new TableEntityPager(getConnectionString(), table.getName(), queryText);
+                    final List<TableEntity> firstPage = pager.loadNextPage();
+
+                    ApplicationManager.getApplication().invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (generation != fillGridGeneration) {
+                                // Another query has started
+                                pager.cancel();
+                                return;
+                            }
+
+                            isPageLoading = false;
+                            tableModel = new TableEntityTableModel(pager);
+                            entitiesTable.setModel(tableModel);
+                            tableModel.appendEntities(firstPage);
+                            resetColumnWidths();
+
+                            // The first page may not fill the view
+                            loadMoreIfNeeded();
+                        }
+                    });
+                } catch (Exception e) {
+                    onPageLoadingFailed(e);
+                }
+            }
+
+            @Override
+            public void onCancel() {
+                if (pager != null) {
+                    pager.cancel();
+                }
             }
         });
     }
 
-    private void refreshGrid() {
-        ApplicationManager.getApplication().invokeLater(new Runnable() {
-            @Override
-            public void run() {
-                Map<String, List<String>> columnData = new LinkedHashMap<String, List<String>>();
-                columnData.put(PARTITION_KEY, new ArrayList<String>());
-                columnData.put(ROW_KEY, new ArrayList<String>());
-                columnData.put(TIMESTAMP, new ArrayList<String>());
-
-                for (TableEntity tableEntity : tableEntities) {
-                    columnData.get(PARTITION_KEY).add(tableEntity.getPartitionKey());
-                    columnData.get(ROW_KEY).add(tableEntity.getRowKey());
-                    columnData.get(TIMESTAMP).add(new SimpleDateFormat().format(tableEntity.getTimestamp().getTime()));
-
-                    for (String entityColumn : tableEntity.getProperties().keySet()) {
-                        if (!columnData.keySet().contains(entityColumn)) {
-                            columnData.put(entityColumn, new ArrayList<String>());
-                        }
-                    }
+    private void loadMoreIfNeeded() {
+        if (tableModel == null || isPageLoading || !tableModel.getPager().hasMore()) {
+            return;
+        }
 
-                }
+        Rectangle visibleRect = entitiesTable.getVisibleRect();
+        int lastVisibleRow = entitiesTable.rowAtPoint(new Point(0, visibleRect.y + visibleRect.height - 1));
 
-                for (TableEntity tableEntity : tableEntities) {
-                    for (String column : columnData.keySet()) {
-                        if (!column.equals(PARTITION_KEY) && !column.equals(ROW_KEY) && !column.equals(TIMESTAMP)) {
-                            columnData.get(column).add(tableEntity.getProperties().containsKey(column)
-                                    ? getFormattedProperty(tableEntity.getProperties().get(column))
-                                    : "");
-                        }
-                    }
-                }
+        // The row is -1 when the rows don't reach the bottom of the view
+        if (lastVisibleRow >= 0 && lastVisibleRow < tableModel.getRowCount() - PREFETCH_ROWS) {
+            return;
+        }
 
-                DefaultTableModel model = new DefaultTableModel() {
-                    @Override
-                    public boolean isCellEditable(int i, int i1) {
-                        return false;
-                    }
-                };
+        final TableEntityTableModel model = tableModel;
+        isPageLoading = true;
 
-                for (String column : columnData.keySet()) {
-                    model.addColumn(column, columnData.get(column).toArray());
-                }
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, "Loading more entities", true) {
+            @Override
+            public void run(@NotNull ProgressIndicator progressIndicator) {
+                progressIndicator.setIndeterminate(true);
+
+                try {
+                    final List<TableEntity> page = model.getPager().loadNextPage();
 
-                entitiesTable.setModel(model);
+                    ApplicationManager.getApplication().invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            isPageLoading = false;
 
-                for (int i = 0; i != entitiesTable.getColumnCount(); i++) {
-                    entitiesTable.getColumnModel().getColumn(i).setPreferredWidth(100);
+                            if (model == tableModel && model.appendEntities(page)) {
+                                resetColumnWidths();
+                            }
+                        }
+                    });
+                } catch (AzureCmdException e) {
+                    onPageLoadingFailed(e);
                 }
             }
+
+            @Override
+            public void onCancel() {
+                model.getPager().cancel();
+            }
         });
     }
 
+    private void onPageLoadingFailed(@NotNull Exception e) {
+        ApplicationManager.getApplication().invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                isPageLoading = false;
+            }
+        });
+
+        String msg = "An error occurred while attempting to query entities." + "\n" + String.format(message("webappExpMsg"), e.getMessage());
+        PluginUtil.displayErrorDialogAndLog(message("errTtl"), msg, e);
+    }
+
+    private void resetColumnWidths() {
+        for (int i = 0; i != entitiesTable.getColumnCount(); i++) {
+            entitiesTable.getColumnModel().getColumn(i).setPreferredWidth(100);
+        }
+    }
+
     private void deleteSelection() {
         final TableEntity[] selectedEntities = getSelectedEntities();
 
+        if (selectedEntities == null || selectedEntities.length == 0) {
+            return;
+        }
+
+        final TableEntityTableModel model = tableModel;
+
         ProgressManager.getInstance().run(new Task.Backgroundable(project, "Deleting entities", false) {
             @Override
             public void run(@NotNull ProgressIndicator progressIndicator) {
-                progressIndicator.setIndeterminate(false);
+                progressIndicator.setIndeterminate(true);
 
-                /*try {
-                    if (selectedEntities != null) {
-                        for (int i = 0; i < selectedEntities.length; i++) {
-                            progressIndicator.setFraction((double) i / selectedEntities.length);
+                try {
+                    List<TableEntityBatchResult> results = StorageClientSDKManager.getManager().deleteTableEntities(
+                            getConnectionString(), table.getName(), Arrays.asList(selectedEntities));
+                    final List<TableEntity> deletedEntities = new ArrayList<TableEntity>();
 
-                            StorageClientSDKManager.getManager().deleteTableEntity(storageAccount, selectedEntities[i]);
+                    for (TableEntityBatchResult result : results) {
+                        if (result.isSucceeded()) {
+                            deletedEntities.add(result.getEntity());
                         }
+                    }
 
-                        ApplicationManager.getApplication().invokeLater(new Runnable() {
-                            @Override
-                            public void run() {
-                                tableEntities.removeAll(Arrays.asList(selectedEntities));
-                                refreshGrid();
+                    ApplicationManager.getApplication().invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (model == tableModel) {
+                                model.removeEntities(deletedEntities);
                             }
-                        });
-                    }
-                } catch (AzureCmdException ex) {
+                        }
+                    });
+
+                    showBatchFailures("delete", results);
+                } catch (Exception ex) {
                     String msg = "An error occurred while attempting to delete entities." + "\n" + String.format(message("webappExpMsg"), ex.getMessage());
                     PluginUtil.displayErrorDialogAndLog(message("errTtl"), msg, ex);
-                }*/
+                }
             }
         });
     }
 
-    private TableEntity[] getSelectedEntities() {
-        if (tableEntities == null) {
-            return null;
+    private void importCsv() {
+        FileChooserDescriptor fileChooserDescriptor = new FileChooserDescriptor(
+                true /*chooseFiles*/,
+                false /*chooseFolders*/,
+                false /*chooseJars*/,
+                false /*chooseJarsAsFiles*/,
+                false /*chooseJarContents*/,
+                false /*chooseMultiple*/
+        );
+        fileChooserDescriptor.setTitle("Select the CSV file to import, with PartitionKey and RowKey columns");
+        final VirtualFile file = FileChooser.chooseFile(fileChooserDescriptor, project, null);
+
+        if (file == null) {
+            return;
         }
 
-        int partitionIdIndex = -1;
-        int rowIdIndex = -1;
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, "Importing entities", false) {
+            @Override
+            public void run(@NotNull ProgressIndicator progressIndicator) {
+                progressIndicator.setIndeterminate(true);
+
+                try (Reader reader = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)) {
+                    List<TableEntity> entities = new TableEntityCsvReader(reader).read(table.getName());
+                    List<TableEntityBatchResult> results = StorageClientSDKManager.getManager()
+                            .insertOrReplaceTableEntities(getConnectionString(), table.getName(), entities);
 
-        for (int i = 0; i < entitiesTable.getColumnCount(); i++) {
-            String columnName = entitiesTable.getColumnName(i);
+                    showBatchFailures("import", results);
 
-            if (columnName.equals(PARTITION_KEY)) {
-                partitionIdIndex = i;
+                    ApplicationManager.getApplication().invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            fillGrid();
+                        }
+                    });
+                } catch (Exception ex) {
+                    String msg = "An error occurred while attempting to import entities." + "\n" + String.format(message("webappExpMsg"), ex.getMessage());
+                    PluginUtil.displayErrorDialogAndLog(message("errTtl"), msg, ex);
+                }
             }
+        });
+    }
+
+    private void showBatchFailures(@NotNull String action, @NotNull List<TableEntityBatchResult> results) {
+        TableEntityBatchResult firstFailure = null;
+        int failureCount = 0;
+
+        for (TableEntityBatchResult result : results) {
+            if (!result.isSucceeded()) {
+                failureCount++;
 
-            if (columnName.equals(ROW_KEY)) {
-                rowIdIndex = i;
+                if (firstFailure == null) {
+                    firstFailure = result;
+                }
             }
         }
 
+        if (firstFailure == null) {
+            return;
+        }
+
+        AzureCmdException error = firstFailure.getError();
+        String msg = String.format("Failed to %s %d of %d entities. The first failure is %s/%s:\n%s",
+                action, failureCount, results.size(),
+                firstFailure.getEntity().getPartitionKey(), firstFailure.getEntity().getRowKey(),
+                error.getCause() != null ? error.getCause().getMessage() : error.getMessage());
+        PluginUtil.displayErrorDialogAndLog(message("errTtl"), msg, error);
+    }
+
+    @NotNull
+    private String getConnectionString() {
+        if (connectionString == null) {
+            connectionString = StorageClientSDKManager.getConnectionString(azureStorageAccount);
+        }
+
+        return connectionString;
+    }
+
+    private TableEntity[] getSelectedEntities() {
+        if (tableModel == null) {
+            return null;
+        }
+
         ArrayList<TableEntity> selectedEntities = new ArrayList<TableEntity>();
 
         for (int i : entitiesTable.getSelectedRows()) {
-            for (TableEntity tableEntity : tableEntities) {
-                String partitionValue = entitiesTable.getValueAt(i, partitionIdIndex).toString();
-                String rowIdValue = entitiesTable.getValueAt(i, rowIdIndex).toString();
-
-                if (tableEntity.getPartitionKey().equals(partitionValue)
-                        && tableEntity.getRowKey().equals(rowIdValue)) {
-                    selectedEntities.add(tableEntity);
-                }
-            }
+            selectedEntities.add(tableModel.getEntity(entitiesTable.convertRowIndexToModel(i)));
         }
 
         return selectedEntities.toArray(new TableEntity[selectedEntities.size()]);
@@ -426,6 +583,11 @@ public class TableFileEditor implements FileEditor {
         this.storageAccount = storageAccount;
     }
 
+    public void setAzureStorageAccount(StorageAccount azureStorageAccount) {
+        this.azureStorageAccount = azureStorageAccount;
+        this.connectionString = null;
+    }
+
     public void setTable(Table table) {
         this.table = table;
         this.fileEditorVirtualNode.setName(table.getName());
@@ -88,8 +88,9 @@ public class WebAppRunState extends AzureRunProfileState<WebAppBase> {
         }
         webAppConfiguration.setTargetName(file.getName());
         WebAppBase deployTarget = getDeployTargetByConfiguration(processHandler);
+        // Redeploying to an existing app skips the artifact unchanged since the last deployment
         WebAppUtils.deployArtifactsToAppService(deployTarget, file,
-                webAppConfiguration.isDeployToRoot(), processHandler);
+                webAppConfiguration.isDeployToRoot(), !webAppSettingModel.isCreatingNew(), processHandler);
         return deployTarget;
     }
 
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.oidc.filter.configuration.authentication.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.microsoft.azure.oidc.filter.configuration.authentication.AuthenticationConfiguration;
+import com.microsoft.azure.oidc.filter.configuration.authentication.Route;
+
+/**
+ * Resolves request URIs against 500 authorisation patterns and 50 exclusion patterns, by the former linear regex
+ * scan, by the route trie and by the route trie with its URI cache. Run with
+ * {@code gradle jmh -PjmhIncludes=RouteMatcherBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteMatcherBenchmark {
+    private static final int AUTHORISATION_PATTERNS = 500;
+    private static final int EXCLUSION_PATTERNS = 50;
+
+    private AuthenticationConfiguration configuration;
+    private SimpleRouteMatcher routeMatcher;
+    private String[] uris;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final List<String> exclusionUriPatterns = new ArrayList<String>();
+        for (int i = 0; i < EXCLUSION_PATTERNS; i++) {
+            exclusionUriPatterns.add(i % 2 == 0 ? "/static/assets" + i + "/*" : "*.public" + i);
+        }
+        final List<String> authorisationUriPatterns = new ArrayList<String>();
+        final Map<String, List<String>> authorisationRoleMap = new HashMap<String, List<String>>();
+        for (int i = 0; i < AUTHORISATION_PATTERNS; i++) {
+            final String uriPattern;
+            switch (i % 4) {
+            case 0:
+                uriPattern = "/app/module" + i + "/*";
+                break;
+            case 1:
+                uriPattern = "/app/page" + i + ".jsp";
+                break;
+            case 2:
+                uriPattern = "/app/items" + i + "/*/edit";
+                break;
+            default:
+                uriPattern = "/api/v" + i + "/*";
+                break;
+            }
+            authorisationUriPatterns.add(uriPattern);
+            authorisationRoleMap.put(uriPattern, Arrays.asList("role" + i, "admins"));
+        }
+        configuration = new SimpleAuthenticationConfiguration(exclusionUriPatterns, authorisationUriPatterns,
+                authorisationRoleMap);
+        routeMatcher = (SimpleRouteMatcher) configuration.getRouteMatcher();
+        uris = new String[] { "/app/module" + (AUTHORISATION_PATTERNS - 4) + "/home", "/app/page1.jsp",
+                "/app/items" + (AUTHORISATION_PATTERNS - 2) + "/42/edit", "/api/v3/orders", "/static/assets10/app.js",
+                "/index.html", "/images/logo.public7", "/app/unprotected/page" };
+    }
+
+    @Benchmark
+    public Object linearScan() {
+        final String uriString = uris[ThreadLocalRandom.current().nextInt(uris.length)];
+        boolean excluded = false;
+        for (final Pattern pattern : configuration.getExclusionRegexPatternList()) {
+            if (pattern.matcher(uriString).matches()) {
+                excluded = true;
+                break;
+            }
+        }
+        int index = 0;
+        for (final String urlPattern : configuration.getAuthorisationUriPatternList()) {
+            final Pattern pattern = configuration.getAuthorisationRegexPatternList().get(index++);
+            if (pattern.matcher(uriString).matches()) {
+                return configuration.getAuthorisationRoleMap().get(urlPattern);
+            }
+        }
+        return excluded;
+    }
+
+    @Benchmark
+    public Route routeTrie() {
+        return routeMatcher.resolve(uris[ThreadLocalRandom.current().nextInt(uris.length)]);
+    }
+
+    @Benchmark
+    public Route cachedRoute() {
+        return routeMatcher.match(uris[ThreadLocalRandom.current().nextInt(uris.length)]);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.oidc.concurrent.cache.impl;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.microsoft.azure.oidc.concurrent.cache.ConcurrentCache;
+
+/**
+ * A TTL cache without locks, where every operation is O(1) amortized.
+ *
+ * All entries live for the same TTL from their insertion, so the insertion order is also the expiry order. The
+ * entries are queued in insertion order, the sweeper drains the expired ones from the head of the queue, and when
+ * the cache is over its max size the oldest ones are evicted from the head too. An entry removed from the map stays
+ * in the queue until it reaches the head, where it's dropped as stale.
+ */
+public final class LockFreeTTLConcurrentCache<K, V> implements ConcurrentCache<K, V> {
+    private static final long SWEEP_INTERVAL_SECONDS = 60;
+
+    private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "oidc-cache-sweeper");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private final ConcurrentMap<K, Node<K, V>> storeMap = new ConcurrentHashMap<K, Node<K, V>>();
+    private final Queue<Node<K, V>> insertionQueue = new ConcurrentLinkedQueue<Node<K, V>>();
+    private final long ttlNanos;
+    private final long maxSize;
+    private final ScheduledFuture<?> sweeping;
+
+    public LockFreeTTLConcurrentCache(final Long ttl, final Long maxSize) {
+        this.ttlNanos = TimeUnit.MINUTES.toNanos(ttl);
+        this.maxSize = maxSize;
+        this.sweeping = SWEEPER.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                sweep();
+            }
+        }, SWEEP_INTERVAL_SECONDS, SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public V get(final Object key) {
+        final Node<K, V> node = storeMap.get(key);
+        if (node == null) {
+            return null;
+        }
+        if (node.isExpired(System.nanoTime())) {
+            storeMap.remove(key, node);
+            return null;
+        }
+        return node.value;
+    }
+
+    @Override
+    public V putIfAbsent(final K key, final V value) {
+        final Node<K, V> node = new Node<K, V>(key, value, System.nanoTime() + ttlNanos);
+        while (true) {
+            final Node<K, V> existing = storeMap.putIfAbsent(key, node);
+            if (existing == null) {
+                break;
+            }
+            if (!existing.isExpired(System.nanoTime())) {
+                return existing.value;
+            }
+            // The expired one is as good as absent
+            if (storeMap.replace(key, existing, node)) {
+                break;
+            }
+        }
+        insertionQueue.offer(node);
+        evictOverflow();
+        return null;
+    }
+
+    @Override
+    public void shutdownNow() {
+        sweeping.cancel(false);
+    }
+
+    long size() {
+        return storeMap.size();
+    }
+
+    /**
+     * Remove the expired entries, which are all at the head of the queue.
+     */
+    void sweep() {
+        final long now = System.nanoTime();
+        Node<K, V> head;
+        while ((head = insertionQueue.peek()) != null && head.isExpired(now)) {
+            if (insertionQueue.remove(head)) {
+                storeMap.remove(head.key, head);
+            }
+        }
+    }
+
+    private void evictOverflow() {
+        while (storeMap.size() > maxSize) {
+            final Node<K, V> oldest = insertionQueue.poll();
+            if (oldest == null) {
+                return;
+            }
+            storeMap.remove(oldest.key, oldest);
+        }
+    }
+
+    private static final class Node<K, V> {
+        private final K key;
+        private final V value;
+        private final long expireAt;
+
+        private Node(final K key, final V value, final long expireAt) {
+            this.key = key;
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+
+        private boolean isExpired(final long now) {
+            return now - expireAt >= 0;
+        }
+    }
+}
@@ -22,6 +22,7 @@
 
 package com.microsoft.azure.oidc.configuration;
 
+import java.security.PublicKey;
 import java.util.List;
 import java.util.Map;
 
@@ -39,6 +40,8 @@ public interface Configuration {
 
     Key getKey(Name name);
 
+    PublicKey getPublicKey(Name name);
+
     Issuer getIssuer();
 
     EndPoint getAuthenticationEndPoint();
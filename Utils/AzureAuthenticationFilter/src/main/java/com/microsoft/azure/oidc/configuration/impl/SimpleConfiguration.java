@@ -22,9 +22,21 @@
 
 package com.microsoft.azure.oidc.configuration.impl;
 
+import java.math.BigInteger;
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.codec.binary.Base64;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.microsoft.azure.oidc.common.algorithm.Algorithm;
 import com.microsoft.azure.oidc.common.issuer.Issuer;
 import com.microsoft.azure.oidc.common.name.Name;
@@ -34,7 +46,11 @@ import com.microsoft.azure.oidc.configuration.key.Key;
 import com.microsoft.azure.oidc.exception.PreconditionException;
 
 final class SimpleConfiguration implements Configuration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SimpleConfiguration.class);
+    private static final String KEY_ALGORITHM = "RSA";
+
     private final Map<Name, Key> keys;
+    private final Map<Name, PublicKey> publicKeys;
     private final List<Algorithm> algorithms;
     private final Issuer issuer;
     private final EndPoint authenticationEndPoint;
@@ -51,6 +67,7 @@ final class SimpleConfiguration implements Configuration {
         }
         this.algorithms = algorithms;
         this.keys = keys;
+        this.publicKeys = createPublicKeys(keys);
         this.issuer = issuer;
         this.authenticationEndPoint = authenticationEndPoint;
         this.logoutEndPoint = logoutEndPoint;
@@ -76,6 +93,11 @@ final class SimpleConfiguration implements Configuration {
         return getKeys().get(name);
     }
 
+    @Override
+    public PublicKey getPublicKey(final Name name) {
+        return publicKeys.get(name);
+    }
+
     @Override
     public Issuer getIssuer() {
         return issuer;
@@ -85,4 +107,27 @@ final class SimpleConfiguration implements Configuration {
     public EndPoint getAuthenticationEndPoint() {
         return authenticationEndPoint;
     }
+
+    /**
+     * The public keys are built once per configuration load, so a key rotation builds them again.
+     */
+    private static Map<Name, PublicKey> createPublicKeys(final Map<Name, Key> keys) {
+        final Map<Name, PublicKey> result = new HashMap<Name, PublicKey>();
+        final Base64 decoder = new Base64();
+        try {
+            final KeyFactory keyFactory = KeyFactory.getInstance(KEY_ALGORITHM);
+            for (final Map.Entry<Name, Key> entry : keys.entrySet()) {
+                final BigInteger exponent = new BigInteger(1, decoder.decode(entry.getValue().getExponent().getValue()));
+                final BigInteger modulus = new BigInteger(1, decoder.decode(entry.getValue().getSecret().getValue()));
+                try {
+                    result.put(entry.getKey(), keyFactory.generatePublic(new RSAPublicKeySpec(modulus, exponent)));
+                } catch (InvalidKeySpecException e) {
+                    LOGGER.error(e.getMessage(), e);
+                }
+            }
+        } catch (NoSuchAlgorithmException e) {
+            LOGGER.error(e.getMessage(), e);
+        }
+        return Collections.unmodifiableMap(result);
+    }
 }
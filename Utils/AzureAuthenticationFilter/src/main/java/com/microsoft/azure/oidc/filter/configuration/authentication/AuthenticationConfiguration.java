@@ -38,4 +38,6 @@ public interface AuthenticationConfiguration {
 
     Map<String, List<String>> getAuthorisationRoleMap();
 
+    RouteMatcher getRouteMatcher();
+
 }
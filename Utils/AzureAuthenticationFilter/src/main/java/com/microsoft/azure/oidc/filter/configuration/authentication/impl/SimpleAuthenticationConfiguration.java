@@ -28,8 +28,11 @@ import java.util.Map;
 import java.util.regex.Pattern;
 
 import com.microsoft.azure.oidc.filter.configuration.authentication.AuthenticationConfiguration;
+import com.microsoft.azure.oidc.filter.configuration.authentication.RouteMatcher;
 
 final class SimpleAuthenticationConfiguration implements AuthenticationConfiguration {
+    private static final String FACES_RESOURCE_URI_PATTERN = "/javax.faces.resource/*";
+
     private List<String> exclusionUriPatternList;
     private List<String> authorisationUriPatternList;
     private Map<String, List<String>> authorisationRoleMap;
@@ -37,18 +40,21 @@ final class SimpleAuthenticationConfiguration implements AuthenticationConfigura
     private List<Pattern> exclusionRegexPatternList;
     private List<Pattern> authorisationRegexPatternList;
 
+    private RouteMatcher routeMatcher;
+
     public SimpleAuthenticationConfiguration(final List<String> exclusionUriPatternList,
             final List<String> authorisationUriPatternList, final Map<String, List<String>> authorisationRoleMap) {
         setExclusionUriPatternList(exclusionUriPatternList);
         setAuthorisationUriPatternList(authorisationUriPatternList);
         setAuthorisationRoleMap(authorisationRoleMap);
+        setRouteMatcher();
     }
 
     private void setExclusionUriPatternList(List<String> exclusionUriPatternList) {
         this.exclusionUriPatternList = exclusionUriPatternList;
         exclusionRegexPatternList = new ArrayList<Pattern>();
         exclusionRegexPatternList.add(Pattern.compile(
-                "/javax.faces.resource/*".replaceAll("([^a-zA-Z0-9\\*])", "\\\\$1").replaceAll("\\*", "(\\.\\*)")));
+                FACES_RESOURCE_URI_PATTERN.replaceAll("([^a-zA-Z0-9\\*])", "\\\\$1").replaceAll("\\*", "(\\.\\*)")));
         if (exclusionRegexPatternList == null) {
             return;
         }
@@ -92,6 +98,18 @@ final class SimpleAuthenticationConfiguration implements AuthenticationConfigura
         this.authorisationRoleMap = authorisationRoleMap;
     }
 
+    private void setRouteMatcher() {
+        final List<String> exclusionUriPatterns = new ArrayList<String>();
+        exclusionUriPatterns.add(FACES_RESOURCE_URI_PATTERN);
+        if (exclusionUriPatternList != null) {
+            exclusionUriPatterns.addAll(exclusionUriPatternList);
+        }
+        final List<String> authorisationUriPatterns = authorisationUriPatternList == null ? new ArrayList<String>()
+                : authorisationUriPatternList;
+        routeMatcher = new SimpleRouteMatcher(exclusionUriPatterns, exclusionRegexPatternList,
+                authorisationUriPatterns, authorisationRegexPatternList, authorisationRoleMap);
+    }
+
     @Override
     public List<String> getExclusionUriPatternList() {
         return exclusionUriPatternList;
@@ -116,4 +134,9 @@ final class SimpleAuthenticationConfiguration implements AuthenticationConfigura
     public Map<String, List<String>> getAuthorisationRoleMap() {
         return authorisationRoleMap;
     }
+
+    @Override
+    public RouteMatcher getRouteMatcher() {
+        return routeMatcher;
+    }
 }
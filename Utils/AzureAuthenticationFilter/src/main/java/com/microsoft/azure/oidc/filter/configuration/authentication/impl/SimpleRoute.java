@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.oidc.filter.configuration.authentication.impl;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.microsoft.azure.oidc.filter.configuration.authentication.Route;
+
+final class SimpleRoute implements Route {
+    private final Boolean excluded;
+    private final String authorisationUriPattern;
+    private final List<String> roles;
+
+    SimpleRoute(final Boolean excluded, final String authorisationUriPattern, final List<String> roles) {
+        this.excluded = excluded;
+        this.authorisationUriPattern = authorisationUriPattern;
+        this.roles = roles == null ? Collections.<String>emptyList() : Collections.unmodifiableList(roles);
+    }
+
+    @Override
+    public Boolean isExcluded() {
+        return excluded;
+    }
+
+    @Override
+    public String getAuthorisationUriPattern() {
+        return authorisationUriPattern;
+    }
+
+    @Override
+    public List<String> getRoles() {
+        return roles;
+    }
+}
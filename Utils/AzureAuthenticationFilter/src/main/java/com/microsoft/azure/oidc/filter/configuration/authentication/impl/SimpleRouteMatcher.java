@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.oidc.filter.configuration.authentication.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+import com.microsoft.azure.oidc.filter.configuration.authentication.Route;
+import com.microsoft.azure.oidc.filter.configuration.authentication.RouteMatcher;
+
+/**
+ * Matches a URI against all the exclusion and authorisation patterns in one walk of a trie built from their literal
+ * prefixes.
+ *
+ * A pattern is attached to the trie node of the text before its first wildcard. Walking the URI down the trie only
+ * visits the patterns whose prefix the URI starts with. Of those, a pattern ending with its only wildcard matches
+ * already and a pattern without a wildcard matches if the URI ends at its node, only the others are checked by their
+ * regex. The first authorisation pattern in the configuration order wins, as in the linear scan. The routes are
+ * cached per URI.
+ */
+final class SimpleRouteMatcher implements RouteMatcher {
+    private static final int MAX_CACHED_ROUTES = 10000;
+
+    private final Node root = new Node();
+    private final Map<String, List<String>> authorisationRoleMap;
+    private final ConcurrentMap<String, Route> routeCache = new ConcurrentHashMap<String, Route>();
+
+    SimpleRouteMatcher(final List<String> exclusionUriPatterns, final List<Pattern> exclusionRegexPatterns,
+            final List<String> authorisationUriPatterns, final List<Pattern> authorisationRegexPatterns,
+            final Map<String, List<String>> authorisationRoleMap) {
+        this.authorisationRoleMap = authorisationRoleMap;
+        for (int index = 0; index < exclusionUriPatterns.size(); index++) {
+            add(new Rule(true, index, exclusionUriPatterns.get(index), exclusionRegexPatterns.get(index)));
+        }
+        for (int index = 0; index < authorisationUriPatterns.size(); index++) {
+            add(new Rule(false, index, authorisationUriPatterns.get(index), authorisationRegexPatterns.get(index)));
+        }
+    }
+
+    @Override
+    public Route match(final String uriString) {
+        final Route cached = routeCache.get(uriString);
+        if (cached != null) {
+            return cached;
+        }
+        final Route route = resolve(uriString);
+        if (routeCache.size() >= MAX_CACHED_ROUTES) {
+            routeCache.clear();
+        }
+        routeCache.putIfAbsent(uriString, route);
+        return route;
+    }
+
+    Route resolve(final String uriString) {
+        final Walk walk = new Walk(uriString);
+        Node node = root;
+        for (int position = 0; node != null; position++) {
+            final boolean isEnd = position == uriString.length();
+            node.collect(walk, isEnd);
+            if (isEnd) {
+                break;
+            }
+            node = node.children.get(uriString.charAt(position));
+        }
+        if (walk.authorisation == null) {
+            return new SimpleRoute(walk.excluded, null, null);
+        }
+        final String uriPattern = walk.authorisation.uriPattern;
+        return new SimpleRoute(walk.excluded, uriPattern, authorisationRoleMap.get(uriPattern));
+    }
+
+    private void add(final Rule rule) {
+        final String literal = rule.uriPattern.trim();
+        final int wildcard = literal.indexOf('*');
+        final String prefix = wildcard < 0 ? literal : literal.substring(0, wildcard);
+        Node node = root;
+        for (int position = 0; position < prefix.length(); position++) {
+            Node child = node.children.get(prefix.charAt(position));
+            if (child == null) {
+                child = new Node();
+                node.children.put(prefix.charAt(position), child);
+            }
+            node = child;
+        }
+        if (wildcard < 0) {
+            node.exactRules.add(rule);
+        } else if (wildcard == literal.length() - 1) {
+            node.prefixRules.add(rule);
+        } else {
+            node.regexRules.add(rule);
+        }
+    }
+
+    private static final class Rule {
+        private final boolean exclusion;
+        private final int index;
+        private final String uriPattern;
+        private final Pattern regexPattern;
+
+        private Rule(final boolean exclusion, final int index, final String uriPattern, final Pattern regexPattern) {
+            this.exclusion = exclusion;
+            this.index = index;
+            this.uriPattern = uriPattern;
+            this.regexPattern = regexPattern;
+        }
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<Character, Node>();
+        private final List<Rule> prefixRules = new ArrayList<Rule>();
+        private final List<Rule> exactRules = new ArrayList<Rule>();
+        private final List<Rule> regexRules = new ArrayList<Rule>();
+
+        private void collect(final Walk walk, final boolean isEnd) {
+            for (final Rule rule : prefixRules) {
+                walk.matched(rule);
+            }
+            if (isEnd) {
+                for (final Rule rule : exactRules) {
+                    walk.matched(rule);
+                }
+            }
+            for (final Rule rule : regexRules) {
+                if (walk.isWanted(rule) && rule.regexPattern.matcher(walk.uriString).matches()) {
+                    walk.matched(rule);
+                }
+            }
+        }
+    }
+
+    private static final class Walk {
+        private final String uriString;
+        private boolean excluded = false;
+        private Rule authorisation;
+
+        private Walk(final String uriString) {
+            this.uriString = uriString;
+        }
+
+        private boolean isWanted(final Rule rule) {
+            if (rule.exclusion) {
+                return !excluded;
+            }
+            return authorisation == null || rule.index < authorisation.index;
+        }
+
+        private void matched(final Rule rule) {
+            if (rule.exclusion) {
+                excluded = true;
+            } else if (authorisation == null || rule.index < authorisation.index) {
+                authorisation = rule;
+            }
+        }
+    }
+}
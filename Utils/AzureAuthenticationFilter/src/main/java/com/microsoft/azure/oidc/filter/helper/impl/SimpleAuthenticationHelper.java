@@ -26,8 +26,6 @@ import java.io.IOException;
 import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -55,6 +53,7 @@ import com.microsoft.azure.oidc.configuration.impl.SimpleConfigurationCache;
 import com.microsoft.azure.oidc.exception.GeneralException;
 import com.microsoft.azure.oidc.exception.PreconditionException;
 import com.microsoft.azure.oidc.filter.configuration.authentication.AuthenticationConfigurationService;
+import com.microsoft.azure.oidc.filter.configuration.authentication.Route;
 import com.microsoft.azure.oidc.filter.configuration.authentication.impl.SimpleAuthenticationConfigurationService;
 import com.microsoft.azure.oidc.filter.helper.AuthenticationHelper;
 import com.microsoft.azure.oidc.filter.request.impl.AuthenticationRequestWrapper;
@@ -219,25 +218,26 @@ public final class SimpleAuthenticationHelper implements AuthenticationHelper {
     }
 
     private Boolean isExcluded(final HttpServletRequest httpRequest) {
-        String uriString = null;
-        final Boolean isRootContext = "".equals(httpRequest.getContextPath());
-        if (isRootContext) {
-            uriString = httpRequest.getRequestURI();
-        } else {
-            final int length = httpRequest.getRequestURI().length();
-            uriString = httpRequest.getRequestURI().substring(length);
+        return getRoute(httpRequest).isExcluded();
+    }
+
+    private Boolean isAuthorised(final HttpServletRequest httpRequest, final Token token) {
+        final Route route = getRoute(httpRequest);
+        final Boolean isUnprotected = route.getAuthorisationUriPattern() == null;
+        if (isUnprotected) {
+            return Boolean.TRUE;
         }
-        for (final Pattern pattern : authenticationConfigurationService.get().getExclusionRegexPatternList()) {
-            final Matcher matcher = pattern.matcher(uriString);
-            final Boolean isMatchFound = matcher.matches();
-            if (isMatchFound) {
+        final HttpServletRequest authRequest = getAuthenticationWrapper(httpRequest, token);
+        for (final String roleName : route.getRoles()) {
+            final Boolean isUserInRole = authRequest.isUserInRole(roleName);
+            if (isUserInRole) {
                 return Boolean.TRUE;
             }
         }
         return Boolean.FALSE;
     }
 
-    private Boolean isAuthorised(final HttpServletRequest httpRequest, final Token token) {
+    private Route getRoute(final HttpServletRequest httpRequest) {
         String uriString = null;
         final Boolean isRootContext = "".equals(httpRequest.getContextPath());
         if (isRootContext) {
@@ -246,25 +246,7 @@ public final class SimpleAuthenticationHelper implements AuthenticationHelper {
             final int length = httpRequest.getRequestURI().length();
             uriString = httpRequest.getRequestURI().substring(length);
         }
-        int index = 0;
-        for (final String urlPattern : authenticationConfigurationService.get().getAuthorisationUriPatternList()) {
-            final Pattern pattern = authenticationConfigurationService.get().getAuthorisationRegexPatternList()
-                    .get(index++);
-            final Matcher matcher = pattern.matcher(uriString);
-            final Boolean isMatchFound = matcher.matches();
-            if (isMatchFound) {
-                final HttpServletRequest authRequest = getAuthenticationWrapper(httpRequest, token);
-                for (final String roleName : authenticationConfigurationService.get().getAuthorisationRoleMap()
-                        .get(urlPattern)) {
-                    final Boolean isUserInRole = authRequest.isUserInRole(roleName);
-                    if (isUserInRole) {
-                        return Boolean.TRUE;
-                    }
-                }
-                return Boolean.FALSE;
-            }
-        }
-        return Boolean.TRUE;
+        return authenticationConfigurationService.get().getRouteMatcher().match(uriString);
     }
 
     private String addCookie(final HttpServletRequest httpRequest, final HttpServletResponse httpResponse,
@@ -23,6 +23,7 @@
 package com.microsoft.azure.oidc.filter.impl;
 
 import java.io.IOException;
+import java.security.PublicKey;
 
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
@@ -111,6 +112,7 @@ public final class SimpleAuthenticationFilter implements Filter {
                     Long.parseLong(securityCacheSizeString));
         }
         concurrentCacheService.createCache(Configuration.class, "configurationCache", 60L, 1L);
+        concurrentCacheService.createCache(PublicKey.class, "signatureCache", 60L, 10000L);
         authenticationConfigurationService.initialise(filterConfig, AUTHENTICATION_CONFIGURATION);
         algorithmConfigurationService.initialise(filterConfig, ALGORITHM_CONFIGURATION);
     }
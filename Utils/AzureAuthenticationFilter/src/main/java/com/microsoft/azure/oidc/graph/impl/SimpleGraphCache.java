@@ -22,35 +22,78 @@
 
 package com.microsoft.azure.oidc.graph.impl;
 
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.microsoft.azure.oidc.concurrent.cache.ConcurrentCache;
 import com.microsoft.azure.oidc.concurrent.cache.ConcurrentCacheService;
 import com.microsoft.azure.oidc.concurrent.cache.impl.SimpleConcurrentCacheService;
+import com.microsoft.azure.oidc.filter.configuration.authentication.AuthenticationConfiguration;
+import com.microsoft.azure.oidc.filter.configuration.authentication.AuthenticationConfigurationService;
+import com.microsoft.azure.oidc.filter.configuration.authentication.impl.SimpleAuthenticationConfigurationService;
 import com.microsoft.azure.oidc.future.FutureHelper;
 import com.microsoft.azure.oidc.future.impl.SimpleFutureHelper;
 import com.microsoft.azure.oidc.graph.GraphCache;
 import com.microsoft.azure.oidc.graph.GraphService;
 
+/**
+ * On a miss, the user is checked against all the roles of the authorisation configuration in one go, and both the
+ * positive and negative results are cached. A failed check isn't cached.
+ */
 public class SimpleGraphCache implements GraphCache {
     private static final GraphCache INSTANCE = new SimpleGraphCache();
 
-    private final GraphService springGraphService = SimpleGraphService.getInstance();
+    private final GraphService springGraphService;
 
     private final FutureHelper futureHelper = SimpleFutureHelper.getInstance();
 
     private final ConcurrentCacheService concurrentCacheService = SimpleConcurrentCacheService.getInstance();
 
+    private final AuthenticationConfigurationService authenticationConfigurationService = SimpleAuthenticationConfigurationService
+            .getInstance();
+
+    private SimpleGraphCache() {
+        this(SimpleGraphService.getInstance());
+    }
+
+    SimpleGraphCache(final GraphService graphService) {
+        this.springGraphService = graphService;
+    }
+
     @Override
     public Boolean isUserInRole(String userID, String role) {
-        final String key = String.format("%s:%s", userID, role);
-        final Boolean entry = concurrentCacheService.getCache(Boolean.class, "roleCache").get(key);
+        final ConcurrentCache<String, Boolean> roleCache = concurrentCacheService.getCache(Boolean.class, "roleCache");
+        final Boolean entry = roleCache.get(getKey(userID, role));
         if (entry != null) {
             return entry;
         }
-        final Boolean result = futureHelper.getResult(springGraphService.isUserInRoleAsync(userID, role));
+        final Set<String> roles = getConfiguredRoles();
+        roles.add(role);
+        final Map<String, Boolean> result = futureHelper.getResult(springGraphService.getUserRolesAsync(userID, roles));
         if (result == null) {
-            return result;
+            return Boolean.FALSE;
         }
-        concurrentCacheService.getCache(Boolean.class, "roleCache").putIfAbsent(key, result);
-        return result;
+        for (final Map.Entry<String, Boolean> roleEntry : result.entrySet()) {
+            roleCache.putIfAbsent(getKey(userID, roleEntry.getKey()), roleEntry.getValue());
+        }
+        return result.get(role);
+    }
+
+    private Set<String> getConfiguredRoles() {
+        final Set<String> roles = new LinkedHashSet<String>();
+        final AuthenticationConfiguration authenticationConfiguration = authenticationConfigurationService.get();
+        if (authenticationConfiguration != null && authenticationConfiguration.getAuthorisationRoleMap() != null) {
+            for (final List<String> patternRoles : authenticationConfiguration.getAuthorisationRoleMap().values()) {
+                roles.addAll(patternRoles);
+            }
+        }
+        return roles;
+    }
+
+    private static String getKey(final String userID, final String role) {
+        return String.format("%s:%s", userID, role);
     }
 
     public static GraphCache getInstance() {
@@ -25,20 +25,36 @@ package com.microsoft.azure.oidc.graph.impl;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-
-import javax.net.ssl.HttpsURLConnection;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.microsoft.azure.oidc.application.settings.ApplicationSettings;
 import com.microsoft.azure.oidc.application.settings.ApplicationSettingsLoader;
 import com.microsoft.azure.oidc.application.settings.Secret;
@@ -48,133 +64,206 @@ import com.microsoft.azure.oidc.common.id.ID;
 import com.microsoft.azure.oidc.exception.GeneralException;
 import com.microsoft.azure.oidc.graph.GraphService;
 
+/**
+ * Resolves the user roles as AAD group memberships through the Graph API.
+ *
+ * The client credentials bearer token is kept until shortly before it expires, and the group IDs found by display
+ * name (or not found) are kept for a while. The memberships of all the asked roles are checked by one
+ * checkMemberGroups call per 20 groups. The endpoints and settings can be pointed at a local stub for testing.
+ */
 public final class SimpleGraphService implements GraphService {
-    private static final GraphService INSTANCE = new SimpleGraphService();
+    private static final GraphService INSTANCE = new SimpleGraphService("https://graph.windows.net",
+            "https://login.microsoftonline.com", SimpleApplicationSettingsLoader.getInstance());
     private static final Logger LOGGER = LoggerFactory.getLogger(SimpleGraphService.class);
+    private static final String API_VERSION = "api-version=1.6";
+    private static final int MAX_GROUPS_PER_CHECK = 20;
+    private static final int MAX_GROUPS_PER_LOOKUP = 10;
+    private static final int MAX_THREADS = 8;
+    private static final long TOKEN_REFRESH_MARGIN_MS = TimeUnit.MINUTES.toMillis(5);
+    private static final long GROUP_ID_TTL_MS = TimeUnit.MINUTES.toMillis(30);
+
+    private static final ExecutorService EXECUTOR_SERVICE = Executors.newFixedThreadPool(MAX_THREADS,
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "oidc-graph");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private final ApplicationSettingsLoader applicationSettingsLoader;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final ConcurrentMap<String, GroupID> groupIDs = new ConcurrentHashMap<String, GroupID>();
 
-    private final ApplicationSettingsLoader applicationSettingsLoader = SimpleApplicationSettingsLoader.getInstance();
+    private final String graphEndPoint;
+
+    private final String loginEndPoint;
+
+    private BearerToken bearerToken;
+
+    SimpleGraphService(final String graphEndPoint, final String loginEndPoint,
+            final ApplicationSettingsLoader applicationSettingsLoader) {
+        this.graphEndPoint = graphEndPoint;
+        this.loginEndPoint = loginEndPoint;
+        this.applicationSettingsLoader = applicationSettingsLoader;
+    }
 
     @Override
     public Future<Boolean> isUserInRoleAsync(final String userID, final String role) {
-        final ExecutorService executorService = Executors.newSingleThreadExecutor();
-        final Future<Boolean> future = executorService.submit(new Callable<Boolean>() {
+        return EXECUTOR_SERVICE.submit(new Callable<Boolean>() {
             public Boolean call() throws Exception {
-                return isUserInRole(userID, role);
+                final Map<String, Boolean> roles = getUserRoles(userID, Collections.singleton(role));
+                return roles == null ? Boolean.FALSE : roles.get(role);
             }
         });
-        executorService.shutdown();
-        return future;
     }
 
-    private Boolean isUserInRole(final String userID, final String role) {
+    @Override
+    public Future<Map<String, Boolean>> getUserRolesAsync(final String userID, final Collection<String> roles) {
+        return EXECUTOR_SERVICE.submit(new Callable<Map<String, Boolean>>() {
+            public Map<String, Boolean> call() throws Exception {
+                return getUserRoles(userID, roles);
+            }
+        });
+    }
+
+    /**
+     * Get whether the user is in each of the roles, or null if Graph can't be reached.
+     */
+    Map<String, Boolean> getUserRoles(final String userID, final Collection<String> roles) {
         try {
             final ApplicationSettings applicationSettings = applicationSettingsLoader.load();
-            final String bearerToken = getBearerToken(applicationSettings.getTenant(),
-                    applicationSettings.getPrincipalId(), applicationSettings.getPrincipalSecret());
-            final String roleID = getGroupID(applicationSettings.getTenant(), role, bearerToken);
-            if (roleID == null) {
-                return Boolean.FALSE;
+            final Tenant tenant = applicationSettings.getTenant();
+            final String token = getBearerToken(tenant, applicationSettings.getPrincipalId(),
+                    applicationSettings.getPrincipalSecret());
+            if (token == null) {
+                return null;
+            }
+            final Map<String, String> roleIDs = getGroupIDs(tenant, roles, token);
+            if (roleIDs == null) {
+                return null;
+            }
+            final Set<String> memberGroupIDs = getMemberGroupIDs(tenant, userID,
+                    new HashSet<String>(roleIDs.values()), token);
+            if (memberGroupIDs == null) {
+                return null;
+            }
+            final Map<String, Boolean> result = new HashMap<String, Boolean>();
+            for (final String role : roles) {
+                final String roleID = roleIDs.get(role);
+                result.put(role, roleID != null && memberGroupIDs.contains(roleID));
             }
-            return isUserInGroup(applicationSettings.getTenant(), userID, roleID, bearerToken);
+            return result;
         } catch (GeneralException e) {
             LOGGER.error("General Exception", e);
-            return Boolean.FALSE;
+            return null;
         } catch (RuntimeException e) {
             LOGGER.error(e.getMessage(), e);
-            return Boolean.FALSE;
+            return null;
         }
     }
 
-    private Boolean isUserInGroup(final Tenant tenant, final String userID, final String groupID,
+    private Set<String> getMemberGroupIDs(final Tenant tenant, final String userID, final Set<String> groupIDs,
             final String bearerToken) {
+        final Set<String> result = new HashSet<String>();
+        final List<String> pending = new ArrayList<String>(groupIDs);
         try {
-            final String urlString = String.format("https://graph.windows.net/%s/isMemberOf?api-version=1.6",
-                    tenant.getName());
-            final String payload = String.format("{\"groupId\":\"%s\",\"memberId\":\"%s\"}", groupID, userID);
-            final URL url = new URL(urlString);
-            final HttpsURLConnection connection = (HttpsURLConnection) url.openConnection();
-            connection.setRequestProperty("Host", "graph.windows.net");
-            connection.setRequestProperty("Content-Type", "application/json");
-            connection.setRequestProperty("Accept", "application/json");
-            connection.setRequestProperty("Authorization", "Bearer " + bearerToken);
-            connection.setRequestMethod("POST");
-            connection.setDoOutput(true);
-            connection.getOutputStream().write(payload.getBytes());
-            connection.getOutputStream().flush();
-            final StringBuilder result = new StringBuilder();
-            try (final BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
-                for (String line = in.readLine(); line != null; line = in.readLine()) {
-                    result.append(line);
+            for (int from = 0; from < pending.size(); from += MAX_GROUPS_PER_CHECK) {
+                final ObjectNode payload = mapper.createObjectNode();
+                final ArrayNode ids = payload.putArray("groupIds");
+                for (final String groupID : pending.subList(from, Math.min(from + MAX_GROUPS_PER_CHECK, pending.size()))) {
+                    ids.add(groupID);
+                }
+                final String urlString = String.format("%s/%s/users/%s/checkMemberGroups?%s", graphEndPoint,
+                        tenant.getName(), URLEncoder.encode(userID, "UTF-8"), API_VERSION);
+                final JsonNode node = request(urlString, "POST", "application/json",
+                        mapper.writeValueAsString(payload), bearerToken);
+                for (final JsonNode memberGroupNode : node.get("value")) {
+                    result.add(memberGroupNode.asText());
                 }
             }
-            final ObjectMapper mapper = new ObjectMapper();
-            final JsonNode node = mapper.readValue(result.toString().getBytes(), JsonNode.class);
-            return node.get("value").asBoolean();
+            return result;
         } catch (IOException e) {
             LOGGER.error("IO Exception", e);
-            return Boolean.FALSE;
-        } catch (RuntimeException e) {
-            LOGGER.error(e.getMessage(), e);
-            return Boolean.FALSE;
+            return null;
         }
     }
 
-    private String getGroupID(final Tenant tenant, final String group, final String bearerToken) {
-        try {
-            final String urlString = String.format(
-                    "https://graph.windows.net/%s/groups?$filter=displayName%%20eq%%20'%s'&api-version=1.6",
-                    tenant.getName(), URLEncoder.encode(group, "UTF-8"));
-            final URL url = new URL(urlString);
-            final HttpsURLConnection connection = (HttpsURLConnection) url.openConnection();
-            connection.setRequestProperty("Host", "graph.windows.net");
-            connection.setRequestProperty("Accept", "application/json");
-            connection.setRequestProperty("Authorization", "Bearer " + bearerToken);
-            final StringBuilder result = new StringBuilder();
-            try (final BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
-                for (String line = in.readLine(); line != null; line = in.readLine()) {
-                    result.append(line);
+    /**
+     * Map the group names to their object IDs, the names not found are left out.
+     */
+    private Map<String, String> getGroupIDs(final Tenant tenant, final Collection<String> groups,
+            final String bearerToken) {
+        final long now = System.currentTimeMillis();
+        final Map<String, String> result = new HashMap<String, String>();
+        final List<String> pending = new ArrayList<String>();
+        for (final String group : new LinkedHashSet<String>(groups)) {
+            final GroupID cached = groupIDs.get(group.toLowerCase(Locale.ROOT));
+            if (cached != null && cached.expireAt > now) {
+                if (cached.value != null) {
+                    result.put(group, cached.value);
                 }
+            } else {
+                pending.add(group);
             }
-            final ObjectMapper mapper = new ObjectMapper();
-            final JsonNode node = mapper.readValue(result.toString().getBytes(), JsonNode.class);
-            for (final JsonNode groupNode : node.get("value")) {
-                return groupNode.get("objectId").asText();
+        }
+        try {
+            for (int from = 0; from < pending.size(); from += MAX_GROUPS_PER_LOOKUP) {
+                final List<String> batch = pending.subList(from, Math.min(from + MAX_GROUPS_PER_LOOKUP, pending.size()));
+                final StringBuilder filter = new StringBuilder();
+                for (final String group : batch) {
+                    if (filter.length() > 0) {
+                        filter.append(" or ");
+                    }
+                    filter.append("displayName eq '").append(group.replace("'", "''")).append("'");
+                }
+                final String urlString = String.format("%s/%s/groups?$filter=%s&%s", graphEndPoint, tenant.getName(),
+                        URLEncoder.encode(filter.toString(), "UTF-8").replace("+", "%20"), API_VERSION);
+                final JsonNode node = request(urlString, "GET", null, null, bearerToken);
+                final Map<String, String> found = new HashMap<String, String>();
+                for (final JsonNode groupNode : node.get("value")) {
+                    final String name = groupNode.get("displayName").asText().toLowerCase(Locale.ROOT);
+                    if (!found.containsKey(name)) {
+                        found.put(name, groupNode.get("objectId").asText());
+                    }
+                }
+                final long expireAt = System.currentTimeMillis() + GROUP_ID_TTL_MS;
+                for (final String group : batch) {
+                    final String name = group.toLowerCase(Locale.ROOT);
+                    final String groupID = found.get(name);
+                    groupIDs.put(name, new GroupID(groupID, expireAt));
+                    if (groupID != null) {
+                        result.put(group, groupID);
+                    }
+                }
             }
-            return null;
+            return result;
         } catch (IOException e) {
             LOGGER.error("IO Exception", e);
             return null;
-        } catch (RuntimeException e) {
-            LOGGER.error(e.getMessage(), e);
-            return null;
         }
     }
 
-    private String getBearerToken(final Tenant tenant, final ID principal, final Secret secret) {
+    private synchronized String getBearerToken(final Tenant tenant, final ID principal, final Secret secret) {
+        if (bearerToken != null && bearerToken.expireAt - TOKEN_REFRESH_MARGIN_MS > System.currentTimeMillis()) {
+            return bearerToken.value;
+        }
         try {
             final String payload = String.format(
                     "grant_type=client_credentials&client_id=%s&client_secret=%s&resource=%s", principal.getValue(),
                     URLEncoder.encode(secret.getValue(), "UTF-8"),
                     URLEncoder.encode("https://graph.windows.net", "UTF-8"));
-            final URL url = new URL(
-                    String.format("https://login.microsoftonline.com/%s/oauth2/token", tenant.getName()));
-            final HttpsURLConnection connection = (HttpsURLConnection) url.openConnection();
-            connection.setRequestMethod("POST");
-            connection.setRequestProperty("Host", "login.microsoftonline.com");
-            connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
-            connection.setRequestProperty("Accept", "application/json");
-            connection.setDoOutput(true);
-            connection.getOutputStream().write(payload.getBytes());
-            connection.getOutputStream().flush();
-            final StringBuilder result = new StringBuilder();
-            try (final BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
-                for (String line = in.readLine(); line != null; line = in.readLine()) {
-                    result.append(line);
-                }
-            }
-            final ObjectMapper mapper = new ObjectMapper();
-            final JsonNode node = mapper.readValue(result.toString().getBytes(), JsonNode.class);
-            return node.get("access_token").asText();
+            final String urlString = String.format("%s/%s/oauth2/token", loginEndPoint, tenant.getName());
+            final long requestedAt = System.currentTimeMillis();
+            final JsonNode node = request(urlString, "POST", "application/x-www-form-urlencoded", payload, null);
+            final JsonNode expiresIn = node.get("expires_in");
+            final long expireAt = requestedAt
+                    + (expiresIn == null ? 0 : TimeUnit.SECONDS.toMillis(expiresIn.asLong()));
+            bearerToken = new BearerToken(node.get("access_token").asText(), expireAt);
+            return bearerToken.value;
         } catch (IOException e) {
             LOGGER.error("IO Exception", e);
             return null;
@@ -184,6 +273,52 @@ public final class SimpleGraphService implements GraphService {
         }
     }
 
+    private JsonNode request(final String urlString, final String method, final String contentType,
+            final String payload, final String bearerToken) throws IOException {
+        final URL url = new URL(urlString);
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        connection.setRequestProperty("Accept", "application/json");
+        if (bearerToken != null) {
+            connection.setRequestProperty("Authorization", "Bearer " + bearerToken);
+        }
+        if (payload != null) {
+            connection.setRequestProperty("Content-Type", contentType);
+            connection.setDoOutput(true);
+            try (final OutputStream out = connection.getOutputStream()) {
+                out.write(payload.getBytes("UTF-8"));
+            }
+        }
+        final StringBuilder result = new StringBuilder();
+        try (final BufferedReader in = new BufferedReader(
+                new InputStreamReader(connection.getInputStream(), "UTF-8"))) {
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                result.append(line);
+            }
+        }
+        return mapper.readValue(result.toString(), JsonNode.class);
+    }
+
+    private static final class BearerToken {
+        private final String value;
+        private final long expireAt;
+
+        private BearerToken(final String value, final long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+
+    private static final class GroupID {
+        private final String value;
+        private final long expireAt;
+
+        private GroupID(final String value, final long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+
     public static GraphService getInstance() {
         return INSTANCE;
     }
@@ -22,15 +22,13 @@
 
 package com.microsoft.azure.oidc.token.impl;
 
-import java.math.BigInteger;
 import java.security.InvalidKeyException;
-import java.security.KeyFactory;
 import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
 import java.security.Signature;
 import java.security.SignatureException;
-import java.security.spec.InvalidKeySpecException;
-import java.security.spec.RSAPublicKeySpec;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.apache.commons.codec.binary.Base64;
 import org.slf4j.Logger;
@@ -42,11 +40,16 @@ import com.microsoft.azure.oidc.application.settings.impl.SimpleApplicationSetti
 import com.microsoft.azure.oidc.common.timestamp.TimeStamp;
 import com.microsoft.azure.oidc.common.timestamp.TimeStampFactory;
 import com.microsoft.azure.oidc.common.timestamp.impl.SimpleTimeStampFactory;
+import com.microsoft.azure.oidc.concurrent.cache.ConcurrentCache;
+import com.microsoft.azure.oidc.concurrent.cache.ConcurrentCacheService;
+import com.microsoft.azure.oidc.concurrent.cache.impl.SimpleConcurrentCacheService;
 import com.microsoft.azure.oidc.configuration.Configuration;
 import com.microsoft.azure.oidc.configuration.ConfigurationCache;
 import com.microsoft.azure.oidc.configuration.impl.SimpleConfigurationCache;
+import com.microsoft.azure.oidc.configuration.key.Key;
 import com.microsoft.azure.oidc.exception.GeneralException;
 import com.microsoft.azure.oidc.exception.PreconditionException;
+import com.microsoft.azure.oidc.filter.configuration.algorithm.AlgorithmConfiguration;
 import com.microsoft.azure.oidc.filter.configuration.algorithm.AlgorithmConfigurationService;
 import com.microsoft.azure.oidc.filter.configuration.algorithm.impl.SimpleAlgorithmConfigurationService;
 import com.microsoft.azure.oidc.token.Token;
@@ -64,41 +67,61 @@ public class SimpleTokenValidator implements TokenValidator {
 
     private final AlgorithmConfigurationService algorithmConfigurationService = SimpleAlgorithmConfigurationService.getInstance();
 
+    private final ConcurrentCacheService concurrentCacheService = SimpleConcurrentCacheService.getInstance();
+
+    private final ThreadLocal<Map<String, Signature>> signatures = new ThreadLocal<Map<String, Signature>>() {
+        @Override
+        protected Map<String, Signature> initialValue() {
+            return new HashMap<String, Signature>();
+        }
+    };
+
     @Override
     public Boolean validateSignature(final Token token) {
         if (token == null) {
             throw new PreconditionException("Required parameter is null");
         }
-        if (algorithmConfigurationService.get().getAlgorithmClassMap().get(token.getAlgorithm().getName()).equals("HMAC")) {
+        final String algorithmName = token.getAlgorithm().getName();
+        final AlgorithmConfiguration algorithmConfiguration = algorithmConfigurationService.get();
+        final String algorithmClass = algorithmConfiguration.getAlgorithmClassMap().get(algorithmName);
+        if (algorithmClass.equals("HMAC")) {
             return Boolean.FALSE;
         }
         final Configuration configuration = configurationCache.load();
         if (configuration == null) {
             throw new GeneralException("Error loading configuration");
         }
+        final Key key = configuration.getKey(token.getKeyName());
+        final PublicKey publicKey = configuration.getPublicKey(token.getKeyName());
+        if (key == null || publicKey == null || !algorithmClass.equals(publicKey.getAlgorithm())) {
+            return Boolean.FALSE;
+        }
+        final TimeStamp now = timeStampFactory.createTimeStamp(System.currentTimeMillis() / 1000);
+        if (key.getNotBefore().compareTo(now) > 0) {
+            return Boolean.FALSE;
+        }
+        final ConcurrentCache<String, PublicKey> signatureCache = concurrentCacheService.getCache(PublicKey.class,
+                "signatureCache");
+        final String tokenValue = token.getValue();
+        final boolean isActive = token.getExpiration() != null && token.getExpiration().compareTo(now) > 0;
+        if (isActive && signatureCache.get(tokenValue) == publicKey) {
+            return Boolean.TRUE;
+        }
         try {
-            final TimeStamp now = timeStampFactory.createTimeStamp(System.currentTimeMillis() / 1000);
-            if (configuration.getKey(token.getKeyName()).getNotBefore().compareTo(now) > 0) {
+            final Signature sig = getSignature(algorithmConfiguration.getAlgorithmMap().get(algorithmName));
+            sig.initVerify(publicKey);
+            sig.update(token.getPayload().getValue().getBytes());
+            if (!sig.verify(new Base64().decode(token.getSignature().getValue()))) {
                 return Boolean.FALSE;
             }
-            final Base64 decoder = new Base64();
-            final BigInteger exponent = new BigInteger(1,
-                    decoder.decode(configuration.getKey(token.getKeyName()).getExponent().getValue()));
-            final BigInteger modulus = new BigInteger(1,
-                    decoder.decode(configuration.getKey(token.getKeyName()).getSecret().getValue()));
-            final RSAPublicKeySpec pubKeySpec = new RSAPublicKeySpec(modulus, exponent);
-            final KeyFactory keyFactory = KeyFactory
-                    .getInstance(algorithmConfigurationService.get().getAlgorithmClassMap().get(token.getAlgorithm().getName()));
-            final PublicKey pubKey = keyFactory.generatePublic(pubKeySpec);
-            final Signature sig = Signature
-                    .getInstance(algorithmConfigurationService.get().getAlgorithmMap().get(token.getAlgorithm().getName()));
-            sig.initVerify(pubKey);
-            sig.update(token.getPayload().getValue().getBytes());
-            return sig.verify(decoder.decode(token.getSignature().getValue()));
-        } catch (NoSuchAlgorithmException | InvalidKeySpecException | SignatureException | InvalidKeyException e) {
+        } catch (NoSuchAlgorithmException | SignatureException | InvalidKeyException e) {
             LOGGER.error(e.getMessage(), e);
             return Boolean.FALSE;
         }
+        if (isActive) {
+            signatureCache.putIfAbsent(tokenValue, publicKey);
+        }
+        return Boolean.TRUE;
     }
 
     @Override
@@ -187,6 +210,19 @@ public class SimpleTokenValidator implements TokenValidator {
         return Boolean.TRUE;
     }
 
+    /**
+     * Signature instances aren't thread safe, every thread keeps one per algorithm and re-initializes it per token.
+     */
+    private Signature getSignature(final String javaName) throws NoSuchAlgorithmException {
+        final Map<String, Signature> threadSignatures = signatures.get();
+        Signature signature = threadSignatures.get(javaName);
+        if (signature == null) {
+            signature = Signature.getInstance(javaName);
+            threadSignatures.put(javaName, signature);
+        }
+        return signature;
+    }
+
     public static TokenValidator getInstance() {
         return INSTANCE;
     }
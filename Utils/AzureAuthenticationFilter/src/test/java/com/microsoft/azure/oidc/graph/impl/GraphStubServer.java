@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.oidc.graph.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.microsoft.azure.oidc.application.settings.ApplicationSettings;
+import com.microsoft.azure.oidc.application.settings.ApplicationSettingsLoader;
+import com.microsoft.azure.oidc.application.settings.Policy;
+import com.microsoft.azure.oidc.application.settings.RedirectURL;
+import com.microsoft.azure.oidc.application.settings.Secret;
+import com.microsoft.azure.oidc.application.settings.Tenant;
+import com.microsoft.azure.oidc.common.id.ID;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local stand-in of the AAD token endpoint and the Graph API groups and checkMemberGroups calls, which counts the
+ * calls reaching it.
+ */
+final class GraphStubServer {
+    static final String TENANT = "contoso.onmicrosoft.com";
+
+    private static final Pattern DISPLAY_NAME = Pattern.compile("displayName eq '((?:[^']|'')*)'");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpServer server;
+    private final Map<String, String> groupIDs = Collections.synchronizedMap(new HashMap<String, String>());
+    private final Set<String> memberGroupIDs = Collections.synchronizedSet(new HashSet<String>());
+
+    final AtomicInteger tokenCalls = new AtomicInteger();
+    final AtomicInteger groupLookups = new AtomicInteger();
+    final AtomicInteger memberChecks = new AtomicInteger();
+    final List<Integer> memberCheckSizes = Collections.synchronizedList(new ArrayList<Integer>());
+    final List<String> authorizations = Collections.synchronizedList(new ArrayList<String>());
+
+    volatile long tokenExpiresInSeconds = 3600;
+    volatile boolean isFailingMemberChecks = false;
+
+    GraphStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                try {
+                    respond(exchange);
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.start();
+    }
+
+    String getEndPoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    void addGroup(final String displayName, final String objectID, final boolean isMember) {
+        groupIDs.put(displayName.toLowerCase(), objectID);
+        if (isMember) {
+            memberGroupIDs.add(objectID);
+        }
+    }
+
+    void stop() {
+        server.stop(0);
+    }
+
+    private void respond(final HttpExchange exchange) throws IOException {
+        final String path = exchange.getRequestURI().getPath();
+        final ObjectNode response = mapper.createObjectNode();
+        if (path.equals("/" + TENANT + "/oauth2/token")) {
+            final int call = tokenCalls.incrementAndGet();
+            response.put("access_token", "token-" + call);
+            response.put("expires_in", tokenExpiresInSeconds);
+        } else if (path.equals("/" + TENANT + "/groups")) {
+            groupLookups.incrementAndGet();
+            authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+            final String query = URLDecoder.decode(exchange.getRequestURI().getRawQuery(), "UTF-8");
+            final ArrayNode value = response.putArray("value");
+            final Matcher matcher = DISPLAY_NAME.matcher(query);
+            while (matcher.find()) {
+                final String displayName = matcher.group(1).replace("''", "'");
+                final String objectID = groupIDs.get(displayName.toLowerCase());
+                if (objectID != null) {
+                    value.addObject().put("displayName", displayName).put("objectId", objectID);
+                }
+            }
+        } else if (path.startsWith("/" + TENANT + "/users/") && path.endsWith("/checkMemberGroups")) {
+            memberChecks.incrementAndGet();
+            authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+            if (isFailingMemberChecks) {
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            final JsonNode request = mapper.readTree(readFully(exchange.getRequestBody()));
+            final ArrayNode value = response.putArray("value");
+            memberCheckSizes.add(request.get("groupIds").size());
+            for (final JsonNode groupID : request.get("groupIds")) {
+                if (memberGroupIDs.contains(groupID.asText())) {
+                    value.add(groupID.asText());
+                }
+            }
+        } else {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        final byte[] body = mapper.writeValueAsBytes(response);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (final OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] readFully(final InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+        for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * The settings of the tenant, with a principal whose secret is sent to the token endpoint.
+     */
+    static ApplicationSettingsLoader getSettingsLoader() {
+        final ApplicationSettings applicationSettings = new ApplicationSettings() {
+            @Override
+            public Tenant getTenant() {
+                return new Tenant() {
+                    @Override
+                    public String getName() {
+                        return TENANT;
+                    }
+                };
+            }
+
+            @Override
+            public ID getApplicationId() {
+                return null;
+            }
+
+            @Override
+            public Secret getApplicationSecret() {
+                return null;
+            }
+
+            @Override
+            public ID getPrincipalId() {
+                return new ID() {
+                    @Override
+                    public String getValue() {
+                        return "principal";
+                    }
+                };
+            }
+
+            @Override
+            public Secret getPrincipalSecret() {
+                return new Secret() {
+                    @Override
+                    public String getValue() {
+                        return "secret";
+                    }
+                };
+            }
+
+            @Override
+            public RedirectURL getRedirectURL() {
+                return null;
+            }
+
+            @Override
+            public Policy getOIDCPolicy() {
+                return null;
+            }
+        };
+        return new ApplicationSettingsLoader() {
+            @Override
+            public ApplicationSettings load() {
+                return applicationSettings;
+            }
+        };
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.oidc.graph.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.microsoft.azure.oidc.concurrent.cache.ConcurrentCacheService;
+import com.microsoft.azure.oidc.concurrent.cache.impl.SimpleConcurrentCacheService;
+
+public class SimpleGraphCacheTest {
+    private static final String USER_ID = "alice@contoso.onmicrosoft.com";
+
+    private final ConcurrentCacheService concurrentCacheService = SimpleConcurrentCacheService.getInstance();
+
+    private GraphStubServer graph;
+    private SimpleGraphCache graphCache;
+
+    @Before
+    public void setUp() throws Exception {
+        concurrentCacheService.createCache(Boolean.class, "roleCache", 60L, 1000L);
+        graph = new GraphStubServer();
+        graph.addGroup("admins", "id-admins", true);
+        graph.addGroup("readers", "id-readers", false);
+        graphCache = new SimpleGraphCache(new SimpleGraphService(graph.getEndPoint(), graph.getEndPoint(),
+                GraphStubServer.getSettingsLoader()));
+    }
+
+    @After
+    public void tearDown() {
+        graph.stop();
+        concurrentCacheService.shutdownNow();
+    }
+
+    @Test
+    public void testMembershipsCached() {
+        assertTrue(graphCache.isUserInRole(USER_ID, "admins"));
+        assertFalse(graphCache.isUserInRole(USER_ID, "readers"));
+        assertTrue(graphCache.isUserInRole(USER_ID, "admins"));
+        assertFalse(graphCache.isUserInRole(USER_ID, "readers"));
+
+        assertEquals(2, graph.memberChecks.get());
+    }
+
+    @Test
+    public void testFailedCheckNotCached() {
+        graph.isFailingMemberChecks = true;
+        assertFalse(graphCache.isUserInRole(USER_ID, "admins"));
+
+        graph.isFailingMemberChecks = false;
+        assertTrue(graphCache.isUserInRole(USER_ID, "admins"));
+        assertEquals(2, graph.memberChecks.get());
+    }
+}
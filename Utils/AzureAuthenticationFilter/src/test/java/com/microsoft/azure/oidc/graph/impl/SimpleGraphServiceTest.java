@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.oidc.graph.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SimpleGraphServiceTest {
+    private static final String USER_ID = "alice@contoso.onmicrosoft.com";
+
+    private GraphStubServer graph;
+    private SimpleGraphService graphService;
+
+    @Before
+    public void setUp() throws Exception {
+        graph = new GraphStubServer();
+        graph.addGroup("admins", "id-admins", true);
+        graph.addGroup("readers", "id-readers", false);
+        graphService = new SimpleGraphService(graph.getEndPoint(), graph.getEndPoint(),
+                GraphStubServer.getSettingsLoader());
+    }
+
+    @After
+    public void tearDown() {
+        graph.stop();
+    }
+
+    @Test
+    public void testTokenReusedUntilShortlyBeforeExpiry() {
+        graphService.getUserRoles(USER_ID, Collections.singleton("admins"));
+        graphService.getUserRoles(USER_ID, Collections.singleton("readers"));
+
+        assertEquals(1, graph.tokenCalls.get());
+        assertEquals(new HashSet<String>(Arrays.asList("Bearer token-1")), new HashSet<String>(graph.authorizations));
+    }
+
+    @Test
+    public void testTokenRefreshedWithinExpiryMargin() {
+        // Expires within the 5 minutes margin, so it's never reused
+        graph.tokenExpiresInSeconds = 60;
+
+        graphService.getUserRoles(USER_ID, Collections.singleton("admins"));
+        graphService.getUserRoles(USER_ID, Collections.singleton("admins"));
+
+        assertEquals(2, graph.tokenCalls.get());
+        assertEquals("Bearer token-2", graph.authorizations.get(graph.authorizations.size() - 1));
+    }
+
+    @Test
+    public void testGroupIDsCachedIncludingMissingGroups() {
+        final List<String> roles = Arrays.asList("admins", "readers", "missing");
+
+        final Map<String, Boolean> first = graphService.getUserRoles(USER_ID, roles);
+        final Map<String, Boolean> second = graphService.getUserRoles(USER_ID, roles);
+
+        assertEquals(1, graph.groupLookups.get());
+        assertEquals(2, graph.memberChecks.get());
+        for (final Map<String, Boolean> result : Arrays.asList(first, second)) {
+            assertTrue(result.get("admins"));
+            assertFalse(result.get("readers"));
+            assertFalse(result.get("missing"));
+        }
+    }
+
+    @Test
+    public void testGroupNamesMatchedIgnoringCase() {
+        final Map<String, Boolean> result = graphService.getUserRoles(USER_ID, Arrays.asList("Admins", "ADMINS"));
+
+        assertTrue(result.get("Admins"));
+        assertTrue(result.get("ADMINS"));
+        assertEquals(Arrays.asList(1), graph.memberCheckSizes);
+    }
+
+    @Test
+    public void testMembershipsCheckedInBatches() {
+        final List<String> roles = new ArrayList<String>();
+        for (int i = 0; i < 45; i++) {
+            graph.addGroup("group" + i, "id-group" + i, i % 3 == 0);
+            roles.add("group" + i);
+        }
+
+        final Map<String, Boolean> result = graphService.getUserRoles(USER_ID, roles);
+
+        assertEquals(1, graph.tokenCalls.get());
+        assertEquals(5, graph.groupLookups.get());
+        assertEquals(3, graph.memberChecks.get());
+        final List<Integer> sizes = new ArrayList<Integer>(graph.memberCheckSizes);
+        Collections.sort(sizes);
+        assertEquals(Arrays.asList(5, 20, 20), sizes);
+        for (int i = 0; i < 45; i++) {
+            assertEquals(i % 3 == 0, result.get("group" + i));
+        }
+    }
+
+    @Test
+    public void testNullWhenGraphFails() {
+        graph.isFailingMemberChecks = true;
+
+        assertNull(graphService.getUserRoles(USER_ID, Collections.singleton("admins")));
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.tooling.msservices.helpers.azure.sdk;
+
+import com.microsoft.azure.storage.AccessCondition;
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.BlobRequestOptions;
+import com.microsoft.azure.storage.blob.CloudBlob;
+import com.microsoft.azure.storage.core.Base64;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.microsoft.tooling.msservices.helpers.CallableSingleArg;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Downloads a blob into a local file by byte ranges with several ranges in flight.
+ *
+ * The file is pre-sized and every range is written at its own position, so at most {@code rangesInFlight} ranges are
+ * held in memory. The downloaded ranges are recorded in a sidecar file next to the target, an interrupted download
+ * of the same blob version (checked by ETag) continues with the missing ranges. Ranges up to 4MB are verified by the
+ * transactional MD5 returned by the service.
+ */
+class BlobParallelDownloader {
+    static final long DEFAULT_RANGE_SIZE = 4 * 1024 * 1024L;
+    static final int DEFAULT_RANGES_IN_FLIGHT = 4;
+    static final String CHECKPOINT_FILE_SUFFIX = ".azdownload";
+
+    private static final long MAX_TRANSACTIONAL_MD5_RANGE_SIZE = 4 * 1024 * 1024L;
+    private static final int MAX_RANGE_ATTEMPTS = 3;
+    private static final long RANGE_RETRY_INTERVAL_MS = 1000;
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+
+    @NotNull
+    private final CloudBlob blob;
+
+    private final int rangeSize;
+
+    private final int rangesInFlight;
+
+    @Nullable
+    private final CallableSingleArg<Void, Long> processRange;
+
+    private long downloadedBytes = 0;
+
+    BlobParallelDownloader(@NotNull CloudBlob blob,
+                           long rangeSize,
+                           int rangesInFlight,
+                           @Nullable CallableSingleArg<Void, Long> processRange) {
+        if (rangeSize <= 0 || rangeSize > Integer.MAX_VALUE || rangesInFlight <= 0) {
+            throw new IllegalArgumentException(String.format("Bad range size %d or ranges in flight %d.",
+                                                             rangeSize, rangesInFlight));
+        }
+
+        this.blob = blob;
+        this.rangeSize = (int) rangeSize;
+        this.rangesInFlight = rangesInFlight;
+        this.processRange = processRange;
+    }
+
+    void download(@NotNull File targetFile) throws Exception {
+        blob.downloadAttributes();
+
+        long length = blob.getProperties().getLength();
+        String eTag = blob.getProperties().getEtag();
+        int rangeCount = (int) ((length + rangeSize - 1) / rangeSize);
+        File checkpointFile = new File(targetFile.getPath() + CHECKPOINT_FILE_SUFFIX);
+        Checkpoint checkpoint = Checkpoint.load(checkpointFile, eTag, length, rangeSize);
+
+        if (checkpoint == null || !targetFile.exists()) {
+            checkpoint = new Checkpoint(checkpointFile, eTag, length, rangeSize);
+        }
+
+        AccessCondition sameVersion = AccessCondition.generateIfMatchCondition(eTag);
+        BlobRequestOptions options = new BlobRequestOptions();
+        options.setUseTransactionalContentMD5(rangeSize <= MAX_TRANSACTIONAL_MD5_RANGE_SIZE);
+
+        BlockingQueue<byte[]> bufferPool = new ArrayBlockingQueue<>(rangesInFlight);
+        ExecutorService executor = Executors.newFixedThreadPool(rangesInFlight, runnable -> {
+            Thread thread = new Thread(runnable, "BlobDownload-" + threadCounter.getAndIncrement());
+            thread.setDaemon(true);
+
+            return thread;
+        });
+        List<Future<?>> rangeFutures = new ArrayList<>();
+
+        try (RandomAccessFile target = new RandomAccessFile(targetFile, "rw")) {
+            target.setLength(length);
+            FileChannel channel = target.getChannel();
+
+            for (int i = 0; i < rangesInFlight; i++) {
+                bufferPool.add(new byte[(int) Math.min(rangeSize, Math.max(length, 1))]);
+            }
+
+            for (int index = 0; index < rangeCount; index++) {
+                long offset = (long) index * rangeSize;
+                int size = (int) Math.min(rangeSize, length - offset);
+
+                if (checkpoint.isDone(index)) {
+                    reportProgress(size);
+
+                    continue;
+                }
+
+                byte[] buffer = bufferPool.take();
+                checkFailedRanges(rangeFutures);
+
+                final int rangeIndex = index;
+                final Checkpoint rangeCheckpoint = checkpoint;
+                rangeFutures.add(executor.submit(() -> {
+                    try {
+                        downloadRange(offset, size, buffer, sameVersion, options);
+                        writeFully(channel, buffer, size, offset);
+                        rangeCheckpoint.markDone(rangeIndex);
+                        reportProgress(size);
+                    } finally {
+                        bufferPool.add(buffer);
+                    }
+
+                    return null;
+                }));
+            }
+
+            for (Future<?> rangeFuture : rangeFutures) {
+                awaitRange(rangeFuture);
+            }
+
+            channel.force(true);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        checkpoint.delete();
+    }
+
+    private void downloadRange(long offset,
+                               int size,
+                               @NotNull byte[] buffer,
+                               @NotNull AccessCondition sameVersion,
+                               @NotNull BlobRequestOptions options) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                int read = blob.downloadRangeToByteArray(offset, (long) size, buffer, 0, sameVersion, options, null);
+
+                if (read != size) {
+                    throw new IOException(String.format("Got %d bytes for the range at %d, expect %d.",
+                                                        read, offset, size));
+                }
+
+                return;
+            } catch (StorageException | IOException ex) {
+                if (attempt >= MAX_RANGE_ATTEMPTS) {
+                    throw ex;
+                }
+
+                Thread.sleep(RANGE_RETRY_INTERVAL_MS * attempt);
+            }
+        }
+    }
+
+    private synchronized void reportProgress(long rangeBytes) throws Exception {
+        downloadedBytes += rangeBytes;
+
+        if (processRange != null) {
+            processRange.call(downloadedBytes);
+        }
+    }
+
+    private static void writeFully(@NotNull FileChannel channel, @NotNull byte[] buffer, int size, long offset)
+            throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(buffer, 0, size);
+
+        while (data.hasRemaining()) {
+            offset += channel.write(data, offset);
+        }
+    }
+
+    private static void checkFailedRanges(@NotNull List<Future<?>> rangeFutures) throws Exception {
+        for (Future<?> rangeFuture : rangeFutures) {
+            if (rangeFuture.isDone()) {
+                awaitRange(rangeFuture);
+            }
+        }
+    }
+
+    private static void awaitRange(@NotNull Future<?> rangeFuture) throws Exception {
+        try {
+            rangeFuture.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof Exception) {
+                throw (Exception) ex.getCause();
+            }
+
+            throw ex;
+        }
+    }
+
+    /**
+     * The downloaded ranges of a blob version, persisted as a properties file.
+     */
+    static class Checkpoint {
+        private static final String ETAG_KEY = "etag";
+        private static final String LENGTH_KEY = "length";
+        private static final String RANGE_SIZE_KEY = "rangeSize";
+        private static final String DONE_RANGES_KEY = "doneRanges";
+
+        @NotNull
+        private final File file;
+
+        @NotNull
+        private final Properties properties = new Properties();
+
+        @NotNull
+        private final BitSet doneRanges;
+
+        Checkpoint(@NotNull File file, @Nullable String eTag, long length, int rangeSize) {
+            this(file, eTag, length, rangeSize, new BitSet());
+        }
+
+        private Checkpoint(@NotNull File file, @Nullable String eTag, long length, int rangeSize, @NotNull BitSet done) {
+            this.file = file;
+            this.doneRanges = done;
+            this.properties.setProperty(ETAG_KEY, String.valueOf(eTag));
+            this.properties.setProperty(LENGTH_KEY, String.valueOf(length));
+            this.properties.setProperty(RANGE_SIZE_KEY, String.valueOf(rangeSize));
+        }
+
+        /**
+         * Load the checkpoint of the same blob version and range size, or null if there isn't one.
+         */
+        @Nullable
+        static Checkpoint load(@NotNull File file, @Nullable String eTag, long length, int rangeSize) {
+            if (eTag == null || !file.isFile()) {
+                return null;
+            }
+
+            Properties saved = new Properties();
+
+            try (InputStream in = new FileInputStream(file)) {
+                saved.load(in);
+            } catch (IOException ignored) {
+                return null;
+            }
+
+            if (!eTag.equals(saved.getProperty(ETAG_KEY))
+                    || !String.valueOf(length).equals(saved.getProperty(LENGTH_KEY))
+                    || !String.valueOf(rangeSize).equals(saved.getProperty(RANGE_SIZE_KEY))) {
+                return null;
+            }
+
+            BitSet done = BitSet.valueOf(Base64.decode(saved.getProperty(DONE_RANGES_KEY, "")));
+
+            return new Checkpoint(file, eTag, length, rangeSize, done);
+        }
+
+        synchronized boolean isDone(int index) {
+            return doneRanges.get(index);
+        }
+
+        synchronized void markDone(int index) throws IOException {
+            doneRanges.set(index);
+            properties.setProperty(DONE_RANGES_KEY, Base64.encode(doneRanges.toByteArray()));
+
+            try (OutputStream out = new FileOutputStream(file)) {
+                properties.store(out, "Azure blob download checkpoint");
+            }
+        }
+
+        synchronized void delete() {
+            if (file.exists() && !file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+}
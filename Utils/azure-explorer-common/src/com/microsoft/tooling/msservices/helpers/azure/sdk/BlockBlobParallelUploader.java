@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.tooling.msservices.helpers.azure.sdk;
+
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.BlockEntry;
+import com.microsoft.azure.storage.blob.BlockListingFilter;
+import com.microsoft.azure.storage.blob.BlockSearchMode;
+import com.microsoft.azure.storage.blob.CloudBlockBlob;
+import com.microsoft.azure.storage.core.Base64;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.microsoft.tooling.msservices.helpers.CallableSingleArg;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Uploads a block blob with several blocks in flight.
+ *
+ * The blocks are read from the source stream one by one into pooled buffers, the pool size bounds both the memory
+ * and the blocks in flight. A failed block is retried by itself. When the block IDs are derived from the source file
+ * fingerprint, the blocks left uncommitted by an interrupted upload (even from a previous IDE session) are skipped.
+ */
+class BlockBlobParallelUploader {
+    static final int DEFAULT_BLOCKS_IN_FLIGHT = 4;
+
+    private static final long MAX_BLOCK_SIZE = 100 * 1024 * 1024L;
+    private static final int MAX_BLOCK_ATTEMPTS = 3;
+    private static final long BLOCK_RETRY_INTERVAL_MS = 1000;
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+
+    @NotNull
+    private final CloudBlockBlob blob;
+
+    private final int blockSize;
+
+    private final int blocksInFlight;
+
+    @Nullable
+    private final CallableSingleArg<Void, Long> processBlock;
+
+    private long uploadedBytes = 0;
+
+    BlockBlobParallelUploader(@NotNull CloudBlockBlob blob,
+                              long maxBlockSize,
+                              int blocksInFlight,
+                              @Nullable CallableSingleArg<Void, Long> processBlock) {
+        if (maxBlockSize <= 0 || maxBlockSize > MAX_BLOCK_SIZE || blocksInFlight <= 0) {
+            throw new IllegalArgumentException(String.format("Bad block size %d or blocks in flight %d.",
+                                                             maxBlockSize, blocksInFlight));
+        }
+
+        this.blob = blob;
+        this.blockSize = (int) maxBlockSize;
+        this.blocksInFlight = blocksInFlight;
+        this.processBlock = processBlock;
+    }
+
+    /**
+     * Upload the stream content with random block IDs, which can't be resumed.
+     */
+    void upload(@NotNull InputStream content, long length) throws Exception {
+        upload(content, length, UUID.randomUUID().toString().replace("-", "").substring(0, 16), false);
+    }
+
+    /**
+     * Upload the file with block IDs derived from the file fingerprint, the uncommitted blocks of the same file are
+     * reused.
+     */
+    void upload(@NotNull File file, @NotNull InputStream content) throws Exception {
+        upload(content, file.length(), getFingerprint(file), true);
+    }
+
+    private void upload(@NotNull InputStream content, long length, @NotNull String blockIdPrefix, boolean isResumable)
+            throws Exception {
+        Map<String, Long> uncommittedBlocks = isResumable ? getUncommittedBlocks() : new HashMap<>();
+        BlockingQueue<byte[]> bufferPool = new ArrayBlockingQueue<>(blocksInFlight);
+        ExecutorService executor = Executors.newFixedThreadPool(blocksInFlight, runnable -> {
+            Thread thread = new Thread(runnable, "BlobUpload-" + threadCounter.getAndIncrement());
+            thread.setDaemon(true);
+
+            return thread;
+        });
+        List<Future<?>> blockFutures = new ArrayList<>();
+        List<BlockEntry> blockEntries = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < blocksInFlight; i++) {
+                bufferPool.add(new byte[(int) Math.min(blockSize, Math.max(length, 1))]);
+            }
+
+            long offset = 0;
+
+            for (int index = 0; offset < length; index++) {
+                int size = (int) Math.min(blockSize, length - offset);
+                String blockId = Base64.encode(String.format("%s-%08d", blockIdPrefix, index)
+                                                     .getBytes(StandardCharsets.UTF_8));
+                BlockEntry entry = new BlockEntry(blockId, BlockSearchMode.UNCOMMITTED);
+
+                entry.setSize(size);
+                blockEntries.add(entry);
+                offset += size;
+
+                Long uncommittedSize = uncommittedBlocks.get(blockId);
+                if (uncommittedSize != null && uncommittedSize == size) {
+                    skipFully(content, size);
+                    reportProgress(size);
+
+                    continue;
+                }
+
+                byte[] buffer = bufferPool.take();
+                readFully(content, buffer, size);
+
+                checkFailedBlocks(blockFutures);
+                blockFutures.add(executor.submit(() -> {
+                    try {
+                        uploadBlock(blockId, buffer, size);
+                        reportProgress(size);
+                    } finally {
+                        bufferPool.add(buffer);
+                    }
+
+                    return null;
+                }));
+            }
+
+            for (Future<?> blockFuture : blockFutures) {
+                awaitBlock(blockFuture);
+            }
+
+            blob.commitBlockList(blockEntries);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void uploadBlock(@NotNull String blockId, @NotNull byte[] buffer, int size) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                blob.uploadBlock(blockId, new ByteArrayInputStream(buffer, 0, size), size);
+
+                return;
+            } catch (StorageException | IOException ex) {
+                if (attempt >= MAX_BLOCK_ATTEMPTS) {
+                    throw ex;
+                }
+
+                Thread.sleep(BLOCK_RETRY_INTERVAL_MS * attempt);
+            }
+        }
+    }
+
+    private synchronized void reportProgress(long blockBytes) throws Exception {
+        uploadedBytes += blockBytes;
+
+        if (processBlock != null) {
+            processBlock.call(uploadedBytes);
+        }
+    }
+
+    @NotNull
+    private Map<String, Long> getUncommittedBlocks() throws StorageException {
+        Map<String, Long> blocks = new HashMap<>();
+
+        try {
+            for (BlockEntry entry : blob.downloadBlockList(BlockListingFilter.UNCOMMITTED, null, null, null)) {
+                blocks.put(entry.getId(), entry.getSize());
+            }
+        } catch (StorageException ex) {
+            if (ex.getHttpStatusCode() != HttpURLConnection.HTTP_NOT_FOUND) {
+                throw ex;
+            }
+        }
+
+        return blocks;
+    }
+
+    @NotNull
+    private String getFingerprint(@NotNull File file) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        String identity = String.format("%s|%d|%d|%d",
+                                        file.getAbsolutePath(), file.length(), file.lastModified(), blockSize);
+        byte[] hash = digest.digest(identity.getBytes(StandardCharsets.UTF_8));
+        StringBuilder prefix = new StringBuilder();
+
+        for (int i = 0; i < 8; i++) {
+            prefix.append(String.format("%02x", hash[i]));
+        }
+
+        return prefix.toString();
+    }
+
+    private static void checkFailedBlocks(@NotNull List<Future<?>> blockFutures) throws Exception {
+        for (Future<?> blockFuture : blockFutures) {
+            if (blockFuture.isDone()) {
+                awaitBlock(blockFuture);
+            }
+        }
+    }
+
+    private static void awaitBlock(@NotNull Future<?> blockFuture) throws Exception {
+        try {
+            blockFuture.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof Exception) {
+                throw (Exception) ex.getCause();
+            }
+
+            throw ex;
+        }
+    }
+
+    private static void readFully(@NotNull InputStream content, @NotNull byte[] buffer, int size) throws IOException {
+        int read = 0;
+
+        while (read < size) {
+            int count = content.read(buffer, read, size - read);
+            if (count < 0) {
+                throw new EOFException("The content ended before the expected length.");
+            }
+
+            read += count;
+        }
+    }
+
+    private static void skipFully(@NotNull InputStream content, long size) throws IOException {
+        byte[] skipBuffer = null;
+
+        while (size > 0) {
+            long skipped = content.skip(size);
+
+            if (skipped <= 0) {
+                // Some streams don't support skip, read and drop
+                if (skipBuffer == null) {
+                    skipBuffer = new byte[8192];
+                }
+
+                int count = content.read(skipBuffer, 0, (int) Math.min(skipBuffer.length, size));
+                if (count < 0) {
+                    throw new EOFException("The content ended before the expected length.");
+                }
+
+                skipped = count;
+            }
+
+            size -= skipped;
+        }
+    }
+}
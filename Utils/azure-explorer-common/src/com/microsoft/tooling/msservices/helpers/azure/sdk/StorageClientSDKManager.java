@@ -24,9 +24,10 @@ package com.microsoft.tooling.msservices.helpers.azure.sdk;
 
 import com.google.common.base.Strings;
 import com.microsoft.azure.storage.CloudStorageAccount;
+import com.microsoft.azure.storage.ResultContinuation;
+import com.microsoft.azure.storage.ResultSegment;
 import com.microsoft.azure.storage.StorageException;
 import com.microsoft.azure.storage.blob.*;
-import com.microsoft.azure.storage.core.Base64;
 import com.microsoft.azure.storage.core.Utility;
 import com.microsoft.azure.storage.queue.CloudQueue;
 import com.microsoft.azure.storage.queue.CloudQueueClient;
@@ -50,7 +51,10 @@ import com.microsoft.azuretools.azurecommons.helpers.NotNull;
 import com.microsoft.azuretools.azurecommons.helpers.Nullable;
 import com.microsoft.azuretools.utils.StorageAccoutUtils;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URISyntaxException;
@@ -59,6 +63,9 @@ import java.util.*;
 import java.util.Map.Entry;
 
 public class StorageClientSDKManager {
+    public static final int DEFAULT_BLOB_PAGE_SIZE = 1000;
+    public static final int DEFAULT_TABLE_ENTITY_PAGE_SIZE = 1000;
+
     private static StorageClientSDKManager apiManager;
 
     private StorageClientSDKManager() {
@@ -230,7 +237,33 @@ public class StorageClientSDKManager {
     public List<BlobItem> getBlobItems(@NotNull String connectionString, @NotNull BlobDirectory blobDirectory)
             throws AzureCmdException {
         List<BlobItem> biList = new ArrayList<BlobItem>();
+        ResultContinuation continuationToken = null;
+
+        do {
+            ResultSegment<BlobItem> page = getBlobItems(connectionString, blobDirectory, null, continuationToken,
+                                                        DEFAULT_BLOB_PAGE_SIZE);
+
+            biList.addAll(page.getResults());
+            continuationToken = page.getContinuationToken();
+        } while (continuationToken != null);
+
+        return biList;
+    }
 
+    /**
+     * Get one page of the blob items under the directory. The page holds at most {@code pageSize} items, the next
+     * page is fetched with the returned continuation token until it is null.
+     *
+     * @param namePrefix the blob files whose names don't start with it are filtered out of the page, the directories
+     *                   are always kept. The filtered page may be shorter than others, or even empty.
+     */
+    @NotNull
+    public ResultSegment<BlobItem> getBlobItems(@NotNull String connectionString,
+                                                @NotNull BlobDirectory blobDirectory,
+                                                @Nullable String namePrefix,
+                                                @Nullable ResultContinuation continuationToken,
+                                                int pageSize)
+            throws AzureCmdException {
         try {
             CloudBlobClient client = getCloudBlobClient(connectionString);
             String containerName = blobDirectory.getContainerName();
@@ -239,63 +272,87 @@ public class StorageClientSDKManager {
             CloudBlobContainer container = client.getContainerReference(containerName);
             CloudBlobDirectory directory = container.getDirectoryReference(blobDirectory.getPath());
 
-            for (ListBlobItem item : directory.listBlobs()) {
-                String uri = item.getUri() != null ? item.getUri().toString() : "";
-
-                if (item instanceof CloudBlobDirectory) {
-                    CloudBlobDirectory subDirectory = (CloudBlobDirectory) item;
-
-                    String name = extractBlobItemName(subDirectory.getPrefix(), delimiter);
-                    String path = Strings.nullToEmpty(subDirectory.getPrefix());
-
-                    biList.add(new BlobDirectory(name, uri, containerName, path));
-                } else if (item instanceof CloudBlob) {
-                    CloudBlob blob = (CloudBlob) item;
-
-                    String name = extractBlobItemName(blob.getName(), delimiter);
-                    String path = Strings.nullToEmpty(blob.getName());
-                    String type = "";
-                    String cacheControlHeader = "";
-                    String contentEncoding = "";
-                    String contentLanguage = "";
-                    String contentType = "";
-                    String contentMD5Header = "";
-                    String eTag = "";
-                    Calendar lastModified = new GregorianCalendar();
-                    long size = 0;
-
-                    BlobProperties properties = blob.getProperties();
-
-                    if (properties != null) {
-                        if (properties.getBlobType() != null) {
-                            type = properties.getBlobType().toString();
-                        }
-
-                        cacheControlHeader = Strings.nullToEmpty(properties.getCacheControl());
-                        contentEncoding = Strings.nullToEmpty(properties.getContentEncoding());
-                        contentLanguage = Strings.nullToEmpty(properties.getContentLanguage());
-                        contentType = Strings.nullToEmpty(properties.getContentType());
-                        contentMD5Header = Strings.nullToEmpty(properties.getContentMD5());
-                        eTag = Strings.nullToEmpty(properties.getEtag());
-
-                        if (properties.getLastModified() != null) {
-                            lastModified.setTime(properties.getLastModified());
-                        }
-
-                        size = properties.getLength();
-                    }
+            ResultSegment<ListBlobItem> segment = directory.listBlobsSegmented(
+                    null, false, EnumSet.noneOf(BlobListingDetails.class), pageSize, continuationToken, null, null);
+            ArrayList<BlobItem> biList = new ArrayList<BlobItem>(segment.getLength());
+
+            for (ListBlobItem item : segment.getResults()) {
+                BlobItem blobItem = toBlobItem(item, containerName, delimiter);
 
-                    biList.add(new BlobFile(name, uri, containerName, path, type, cacheControlHeader, contentEncoding,
-                            contentLanguage, contentType, contentMD5Header, eTag, lastModified, size));
+                if (blobItem == null) {
+                    continue;
                 }
+
+                if (blobItem instanceof BlobFile && !Strings.isNullOrEmpty(namePrefix)
+                        && !blobItem.getName().startsWith(namePrefix)) {
+                    continue;
+                }
+
+                biList.add(blobItem);
             }
 
-            return biList;
+            return new ResultSegment<BlobItem>(biList, pageSize, segment.getContinuationToken());
         } catch (Throwable t) {
             throw new AzureCmdException("Error retrieving the Blob Item list", t);
         }
     }
 
+    @Nullable
+    private static BlobItem toBlobItem(@NotNull ListBlobItem item,
+                                       @NotNull String containerName,
+                                       @Nullable String delimiter) {
+        String uri = item.getUri() != null ? item.getUri().toString() : "";
+
+        if (item instanceof CloudBlobDirectory) {
+            CloudBlobDirectory subDirectory = (CloudBlobDirectory) item;
+
+            String name = extractBlobItemName(subDirectory.getPrefix(), delimiter);
+            String path = Strings.nullToEmpty(subDirectory.getPrefix());
+
+            return new BlobDirectory(name, uri, containerName, path);
+        } else if (item instanceof CloudBlob) {
+            CloudBlob blob = (CloudBlob) item;
+
+            String name = extractBlobItemName(blob.getName(), delimiter);
+            String path = Strings.nullToEmpty(blob.getName());
+            String type = "";
+            String cacheControlHeader = "";
+            String contentEncoding = "";
+            String contentLanguage = "";
+            String contentType = "";
+            String contentMD5Header = "";
+            String eTag = "";
+            Calendar lastModified = new GregorianCalendar();
+            long size = 0;
+
+            BlobProperties properties = blob.getProperties();
+
+            if (properties != null) {
+                if (properties.getBlobType() != null) {
+                    type = properties.getBlobType().toString();
+                }
+
+                cacheControlHeader = Strings.nullToEmpty(properties.getCacheControl());
+                contentEncoding = Strings.nullToEmpty(properties.getContentEncoding());
+                contentLanguage = Strings.nullToEmpty(properties.getContentLanguage());
+                contentType = Strings.nullToEmpty(properties.getContentType());
+                contentMD5Header = Strings.nullToEmpty(properties.getContentMD5());
+                eTag = Strings.nullToEmpty(properties.getEtag());
+
+                if (properties.getLastModified() != null) {
+                    lastModified.setTime(properties.getLastModified());
+                }
+
+                size = properties.getLength();
+            }
+
+            return new BlobFile(name, uri, containerName, path, type, cacheControlHeader, contentEncoding,
+                    contentLanguage, contentType, contentMD5Header, eTag, lastModified, size);
+        }
+
+        return null;
+    }
+
     @NotNull
     public BlobDirectory createBlobDirectory(@NotNull StorageAccount storageAccount,
                                              @NotNull BlobDirectory parentBlobDirectory,
@@ -369,45 +426,77 @@ public class StorageClientSDKManager {
                                       long length)
             throws AzureCmdException {
         try {
-            CloudBlobClient client = getCloudBlobClient(connectionString);
-            String containerName = blobContainer.getName();
-
-            CloudBlobContainer container = client.getContainerReference(containerName);
-            final CloudBlockBlob blob = container.getBlockBlobReference(filePath);
-            long uploadedBytes = 0;
+            CloudBlockBlob blob = getCloudBlockBlob(connectionString, blobContainer, filePath);
 
-            ArrayList<BlockEntry> blockEntries = new ArrayList<BlockEntry>();
+            new BlockBlobParallelUploader(blob, maxBlockSize, BlockBlobParallelUploader.DEFAULT_BLOCKS_IN_FLIGHT,
+                                          processBlock)
+                    .upload(content, length);
+        } catch (Throwable t) {
+            throw new AzureCmdException("Error uploading the Blob File content", t);
+        }
+    }
 
-            while (uploadedBytes < length) {
-                String blockId = Base64.encode(UUID.randomUUID().toString().getBytes());
-                BlockEntry entry = new BlockEntry(blockId, BlockSearchMode.UNCOMMITTED);
+    /**
+     * Upload the local file with several blocks in flight, the blocks uploaded but not committed by an interrupted
+     * upload of the same file are reused.
+     */
+    public void uploadBlobFileContent(@NotNull String connectionString,
+                                      @NotNull BlobContainer blobContainer,
+                                      @NotNull String filePath,
+                                      @NotNull File file,
+                                      CallableSingleArg<Void, Long> processBlock,
+                                      long maxBlockSize,
+                                      int blocksInFlight)
+            throws AzureCmdException {
+        try (InputStream content = new BufferedInputStream(new FileInputStream(file))) {
+            CloudBlockBlob blob = getCloudBlockBlob(connectionString, blobContainer, filePath);
 
-                long blockSize = maxBlockSize;
-                if (length - uploadedBytes <= maxBlockSize) {
-                    blockSize = length - uploadedBytes;
-                }
+            new BlockBlobParallelUploader(blob, maxBlockSize, blocksInFlight, processBlock)
+                    .upload(file, content);
+        } catch (Throwable t) {
+            throw new AzureCmdException("Error uploading the Blob File content", t);
+        }
+    }
 
-                if (processBlock != null) {
-                    processBlock.call(uploadedBytes);
-                }
+    public void uploadBlobFileContent(@NotNull String connectionString,
+                                      @NotNull BlobContainer blobContainer,
+                                      @NotNull String filePath,
+                                      @NotNull File file,
+                                      CallableSingleArg<Void, Long> processBlock,
+                                      long maxBlockSize)
+            throws AzureCmdException {
+        uploadBlobFileContent(connectionString, blobContainer, filePath, file, processBlock, maxBlockSize,
+                              BlockBlobParallelUploader.DEFAULT_BLOCKS_IN_FLIGHT);
+    }
 
-                entry.setSize(blockSize);
+    public void downloadBlobFileContent(@NotNull String connectionString,
+                                        @NotNull BlobFile blobFile,
+                                        @NotNull OutputStream content)
+            throws AzureCmdException {
+        try {
+            CloudBlobClient client = getCloudBlobClient(connectionString);
+            String containerName = blobFile.getContainerName();
 
-                blockEntries.add(entry);
-                blob.uploadBlock(entry.getId(), content, blockSize);
-                uploadedBytes += blockSize;
-            }
+            CloudBlobContainer container = client.getContainerReference(containerName);
 
-            blob.commitBlockList(blockEntries);
+            CloudBlob blob = getCloudBlob(container, blobFile);
 
+            blob.download(content);
         } catch (Throwable t) {
-            throw new AzureCmdException("Error uploading the Blob File content", t);
+            throw new AzureCmdException("Error downloading the Blob File content", t);
         }
     }
 
+    /**
+     * Download the blob into the local file by byte ranges with several ranges in flight. The downloaded ranges are
+     * recorded beside the file, so that an interrupted download of the same blob version is resumed.
+     */
     public void downloadBlobFileContent(@NotNull String connectionString,
                                         @NotNull BlobFile blobFile,
-                                        @NotNull OutputStream content)
+                                        @NotNull File targetFile,
+                                        CallableSingleArg<Void, Long> processRange,
+                                        long rangeSize,
+                                        int rangesInFlight)
             throws AzureCmdException {
         try {
             CloudBlobClient client = getCloudBlobClient(connectionString);
@@ -417,12 +506,22 @@ public class StorageClientSDKManager {
 
             CloudBlob blob = getCloudBlob(container, blobFile);
 
-            blob.download(content);
+            new BlobParallelDownloader(blob, rangeSize, rangesInFlight, processRange).download(targetFile);
         } catch (Throwable t) {
             throw new AzureCmdException("Error downloading the Blob File content", t);
         }
     }
 
+    public void downloadBlobFileContent(@NotNull String connectionString,
+                                        @NotNull BlobFile blobFile,
+                                        @NotNull File targetFile,
+                                        CallableSingleArg<Void, Long> processRange)
+            throws AzureCmdException {
+        downloadBlobFileContent(connectionString, blobFile, targetFile, processRange,
+                                BlobParallelDownloader.DEFAULT_RANGE_SIZE,
+                                BlobParallelDownloader.DEFAULT_RANGES_IN_FLIGHT);
+    }
+
     @NotNull
     public List<Queue> getQueues(@NotNull StorageAccount storageAccount)
             throws AzureCmdException {
@@ -646,26 +745,67 @@ public class StorageClientSDKManager {
                                               @NotNull String filter)
             throws AzureCmdException {
         List<TableEntity> teList = new ArrayList<TableEntity>();
+        ResultContinuation continuationToken = null;
+        String connectionString;
 
         try {
-            CloudTableClient client = getCloudTableClient(storageAccount);
-            String tableName = table.getName();
+            connectionString = getConnectionString(storageAccount);
+        } catch (Throwable t) {
+            throw new AzureCmdException("Error retrieving the Table Entity list", t);
+        }
+
+        do {
+            ResultSegment<TableEntity> segment = getTableEntities(connectionString, table.getName(), filter, null,
+                                                                  continuationToken, DEFAULT_TABLE_ENTITY_PAGE_SIZE);
+
+            teList.addAll(segment.getResults());
+            continuationToken = segment.getContinuationToken();
+        } while (continuationToken != null);
+
+        return teList;
+    }
+
+    /**
+     * Query one segment of the table entities. The segment holds at most {@code takeCount} entities, the next segment
+     * is queried with the returned continuation token until it is null.
+     *
+     * @param columns the property columns to return, or null for all. The partition key, row key and timestamp are
+     *                always returned.
+     */
+    @NotNull
+    public ResultSegment<TableEntity> getTableEntities(@NotNull String connectionString,
+                                                       @NotNull String tableName,
+                                                       @NotNull String filter,
+                                                       @Nullable List<String> columns,
+                                                       @Nullable ResultContinuation continuationToken,
+                                                       int takeCount)
+            throws AzureCmdException {
+        try {
+            CloudTableClient client = getCloudTableClient(connectionString);
             CloudTable cloudTable = client.getTableReference(tableName);
 
-            TableQuery<DynamicTableEntity> tableQuery = TableQuery.from(DynamicTableEntity.class);
+            TableQuery<DynamicTableEntity> tableQuery = TableQuery.from(DynamicTableEntity.class).take(takeCount);
 
             if (!filter.isEmpty()) {
                 tableQuery.where(filter);
             }
 
+            if (columns != null && !columns.isEmpty()) {
+                tableQuery.select(columns.toArray(new String[columns.size()]));
+            }
+
             TableRequestOptions tro = new TableRequestOptions();
             tro.setTablePayloadFormat(TablePayloadFormat.JsonFullMetadata);
 
-            for (DynamicTableEntity dte : cloudTable.execute(tableQuery, tro, null)) {
+            ResultSegment<DynamicTableEntity> segment =
+                    cloudTable.executeSegmented(tableQuery, continuationToken, tro, null);
+            ArrayList<TableEntity> teList = new ArrayList<TableEntity>(segment.getLength());
+
+            for (DynamicTableEntity dte : segment.getResults()) {
                 teList.add(getTableEntity(tableName, dte));
             }
 
-            return teList;
+            return new ResultSegment<TableEntity>(teList, takeCount, segment.getContinuationToken());
         } catch (Throwable t) {
             throw new AzureCmdException("Error retrieving the Table Entity list", t);
         }
@@ -732,6 +872,91 @@ public class StorageClientSDKManager {
         }
     }
 
+    /**
+     * Insert the entities, or replace the existing ones with the same keys, in entity group transactions.
+     */
+    @NotNull
+    public List<TableEntityBatchResult> insertOrReplaceTableEntities(@NotNull String connectionString,
+                                                                     @NotNull String tableName,
+                                                                     @NotNull List<TableEntity> tableEntities)
+            throws AzureCmdException {
+        return executeTableBatch(connectionString, tableName, tableEntities, TableBatchExecutor.Kind.INSERT_OR_REPLACE);
+    }
+
+    /**
+     * Replace the entities, which must not be changed since they are read, in entity group transactions.
+     */
+    @NotNull
+    public List<TableEntityBatchResult> updateTableEntities(@NotNull String connectionString,
+                                                            @NotNull String tableName,
+                                                            @NotNull List<TableEntity> tableEntities)
+            throws AzureCmdException {
+        return executeTableBatch(connectionString, tableName, tableEntities, TableBatchExecutor.Kind.REPLACE);
+    }
+
+    /**
+     * Delete the entities, which must not be changed since they are read, in entity group transactions.
+     */
+    @NotNull
+    public List<TableEntityBatchResult> deleteTableEntities(@NotNull String connectionString,
+                                                            @NotNull String tableName,
+                                                            @NotNull List<TableEntity> tableEntities)
+            throws AzureCmdException {
+        return executeTableBatch(connectionString, tableName, tableEntities, TableBatchExecutor.Kind.DELETE);
+    }
+
+    @NotNull
+    private List<TableEntityBatchResult> executeTableBatch(@NotNull String connectionString,
+                                                           @NotNull String tableName,
+                                                           @NotNull List<TableEntity> tableEntities,
+                                                           @NotNull TableBatchExecutor.Kind kind)
+            throws AzureCmdException {
+        List<TableBatchExecutor.Outcome> outcomes;
+
+        try {
+            CloudTableClient client = getCloudTableClient(connectionString);
+            CloudTable cloudTable = client.getTableReference(tableName);
+
+            List<DynamicTableEntity> entities = new ArrayList<DynamicTableEntity>(tableEntities.size());
+
+            for (TableEntity tableEntity : tableEntities) {
+                entities.add(getDynamicTableEntity(tableEntity));
+            }
+
+            TableRequestOptions tro = new TableRequestOptions();
+            tro.setTablePayloadFormat(TablePayloadFormat.JsonFullMetadata);
+
+            outcomes = new TableBatchExecutor(cloudTable, tro, kind, TableBatchExecutor.DEFAULT_BATCHES_IN_FLIGHT)
+                    .execute(entities);
+        } catch (Throwable t) {
+            throw new AzureCmdException("Error executing the Table Entity batch", t);
+        }
+
+        List<TableEntityBatchResult> results = new ArrayList<TableEntityBatchResult>(tableEntities.size());
+
+        for (int i = 0; i < tableEntities.size(); i++) {
+            TableEntity tableEntity = tableEntities.get(i);
+            TableBatchExecutor.Outcome outcome = outcomes.get(i);
+
+            if (outcome.error != null) {
+                results.add(new TableEntityBatchResult(tableEntity, null, new AzureCmdException(
+                        String.format("Error executing the Table Entity batch on %s/%s",
+                                      tableEntity.getPartitionKey(), tableEntity.getRowKey()),
+                        outcome.error)));
+            } else if (kind == TableBatchExecutor.Kind.DELETE) {
+                results.add(new TableEntityBatchResult(tableEntity, null, null));
+            } else {
+                String eTag = outcome.result != null ? Strings.nullToEmpty(outcome.result.getEtag()) : "";
+
+                results.add(new TableEntityBatchResult(tableEntity, new TableEntity(
+                        tableEntity.getPartitionKey(), tableEntity.getRowKey(), tableName, eTag,
+                        tableEntity.getTimestamp(), tableEntity.getProperties()), null));
+            }
+        }
+
+        return results;
+    }
+
     @NotNull
     public static String getConnectionString(StorageAccount storageAccount) {
         String accountName = storageAccount.name();
@@ -784,6 +1009,22 @@ public class StorageClientSDKManager {
         return csa.createCloudTableClient();
     }
 
+    @NotNull
+    private static CloudTableClient getCloudTableClient(@NotNull String connectionString) throws Exception {
+        CloudStorageAccount csa = getCloudStorageAccount(connectionString);
+        return csa.createCloudTableClient();
+    }
+
+    @NotNull
+    private static CloudBlockBlob getCloudBlockBlob(@NotNull String connectionString,
+                                                    @NotNull BlobContainer blobContainer,
+                                                    @NotNull String filePath) throws Exception {
+        CloudBlobClient client = getCloudBlobClient(connectionString);
+        CloudBlobContainer container = client.getContainerReference(blobContainer.getName());
+
+        return container.getBlockBlobReference(filePath);
+    }
+
     @NotNull
     private static CloudBlob getCloudBlob(@NotNull CloudBlobContainer container,
                                           @NotNull BlobFile blobFile)
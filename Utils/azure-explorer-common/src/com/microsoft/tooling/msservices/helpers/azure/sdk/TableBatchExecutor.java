@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.tooling.msservices.helpers.azure.sdk;
+
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.table.CloudTable;
+import com.microsoft.azure.storage.table.DynamicTableEntity;
+import com.microsoft.azure.storage.table.TableBatchOperation;
+import com.microsoft.azure.storage.table.TableOperation;
+import com.microsoft.azure.storage.table.TableRequestOptions;
+import com.microsoft.azure.storage.table.TableResult;
+import com.microsoft.azure.storage.table.TableServiceException;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the same kind of operation on many entities of a table with entity group transactions.
+ *
+ * The entities are grouped by partition key into batches of up to 100 operations, the limit of a transaction, and
+ * several batches run concurrently. A batch is atomic, when one operation fails the service reports which one, and the
+ * batch is retried without it so the other entities still get their own results.
+ */
+class TableBatchExecutor {
+    static final int MAX_BATCH_SIZE = 100;
+    static final int DEFAULT_BATCHES_IN_FLIGHT = 4;
+
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+
+    enum Kind {
+        INSERT_OR_REPLACE,
+        REPLACE,
+        DELETE
+    }
+
+    /**
+     * The result or the error of one entity.
+     */
+    static class Outcome {
+        @Nullable
+        final TableResult result;
+
+        @Nullable
+        final Throwable error;
+
+        Outcome(@Nullable TableResult result, @Nullable Throwable error) {
+            this.result = result;
+            this.error = error;
+        }
+    }
+
+    @NotNull
+    private final CloudTable cloudTable;
+
+    @NotNull
+    private final TableRequestOptions options;
+
+    @NotNull
+    private final Kind kind;
+
+    private final int batchesInFlight;
+
+    TableBatchExecutor(@NotNull CloudTable cloudTable,
+                       @NotNull TableRequestOptions options,
+                       @NotNull Kind kind,
+                       int batchesInFlight) {
+        if (batchesInFlight <= 0) {
+            throw new IllegalArgumentException("Bad batches in flight " + batchesInFlight);
+        }
+
+        this.cloudTable = cloudTable;
+        this.options = options;
+        this.kind = kind;
+        this.batchesInFlight = batchesInFlight;
+    }
+
+    /**
+     * Run the operation on the entities.
+     *
+     * @return the outcome of every entity, in the order of the entities
+     */
+    @NotNull
+    List<Outcome> execute(@NotNull List<DynamicTableEntity> entities) throws InterruptedException {
+        Outcome[] outcomes = new Outcome[entities.size()];
+        Map<String, List<Integer>> partitions = new LinkedHashMap<>();
+
+        for (int i = 0; i < entities.size(); i++) {
+            partitions.computeIfAbsent(entities.get(i).getPartitionKey(), key -> new ArrayList<>()).add(i);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(batchesInFlight, runnable -> {
+            Thread thread = new Thread(runnable, "TableBatch-" + threadCounter.getAndIncrement());
+            thread.setDaemon(true);
+
+            return thread;
+        });
+        List<Future<?>> batchFutures = new ArrayList<>();
+
+        try {
+            for (List<Integer> partition : partitions.values()) {
+                for (int from = 0; from < partition.size(); from += MAX_BATCH_SIZE) {
+                    List<Integer> batch = partition.subList(from, Math.min(from + MAX_BATCH_SIZE, partition.size()));
+
+                    batchFutures.add(executor.submit(() -> executeBatch(entities, batch, outcomes)));
+                }
+            }
+
+            for (Future<?> batchFuture : batchFutures) {
+                try {
+                    batchFuture.get();
+                } catch (ExecutionException ex) {
+                    // executeBatch() records its errors into the outcomes, nothing should be here
+                    throw new IllegalStateException(ex.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<Outcome> results = new ArrayList<>(outcomes.length);
+
+        for (Outcome outcome : outcomes) {
+            results.add(outcome);
+        }
+
+        return results;
+    }
+
+    private void executeBatch(@NotNull List<DynamicTableEntity> entities,
+                              @NotNull List<Integer> batchIndexes,
+                              @NotNull Outcome[] outcomes) {
+        List<Integer> pending = new ArrayList<>(batchIndexes);
+
+        while (!pending.isEmpty()) {
+            TableBatchOperation batch = new TableBatchOperation();
+
+            for (int index : pending) {
+                batch.add(createOperation(entities.get(index)));
+            }
+
+            try {
+                List<TableResult> results = cloudTable.execute(batch, options, null);
+
+                for (int i = 0; i < pending.size(); i++) {
+                    outcomes[pending.get(i)] = new Outcome(i < results.size() ? results.get(i) : null, null);
+                }
+
+                return;
+            } catch (StorageException ex) {
+                int failed = ex instanceof TableServiceException
+                             ? indexOf(batch, ((TableServiceException) ex).getOperation())
+                             : -1;
+
+                if (failed < 0) {
+                    // Can't tell which operation fails, the whole batch fails
+                    for (int index : pending) {
+                        outcomes[index] = new Outcome(null, ex);
+                    }
+
+                    return;
+                }
+
+                outcomes[pending.remove(failed)] = new Outcome(null, ex);
+            } catch (RuntimeException ex) {
+                for (int index : pending) {
+                    outcomes[index] = new Outcome(null, ex);
+                }
+
+                return;
+            }
+        }
+    }
+
+    @NotNull
+    private TableOperation createOperation(@NotNull DynamicTableEntity entity) {
+        switch (kind) {
+            case REPLACE:
+                return TableOperation.replace(entity);
+            case DELETE:
+                return TableOperation.delete(entity);
+            case INSERT_OR_REPLACE:
+            default:
+                return TableOperation.insertOrReplace(entity);
+        }
+    }
+
+    private static int indexOf(@NotNull TableBatchOperation batch, @Nullable TableOperation operation) {
+        if (operation == null) {
+            return -1;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.get(i) == operation) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.tooling.msservices.helpers.azure.sdk;
+
+import com.microsoft.azuretools.azurecommons.helpers.AzureCmdException;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.microsoft.tooling.msservices.model.storage.TableEntity;
+
+/**
+ * The outcome of one entity in a table batch operation.
+ */
+public class TableEntityBatchResult {
+    @NotNull
+    private final TableEntity entity;
+
+    @Nullable
+    private final TableEntity result;
+
+    @Nullable
+    private final AzureCmdException error;
+
+    TableEntityBatchResult(@NotNull TableEntity entity,
+                           @Nullable TableEntity result,
+                           @Nullable AzureCmdException error) {
+        this.entity = entity;
+        this.result = result;
+        this.error = error;
+    }
+
+    /**
+     * The entity passed to the batch operation.
+     */
+    @NotNull
+    public TableEntity getEntity() {
+        return entity;
+    }
+
+    /**
+     * The entity with the new ETag after an insert or update, null for a delete or a failure.
+     */
+    @Nullable
+    public TableEntity getResult() {
+        return result;
+    }
+
+    @Nullable
+    public AzureCmdException getError() {
+        return error;
+    }
+
+    public boolean isSucceeded() {
+        return error == null;
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.tooling.msservices.helpers.azure.sdk;
+
+import com.microsoft.azuretools.azurecommons.helpers.AzureCmdException;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.microsoft.tooling.msservices.model.storage.TableEntity;
+import com.microsoft.tooling.msservices.model.storage.TableEntity.Property;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads table entities from CSV text (RFC 4180) for importing into a table.
+ *
+ * The first record is the header, which must have the PartitionKey and RowKey columns. A Timestamp column is
+ * ignored, every other column is a string property, and an empty cell leaves the property out of the entity.
+ */
+public class TableEntityCsvReader {
+    private static final String PARTITION_KEY = "PartitionKey";
+    private static final String ROW_KEY = "RowKey";
+    private static final String TIMESTAMP = "Timestamp";
+
+    @NotNull
+    private final Reader reader;
+
+    private int line = 1;
+
+    private int recordLine = 1;
+
+    private int lookAhead = -2;
+
+    public TableEntityCsvReader(@NotNull Reader reader) {
+        this.reader = reader;
+    }
+
+    @NotNull
+    public List<TableEntity> read(@NotNull String tableName) throws AzureCmdException {
+        try {
+            List<String> header = readRecord();
+
+            if (header == null) {
+                return new ArrayList<TableEntity>();
+            }
+
+            int partitionKeyIndex = indexOfColumn(header, PARTITION_KEY, "Partition key");
+            int rowKeyIndex = indexOfColumn(header, ROW_KEY, "Row key");
+
+            if (partitionKeyIndex < 0 || rowKeyIndex < 0) {
+                throw new AzureCmdException("The CSV header must have the PartitionKey and RowKey columns.");
+            }
+
+            List<TableEntity> entities = new ArrayList<TableEntity>();
+            List<String> record;
+
+            while ((record = readRecord()) != null) {
+                if (record.size() == 1 && record.get(0).isEmpty()) {
+                    // Blank line
+                    continue;
+                }
+
+                if (record.size() != header.size()) {
+                    throw new AzureCmdException(String.format("The CSV record at line %d has %d cells, expect %d.",
+                                                              recordLine, record.size(), header.size()));
+                }
+
+                Map<String, Property> properties = new LinkedHashMap<String, Property>();
+
+                for (int i = 0; i < header.size(); i++) {
+                    String column = header.get(i).trim();
+
+                    if (i == partitionKeyIndex || i == rowKeyIndex || column.equalsIgnoreCase(TIMESTAMP)
+                            || record.get(i).isEmpty()) {
+                        continue;
+                    }
+
+                    properties.put(column, new Property(record.get(i)));
+                }
+
+                entities.add(new TableEntity(record.get(partitionKeyIndex), record.get(rowKeyIndex), tableName, "",
+                                             new GregorianCalendar(), properties));
+            }
+
+            return entities;
+        } catch (IOException e) {
+            throw new AzureCmdException("Error reading the CSV file", e);
+        }
+    }
+
+    /**
+     * Read the cells of the next record, or null at the end.
+     */
+    @Nullable
+    private List<String> readRecord() throws IOException, AzureCmdException {
+        recordLine = line;
+        int c = read();
+
+        if (c < 0) {
+            return null;
+        }
+
+        List<String> cells = new ArrayList<String>();
+        StringBuilder cell = new StringBuilder();
+        boolean isQuoted = false;
+        int quoteLine = line;
+
+        while (true) {
+            if (isQuoted) {
+                if (c < 0) {
+                    throw new AzureCmdException(String.format("The quoted CSV cell from line %d isn't closed.",
+                                                              quoteLine));
+                } else if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        cell.append('"');
+                    } else {
+                        isQuoted = false;
+                    }
+                } else {
+                    cell.append((char) c);
+                }
+            } else if (c < 0 || c == '\n' || c == '\r') {
+                if (c == '\r' && peek() == '\n') {
+                    read();
+                }
+
+                cells.add(cell.toString());
+
+                return cells;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else if (c == '"' && cell.length() == 0) {
+                isQuoted = true;
+                quoteLine = line;
+            } else {
+                cell.append((char) c);
+            }
+
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        int c = lookAhead != -2 ? lookAhead : reader.read();
+        lookAhead = -2;
+
+        if (c == '\n') {
+            line++;
+        }
+
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (lookAhead == -2) {
+            lookAhead = reader.read();
+        }
+
+        return lookAhead;
+    }
+
+    private static int indexOfColumn(@NotNull List<String> header, @NotNull String... names) {
+        for (int i = 0; i < header.size(); i++) {
+            for (String name : names) {
+                if (header.get(i).trim().equalsIgnoreCase(name)) {
+                    return i;
+                }
+            }
+        }
+
+        return -1;
+    }
+}
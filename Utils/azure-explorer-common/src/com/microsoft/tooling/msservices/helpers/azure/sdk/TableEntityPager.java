@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.tooling.msservices.helpers.azure.sdk;
+
+import com.microsoft.azure.storage.ResultContinuation;
+import com.microsoft.azure.storage.ResultSegment;
+import com.microsoft.azuretools.azurecommons.helpers.AzureCmdException;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.microsoft.tooling.msservices.model.storage.TableEntity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Loads the entities of a table query segment by segment, for the editors to show a huge table without reading it
+ * all into memory. The editors load the next segment when the user scrolls near the end of the loaded entities.
+ *
+ * The loading is blocking and runs in the caller's background thread, only one segment is loaded at a time. A
+ * cancelled pager drops the segment in flight and loads no more.
+ */
+public class TableEntityPager {
+    @NotNull
+    private final String connectionString;
+
+    @NotNull
+    private final String tableName;
+
+    @NotNull
+    private final String filter;
+
+    @Nullable
+    private final List<String> columns;
+
+    private final int pageSize;
+
+    @NotNull
+    private final List<TableEntity> entities = new ArrayList<TableEntity>();
+
+    @Nullable
+    private ResultContinuation continuationToken;
+
+    private boolean isLastPageLoaded = false;
+
+    @Nullable
+    private Thread loadingThread;
+
+    private volatile boolean isCancelled = false;
+
+    public TableEntityPager(@NotNull String connectionString,
+                            @NotNull String tableName,
+                            @NotNull String filter,
+                            @Nullable List<String> columns,
+                            int pageSize) {
+        this.connectionString = connectionString;
+        this.tableName = tableName;
+        this.filter = filter;
+        this.columns = columns;
+        this.pageSize = pageSize;
+    }
+
+    public TableEntityPager(@NotNull String connectionString, @NotNull String tableName, @NotNull String filter) {
+        this(connectionString, tableName, filter, null, StorageClientSDKManager.DEFAULT_TABLE_ENTITY_PAGE_SIZE);
+    }
+
+    public synchronized int size() {
+        return entities.size();
+    }
+
+    @NotNull
+    public synchronized TableEntity get(int index) {
+        return entities.get(index);
+    }
+
+    /**
+     * Get a snapshot of the loaded entities.
+     */
+    @NotNull
+    public synchronized List<TableEntity> getEntities() {
+        return new ArrayList<TableEntity>(entities);
+    }
+
+    public synchronized void add(@NotNull TableEntity entity) {
+        entities.add(entity);
+    }
+
+    public synchronized void set(int index, @NotNull TableEntity entity) {
+        entities.set(index, entity);
+    }
+
+    public synchronized void removeAll(@NotNull List<TableEntity> removed) {
+        entities.removeAll(removed);
+    }
+
+    public synchronized boolean hasMore() {
+        return !isLastPageLoaded && !isCancelled;
+    }
+
+    public synchronized boolean isLoading() {
+        return loadingThread != null;
+    }
+
+    public boolean isCancelled() {
+        return isCancelled;
+    }
+
+    /**
+     * Load the next segment of the entities.
+     *
+     * @return the entities loaded, empty if there are no more, the pager is cancelled or another load is running
+     */
+    @NotNull
+    public List<TableEntity> loadNextPage() throws AzureCmdException {
+        ResultContinuation token;
+
+        synchronized (this) {
+            if (!hasMore() || loadingThread != null) {
+                return Collections.emptyList();
+            }
+
+            loadingThread = Thread.currentThread();
+            token = continuationToken;
+        }
+
+        try {
+            ResultSegment<TableEntity> segment = StorageClientSDKManager.getManager().getTableEntities(
+                    connectionString, tableName, filter, columns, token, pageSize);
+
+            synchronized (this) {
+                if (isCancelled) {
+                    return Collections.emptyList();
+                }
+
+                entities.addAll(segment.getResults());
+                continuationToken = segment.getContinuationToken();
+                isLastPageLoaded = continuationToken == null;
+
+                return segment.getResults();
+            }
+        } catch (AzureCmdException ex) {
+            if (isCancelled) {
+                return Collections.emptyList();
+            }
+
+            throw ex;
+        } finally {
+            synchronized (this) {
+                loadingThread = null;
+            }
+
+            // Clear the interruption from cancel() before the thread is back to the caller's pool
+            if (isCancelled) {
+                Thread.interrupted();
+            }
+        }
+    }
+
+    /**
+     * Cancel the query, the segment still in flight is dropped.
+     */
+    public void cancel() {
+        isCancelled = true;
+
+        synchronized (this) {
+            if (loadingThread != null) {
+                loadingThread.interrupt();
+            }
+        }
+    }
+}
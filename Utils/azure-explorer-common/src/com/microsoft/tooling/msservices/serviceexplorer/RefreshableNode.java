@@ -43,12 +43,16 @@ public abstract class RefreshableNode extends Node {
     public static String REFRESH_ICON_DARK = "RefreshDark_16.png";
     private static final String REFRESH = "Refresh";
 
+    protected final SubscriptionRefresher subscriptionRefresher;
+
     public RefreshableNode(String id, String name, Node parent, String iconPath) {
         super(id, name, parent, iconPath);
+        subscriptionRefresher = new SubscriptionRefresher(name);
     }
 
     public RefreshableNode(String id, String name, Node parent, String iconPath, boolean delayActionLoading) {
         super(id, name, parent, iconPath, delayActionLoading);
+        subscriptionRefresher = new SubscriptionRefresher(name);
     }
 
     @Override
@@ -110,6 +114,11 @@ public abstract class RefreshableNode extends Node {
     protected void refreshFromAzure() throws Exception {
     }
 
+    // Stop the running refresh across subscriptions, e.g. when the selected subscriptions change
+    public void cancelRefresh() {
+        subscriptionRefresher.cancel();
+    }
+
     // Add update node name support after refresh the node
     protected void updateNodeNameAfterLoading() {
     }
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.tooling.msservices.serviceexplorer;
+
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import rx.Observable;
+import rx.Subscription;
+import rx.schedulers.Schedulers;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Lists the resources of a node across subscriptions, with several subscriptions in flight.
+ *
+ * The resources of every subscription are rendered as soon as that subscription is listed, instead of after all of
+ * them. The rendering is serialized with the refresher lock, and a refresh started on the same refresher, or
+ * cancelled, stops the rendering of the superseded one, so nothing is rendered once {@link #cancel()} returns. The
+ * listing time of every subscription is kept for diagnostics.
+ */
+public class SubscriptionRefresher {
+    public static final int DEFAULT_MAX_CONCURRENT_SUBSCRIPTIONS = 4;
+
+    private static final Logger LOGGER = Logger.getLogger(SubscriptionRefresher.class.getName());
+    private static volatile int maxConcurrentSubscriptions = DEFAULT_MAX_CONCURRENT_SUBSCRIPTIONS;
+
+    @NotNull
+    private final String resourceName;
+
+    @NotNull
+    private final AtomicLong generation = new AtomicLong();
+
+    @NotNull
+    private final Map<String, Long> lastTimings = new ConcurrentHashMap<>();
+
+    @Nullable
+    private volatile Subscription running;
+
+    public SubscriptionRefresher(@NotNull String resourceName) {
+        this.resourceName = resourceName;
+    }
+
+    public static int getMaxConcurrentSubscriptions() {
+        return maxConcurrentSubscriptions;
+    }
+
+    public static void setMaxConcurrentSubscriptions(int maxConcurrentSubscriptions) {
+        if (maxConcurrentSubscriptions <= 0) {
+            throw new IllegalArgumentException("Bad max concurrent subscriptions " + maxConcurrentSubscriptions);
+        }
+
+        SubscriptionRefresher.maxConcurrentSubscriptions = maxConcurrentSubscriptions;
+    }
+
+    /**
+     * Loads the resources of a subscription.
+     */
+    public interface Loader<T> {
+        List<T> load(@NotNull String sid) throws Exception;
+    }
+
+    /**
+     * Renders the resources of a subscription, never called concurrently. It's called with the refresher lock held,
+     * so it shouldn't wait for the thread which may cancel the refresh.
+     */
+    public interface Renderer<T> {
+        void render(@NotNull String sid, @NotNull List<T> resources) throws Exception;
+    }
+
+    /**
+     * List and render the resources of all the subscriptions, blocks until all of them are done or the refresh is
+     * superseded. The refresh is cancelled if the calling thread is interrupted.
+     *
+     * @return the error messages of the failed subscriptions by subscription ID
+     */
+    @NotNull
+    public <T> Map<String, String> refresh(@NotNull Collection<String> sids,
+                                           @NotNull Loader<T> loader,
+                                           @NotNull Renderer<T> renderer) throws InterruptedException {
+        final long refreshGeneration;
+        final Map<String, String> failures = Collections.synchronizedMap(new LinkedHashMap<>());
+        final CountDownLatch done = new CountDownLatch(1);
+        final long refreshStart = System.nanoTime();
+
+        Subscription previous;
+        synchronized (this) {
+            refreshGeneration = generation.incrementAndGet();
+            previous = running;
+            running = null;
+        }
+        if (previous != null) {
+            previous.unsubscribe();
+        }
+
+        final Subscription subscription = Observable.from(sids)
+                .flatMap(sid -> Observable.fromCallable(() -> load(sid, loader)).subscribeOn(Schedulers.io()),
+                         maxConcurrentSubscriptions)
+                .doOnUnsubscribe(done::countDown)
+                .subscribe(
+                        result -> {
+                            // Check the generation and render with the lock, so a cancelled refresh never renders
+                            synchronized (this) {
+                                if (generation.get() != refreshGeneration) {
+                                    return;
+                                }
+
+                                lastTimings.put(result.sid, result.elapsedMs);
+                                LOGGER.log(Level.FINE, String.format("Listed %d %s of subscription %s in %d ms",
+                                        result.resources == null ? 0 : result.resources.size(), resourceName,
+                                        result.sid, result.elapsedMs));
+
+                                if (result.error != null) {
+                                    failures.put(result.sid, result.error.getMessage());
+
+                                    return;
+                                }
+
+                                try {
+                                    renderer.render(result.sid, result.resources);
+                                } catch (Exception ex) {
+                                    failures.put(result.sid, ex.getMessage());
+                                }
+                            }
+                        },
+                        err -> {
+                            LOGGER.log(Level.WARNING, "Failed to refresh " + resourceName, err);
+                            done.countDown();
+                        },
+                        done::countDown);
+
+        final boolean isSuperseded;
+        synchronized (this) {
+            isSuperseded = generation.get() != refreshGeneration;
+            if (!isSuperseded) {
+                running = subscription;
+            }
+        }
+        if (isSuperseded) {
+            subscription.unsubscribe();
+        }
+
+        boolean isDone = false;
+        try {
+            done.await();
+            isDone = true;
+        } finally {
+            if (!isDone) {
+                // Interrupted, stop the refresh unless it's superseded already
+                synchronized (this) {
+                    if (generation.get() == refreshGeneration) {
+                        generation.incrementAndGet();
+                        running = null;
+                    }
+                }
+                subscription.unsubscribe();
+            }
+        }
+
+        synchronized (this) {
+            if (generation.get() != refreshGeneration) {
+                return failures;
+            }
+            running = null;
+        }
+
+        LOGGER.info(String.format("Refreshed %s of %d subscriptions in %d ms", resourceName, sids.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - refreshStart)));
+
+        return failures;
+    }
+
+    /**
+     * Stop the running refresh, the subscriptions in flight are not rendered.
+     */
+    public void cancel() {
+        Subscription subscription;
+        synchronized (this) {
+            generation.incrementAndGet();
+            subscription = running;
+            running = null;
+        }
+        if (subscription != null) {
+            subscription.unsubscribe();
+        }
+    }
+
+    /**
+     * The listing time in milliseconds of every subscription, of the latest refresh which lists it.
+     */
+    @NotNull
+    public Map<String, Long> getLastTimings() {
+        return Collections.unmodifiableMap(lastTimings);
+    }
+
+    @NotNull
+    private static <T> Result<T> load(@NotNull String sid, @NotNull Loader<T> loader) {
+        long start = System.nanoTime();
+
+        try {
+            List<T> resources = loader.load(sid);
+
+            return new Result<>(sid, resources == null ? Collections.emptyList() : resources, null,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception ex) {
+            return new Result<>(sid, null, ex, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    private static class Result<T> {
+        @NotNull
+        private final String sid;
+
+        @Nullable
+        private final List<T> resources;
+
+        @Nullable
+        private final Exception error;
+
+        private final long elapsedMs;
+
+        private Result(@NotNull String sid, @Nullable List<T> resources, @Nullable Exception error, long elapsedMs) {
+            this.sid = sid;
+            this.resources = resources;
+            this.error = error;
+            this.elapsedMs = elapsedMs;
+        }
+    }
+}
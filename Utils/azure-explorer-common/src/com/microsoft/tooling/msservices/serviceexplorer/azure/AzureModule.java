@@ -36,6 +36,7 @@ import com.microsoft.tooling.msservices.components.DefaultLoader;
 import com.microsoft.tooling.msservices.serviceexplorer.AzureRefreshableNode;
 import com.microsoft.tooling.msservices.serviceexplorer.Node;
 import com.microsoft.tooling.msservices.serviceexplorer.NodeActionEvent;
+import com.microsoft.tooling.msservices.serviceexplorer.RefreshableNode;
 import com.microsoft.tooling.msservices.serviceexplorer.azure.arm.ResourceManagementModule;
 import com.microsoft.tooling.msservices.serviceexplorer.azure.container.ContainerRegistryModule;
 import com.microsoft.tooling.msservices.serviceexplorer.azure.function.FunctionModule;
@@ -252,6 +253,10 @@ public class AzureModule extends AzureRefreshableNode {
     private void handleSubscriptionChange() {
         setName(composeName());
         for (Node child : getChildNodes()) {
+            // The running refreshes list the subscriptions no longer selected
+            if (child instanceof RefreshableNode) {
+                ((RefreshableNode) child).cancelRefresh();
+            }
             child.removeAllChildNodes();
         }
     }
@@ -23,6 +23,7 @@
 package com.microsoft.tooling.msservices.serviceexplorer.azure.rediscache;
 
 import com.microsoft.azuretools.core.mvp.ui.base.MvpView;
+import com.microsoft.azuretools.core.mvp.ui.rediscache.RedisPoolMetrics;
 import com.microsoft.azuretools.core.mvp.ui.rediscache.RedisScanResult;
 import com.microsoft.azuretools.core.mvp.ui.rediscache.RedisValueData;
 
@@ -37,4 +38,6 @@ public interface RedisExplorerMvpView extends MvpView {
     void updateKeyList();
 
     void getKeyFail();
+
+    void showPoolMetrics(RedisPoolMetrics metrics);
 }
@@ -28,6 +28,7 @@ import com.microsoft.azuretools.azurecommons.helpers.RedisKeyType;
 import com.microsoft.azuretools.core.mvp.model.rediscache.RedisConnectionPools;
 import com.microsoft.azuretools.core.mvp.model.rediscache.RedisExplorerMvpModel;
 import com.microsoft.azuretools.core.mvp.ui.base.MvpPresenter;
+import com.microsoft.azuretools.core.mvp.ui.rediscache.RedisPoolMetrics;
 import com.microsoft.azuretools.core.mvp.ui.rediscache.RedisScanResult;
 import com.microsoft.azuretools.core.mvp.ui.rediscache.RedisValueData;
 import com.microsoft.azuretools.telemetry.TelemetryConstants;
@@ -121,6 +122,7 @@ public class RedisExplorerPresenter<V extends RedisExplorerMvpView> extends MvpP
                     return;
                 }
                 getMvpView().showScanResult(new RedisScanResult(result));
+                showPoolMetrics();
                 operation.complete();
             });
         }, e -> {
@@ -205,6 +207,16 @@ public class RedisExplorerPresenter<V extends RedisExplorerMvpView> extends MvpP
         RedisConnectionPools.getInstance().releasePool(id);
     }
 
+    /**
+     * Called when the connection metrics of the Redis Cache need to be shown.
+     */
+    public void showPoolMetrics() {
+        RedisPoolMetrics metrics = RedisConnectionPools.getInstance().getMetrics(id);
+        if (metrics != null && !isViewDetached()) {
+            getMvpView().showPoolMetrics(metrics);
+        }
+    }
+
     public void initializeResourceData(String sid, String id) {
         this.sid = sid;
         this.id = id;
@@ -22,7 +22,6 @@
 
 package com.microsoft.tooling.msservices.serviceexplorer.azure.storage;
 
-import com.microsoft.azure.management.Azure;
 import com.microsoft.azure.management.storage.StorageAccount;
 import com.microsoft.azuretools.authmanage.AuthMethodManager;
 import com.microsoft.azuretools.authmanage.SubscriptionManager;
@@ -39,6 +38,7 @@ import org.apache.commons.lang3.tuple.Pair;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class StorageModule extends AzureRefreshableNode {
@@ -64,19 +64,18 @@ public class StorageModule extends AzureRefreshableNode {
 
             SubscriptionManager subscriptionManager = azureManager.getSubscriptionManager();
             Set<String> sidList = subscriptionManager.getAccountSidList();
-            for (String sid : sidList) {
-                try {
-                    Azure azure = azureManager.getAzure(sid);
-                    List<com.microsoft.azure.management.storage.StorageAccount> storageAccounts = azure.storageAccounts().list();
-                    for (StorageAccount sm : storageAccounts) {
-                        addChildNode(new StorageNode(this, sid, sm));
-                    }
-
-                } catch (Exception ex) {
-                    failedSubscriptions.add(new ImmutablePair<>(sid, ex.getMessage()));
-                    continue;
-                }
+            Map<String, String> failures = subscriptionRefresher.refresh(sidList,
+                    sid -> new ArrayList<StorageAccount>(azureManager.getAzure(sid).storageAccounts().list()),
+                    (sid, storageAccounts) -> {
+                        for (StorageAccount sm : storageAccounts) {
+                            addChildNode(new StorageNode(this, sid, sm));
+                        }
+                    });
+            for (Map.Entry<String, String> failure : failures.entrySet()) {
+                failedSubscriptions.add(new ImmutablePair<>(failure.getKey(), failure.getValue()));
             }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
         } catch (Exception ex) {
             DefaultLoader.getUIHelper().logError("An error occurred when trying to load Storage Accounts\n\n" + ex.getMessage(), ex);
         }
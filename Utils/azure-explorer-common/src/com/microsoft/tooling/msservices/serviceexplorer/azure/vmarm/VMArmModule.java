@@ -22,7 +22,6 @@
 
 package com.microsoft.tooling.msservices.serviceexplorer.azure.vmarm;
 
-import com.microsoft.azure.management.Azure;
 import com.microsoft.azure.management.compute.VirtualMachine;
 import com.microsoft.azuretools.authmanage.AuthMethodManager;
 import com.microsoft.azuretools.authmanage.SubscriptionManager;
@@ -36,6 +35,7 @@ import org.apache.commons.lang3.tuple.Pair;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -65,20 +65,18 @@ public class VMArmModule extends AzureRefreshableNode {
                     .filter(subscriptionDetail -> Objects.nonNull(subscriptionDetail) && subscriptionDetail.isSelected())
                     .map(subscriptionDetail -> subscriptionDetail.getSubscriptionId())
                     .collect(Collectors.toSet());
-            for (String sid : sidList) {
-                try {
-                    Azure azure = azureManager.getAzure(sid);
-                    List<VirtualMachine> virtualMachines = azure.virtualMachines().list();
-
-                    for (VirtualMachine vm : virtualMachines) {
-                        addChildNode(new VMNode(this, sid, vm));
-                    }
-
-                } catch (Exception ex) {
-                    failedSubscriptions.add(new ImmutablePair<>(sid, ex.getMessage()));
-                    continue;
-                }
+            Map<String, String> failures = subscriptionRefresher.refresh(sidList,
+                    sid -> new ArrayList<VirtualMachine>(azureManager.getAzure(sid).virtualMachines().list()),
+                    (sid, virtualMachines) -> {
+                        for (VirtualMachine vm : virtualMachines) {
+                            addChildNode(new VMNode(this, sid, vm));
+                        }
+                    });
+            for (Map.Entry<String, String> failure : failures.entrySet()) {
+                failedSubscriptions.add(new ImmutablePair<>(failure.getKey(), failure.getValue()));
             }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
         } catch (Exception ex) {
             DefaultLoader.getUIHelper().logError("An error occurred when trying to load Virtual Machines\n\n" + ex.getMessage(), ex);
         }
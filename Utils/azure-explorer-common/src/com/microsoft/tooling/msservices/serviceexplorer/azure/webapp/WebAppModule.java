@@ -24,12 +24,16 @@ package com.microsoft.tooling.msservices.serviceexplorer.azure.webapp;
 
 import java.io.IOException;
 
+import com.google.common.util.concurrent.SettableFuture;
 import com.microsoft.azure.CloudException;
 import com.microsoft.azure.management.appservice.WebApp;
 import com.microsoft.azure.management.resources.fluentcore.arm.ResourceId;
 import com.microsoft.azuretools.azurecommons.helpers.AzureCmdException;
 import com.microsoft.azuretools.azurecommons.helpers.NotNull;
 import com.microsoft.azuretools.core.mvp.model.ResourceEx;
+import com.microsoft.azuretools.core.mvp.model.webapp.WebAppListDiff;
+import com.microsoft.azuretools.enums.ErrorEnum;
+import com.microsoft.azuretools.exception.AzureRuntimeException;
 import com.microsoft.azuretools.utils.AzureUIRefreshCore;
 import com.microsoft.azuretools.utils.AzureUIRefreshEvent;
 import com.microsoft.azuretools.utils.AzureUIRefreshListener;
@@ -37,8 +41,11 @@ import com.microsoft.azuretools.utils.WebAppUtils;
 import com.microsoft.tooling.msservices.components.DefaultLoader;
 import com.microsoft.tooling.msservices.serviceexplorer.AzureRefreshableNode;
 import com.microsoft.tooling.msservices.serviceexplorer.Node;
+import org.apache.commons.lang3.StringUtils;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class WebAppModule extends AzureRefreshableNode implements WebAppModuleView {
     private static final String REDIS_SERVICE_MODULE_ID = WebAppModule.class.getName();
@@ -63,6 +70,28 @@ public class WebAppModule extends AzureRefreshableNode implements WebAppModuleVi
         webAppModulePresenter.onModuleRefresh();
     }
 
+    @Override
+    protected synchronized void refreshItems(SettableFuture<List<Node>> future, boolean forceRefresh) {
+        if (!forceRefresh || loading || !hasChildNodes()) {
+            super.refreshItems(future, forceRefresh);
+            return;
+        }
+
+        // Keep the rendered Web Apps and update the changed ones only
+        setLoading(true);
+        try {
+            webAppModulePresenter.onModuleDiffRefresh();
+            future.set(getChildNodes());
+        } catch (AzureRuntimeException e) {
+            DefaultLoader.getUIHelper().showInfoNotification("MS Services - Error Refreshing Nodes",
+                    ErrorEnum.getDisplayMessageByCode(e.getCode()));
+        } catch (Exception e) {
+            future.setException(e);
+        } finally {
+            setLoading(false);
+        }
+    }
+
     @Override
     public void removeNode(String sid, String id, Node node) {
         try {
@@ -128,4 +157,25 @@ public class WebAppModule extends AzureRefreshableNode implements WebAppModuleVi
             addChildNode(node);
         }
     }
+
+    @Override
+    public void applyChanges(@NotNull final WebAppListDiff diff) {
+        // The changed Web Apps are rendered again, and the existing nodes are replaced to not duplicate them
+        Stream.of(diff.getRemoved(), diff.getChanged(), diff.getAdded())
+                .flatMap(List::stream)
+                .map(resourceEx -> resourceEx.getResource().id())
+                .forEach(this::removeWebAppNode);
+
+        final List<ResourceEx<WebApp>> rendered = new ArrayList<>(diff.getAdded());
+        rendered.addAll(diff.getChanged());
+        renderChildren(rendered);
+    }
+
+    private void removeWebAppNode(final String webAppId) {
+        for (final Node child : new ArrayList<>(getChildNodes())) {
+            if (child instanceof WebAppNode && StringUtils.equalsIgnoreCase(((WebAppNode) child).getWebAppId(), webAppId)) {
+                removeDirectChildNode(child);
+            }
+        }
+    }
 }
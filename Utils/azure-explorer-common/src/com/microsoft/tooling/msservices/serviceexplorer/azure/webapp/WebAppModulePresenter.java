@@ -34,7 +34,21 @@ public class WebAppModulePresenter<V extends WebAppModuleView> extends MvpPresen
     public void onModuleRefresh() {
         final WebAppModuleView view = getMvpView();
         if (view != null) {
-            view.renderChildren(AzureWebAppMvpModel.getInstance().listAllWebApps(true));
+            // Render the Web Apps page by page as they are listed
+            AzureWebAppMvpModel.getInstance().listAllWebAppPages(true).toBlocking().forEach(view::renderChildren);
+        }
+    }
+
+    /**
+     * Called from view when the rendered Web Apps need refresh, only the changed ones are rendered again.
+     */
+    public void onModuleDiffRefresh() {
+        final WebAppModuleView view = getMvpView();
+        if (view != null) {
+            AzureWebAppMvpModel.getInstance().refreshAllWebApps()
+                    .filter(diff -> !diff.isEmpty())
+                    .toBlocking()
+                    .forEach(view::applyChanges);
         }
     }
 
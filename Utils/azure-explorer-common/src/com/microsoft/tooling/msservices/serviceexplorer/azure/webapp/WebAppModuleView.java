@@ -26,8 +26,11 @@ import java.util.List;
 
 import com.microsoft.azure.management.appservice.WebApp;
 import com.microsoft.azuretools.core.mvp.model.ResourceEx;
+import com.microsoft.azuretools.core.mvp.model.webapp.WebAppListDiff;
 import com.microsoft.azuretools.core.mvp.ui.base.MvpView;
 
 public interface WebAppModuleView extends MvpView {
     void renderChildren(List<ResourceEx<WebApp>> resourceExes);
+
+    void applyChanges(WebAppListDiff diff);
 }
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.tooling.msservices.helpers.azure.sdk;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import com.microsoft.azure.storage.AccessCondition;
+import com.microsoft.azure.storage.OperationContext;
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.BlobProperties;
+import com.microsoft.azure.storage.blob.BlobRequestOptions;
+import com.microsoft.azure.storage.blob.CloudBlockBlob;
+import com.microsoft.tooling.msservices.helpers.CallableSingleArg;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({ CloudBlockBlob.class, BlobProperties.class })
+@PowerMockIgnore({ "javax.crypto.*", "javax.management.*" })
+public class BlobParallelDownloaderTest {
+    private static final int RANGE_SIZE = 1024;
+
+    private CloudBlockBlob blob;
+    private byte[] content;
+    private Set<Long> requestedOffsets;
+    private File targetFile;
+    private volatile long failOffset = -1;
+
+    @Before
+    public void setUp() throws Exception {
+        content = new byte[8 * RANGE_SIZE + 300];
+        new Random(0).nextBytes(content);
+        requestedOffsets = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        targetFile = File.createTempFile("blobDownload", ".bin");
+
+        BlobProperties properties = PowerMockito.mock(BlobProperties.class);
+        when(properties.getLength()).thenReturn((long) content.length);
+        when(properties.getEtag()).thenReturn("\"0x8D0001\"");
+
+        blob = PowerMockito.mock(CloudBlockBlob.class);
+        when(blob.getProperties()).thenReturn(properties);
+        doAnswer(invocation -> {
+            long offset = invocation.getArgument(0);
+            int size = ((Long) invocation.getArgument(1)).intValue();
+            byte[] buffer = invocation.getArgument(2);
+
+            if (offset == failOffset) {
+                throw new StorageException("ConditionNotMet", "The blob is changed", 412, null, null);
+            }
+
+            requestedOffsets.add(offset);
+            System.arraycopy(content, (int) offset, buffer, invocation.getArgument(3), size);
+
+            return size;
+        }).when(blob).downloadRangeToByteArray(anyLong(), any(Long.class), any(byte[].class), anyInt(),
+                any(AccessCondition.class), any(BlobRequestOptions.class), nullable(OperationContext.class));
+    }
+
+    @After
+    public void tearDown() {
+        targetFile.delete();
+        new File(targetFile.getPath() + BlobParallelDownloader.CHECKPOINT_FILE_SUFFIX).delete();
+    }
+
+    @Test
+    public void testDownloadRanges() throws Exception {
+        new BlobParallelDownloader(blob, RANGE_SIZE, 3, null).download(targetFile);
+
+        assertArrayEquals(content, Files.readAllBytes(targetFile.toPath()));
+        assertEquals(9, requestedOffsets.size());
+        assertFalse(new File(targetFile.getPath() + BlobParallelDownloader.CHECKPOINT_FILE_SUFFIX).exists());
+    }
+
+    @Test
+    public void testResumeInterruptedDownload() throws Exception {
+        failOffset = 5 * RANGE_SIZE;
+
+        try {
+            new BlobParallelDownloader(blob, RANGE_SIZE, 1, null).download(targetFile);
+            fail("The first download should fail.");
+        } catch (StorageException ignored) {
+        }
+
+        assertTrue(new File(targetFile.getPath() + BlobParallelDownloader.CHECKPOINT_FILE_SUFFIX).exists());
+        assertTrue(requestedOffsets.contains(0L));
+
+        requestedOffsets.clear();
+        failOffset = -1;
+        long[] lastProgress = { 0 };
+        new BlobParallelDownloader(blob, RANGE_SIZE, 2, new CallableSingleArg<Void, Long>() {
+            @Override
+            public Void call(Long downloadedBytes) {
+                lastProgress[0] = downloadedBytes;
+                return null;
+            }
+        }).download(targetFile);
+
+        assertArrayEquals(content, Files.readAllBytes(targetFile.toPath()));
+        assertFalse(requestedOffsets.contains(0L));
+        assertTrue(requestedOffsets.contains(5L * RANGE_SIZE));
+        assertEquals(content.length, lastProgress[0]);
+    }
+}
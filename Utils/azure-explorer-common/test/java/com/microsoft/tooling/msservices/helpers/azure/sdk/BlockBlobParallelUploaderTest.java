@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.tooling.msservices.helpers.azure.sdk;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.BlockEntry;
+import com.microsoft.azure.storage.blob.BlockListingFilter;
+import com.microsoft.azure.storage.blob.CloudBlockBlob;
+import com.microsoft.tooling.msservices.helpers.CallableSingleArg;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({ CloudBlockBlob.class })
+@PowerMockIgnore({ "javax.crypto.*", "javax.management.*" })
+public class BlockBlobParallelUploaderTest {
+    private static final int BLOCK_SIZE = 1024;
+
+    private CloudBlockBlob blob;
+    private Map<String, byte[]> uploadedBlocks;
+    private List<Long> progress;
+    private CallableSingleArg<Void, Long> processBlock;
+
+    @Before
+    public void setUp() throws Exception {
+        blob = PowerMockito.mock(CloudBlockBlob.class);
+        uploadedBlocks = new ConcurrentHashMap<>();
+        progress = Collections.synchronizedList(new ArrayList<>());
+        processBlock = new CallableSingleArg<Void, Long>() {
+            @Override
+            public Void call(Long uploadedBytes) {
+                progress.add(uploadedBytes);
+                return null;
+            }
+        };
+
+        doAnswer(invocation -> {
+            uploadedBlocks.put(invocation.getArgument(0), IOUtils.toByteArray((InputStream) invocation.getArgument(1)));
+            return null;
+        }).when(blob).uploadBlock(anyString(), any(InputStream.class), anyLong());
+    }
+
+    @Test
+    public void testUploadBlocksInOrder() throws Exception {
+        byte[] content = randomBytes(10 * BLOCK_SIZE + 100);
+
+        new BlockBlobParallelUploader(blob, BLOCK_SIZE, 3, processBlock)
+                .upload(new ByteArrayInputStream(content), content.length);
+
+        assertArrayEquals(content, committedContent());
+        assertEquals(11, progress.size());
+        assertEquals(Long.valueOf(content.length), progress.get(progress.size() - 1));
+    }
+
+    @Test
+    public void testRetryFailedBlock() throws Exception {
+        byte[] content = randomBytes(3 * BLOCK_SIZE);
+        boolean[] failed = { false };
+
+        doAnswer(invocation -> {
+            if (!failed[0]) {
+                failed[0] = true;
+                throw new StorageException("ServerBusy", "Server busy", null);
+            }
+
+            uploadedBlocks.put(invocation.getArgument(0), IOUtils.toByteArray((InputStream) invocation.getArgument(1)));
+            return null;
+        }).when(blob).uploadBlock(anyString(), any(InputStream.class), anyLong());
+
+        new BlockBlobParallelUploader(blob, BLOCK_SIZE, 1, processBlock)
+                .upload(new ByteArrayInputStream(content), content.length);
+
+        assertArrayEquals(content, committedContent());
+    }
+
+    @Test
+    public void testResumeFromUncommittedBlocks() throws Exception {
+        File file = File.createTempFile("blockBlobUpload", ".bin");
+        file.deleteOnExit();
+        byte[] content = randomBytes(6 * BLOCK_SIZE);
+
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(content);
+        }
+
+        // The first upload is interrupted after 2 blocks
+        doAnswer(invocation -> {
+            if (uploadedBlocks.size() >= 2) {
+                throw new InterruptedException();
+            }
+
+            uploadedBlocks.put(invocation.getArgument(0), IOUtils.toByteArray((InputStream) invocation.getArgument(1)));
+            return null;
+        }).when(blob).uploadBlock(anyString(), any(InputStream.class), anyLong());
+        when(blob.downloadBlockList(eq(BlockListingFilter.UNCOMMITTED), any(), any(), any()))
+                .thenThrow(new StorageException("BlobNotFound", "Not found", 404, null, null));
+
+        try (InputStream in = new FileInputStream(file)) {
+            new BlockBlobParallelUploader(blob, BLOCK_SIZE, 1, processBlock).upload(file, in);
+            fail("The first upload should be interrupted.");
+        } catch (InterruptedException ignored) {
+        }
+
+        ArrayList<BlockEntry> uncommitted = new ArrayList<>();
+        for (Map.Entry<String, byte[]> block : uploadedBlocks.entrySet()) {
+            BlockEntry entry = new BlockEntry(block.getKey());
+            entry.setSize(block.getValue().length);
+            uncommitted.add(entry);
+        }
+
+        Map<String, byte[]> firstUploadedBlocks = new ConcurrentHashMap<>(uploadedBlocks);
+        Map<String, byte[]> resumedBlocks = new ConcurrentHashMap<>();
+
+        doAnswer(invocation -> {
+            resumedBlocks.put(invocation.getArgument(0), IOUtils.toByteArray((InputStream) invocation.getArgument(1)));
+            uploadedBlocks.put(invocation.getArgument(0), resumedBlocks.get(invocation.getArgument(0)));
+            return null;
+        }).when(blob).uploadBlock(anyString(), any(InputStream.class), anyLong());
+        when(blob.downloadBlockList(eq(BlockListingFilter.UNCOMMITTED), any(), any(), any())).thenReturn(uncommitted);
+
+        try (InputStream in = new FileInputStream(file)) {
+            new BlockBlobParallelUploader(blob, BLOCK_SIZE, 2, processBlock).upload(file, in);
+        }
+
+        assertEquals(4, resumedBlocks.size());
+        for (String blockId : firstUploadedBlocks.keySet()) {
+            assertFalse(resumedBlocks.containsKey(blockId));
+        }
+        assertArrayEquals(content, committedContent());
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] committedContent() throws Exception {
+        ArgumentCaptor<Iterable<BlockEntry>> committed = ArgumentCaptor.forClass(Iterable.class);
+        org.mockito.Mockito.verify(blob, org.mockito.Mockito.atLeastOnce()).commitBlockList(committed.capture());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (BlockEntry entry : committed.getValue()) {
+            out.write(uploadedBlocks.get(entry.getId()));
+        }
+
+        return out.toByteArray();
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+
+        return bytes;
+    }
+}
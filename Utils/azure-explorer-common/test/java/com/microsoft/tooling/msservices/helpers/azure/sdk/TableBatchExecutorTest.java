@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.tooling.msservices.helpers.azure.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+import org.powermock.reflect.Whitebox;
+
+import com.microsoft.azure.storage.table.CloudTable;
+import com.microsoft.azure.storage.table.DynamicTableEntity;
+import com.microsoft.azure.storage.table.TableBatchOperation;
+import com.microsoft.azure.storage.table.TableEntity;
+import com.microsoft.azure.storage.table.TableOperation;
+import com.microsoft.azure.storage.table.TableRequestOptions;
+import com.microsoft.azure.storage.table.TableResult;
+import com.microsoft.azure.storage.table.TableServiceException;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({ CloudTable.class, TableServiceException.class })
+@PowerMockIgnore({ "javax.crypto.*", "javax.management.*" })
+public class TableBatchExecutorTest {
+    private CloudTable cloudTable;
+    private List<Integer> batchSizes;
+    private String failedRowKey;
+
+    @Before
+    public void setUp() throws Exception {
+        cloudTable = PowerMockito.mock(CloudTable.class);
+        batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+        doAnswer(invocation -> {
+            TableBatchOperation batch = invocation.getArgument(0);
+            String partitionKey = entityOf(batch.get(0)).getPartitionKey();
+            ArrayList<TableResult> results = new ArrayList<>();
+
+            for (TableOperation operation : batch) {
+                String rowKey = entityOf(operation).getRowKey();
+
+                assertEquals("A batch holds a single partition", partitionKey, entityOf(operation).getPartitionKey());
+
+                if (rowKey.equals(failedRowKey)) {
+                    TableServiceException ex = PowerMockito.mock(TableServiceException.class);
+                    PowerMockito.when(ex.getOperation()).thenReturn(operation);
+
+                    throw ex;
+                }
+
+                TableResult result = new TableResult(204);
+                Whitebox.setInternalState(result, "etag", "etag-" + rowKey);
+                results.add(result);
+            }
+
+            batchSizes.add(batch.size());
+
+            return results;
+        }).when(cloudTable).execute(any(TableBatchOperation.class), any(TableRequestOptions.class), isNull());
+    }
+
+    @Test
+    public void testGroupByPartitionIntoBatches() throws Exception {
+        List<DynamicTableEntity> entities = new ArrayList<>();
+        entities.addAll(entities("a", 150));
+        entities.addAll(entities("b", 30));
+
+        List<TableBatchExecutor.Outcome> outcomes = new TableBatchExecutor(
+                cloudTable, new TableRequestOptions(), TableBatchExecutor.Kind.INSERT_OR_REPLACE, 3).execute(entities);
+
+        Collections.sort(batchSizes);
+        assertEquals(3, batchSizes.size());
+        assertEquals(Integer.valueOf(30), batchSizes.get(0));
+        assertEquals(Integer.valueOf(50), batchSizes.get(1));
+        assertEquals(Integer.valueOf(100), batchSizes.get(2));
+
+        assertEquals(180, outcomes.size());
+        assertEquals("etag-a-149", outcomes.get(149).result.getEtag());
+        assertEquals("etag-b-0", outcomes.get(150).result.getEtag());
+    }
+
+    @Test
+    public void testFailedEntityDoesNotFailTheOthers() throws Exception {
+        failedRowKey = "a-3";
+
+        List<TableBatchExecutor.Outcome> outcomes = new TableBatchExecutor(
+                cloudTable, new TableRequestOptions(), TableBatchExecutor.Kind.DELETE, 1).execute(entities("a", 5));
+
+        assertTrue(outcomes.get(3).error instanceof TableServiceException);
+        assertNull(outcomes.get(3).result);
+
+        for (int i : new int[] { 0, 1, 2, 4 }) {
+            assertNull(outcomes.get(i).error);
+            assertNotNull(outcomes.get(i).result);
+        }
+
+        assertEquals(Collections.singletonList(4), batchSizes);
+    }
+
+    private static TableEntity entityOf(TableOperation operation) throws Exception {
+        return Whitebox.invokeMethod(operation, "getEntity");
+    }
+
+    private static List<DynamicTableEntity> entities(String partitionKey, int count) {
+        List<DynamicTableEntity> entities = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            entities.add(new DynamicTableEntity(partitionKey, partitionKey + "-" + i, "*", new HashMap<>()));
+        }
+
+        return entities;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.tooling.msservices.helpers.azure.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.microsoft.azuretools.azurecommons.helpers.AzureCmdException;
+import com.microsoft.tooling.msservices.model.storage.TableEntity;
+
+public class TableEntityCsvReaderTest {
+    @Test
+    public void testReadEntities() throws Exception {
+        String csv = "PartitionKey,RowKey,Timestamp,Name,Note\r\n"
+                + "p1,r1,2019-01-01,Alice,\"Hello, \"\"world\"\"\"\r\n"
+                + "\r\n"
+                + "p1,r2,,Bob,\"two\nlines\"\n"
+                + "p2,r3,,,";
+
+        List<TableEntity> entities = new TableEntityCsvReader(new StringReader(csv)).read("t");
+
+        assertEquals(3, entities.size());
+        assertEquals("p1", entities.get(0).getPartitionKey());
+        assertEquals("r1", entities.get(0).getRowKey());
+        assertEquals("t", entities.get(0).getTableName());
+        assertEquals("Alice", entities.get(0).getProperties().get("Name").getValueAsString());
+        assertEquals("Hello, \"world\"", entities.get(0).getProperties().get("Note").getValueAsString());
+        assertFalse(entities.get(0).getProperties().containsKey("Timestamp"));
+        assertEquals("two\nlines", entities.get(1).getProperties().get("Note").getValueAsString());
+        assertEquals(0, entities.get(2).getProperties().size());
+    }
+
+    @Test
+    public void testMissingKeyColumns() {
+        try {
+            new TableEntityCsvReader(new StringReader("PartitionKey,Name\np,n\n")).read("t");
+            fail("The RowKey column is missing.");
+        } catch (AzureCmdException ignored) {
+        }
+    }
+
+    @Test
+    public void testMismatchedCellCount() {
+        try {
+            new TableEntityCsvReader(new StringReader("PartitionKey,RowKey,Name\np,r\n")).read("t");
+            fail("The record has fewer cells than the header.");
+        } catch (AzureCmdException ex) {
+            assertEquals("The CSV record at line 2 has 2 cells, expect 3.", ex.getMessage());
+        }
+    }
+}
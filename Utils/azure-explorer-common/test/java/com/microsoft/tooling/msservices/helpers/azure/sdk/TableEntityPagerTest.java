@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.tooling.msservices.helpers.azure.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import com.microsoft.azure.storage.ResultContinuation;
+import com.microsoft.azure.storage.ResultSegment;
+import com.microsoft.tooling.msservices.model.storage.TableEntity;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(StorageClientSDKManager.class)
+@PowerMockIgnore({ "javax.crypto.*", "javax.management.*" })
+public class TableEntityPagerTest {
+    private StorageClientSDKManager manager;
+    private ResultContinuation secondPageToken;
+
+    @Before
+    public void setUp() throws Exception {
+        manager = mock(StorageClientSDKManager.class);
+        PowerMockito.mockStatic(StorageClientSDKManager.class);
+        when(StorageClientSDKManager.getManager()).thenReturn(manager);
+
+        secondPageToken = new ResultContinuation();
+        when(manager.getTableEntities(eq("conn"), eq("table"), eq(""), isNull(), isNull(), anyInt()))
+                .thenReturn(segment(0, 2, secondPageToken));
+        when(manager.getTableEntities(eq("conn"), eq("table"), eq(""), isNull(), eq(secondPageToken), anyInt()))
+                .thenReturn(segment(2, 1, null));
+    }
+
+    @Test
+    public void testLoadPagesUntilTheLast() throws Exception {
+        TableEntityPager pager = new TableEntityPager("conn", "table", "");
+
+        assertEquals(2, pager.loadNextPage().size());
+        assertTrue(pager.hasMore());
+        assertEquals(1, pager.loadNextPage().size());
+        assertFalse(pager.hasMore());
+        assertTrue(pager.loadNextPage().isEmpty());
+
+        assertEquals(3, pager.size());
+        assertEquals("row2", pager.get(2).getRowKey());
+    }
+
+    @Test
+    public void testCancelledPagerLoadsNoMore() throws Exception {
+        TableEntityPager pager = new TableEntityPager("conn", "table", "");
+
+        pager.loadNextPage();
+        pager.cancel();
+
+        assertFalse(pager.hasMore());
+        assertTrue(pager.loadNextPage().isEmpty());
+        assertEquals(2, pager.size());
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    private static ResultSegment<TableEntity> segment(int first, int count, ResultContinuation token) {
+        ArrayList<TableEntity> entities = new ArrayList<>();
+
+        for (int i = first; i < first + count; i++) {
+            entities.add(new TableEntity("part", "row" + i, "table", "", new GregorianCalendar(),
+                                         Collections.emptyMap()));
+        }
+
+        return new ResultSegment<>(entities, count, token);
+    }
+}
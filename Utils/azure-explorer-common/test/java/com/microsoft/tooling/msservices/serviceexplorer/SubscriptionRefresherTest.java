@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.tooling.msservices.serviceexplorer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class SubscriptionRefresherTest {
+    private final SubscriptionRefresher refresher = new SubscriptionRefresher("resources");
+
+    @After
+    public void tearDown() {
+        SubscriptionRefresher.setMaxConcurrentSubscriptions(SubscriptionRefresher.DEFAULT_MAX_CONCURRENT_SUBSCRIPTIONS);
+    }
+
+    @Test
+    public void testRefreshBoundsSubscriptionsInFlight() throws Exception {
+        SubscriptionRefresher.setMaxConcurrentSubscriptions(2);
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final List<String> rendered = Collections.synchronizedList(new ArrayList<>());
+
+        Map<String, String> failures = refresher.refresh(Arrays.asList("s1", "s2", "s3", "s4", "s5"), sid -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            inFlight.decrementAndGet();
+
+            return Collections.singletonList(sid + "-vm");
+        }, (sid, resources) -> rendered.addAll(resources));
+
+        assertTrue(failures.isEmpty());
+        assertEquals(2, maxInFlight.get());
+        assertEquals(5, rendered.size());
+        assertEquals(5, refresher.getLastTimings().size());
+        assertTrue(refresher.getLastTimings().get("s1") >= 40);
+    }
+
+    @Test
+    public void testRefreshRendersFastSubscriptionFirst() throws Exception {
+        final CountDownLatch fastRendered = new CountDownLatch(1);
+        final List<String> rendered = Collections.synchronizedList(new ArrayList<>());
+
+        refresher.refresh(Arrays.asList("slow", "fast"), sid -> {
+            if (sid.equals("slow")) {
+                // The slow subscription waits for the fast one to be rendered
+                assertTrue(fastRendered.await(5, TimeUnit.SECONDS));
+            }
+
+            return Collections.singletonList(sid);
+        }, (sid, resources) -> {
+            rendered.add(sid);
+            fastRendered.countDown();
+        });
+
+        assertEquals(Arrays.asList("fast", "slow"), rendered);
+    }
+
+    @Test
+    public void testRefreshReportsFailedSubscriptions() throws Exception {
+        final List<String> rendered = Collections.synchronizedList(new ArrayList<>());
+
+        Map<String, String> failures = refresher.refresh(Arrays.asList("good", "bad"), sid -> {
+            if (sid.equals("bad")) {
+                throw new IllegalStateException("No permission");
+            }
+
+            return Collections.singletonList(sid);
+        }, (sid, resources) -> rendered.addAll(resources));
+
+        assertEquals(Collections.singletonList("good"), rendered);
+        assertEquals(1, failures.size());
+        assertEquals("No permission", failures.get("bad"));
+    }
+
+    @Test
+    public void testCancelStopsRendering() throws Exception {
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> rendered = Collections.synchronizedList(new ArrayList<>());
+
+        Thread canceller = new Thread(() -> {
+            try {
+                loading.await();
+                refresher.cancel();
+                release.countDown();
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        canceller.start();
+
+        refresher.refresh(Collections.singletonList("s1"), sid -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+
+            return Collections.singletonList(sid);
+        }, (sid, resources) -> rendered.addAll(resources));
+
+        canceller.join();
+        assertTrue(rendered.isEmpty());
+        assertFalse(refresher.getLastTimings().containsKey("s1"));
+    }
+
+    @Test
+    public void testCancelWaitsForRendering() throws Exception {
+        final CountDownLatch rendering = new CountDownLatch(1);
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        final List<String> rendered = Collections.synchronizedList(new ArrayList<>());
+
+        Thread canceller = new Thread(() -> {
+            try {
+                rendering.await();
+                refresher.cancel();
+                cancelled.countDown();
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        canceller.start();
+
+        refresher.refresh(Arrays.asList("s1", "s2"), sid -> {
+            if (sid.equals("s2")) {
+                // Listed after the cancel
+                cancelled.await(5, TimeUnit.SECONDS);
+            }
+
+            return Collections.singletonList(sid);
+        }, (sid, resources) -> {
+            rendering.countDown();
+            // The cancel doesn't return until the rendering in progress is done
+            assertFalse(cancelled.await(200, TimeUnit.MILLISECONDS));
+            rendered.addAll(resources);
+        });
+
+        canceller.join();
+        assertEquals(Collections.singletonList("s1"), rendered);
+    }
+
+    @Test
+    public void testInterruptCancelsRefresh() throws Exception {
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch loaded = new CountDownLatch(1);
+        final List<String> rendered = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger interrupts = new AtomicInteger();
+
+        Thread refreshing = new Thread(() -> {
+            try {
+                refresher.refresh(Collections.singletonList("s1"), sid -> {
+                    loading.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    loaded.countDown();
+
+                    return Collections.singletonList(sid);
+                }, (sid, resources) -> rendered.addAll(resources));
+            } catch (InterruptedException ignored) {
+                interrupts.incrementAndGet();
+            }
+        });
+        refreshing.start();
+
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        refreshing.interrupt();
+        refreshing.join(5000);
+        release.countDown();
+
+        assertEquals(1, interrupts.get());
+        // The unsubscribed loading may not be waited, give it the chance to complete
+        loaded.await(1, TimeUnit.SECONDS);
+        Thread.sleep(100);
+        assertTrue(rendered.isEmpty());
+    }
+}
@@ -83,6 +83,16 @@ public class FileStorage {
         }
     }
 
+    public long getLastModifiedTime() throws IOException {
+        try {
+            rwlock.readLock().lock();
+            return Files.getLastModifiedTime(filePath).toMillis();
+
+        } finally {
+            rwlock.readLock().unlock();
+        }
+    }
+
     public void cleanFile() throws IOException {
         write(new byte[]{});
     }
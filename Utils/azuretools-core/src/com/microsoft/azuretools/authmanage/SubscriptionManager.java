@@ -29,6 +29,7 @@ import com.microsoft.azuretools.sdkmanage.AzureManager;
 import com.microsoft.azuretools.utils.AzureUIRefreshCore;
 import com.microsoft.azuretools.utils.AzureUIRefreshEvent;
 import com.microsoft.azuretools.utils.Pair;
+import rx.Observable;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -37,6 +38,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -85,6 +87,13 @@ public class SubscriptionManager {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Get the subscription details without loading them, null if they are not loaded yet.
+     */
+    protected synchronized List<SubscriptionDetail> getLoadedSubscriptionDetails() {
+        return subscriptionDetails;
+    }
+
     public void updateSubscriptionDetailsIfNull() throws IOException {
         if (subscriptionDetails == null) {
             List<SubscriptionDetail> sdl = updateAccountSubscriptionList();
@@ -100,18 +109,45 @@ public class SubscriptionManager {
         }
 
         System.out.println("Getting subscription list from Azure");
-        subscriptionIdToSubscriptionMap.clear();
+        return collectSubscriptionDetails(azureManager.listSubscriptionsWithTenant(), sid -> true);
+    }
+
+    /**
+     * Collect the subscription details as the subscriptions of each tenant arrive, and update the sid->subscription
+     * map at the same time. The subscriptions not listed any more are removed from the map at the end, so the map
+     * keeps serving the known subscriptions while listing.
+     *
+     * @param subscriptions the subscriptions with their tenants to collect
+     * @param isSelected the predicate whether a subscription ID is selected
+     * @return the subscription details in the arrival order
+     */
+    protected List<SubscriptionDetail> collectSubscriptionDetails(Observable<Pair<Subscription, Tenant>> subscriptions,
+                                                                  Predicate<String> isSelected) throws IOException {
         List<SubscriptionDetail> sdl = new ArrayList<>();
-        List<Pair<Subscription, Tenant>> stpl = azureManager.getSubscriptionsWithTenant();
-        for (Pair<Subscription, Tenant> stp : stpl) {
-            sdl.add(new SubscriptionDetail(
-                    stp.first().subscriptionId(),
-                    stp.first().displayName(),
-                    stp.second().tenantId(),
-                    true));
-            // WORKAROUND: update sid->subscription map at the same time
-            subscriptionIdToSubscriptionMap.put(stp.first().subscriptionId(), stp.first());
+        Set<String> sids = new HashSet<>();
+
+        try {
+            subscriptions.toBlocking().forEach(stp -> {
+                String sid = stp.first().subscriptionId();
+
+                sdl.add(new SubscriptionDetail(
+                        sid,
+                        stp.first().displayName(),
+                        stp.second().tenantId(),
+                        isSelected.test(sid)));
+                sids.add(sid);
+                // WORKAROUND: update sid->subscription map at the same time
+                subscriptionIdToSubscriptionMap.put(sid, stp.first());
+            });
+        } catch (RuntimeException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+
+            throw ex;
         }
+
+        subscriptionIdToSubscriptionMap.keySet().retainAll(sids);
         return sdl;
     }
 
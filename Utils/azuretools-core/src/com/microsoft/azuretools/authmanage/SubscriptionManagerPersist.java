@@ -23,12 +23,12 @@
 package com.microsoft.azuretools.authmanage;
 
 import com.microsoft.azure.management.resources.Subscription;
-import com.microsoft.azure.management.resources.Tenant;
 import com.microsoft.azuretools.adauth.AuthException;
 import com.microsoft.azuretools.adauth.JsonHelper;
 import com.microsoft.azuretools.authmanage.models.SubscriptionDetail;
 import com.microsoft.azuretools.sdkmanage.AzureManager;
-import com.microsoft.azuretools.utils.Pair;
+import rx.Observable;
+import rx.schedulers.Schedulers;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -36,8 +36,22 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 public class SubscriptionManagerPersist extends SubscriptionManager {
+    // The persisted subscriptions younger than it are shown at once and revalidated in background
+    public static final long DEFAULT_SUBSCRIPTIONS_CACHE_TTL_MS = TimeUnit.DAYS.toMillis(1);
+
+    private static final Logger LOGGER = Logger.getLogger(SubscriptionManagerPersist.class.getName());
+
+    private static long subscriptionsCacheTtlMs = DEFAULT_SUBSCRIPTIONS_CACHE_TTL_MS;
+
+    private volatile Observable<List<SubscriptionDetail>> revalidation = null;
 
     public SubscriptionManagerPersist(AzureManager azureManager) {
         super(azureManager);
@@ -58,45 +72,156 @@ public class SubscriptionManagerPersist extends SubscriptionManager {
         System.out.println(Thread.currentThread().getId()
                 + "SubscriptionManagerPersist.updateAccountSubscriptionList()");
         List<SubscriptionDetail> sdl = null;
+        boolean isFresh = false;
         synchronized (this) {
             String subscriptionsDetailsFileName = azureManager.getSettings().getSubscriptionsDetailsFileName();
             sdl = loadSubscriptions(subscriptionsDetailsFileName);
+            isFresh = sdl != null && isSubscriptionsFresh(subscriptionsDetailsFileName);
         }
 
         if (sdl == null) {
             return super.updateAccountSubscriptionList();
         }
 
-        // Filter available SubscriptionDetail
-        Map<String, SubscriptionDetail> sdmap = new HashMap<>();
-        for (SubscriptionDetail sd : sdl) {
-            sdmap.put(sd.getSubscriptionId(), sd);
+        if (isFresh) {
+            // Show the persisted subscriptions at once, and revalidate them in background
+            revalidateInBackground(sdl);
+            return sdl;
         }
 
-        List<SubscriptionDetail> ret = new ArrayList<>();
-        subscriptionIdToSubscriptionMap.clear();
-        List<Pair<Subscription, Tenant>> stpl = azureManager.getSubscriptionsWithTenant();
-        for (Pair<Subscription, Tenant> stp : stpl) {
-            String sid = stp.first().subscriptionId();
-            boolean isSelected = (sdmap.get(sid) != null && sdmap.get(sid).isSelected());
-            ret.add(new SubscriptionDetail(
-                    stp.first().subscriptionId(),
-                    stp.first().displayName(),
-                    stp.second().tenantId(),
-                    isSelected));
-            subscriptionIdToSubscriptionMap.put(stp.first().subscriptionId(), stp.first());
+        return collectSubscriptionDetails(azureManager.listSubscriptionsWithTenant(), getSelectedPredicate(sdl));
+    }
+
+    /**
+     * Get the sid->subscription map, which waits for the background revalidation in progress since the persisted
+     * subscription details don't have the subscription instances.
+     */
+    @Override
+    public Map<String, Subscription> getSubscriptionIdToSubscriptionMap() throws IOException {
+        Map<String, Subscription> sidToSubscriptionMap = super.getSubscriptionIdToSubscriptionMap();
+        Observable<List<SubscriptionDetail>> pending = revalidation;
+
+        if (pending != null) {
+            try {
+                pending.toBlocking().lastOrDefault(null);
+            } catch (RuntimeException ex) {
+                LOGGER.warning("Failed to revalidate subscriptions: " + ex.getMessage());
+            }
         }
-        return ret;
+
+        return sidToSubscriptionMap;
+    }
+
+    private void revalidateInBackground(List<SubscriptionDetail> persisted) {
+        Observable<List<SubscriptionDetail>> latest = Observable
+                .fromCallable(() -> collectSubscriptionDetails(azureManager.listSubscriptionsWithTenant(),
+                                                               sid -> false))
+                .subscribeOn(Schedulers.io())
+                .cache();
+
+        revalidation = latest;
+        latest.subscribe(
+                sdl -> {
+                    try {
+                        applyRevalidated(latest, persisted, sdl);
+                    } catch (IOException ex) {
+                        LOGGER.warning("Failed to save revalidated subscriptions: " + ex.getMessage());
+                    }
+                },
+                err -> {
+                    clearRevalidation(latest);
+                    LOGGER.warning("Failed to revalidate subscriptions, keep the persisted ones: " + err.getMessage());
+                });
+    }
+
+    private void applyRevalidated(Observable<List<SubscriptionDetail>> latest,
+                                  List<SubscriptionDetail> persisted,
+                                  List<SubscriptionDetail> revalidated) throws IOException {
+        List<SubscriptionDetail> current;
+
+        synchronized (this) {
+            if (revalidation != latest) {
+                // Signed out or revalidated again
+                return;
+            }
+
+            current = getLoadedSubscriptionDetails();
+            if (current == null) {
+                current = persisted;
+            }
+        }
+
+        // Keep the selection made while revalidating, the new subscriptions are not selected as they used to be
+        Predicate<String> isSelected = getSelectedPredicate(current);
+        revalidated.forEach(sd -> sd.setSelected(isSelected.test(sd.getSubscriptionId())));
+
+        if (isSameSubscriptionDetails(current, revalidated)) {
+            synchronized (this) {
+                saveSubscriptions(revalidated, azureManager.getSettings().getSubscriptionsDetailsFileName());
+            }
+        } else {
+            setSubscriptionDetails(revalidated);
+        }
+
+        clearRevalidation(latest);
+    }
+
+    private synchronized void clearRevalidation(Observable<List<SubscriptionDetail>> latest) {
+        if (revalidation == latest) {
+            revalidation = null;
+        }
+    }
+
+    private static Predicate<String> getSelectedPredicate(List<SubscriptionDetail> sdl) {
+        Set<String> selectedSids = sdl.stream()
+                .filter(SubscriptionDetail::isSelected)
+                .map(sd -> sd.getSubscriptionId().toLowerCase())
+                .collect(Collectors.toSet());
+
+        return sid -> sid != null && selectedSids.contains(sid.toLowerCase());
+    }
+
+    private static boolean isSameSubscriptionDetails(List<SubscriptionDetail> sdl1, List<SubscriptionDetail> sdl2) {
+        if (sdl1.size() != sdl2.size()) {
+            return false;
+        }
+
+        Map<String, SubscriptionDetail> sidToSd = new HashMap<>();
+        for (SubscriptionDetail sd : sdl1) {
+            sidToSd.put(sd.getSubscriptionId(), sd);
+        }
+
+        return sdl2.stream().allMatch(sd -> {
+            SubscriptionDetail other = sidToSd.get(sd.getSubscriptionId());
+
+            return other != null
+                    && Objects.equals(sd.getSubscriptionName(), other.getSubscriptionName())
+                    && Objects.equals(sd.getTenantId(), other.getTenantId())
+                    && sd.isSelected() == other.isSelected();
+        });
+    }
+
+    private static boolean isSubscriptionsFresh(String subscriptionsDetailsFileName) throws IOException {
+        FileStorage subscriptionsDetailsFileStorage = new FileStorage(subscriptionsDetailsFileName,
+                CommonSettings.getSettingsBaseDir());
+        long age = System.currentTimeMillis() - subscriptionsDetailsFileStorage.getLastModifiedTime();
+
+        return age >= 0 && age < subscriptionsCacheTtlMs;
     }
 
     @Override
     public synchronized void cleanSubscriptions() throws IOException {
         System.out.println(Thread.currentThread().getId() + " SubscriptionManagerPersist.cleanSubscriptions()");
+        revalidation = null;
         String subscriptionsDetailsFileName = azureManager.getSettings().getSubscriptionsDetailsFileName();
         deleteSubscriptions(subscriptionsDetailsFileName);
         super.cleanSubscriptions();
     }
 
+    public static void setSubscriptionsCacheTtl(long ttl, TimeUnit unit) {
+        subscriptionsCacheTtlMs = unit.toMillis(ttl);
+    }
+
     public static synchronized void deleteSubscriptions(String subscriptionsDetailsFileName) throws IOException {
         System.out.println("cleaning " + subscriptionsDetailsFileName + " file");
         FileStorage fs = new FileStorage(subscriptionsDetailsFileName, CommonSettings.getSettingsBaseDir());
@@ -134,7 +134,7 @@ public class AzureMvpModel {
         Map<SubscriptionDetail, List<ResourceGroup>> srgMap = AzureModel.getInstance()
             .getSubscriptionToResourceGroupMap();
         if (srgMap == null || srgMap.size() < 1 || forceUpdate) {
-            AzureModelController.updateSubscriptionMaps(null);
+            AzureModelController.updateSubscriptionMaps(null, forceUpdate);
         }
         srgMap = AzureModel.getInstance().getSubscriptionToResourceGroupMap();
         if (srgMap == null) {
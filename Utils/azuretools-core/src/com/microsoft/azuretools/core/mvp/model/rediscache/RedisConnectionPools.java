@@ -23,24 +23,52 @@
 package com.microsoft.azuretools.core.mvp.model.rediscache;
 
 import com.microsoft.azure.management.redis.RedisCache;
+import com.microsoft.azuretools.core.mvp.ui.rediscache.RedisPoolMetrics;
 
-import java.io.IOException;
-import java.util.LinkedHashMap;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
 
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
 
+/**
+ * The Jedis connection pools of the Redis Caches being browsed, one pool per cache.
+ *
+ * The pools are created and looked up concurrently, browsing one cache doesn't wait for another. Once there are more
+ * than {@link #DEFAULT_MAX_POOLS} pools, the least recently used ones without active connections are destroyed, and
+ * so is any pool unused longer than {@link #DEFAULT_POOL_IDLE_MS}. A pool being borrowed from is never destroyed by
+ * the eviction, the borrower takes the pool again if it was evicted right before. The Redis Cache is looked up and its
+ * pool created outside of the registry, so a slow lookup only holds up the callers of that cache.
+ */
 public class RedisConnectionPools {
 
+    public static final int DEFAULT_MAX_POOLS = 4;
+    public static final int DEFAULT_POOL_SIZE = 8;
+    public static final long DEFAULT_POOL_IDLE_MS = 10 * 60 * 1000L;
+
     private static final int TIMEOUT = 500;
-    private static final int MAX_CONNECTIONS = 1;
+    private static final int MAX_IDLE_CONNECTIONS = 2;
+    private static final long MAX_BORROW_WAIT_MS = 5000;
+    private static final long MIN_CONNECTION_IDLE_MS = 60 * 1000L;
+    private static final long CONNECTION_EVICTION_INTERVAL_MS = 30 * 1000L;
     private static final String GANNOT_GET_RESID = "Cannot get Redis Cache from Azure.";
 
-    private LinkedHashMap<String, JedisPool> pools;
+    private final Map<String, PoolEntry> pools = new ConcurrentHashMap<>();
+    private final Map<String, Integer> poolSizes = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
 
     private RedisConnectionPools() {
-        this.pools = new LinkedHashMap<String, JedisPool>(MAX_CONNECTIONS);
+        this(System::currentTimeMillis);
+    }
+
+    RedisConnectionPools(LongSupplier clock) {
+        this.clock = clock;
     }
 
     private static final class RedisConnectionFactoryHolder {
@@ -61,14 +89,31 @@ public class RedisConnectionPools {
      * @return jedis connection
      * @throws IOException Error getting the Redis Cache
      */
-    public synchronized Jedis getJedis(String sid, String id) throws Exception  {
-        if (pools.get(id) == null) {
-            if (pools.size() == MAX_CONNECTIONS) {
-                releasePool(pools.keySet().iterator().next());
+    public Jedis getJedis(String sid, String id) throws Exception  {
+        while (true) {
+            PoolEntry entry = pools.get(id);
+            if (entry == null) {
+                PoolEntry created = connect(sid, id);
+                entry = pools.putIfAbsent(id, created);
+                if (entry == null) {
+                    entry = created;
+                } else {
+                    // Another caller created the pool first
+                    created.pool.destroy();
+                }
+            }
+            if (!entry.acquire()) {
+                // The pool was evicted after being looked up, take the one replacing it
+                continue;
+            }
+            try {
+                entry.lastAccessTime = clock.getAsLong();
+                evictPools(id);
+                return entry.pool.getResource();
+            } finally {
+                entry.release();
             }
-            connect(sid, id);
         }
-        return pools.get(id).getResource();
     }
 
     /**
@@ -77,17 +122,71 @@ public class RedisConnectionPools {
      * @param id
      *            id of the jedisPool which needs to be destroyed
      */
-    public synchronized void releasePool(String id) {
-        if (pools.containsKey(id)) {
-            JedisPool jedisPool = pools.get(id);
-            if (jedisPool != null) {
-                jedisPool.destroy();
+    public void releasePool(String id) {
+        PoolEntry entry = pools.remove(id);
+        if (entry != null) {
+            entry.pool.destroy();
+        }
+    }
+
+    /**
+     * Set the max connections of the Redis Cache, the existing pool is recreated when it's used next time.
+     *
+     * @param id
+     *            resource id of Redis Cache
+     * @param maxTotal
+     *            max connections in the pool
+     */
+    public void setPoolSize(String id, int maxTotal) {
+        if (maxTotal <= 0) {
+            throw new IllegalArgumentException("Bad Redis pool size: " + maxTotal);
+        }
+        poolSizes.put(id, maxTotal);
+        releasePool(id);
+    }
+
+    /**
+     * Get the connection metrics of the Redis Cache pool.
+     *
+     * @param id
+     *            resource id of Redis Cache
+     * @return the metrics, or null if there isn't a pool of the Redis Cache
+     */
+    public RedisPoolMetrics getMetrics(String id) {
+        PoolEntry entry = pools.get(id);
+        return entry == null ? null : new RedisPoolMetrics(id, entry.maxTotal, entry.pool);
+    }
+
+    public List<RedisPoolMetrics> getAllMetrics() {
+        return pools.entrySet().stream()
+                .map(entry -> new RedisPoolMetrics(entry.getKey(), entry.getValue().maxTotal, entry.getValue().pool))
+                .collect(Collectors.toList());
+    }
+
+    private void evictPools(String usingId) {
+        long now = clock.getAsLong();
+        List<Map.Entry<String, PoolEntry>> candidates = pools.entrySet().stream()
+                .filter(entry -> !entry.getKey().equals(usingId) && !entry.getValue().isInUse())
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().lastAccessTime))
+                .collect(Collectors.toList());
+        int overflow = pools.size() - DEFAULT_MAX_POOLS;
+
+        for (Map.Entry<String, PoolEntry> candidate : candidates) {
+            PoolEntry entry = candidate.getValue();
+            boolean isIdle = now - entry.lastAccessTime > DEFAULT_POOL_IDLE_MS;
+            if ((overflow > 0 || isIdle) && entry.close()) {
+                // Check again now that no borrower can come in
+                if (entry.pool.getNumActive() != 0) {
+                    entry.reopen();
+                } else if (pools.remove(candidate.getKey(), entry)) {
+                    entry.pool.destroy();
+                    overflow--;
+                }
             }
-            pools.remove(id);
         }
     }
 
-    private void connect(String sid, String id) throws Exception {
+    private PoolEntry connect(String sid, String id) throws Exception {
         RedisCache redisCache = AzureRedisMvpModel.getInstance().getRedisCache(sid, id);
 
         if (redisCache == null) {
@@ -100,7 +199,58 @@ public class RedisConnectionPools {
         int port = redisCache.sslPort();
 
         // create connection pool according to redis setting
-        JedisPool pool = new JedisPool(new JedisPoolConfig(), hostName, port, TIMEOUT, password, true);
-        pools.put(id, pool);
+        int maxTotal = poolSizes.getOrDefault(id, DEFAULT_POOL_SIZE);
+        JedisPoolConfig config = new JedisPoolConfig();
+        config.setMaxTotal(maxTotal);
+        config.setMaxIdle(Math.min(MAX_IDLE_CONNECTIONS, maxTotal));
+        config.setMaxWaitMillis(MAX_BORROW_WAIT_MS);
+        config.setMinEvictableIdleTimeMillis(MIN_CONNECTION_IDLE_MS);
+        config.setTimeBetweenEvictionRunsMillis(CONNECTION_EVICTION_INTERVAL_MS);
+        JedisPool pool = new JedisPool(config, hostName, port, TIMEOUT, password, true);
+        return new PoolEntry(pool, maxTotal, clock.getAsLong());
+    }
+
+    private static final class PoolEntry {
+        private final JedisPool pool;
+        private final int maxTotal;
+        // Count of getJedis() calls borrowing from the pool, or CLOSED once it's being evicted
+        private final AtomicInteger borrowers = new AtomicInteger();
+        private volatile long lastAccessTime;
+
+        private static final int CLOSED = -1;
+
+        private PoolEntry(JedisPool pool, int maxTotal, long lastAccessTime) {
+            this.pool = pool;
+            this.maxTotal = maxTotal;
+            this.lastAccessTime = lastAccessTime;
+        }
+
+        private boolean acquire() {
+            while (true) {
+                int count = borrowers.get();
+                if (count == CLOSED) {
+                    return false;
+                }
+                if (borrowers.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void release() {
+            borrowers.decrementAndGet();
+        }
+
+        private boolean isInUse() {
+            return borrowers.get() != 0 || pool.getNumActive() != 0;
+        }
+
+        private boolean close() {
+            return borrowers.compareAndSet(0, CLOSED);
+        }
+
+        private void reopen() {
+            borrowers.compareAndSet(CLOSED, 0);
+        }
     }
 }
@@ -60,6 +60,7 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -75,6 +76,12 @@ public class AzureWebAppMvpModel {
     public static final String CANNOT_GET_WEB_APP_WITH_ID = "Cannot get Web App with ID: ";
     private final Map<String, List<ResourceEx<WebApp>>> subscriptionIdToWebApps;
 
+    public static final int DEFAULT_MAX_CONCURRENT_SUBSCRIPTIONS = 4;
+    private volatile int maxConcurrentSubscriptions = DEFAULT_MAX_CONCURRENT_SUBSCRIPTIONS;
+
+    private static final Predicate<SiteInner> IS_WEB_APP =
+        inner -> inner.kind() == null || !Arrays.asList(inner.kind().split(",")).contains("functionapp");
+
     private static final List<WebAppUtils.WebContainerMod> JAVA_8_JAR_CONTAINERS = Collections.singletonList(WebAppUtils.WebContainerMod.Java_SE_8);
     private static final List<WebAppUtils.WebContainerMod> JAVA_11_JAR_CONTAINERS = Collections.singletonList(WebAppUtils.WebContainerMod.Java_SE_11);
 
@@ -276,7 +283,9 @@ public class AzureWebAppMvpModel {
 
     public void deleteWebApp(String sid, String appId) throws IOException {
         AuthMethodManager.getInstance().getAzureClient(sid).webApps().deleteById(appId);
-        subscriptionIdToWebApps.remove(sid);
+        subscriptionIdToWebApps.computeIfPresent(sid, (key, webApps) -> webApps.stream()
+                .filter(app -> !StringUtils.equalsIgnoreCase(app.getResource().id(), appId))
+                .collect(Collectors.toList()));
     }
 
     /**
@@ -540,20 +549,70 @@ public class AzureWebAppMvpModel {
      * @return list of Web App
      */
     public List<ResourceEx<WebApp>> listAllWebApps(final boolean force) {
-        final List<ResourceEx<WebApp>> webApps = new ArrayList<>();
-        List<Subscription> subs = AzureMvpModel.getInstance().getSelectedSubscriptions();
-        if (subs.size() == 0) {
-            return webApps;
+        return listAllWebAppPages(force)
+                .flatMapIterable(page -> page)
+                .toList()
+                .toBlocking()
+                .single();
+    }
+
+    /**
+     * List all the Web Apps in selected subscriptions page by page, the pages are emitted as soon as they are listed
+     * and at most {@link #getMaxConcurrentSubscriptions()} subscriptions are listed at the same time.
+     *
+     * @param force flag indicating whether force to fetch most updated data from server
+     * @return the pages of Web Apps
+     */
+    @NotNull
+    public Observable<List<ResourceEx<WebApp>>> listAllWebAppPages(final boolean force) {
+        return Observable.defer(() -> Observable.from(AzureMvpModel.getInstance().getSelectedSubscriptions()))
+                .flatMap(sub -> listWebAppPages(sub.subscriptionId(), force).subscribeOn(Schedulers.io()),
+                         maxConcurrentSubscriptions);
+    }
+
+    /**
+     * Relist the Web Apps in selected subscriptions, and emit the changes of each subscription compared with the
+     * cached ones. The subscriptions no longer selected are emitted with all their cached Web Apps removed.
+     *
+     * @return the changes of Web Apps per subscription
+     */
+    @NotNull
+    public Observable<WebAppListDiff> refreshAllWebApps() {
+        return Observable.defer(() -> {
+            final Set<String> selectedSids = AzureMvpModel.getInstance().getSelectedSubscriptions().stream()
+                    .map(Subscription::subscriptionId)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+            final Observable<WebAppListDiff> deselected = Observable.from(new ArrayList<>(subscriptionIdToWebApps.keySet()))
+                    .filter(sid -> !selectedSids.contains(sid))
+                    .map(sid -> WebAppListDiff.compare(sid, subscriptionIdToWebApps.remove(sid), null));
+            final Observable<WebAppListDiff> relisted = Observable.from(selectedSids)
+                    .flatMap(sid -> {
+                        final List<ResourceEx<WebApp>> previous = subscriptionIdToWebApps.get(sid);
+
+                        return listWebAppPages(sid, true)
+                                .flatMapIterable(page -> page)
+                                .toList()
+                                .map(current -> WebAppListDiff.compare(sid, previous, current))
+                                .subscribeOn(Schedulers.io());
+                    }, maxConcurrentSubscriptions);
+
+            return deselected.concatWith(relisted);
+        });
+    }
+
+    public int getMaxConcurrentSubscriptions() {
+        return maxConcurrentSubscriptions;
+    }
+
+    /**
+     * Set how many subscriptions to list Web Apps from at the same time.
+     */
+    public void setMaxConcurrentSubscriptions(final int maxConcurrentSubscriptions) {
+        if (maxConcurrentSubscriptions <= 0) {
+            throw new IllegalArgumentException("Bad max concurrent subscriptions: " + maxConcurrentSubscriptions);
         }
-        Observable.from(subs).flatMap((sd) ->
-            Observable.create((subscriber) -> {
-                List<ResourceEx<WebApp>> webAppList = listWebApps(sd.subscriptionId(), force);
-                synchronized (webApps) {
-                    webApps.addAll(webAppList);
-                }
-                subscriber.onCompleted();
-            }).subscribeOn(Schedulers.io()), subs.size()).subscribeOn(Schedulers.io()).toBlocking().subscribe();
-        return webApps;
+
+        this.maxConcurrentSubscriptions = maxConcurrentSubscriptions;
     }
 
     /**
@@ -582,18 +641,42 @@ public class AzureWebAppMvpModel {
     @SneakyThrows
     @NotNull
     public List<ResourceEx<WebApp>> listWebApps(final String subscriptionId, final boolean force) {
-        if (!force && subscriptionIdToWebApps.get(subscriptionId) != null) {
-            return subscriptionIdToWebApps.get(subscriptionId);
+        try {
+            return listWebAppPages(subscriptionId, force)
+                    .flatMapIterable(page -> page)
+                    .toList()
+                    .toBlocking()
+                    .single();
+        } catch (RuntimeException ex) {
+            // Rethrow the checked exception wrapped by Rx as it is
+            throw ex.getCause() instanceof IOException ? ex.getCause() : ex;
         }
-        final Azure azure = AuthMethodManager.getInstance().getAzureClient(subscriptionId);
-        final Predicate<SiteInner> filter = inner -> inner.kind() == null || !Arrays.asList(inner.kind().split(",")).contains("functionapp");
-        final List<ResourceEx<WebApp>> webapps = azure.appServices().webApps()
-                                                      .inner().list().stream().filter(filter)
-                                                      .map(inner -> new WebAppWrapper(subscriptionId, inner))
-                                                      .map(app -> new ResourceEx<WebApp>(app, subscriptionId))
-                                                      .collect(Collectors.toList());
-        subscriptionIdToWebApps.put(subscriptionId, webapps);
-        return webapps;
+    }
+
+    /**
+     * List web apps by subscription id page by page, the pages are emitted as soon as they are returned by server,
+     * and all of them are cached when the listing completes.
+     */
+    @NotNull
+    public Observable<List<ResourceEx<WebApp>>> listWebAppPages(final String subscriptionId, final boolean force) {
+        return Observable.defer(() -> {
+            final List<ResourceEx<WebApp>> cached = subscriptionIdToWebApps.get(subscriptionId);
+            if (!force && cached != null) {
+                return Observable.just(cached);
+            }
+
+            final List<ResourceEx<WebApp>> webapps = new ArrayList<>();
+
+            return Observable.fromCallable(() -> AuthMethodManager.getInstance().getAzureClient(subscriptionId))
+                    .flatMap(azure -> azure.appServices().webApps().inner().listAsync())
+                    .map(page -> page.items().stream()
+                            .filter(IS_WEB_APP)
+                            .map(inner -> new ResourceEx<WebApp>(new WebAppWrapper(subscriptionId, inner), subscriptionId))
+                            .collect(Collectors.toList()))
+                    .filter(page -> !page.isEmpty())
+                    .doOnNext(webapps::addAll)
+                    .doOnCompleted(() -> subscriptionIdToWebApps.put(subscriptionId, webapps));
+        });
     }
 
     /**
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.webapp;
+
+import com.microsoft.azure.management.appservice.WebApp;
+import com.microsoft.azure.management.appservice.implementation.SiteInner;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import com.microsoft.azuretools.core.mvp.model.ResourceEx;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The web apps added, removed and changed in a subscription between two listings.
+ *
+ * The web apps are matched by ID, and a web app is changed if its last modified time, state or enabled flag is
+ * different, which covers the deployments, configuration updates and start/stop operations.
+ */
+public class WebAppListDiff {
+    @NotNull
+    private final String subscriptionId;
+
+    @NotNull
+    private final List<ResourceEx<WebApp>> added;
+
+    @NotNull
+    private final List<ResourceEx<WebApp>> removed;
+
+    @NotNull
+    private final List<ResourceEx<WebApp>> changed;
+
+    private WebAppListDiff(@NotNull String subscriptionId,
+                           @NotNull List<ResourceEx<WebApp>> added,
+                           @NotNull List<ResourceEx<WebApp>> removed,
+                           @NotNull List<ResourceEx<WebApp>> changed) {
+        this.subscriptionId = subscriptionId;
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+        this.changed = Collections.unmodifiableList(changed);
+    }
+
+    /**
+     * Compare the listed web apps with the previous ones.
+     *
+     * @param subscriptionId the subscription ID
+     * @param previous the previous web apps, null if the subscription hasn't been listed
+     * @param current the listed web apps, null if the subscription isn't listed any more
+     */
+    @NotNull
+    public static WebAppListDiff compare(@NotNull String subscriptionId,
+                                         @Nullable List<ResourceEx<WebApp>> previous,
+                                         @Nullable List<ResourceEx<WebApp>> current) {
+        Map<String, ResourceEx<WebApp>> idToPrevious = toIdMap(previous);
+        Map<String, ResourceEx<WebApp>> idToCurrent = toIdMap(current);
+        List<ResourceEx<WebApp>> added = new ArrayList<>();
+        List<ResourceEx<WebApp>> changed = new ArrayList<>();
+        List<ResourceEx<WebApp>> removed = new ArrayList<>();
+
+        idToCurrent.forEach((id, app) -> {
+            ResourceEx<WebApp> previousApp = idToPrevious.get(id);
+
+            if (previousApp == null) {
+                added.add(app);
+            } else if (isChanged(previousApp.getResource(), app.getResource())) {
+                changed.add(app);
+            }
+        });
+
+        idToPrevious.forEach((id, app) -> {
+            if (!idToCurrent.containsKey(id)) {
+                removed.add(app);
+            }
+        });
+
+        return new WebAppListDiff(subscriptionId, added, removed, changed);
+    }
+
+    @NotNull
+    public String getSubscriptionId() {
+        return subscriptionId;
+    }
+
+    @NotNull
+    public List<ResourceEx<WebApp>> getAdded() {
+        return added;
+    }
+
+    @NotNull
+    public List<ResourceEx<WebApp>> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Get the changed web apps, which are the listed instances.
+     */
+    @NotNull
+    public List<ResourceEx<WebApp>> getChanged() {
+        return changed;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+
+    private static boolean isChanged(@NotNull WebApp previous, @NotNull WebApp current) {
+        SiteInner previousInner = previous.inner();
+        SiteInner currentInner = current.inner();
+
+        return !Objects.equals(previousInner.lastModifiedTimeUtc(), currentInner.lastModifiedTimeUtc())
+                || !Objects.equals(previousInner.state(), currentInner.state())
+                || !Objects.equals(previousInner.enabled(), currentInner.enabled());
+    }
+
+    @NotNull
+    private static Map<String, ResourceEx<WebApp>> toIdMap(@Nullable List<ResourceEx<WebApp>> apps) {
+        Map<String, ResourceEx<WebApp>> idToApp = new LinkedHashMap<>();
+
+        if (apps != null) {
+            apps.forEach(app -> idToApp.put(app.getResource().id().toLowerCase(), app));
+        }
+
+        return idToApp;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azuretools.core.mvp.ui.rediscache;
+
+import redis.clients.jedis.JedisPool;
+
+public class RedisPoolMetrics {
+
+    private final String id;
+    private final int maxTotal;
+    private final int active;
+    private final int idle;
+    private final int waiters;
+    private final long meanWaitMillis;
+    private final long maxWaitMillis;
+
+    public RedisPoolMetrics(String id, int maxTotal, JedisPool pool) {
+        this.id = id;
+        this.maxTotal = maxTotal;
+        this.active = pool.getNumActive();
+        this.idle = pool.getNumIdle();
+        this.waiters = pool.getNumWaiters();
+        this.meanWaitMillis = pool.getMeanBorrowWaitTimeMillis();
+        this.maxWaitMillis = pool.getMaxBorrowWaitTimeMillis();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public int getWaiters() {
+        return waiters;
+    }
+
+    public long getMeanWaitMillis() {
+        return meanWaitMillis;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Connections: %d active, %d idle of %d, %d waiting, wait time %d ms (max %d ms)",
+                active, idle, maxTotal, waiters, meanWaitMillis, maxWaitMillis);
+    }
+}
@@ -32,6 +32,7 @@ import com.microsoft.azuretools.authmanage.CommonSettings;
 import com.microsoft.azuretools.authmanage.Environment;
 import com.microsoft.azuretools.authmanage.SubscriptionManager;
 import com.microsoft.azuretools.utils.Pair;
+import rx.Observable;
 
 import java.io.IOException;
 import java.util.List;
@@ -47,6 +48,13 @@ public interface AzureManager {
 
     List<Pair<Subscription, Tenant>> getSubscriptionsWithTenant() throws IOException;
 
+    /**
+     * List the subscriptions with their tenants, the subscriptions are emitted as soon as they are available.
+     */
+    default Observable<Pair<Subscription, Tenant>> listSubscriptionsWithTenant() {
+        return Observable.fromCallable(this::getSubscriptionsWithTenant).flatMapIterable(pairs -> pairs);
+    }
+
     Settings getSettings();
 
     SubscriptionManager getSubscriptionManager();
@@ -39,11 +39,11 @@ import com.microsoft.azuretools.utils.AzureRegisterProviderNamespaces;
 import com.microsoft.azuretools.utils.Pair;
 import org.apache.commons.lang3.StringUtils;
 import rx.Observable;
+import rx.schedulers.Schedulers;
 
 import java.io.IOException;
 import java.net.UnknownHostException;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -65,6 +65,9 @@ public abstract class AzureManagerBase implements AzureManager {
 
     private static final Logger LOGGER = Logger.getLogger(AzureManagerBase.class.getName());
 
+    // The tenants to authenticate and list subscriptions at the same time
+    protected static final int MAX_CONCURRENT_TENANTS = 8;
+
     protected Map<String, Azure> sidToAzureMap = new ConcurrentHashMap<>();
     protected Map<String, AppPlatformManager> sidToAzureSpringCloudManagerMap = new ConcurrentHashMap<>();
     protected Map<String, InsightsManager> sidToInsightsManagerMap = new ConcurrentHashMap<>();
@@ -124,18 +127,33 @@ public abstract class AzureManagerBase implements AzureManager {
 
     @Override
     public List<Pair<Subscription, Tenant>> getSubscriptionsWithTenant() throws IOException {
-        final List<Pair<Subscription, Tenant>> subscriptions = new LinkedList<>();
-        final Azure.Authenticated authentication = authTenant(getCurrentTenantId());
-        // could be multi tenant - return all subscriptions for the current account
-        final List<Tenant> tenants = getTenants(authentication);
-        for (Tenant tenant : tenants) {
-            final Azure.Authenticated tenantAuthentication = authTenant(tenant.tenantId());
-            final List<Subscription> tenantSubscriptions = getSubscriptions(tenantAuthentication);
-            for (Subscription subscription : tenantSubscriptions) {
-                subscriptions.add(new Pair<>(subscription, tenant));
+        try {
+            return listSubscriptionsWithTenant().toList().toBlocking().single();
+        } catch (RuntimeException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
             }
+
+            throw ex;
         }
-        return subscriptions;
+    }
+
+    /**
+     * List the subscriptions of all tenants of the current account. The tenants are authenticated and listed
+     * concurrently (at most {@link #MAX_CONCURRENT_TENANTS} at a time), and the subscriptions of a tenant are emitted
+     * as soon as the tenant is done, so the subscriptions are not in the tenants order.
+     */
+    @Override
+    public Observable<Pair<Subscription, Tenant>> listSubscriptionsWithTenant() {
+        // could be multi tenant - return all subscriptions for the current account
+        return Observable
+                .fromCallable(() -> getTenants(authTenant(getCurrentTenantId())))
+                .flatMapIterable(tenants -> tenants)
+                .flatMap(tenant -> Observable.fromCallable(() -> getSubscriptions(authTenant(tenant.tenantId())))
+                                             .subscribeOn(Schedulers.io())
+                                             .flatMapIterable(subscriptions -> subscriptions)
+                                             .map(subscription -> new Pair<>(subscription, tenant)),
+                         MAX_CONCURRENT_TENANTS);
     }
 
     @Override
@@ -29,32 +29,116 @@ import com.microsoft.azure.management.resources.ResourceGroup;
 import com.microsoft.azure.management.resources.Subscription;
 import com.microsoft.azuretools.authmanage.models.SubscriptionDetail;
 
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by vlashch on 1/6/17.
+ *
+ * The resources are held in {@link ResourceCache}s, a subscription or a resource group can be invalidated alone, and
+ * the stale ones are reloaded in background when read. The map getters return snapshots of the loaded resources, or
+ * null if the resources haven't been loaded by {@link AzureModelController}.
  */
 public class AzureModel {
-    private Map<SubscriptionDetail, List<ResourceGroup>> subscriptionToResourceGroupMap = null;
-    private Map<SubscriptionDetail, List<Location>> subscriptionToLocationMap = null;
-    private Map<ResourceGroup, List<WebApp>> resourceGroupToWebAppMap = null;
-    private Map<ResourceGroup, List<AppServicePlan>> resourceGroupToAppServicePlanMap = null;
-    private Map<String, Subscription> sidToSubscriptionMap = null;
+    // The resources older than it are reloaded in background when read
+    public static final long RESOURCE_TTL_MINUTES = 5;
+
+    private static final Comparator<ResourceGroup> RESOURCE_GROUP_COMPARATOR =
+            Comparator.comparing(AzureModel::getResourceGroupKey);
+
+    private final ResourceCache<SubscriptionDetail, List<ResourceGroup>> resourceGroupCache =
+            new ResourceCache<>(RESOURCE_TTL_MINUTES, TimeUnit.MINUTES, AzureModelController::loadResourceGroups);
+    private final ResourceCache<SubscriptionDetail, List<Location>> locationCache =
+            new ResourceCache<>(RESOURCE_TTL_MINUTES, TimeUnit.MINUTES, AzureModelController::loadLocations);
+    // keyed by resource group key
+    private final ResourceCache<String, List<WebApp>> webAppCache =
+            new ResourceCache<>(RESOURCE_TTL_MINUTES, TimeUnit.MINUTES, AzureModelController::loadWebApps);
+    private final ResourceCache<String, List<AppServicePlan>> appServicePlanCache =
+            new ResourceCache<>(RESOURCE_TTL_MINUTES, TimeUnit.MINUTES, AzureModelController::loadAppServicePlans);
+
+    private volatile boolean isSubscriptionMapsLoaded = false;
+    private volatile boolean isResourceGroupMapsLoaded = false;
+    private volatile Map<String, Subscription> sidToSubscriptionMap = null;
 
 
     private static AzureModel instance = null;
     private AzureModel() {}
 
-    public static AzureModel getInstance() {
+    public static synchronized AzureModel getInstance() {
         if (instance == null) {
             instance = new AzureModel();
         }
         return instance;
     }
 
+    /**
+     * The key of a resource group in caches, which is the resource group ID in lower case.
+     */
+    public static String getResourceGroupKey(ResourceGroup resourceGroup) {
+        return resourceGroup.id().toLowerCase();
+    }
+
+    // == resource caches
+
+    public ResourceCache<SubscriptionDetail, List<ResourceGroup>> getResourceGroupCache() {
+        return resourceGroupCache;
+    }
+
+    public ResourceCache<SubscriptionDetail, List<Location>> getLocationCache() {
+        return locationCache;
+    }
+
+    public ResourceCache<String, List<WebApp>> getWebAppCache() {
+        return webAppCache;
+    }
+
+    public ResourceCache<String, List<AppServicePlan>> getAppServicePlanCache() {
+        return appServicePlanCache;
+    }
+
+    public void setSubscriptionMapsLoaded(boolean isLoaded) {
+        this.isSubscriptionMapsLoaded = isLoaded;
+    }
+
+    public void setResourceGroupMapsLoaded(boolean isLoaded) {
+        this.isResourceGroupMapsLoaded = isLoaded;
+    }
+
+    /**
+     * Invalidate the resources of a subscription, they will be loaded again when read.
+     */
+    public void invalidateSubscription(SubscriptionDetail subscriptionDetail) {
+        List<ResourceGroup> resourceGroups = resourceGroupCache.getIfPresent(subscriptionDetail);
+        if (resourceGroups != null) {
+            resourceGroups.forEach(this::invalidateResourceGroup);
+        }
+
+        resourceGroupCache.invalidate(subscriptionDetail);
+        locationCache.invalidate(subscriptionDetail);
+    }
+
+    /**
+     * Invalidate the resources of a resource group, they will be loaded again when read.
+     */
+    public void invalidateResourceGroup(ResourceGroup resourceGroup) {
+        webAppCache.invalidate(getResourceGroupKey(resourceGroup));
+        appServicePlanCache.invalidate(getResourceGroupKey(resourceGroup));
+    }
+
+    public void invalidateAll() {
+        isSubscriptionMapsLoaded = false;
+        isResourceGroupMapsLoaded = false;
+        resourceGroupCache.invalidateAll();
+        locationCache.invalidateAll();
+        webAppCache.invalidateAll();
+        appServicePlanCache.invalidateAll();
+    }
+
     // == sidToSubscriptionMap
     public Map<String, Subscription> getSidToSubscriptionMap() {
         return sidToSubscriptionMap;
@@ -71,7 +155,7 @@ public class AzureModel {
     // == subscriptionToLocationMap
 
     public Map<SubscriptionDetail, List<Location>> getSubscriptionToLocationMap() {
-        return subscriptionToLocationMap;
+        return isSubscriptionMapsLoaded ? new ConcurrentHashMap<>(locationCache.snapshot()) : null;
     }
 
     public Map<SubscriptionDetail, List<Location>> createSubscriptionToRegionMap() {
@@ -79,49 +163,86 @@ public class AzureModel {
     }
 
     public void setSubscriptionToLocationMap(Map<SubscriptionDetail, List<Location>> subscriptionToLocationMap) {
-        this.subscriptionToLocationMap = subscriptionToLocationMap;
+        locationCache.invalidateAll();
+        if (subscriptionToLocationMap == null) {
+            isSubscriptionMapsLoaded = false;
+        } else {
+            subscriptionToLocationMap.forEach(locationCache::put);
+        }
     }
 
     // == subscriptionToResourceGroupMap
 
-    public synchronized Map<SubscriptionDetail, List<ResourceGroup>> getSubscriptionToResourceGroupMap() {
-        return subscriptionToResourceGroupMap;
+    public Map<SubscriptionDetail, List<ResourceGroup>> getSubscriptionToResourceGroupMap() {
+        return isSubscriptionMapsLoaded ? new ConcurrentHashMap<>(resourceGroupCache.snapshot()) : null;
     }
 
-    public synchronized void setSubscriptionToResourceGroupMap(Map<SubscriptionDetail, List<ResourceGroup>> subsriptoionToResourceGroupMap) {
-        this.subscriptionToResourceGroupMap = subsriptoionToResourceGroupMap;
+    public void setSubscriptionToResourceGroupMap(Map<SubscriptionDetail, List<ResourceGroup>> subsriptoionToResourceGroupMap) {
+        resourceGroupCache.invalidateAll();
+        if (subsriptoionToResourceGroupMap == null) {
+            isSubscriptionMapsLoaded = false;
+        } else {
+            subsriptoionToResourceGroupMap.forEach(resourceGroupCache::put);
+            isSubscriptionMapsLoaded = true;
+        }
     }
 
-    public synchronized Map<SubscriptionDetail, List<ResourceGroup>> createSubscriptionToResourceGroupMap() {
+    public Map<SubscriptionDetail, List<ResourceGroup>> createSubscriptionToResourceGroupMap() {
         return new ConcurrentHashMap<>();
     }
 
     // == resourceGroupToWebAppMap
 
-    public synchronized Map<ResourceGroup, List<WebApp>> getResourceGroupToWebAppMap() {
-        return resourceGroupToWebAppMap;
+    public Map<ResourceGroup, List<WebApp>> getResourceGroupToWebAppMap() {
+        return isResourceGroupMapsLoaded ? toResourceGroupMap(webAppCache) : null;
     }
 
-    public synchronized void setResourceGroupToWebAppMap(Map<ResourceGroup, List<WebApp>> resourceGroupToWebAppMap) {
-        this.resourceGroupToWebAppMap = resourceGroupToWebAppMap;
+    public void setResourceGroupToWebAppMap(Map<ResourceGroup, List<WebApp>> resourceGroupToWebAppMap) {
+        setResourceGroupMap(webAppCache, resourceGroupToWebAppMap);
     }
 
-    public synchronized Map<ResourceGroup, List<WebApp>> createResourceGroupToWebAppMap() {
+    public Map<ResourceGroup, List<WebApp>> createResourceGroupToWebAppMap() {
         return new ConcurrentHashMap<ResourceGroup, List<WebApp>>();
     }
 
     // == resourceGroupToAppServicePlanMap
 
-    public synchronized Map<ResourceGroup, List<AppServicePlan>> getResourceGroupToAppServicePlanMap() {
-        return resourceGroupToAppServicePlanMap;
+    public Map<ResourceGroup, List<AppServicePlan>> getResourceGroupToAppServicePlanMap() {
+        return isResourceGroupMapsLoaded ? toResourceGroupMap(appServicePlanCache) : null;
     }
 
-    public synchronized void setResourceGroupToAppServicePlanMap(Map<ResourceGroup, List<AppServicePlan>> resourceGroupToAppServicePlanMap) {
-        this.resourceGroupToAppServicePlanMap = resourceGroupToAppServicePlanMap;
+    public void setResourceGroupToAppServicePlanMap(Map<ResourceGroup, List<AppServicePlan>> resourceGroupToAppServicePlanMap) {
+        setResourceGroupMap(appServicePlanCache, resourceGroupToAppServicePlanMap);
     }
 
-    public synchronized Map<ResourceGroup, List<AppServicePlan>> createResourceGroupToAppServicePlanMap() {
+    public Map<ResourceGroup, List<AppServicePlan>> createResourceGroupToAppServicePlanMap() {
         return new ConcurrentHashMap<ResourceGroup, List<AppServicePlan>>();
     }
 
+    // The resource groups are compared by ID, so the resource groups reloaded are still found in the map
+    private <V> Map<ResourceGroup, V> toResourceGroupMap(ResourceCache<String, V> cache) {
+        Map<String, V> rgKeyToValue = cache.snapshot();
+        Map<ResourceGroup, V> rgToValue = new TreeMap<>(RESOURCE_GROUP_COMPARATOR);
+
+        for (List<ResourceGroup> resourceGroups : resourceGroupCache.snapshot().values()) {
+            for (ResourceGroup resourceGroup : resourceGroups) {
+                V value = rgKeyToValue.get(getResourceGroupKey(resourceGroup));
+                if (value != null) {
+                    rgToValue.put(resourceGroup, value);
+                }
+            }
+        }
+
+        return rgToValue;
+    }
+
+    private <V> void setResourceGroupMap(ResourceCache<String, V> cache, Map<ResourceGroup, V> rgToValue) {
+        cache.invalidateAll();
+        if (rgToValue == null) {
+            isResourceGroupMapsLoaded = false;
+        } else {
+            rgToValue.forEach((resourceGroup, value) -> cache.put(getResourceGroupKey(resourceGroup), value));
+            isResourceGroupMapsLoaded = true;
+        }
+    }
 }
@@ -28,6 +28,8 @@ import com.microsoft.azure.management.appservice.WebApp;
 import com.microsoft.azure.management.resources.Location;
 import com.microsoft.azure.management.resources.ResourceGroup;
 import com.microsoft.azure.management.resources.Subscription;
+import com.microsoft.azure.management.resources.fluentcore.arm.ResourceUtils;
+import com.microsoft.azure.management.resources.fluentcore.arm.models.HasId;
 import com.microsoft.azuretools.adauth.AuthException;
 import com.microsoft.azuretools.authmanage.AuthMethodManager;
 import com.microsoft.azuretools.authmanage.CommonSettings;
@@ -37,29 +39,31 @@ import com.microsoft.azuretools.authmanage.models.SubscriptionDetail;
 import com.microsoft.azuretools.sdkmanage.AzureManager;
 import com.microsoft.azuretools.utils.WebAppUtils.WebAppDetails;
 import rx.Observable;
-import rx.Subscriber;
-import rx.exceptions.Exceptions;
-import rx.functions.Action1;
-import rx.functions.Func1;
 import rx.schedulers.Schedulers;
 
 import java.io.IOException;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.CountDownLatch;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 /**
  * Created by vlashch on 1/9/17.
+ *
+ * The resources are loaded into the caches of {@link AzureModel} concurrently without a global lock, the fresh and
+ * stale ones are returned at once, and a key being loaded by another refresh is waited for rather than loaded again.
  */
 public class AzureModelController {
     private static final Logger LOGGER = Logger.getLogger(AzureModelController.class.getName());
+
+    // The subscriptions or resource groups to load at the same time
+    private static final int MAX_CONCURRENT_LOADS = 16;
+
     private static ISubscriptionSelectionListener subscriptionSelectionListener = new ISubscriptionSelectionListener() {
         @Override
         public void update(boolean isRefresh) {
@@ -89,18 +93,15 @@ public class AzureModelController {
     };
 
     private static void clearAll() {
-        System.out.println("AzureModelController.clearAll: set null to all the maps.");
-        AzureModel azureModel = AzureModel.getInstance();
-        azureModel.setSubscriptionToResourceGroupMap(null);
-        azureModel.setResourceGroupToWebAppMap(null);
-        azureModel.setResourceGroupToAppServicePlanMap(null);
+        System.out.println("AzureModelController.clearAll: invalidate all the caches.");
+        AzureModel.getInstance().invalidateAll();
 
         // TODO: notify subscribers
 
         AzureUIRefreshCore.removeAll();
     }
 
-    private static synchronized void subscriptionSelectionChanged(IProgressIndicator progressIndicator) throws IOException, AuthException {
+    private static void subscriptionSelectionChanged(IProgressIndicator progressIndicator) throws IOException, AuthException {
         System.out.println("AzureModelController.subscriptionSelectionChanged: starting");
         AzureManager azureManager = AuthMethodManager.getInstance().getAzureManager();
         // not signed in
@@ -122,9 +123,6 @@ public class AzureModelController {
             return;
         }
 
-        Map<ResourceGroup, List<WebApp>> rgwaMap = azureModel.getResourceGroupToWebAppMap();
-        Map<ResourceGroup, List<AppServicePlan>> rgspMap = azureModel.getResourceGroupToAppServicePlanMap();
-
         System.out.println("AzureModelController.subscriptionSelectionChanged: getting subscription details...");
         SubscriptionManager subscriptionManager = azureManager.getSubscriptionManager();
         List<SubscriptionDetail> sdl = subscriptionManager.getSubscriptionDetails();
@@ -133,42 +131,12 @@ public class AzureModelController {
             return;
         }
 
+        List<SubscriptionDetail> newlySelected = new ArrayList<>();
         for (SubscriptionDetail sd : sdl) {
             if (!srgMap.containsKey(sd)) {
-                if (!sd.isSelected()) {
-                    continue;
+                if (sd.isSelected()) {
+                    newlySelected.add(sd);
                 }
-
-                if (progressIndicator != null && progressIndicator.isCanceled()) {
-                    progressIndicator.setText("Cancelling...");
-                    clearAll();
-                    return;
-                    // TODO: throw exception?
-                }
-
-                // subscription locations
-                List<Subscription> sl = azureManager.getSubscriptions();
-                System.out.println("Updating subscription locations");
-                Subscription subscription = sidToSubscriptionMap.get(sd.getSubscriptionId());
-                if (progressIndicator != null) {
-                    progressIndicator.setText(String.format("Updating subscription '%s' locations...", subscription.displayName()));
-                }
-                List<Location> locl = subscription.listLocations();
-                Collections.sort(locl, new Comparator<Location>() {
-                    @Override
-                    public int compare(Location lhs, Location rhs) {
-                        return lhs.displayName().compareTo(rhs.displayName());
-                    }
-                });
-
-                Map<SubscriptionDetail, List<Location>> sdlocMap = azureModel.getSubscriptionToLocationMap();
-                sdlocMap.put(sd, locl);
-
-                // resource group maps
-                Azure azure = azureManager.getAzure(sd.getSubscriptionId());
-                List<ResourceGroup> rgList = azure.resourceGroups().list();
-                srgMap.put(sd, rgList);
-                updateResGrDependency(azure, rgList, progressIndicator, rgwaMap, rgspMap);
             } else {
                 // find and modify the key
                 for (SubscriptionDetail sdk : srgMap.keySet()) {
@@ -178,64 +146,46 @@ public class AzureModelController {
                 }
             }
         }
-    }
 
-    static class RgDepParams {
-        ResourceGroup rg;
-        List<WebApp> wal;
-        List<AppServicePlan> aspl;
+        try {
+            if (progressIndicator != null) {
+                progressIndicator.setText("Updating subscription locations and resource groups...");
+            }
+            loadConcurrently(newlySelected, progressIndicator, sd -> {
+                azureModel.getLocationCache().get(sd);
+                azureModel.getResourceGroupCache().get(sd);
+            });
 
-        public RgDepParams(ResourceGroup rg, List<WebApp> wal, List<AppServicePlan> aspl) {
-            this.rg = rg;
-            this.wal = wal;
-            this.aspl = aspl;
+            if (azureModel.getResourceGroupToWebAppMap() != null) {
+                if (progressIndicator != null) {
+                    progressIndicator.setText("Reading App Services...");
+                }
+                List<ResourceGroup> rgList = new ArrayList<>();
+                for (SubscriptionDetail sd : newlySelected) {
+                    rgList.addAll(azureModel.getResourceGroupCache().get(sd));
+                }
+                loadResourceGroupDependencies(rgList, progressIndicator);
+            }
+        } catch (CanceledByUserException ignored) {
+            progressIndicator.setText("Cancelling...");
         }
     }
 
-    private static void updateResGrDependency(Azure azure,
-                                              List<ResourceGroup> rgList,
-                                              IProgressIndicator progressIndicator,
-                                              Map<ResourceGroup, List<WebApp>> rgwaMap,
-                                              Map<ResourceGroup, List<AppServicePlan>> rgspMap) {
-
-        if (progressIndicator != null) {
-            progressIndicator.setText("Reading App Services...");
-        }
-        int tasksSize = rgList.size();
-        if (tasksSize == 0) {
-            return;
-        }
-        Observable.from(rgList).flatMap(new Func1<ResourceGroup, Observable<? extends RgDepParams>>() {
-            @Override
-            public Observable<? extends RgDepParams> call(ResourceGroup rg) {
-                return Observable.create(new Observable.OnSubscribe<RgDepParams>() {
-                    @Override
-                    public void call(Subscriber<? super RgDepParams> subscriber) {
-                        List<WebApp> wal = azure.webApps().listByResourceGroup(rg.name());
-                        List<AppServicePlan> aspl = azure.appServices().appServicePlans().listByResourceGroup(rg.name())
-                                .stream().collect(Collectors.toList());
-                        subscriber.onNext(new RgDepParams(rg, wal, aspl));
-                        subscriber.onCompleted();
-                    }
-                }).subscribeOn(Schedulers.io());
-            }
-        }, tasksSize)
-                .subscribeOn(Schedulers.newThread())
-                .toBlocking()
-                .subscribe(new Action1<RgDepParams>() {
-                    @Override
-                    public void call(RgDepParams params) {
-                        synchronized (rgwaMap) {
-                            synchronized (rgspMap) {
-                                rgwaMap.put(params.rg, params.wal);
-                                rgspMap.put(params.rg, params.aspl);
-                            }
-                        }
-                    }
-                });
+    /**
+     * Update the resource groups and locations of the selected subscriptions. The loaded subscriptions are not loaded
+     * again, but revalidated in background if they are stale.
+     */
+    public static void updateSubscriptionMaps(IProgressIndicator progressIndicator) throws IOException, CanceledByUserException, AuthException {
+        updateSubscriptionMaps(progressIndicator, false);
     }
 
-    public static synchronized void updateSubscriptionMaps(IProgressIndicator progressIndicator) throws IOException, CanceledByUserException, AuthException {
+    /**
+     * Update the resource groups and locations of the selected subscriptions.
+     *
+     * @param forceUpdate true to load the selected subscriptions again even if they are loaded, such as after a
+     *                    resource group is created
+     */
+    public static void updateSubscriptionMaps(IProgressIndicator progressIndicator, boolean forceUpdate) throws IOException, CanceledByUserException, AuthException {
         AzureManager azureManager = AuthMethodManager.getInstance().getAzureManager();
         // not signed in
         if (azureManager == null) {
@@ -252,133 +202,190 @@ public class AzureModelController {
         if (progressIndicator != null) {
             progressIndicator.setText("Reading subscription list...");
         }
-        List<Subscription> sl = azureManager.getSubscriptions();
+        SubscriptionManager subscriptionManager = azureManager.getSubscriptionManager();
         // convert to map to easier find by sid
         Map<String, Subscription> sidToSubscriptionMap = azureModel.createSidToSubscriptionMap();
-        for (Subscription s : sl) {
-            sidToSubscriptionMap.put(s.subscriptionId(), s);
-        }
+        sidToSubscriptionMap.putAll(subscriptionManager.getSubscriptionIdToSubscriptionMap());
         azureModel.setSidToSubscriptionMap(sidToSubscriptionMap);
-        Map<SubscriptionDetail, List<Location>> sdlocMap = azureModel.createSubscriptionToRegionMap();
-        Map<SubscriptionDetail, List<ResourceGroup>> sdrgMap = azureModel.createSubscriptionToResourceGroupMap();
 
-        SubscriptionManager subscriptionManager = azureManager.getSubscriptionManager();
         subscriptionManager.addListener(subscriptionSelectionListener);
 
-        List<SubscriptionDetail> sdl = subscriptionManager.getSubscriptionDetails();
-        if (sdl.size() > 0) {
-            Observable.from(sdl).flatMap((sd) ->
-                    Observable.create((subscriber) -> {
-                        try {
-                            if (progressIndicator != null && progressIndicator.isCanceled()) {
-                                clearAll();
-                                throw new CanceledByUserException();
-                            }
-                            if (sd.isSelected()) {
-                                if (progressIndicator != null) {
-                                    progressIndicator.setText("Reading subscription");
-                                }
-                                Azure azure = azureManager.getAzure(sd.getSubscriptionId());
-
-                                List<ResourceGroup> rgList = azure.resourceGroups().list();
-                                sdrgMap.put(sd, rgList);
-
-                                if (sidToSubscriptionMap.containsKey(sd.getSubscriptionId())) {
-                                    final List<Location> locations = sidToSubscriptionMap.get(sd.getSubscriptionId()).listLocations();
-                                    Collections.sort(locations, Comparator.comparing(Location::displayName));
-                                    sdlocMap.put(sd, locations);
-                                }
-                            }
-                            subscriber.onCompleted();
-                        } catch (Exception e) {
-                            Exceptions.propagate(e);
-                        }
-                    }).subscribeOn(Schedulers.io()), sdl.size()).subscribeOn(Schedulers.io()).toBlocking().subscribe();
+        List<SubscriptionDetail> selected = subscriptionManager.getSubscriptionDetails().stream()
+                .filter(SubscriptionDetail::isSelected)
+                .collect(Collectors.toList());
+        // drop the subscriptions not selected any more
+        azureModel.getResourceGroupCache().snapshot().keySet().stream()
+                .filter(sd -> !selected.contains(sd))
+                .forEach(azureModel::invalidateSubscription);
+        azureModel.getLocationCache().invalidateIf(sd -> !selected.contains(sd));
+        if (forceUpdate) {
+            azureModel.getResourceGroupCache().invalidateIf(selected::contains);
+            azureModel.getLocationCache().invalidateIf(selected::contains);
+        }
+
+        if (progressIndicator != null) {
+            progressIndicator.setText("Reading subscription");
         }
-        azureModel.setSubscriptionToResourceGroupMap(sdrgMap);
-        azureModel.setSubscriptionToLocationMap(sdlocMap);
+        loadConcurrently(selected, progressIndicator, sd -> {
+            azureModel.getResourceGroupCache().get(sd);
+            azureModel.getLocationCache().get(sd);
+        });
+        azureModel.setSubscriptionMapsLoaded(true);
     }
 
-    public static synchronized void updateResourceGroupMaps(IProgressIndicator progressIndicator) throws IOException, CanceledByUserException, AuthException {
+    /**
+     * Update the subscription maps, and the web apps and app service plans of their resource groups. The loaded
+     * resource groups are not loaded again, but revalidated in background if they are stale.
+     */
+    public static void updateResourceGroupMaps(IProgressIndicator progressIndicator) throws IOException, CanceledByUserException, AuthException {
+        updateResourceGroupMaps(progressIndicator, false);
+    }
+
+    /**
+     * Update the subscription maps, and the web apps and app service plans of their resource groups.
+     *
+     * @param forceUpdate true to load the subscriptions and resource groups again even if they are loaded, such as
+     *                    after a web app is created
+     */
+    public static void updateResourceGroupMaps(IProgressIndicator progressIndicator, boolean forceUpdate) throws IOException, CanceledByUserException, AuthException {
         AzureManager azureManager = AuthMethodManager.getInstance().getAzureManager();
         // not signed in
         if (azureManager == null) {
             return;
         }
 
-        updateSubscriptionMaps(progressIndicator);
+        updateSubscriptionMaps(progressIndicator, forceUpdate);
         AzureModel azureModel = AzureModel.getInstance();
-        Map<ResourceGroup, List<WebApp>> rgwaMap = azureModel.createResourceGroupToWebAppMap();
-        Map<ResourceGroup, List<AppServicePlan>> rgspMap = azureModel.createResourceGroupToAppServicePlanMap();
-        Set<SubscriptionDetail> sdSet = azureModel.getSubscriptionToResourceGroupMap().keySet();
-        if (sdSet.size() == 0) {
-            azureModel.setResourceGroupToWebAppMap(rgwaMap);
-            azureModel.setResourceGroupToAppServicePlanMap(rgspMap);
-            return;
+        List<ResourceGroup> rgList = azureModel.getResourceGroupCache().snapshot().values().stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+        Set<String> rgKeys = rgList.stream().map(AzureModel::getResourceGroupKey).collect(Collectors.toSet());
+
+        // drop the resource groups not existing any more
+        azureModel.getWebAppCache().invalidateIf(rgKey -> !rgKeys.contains(rgKey));
+        azureModel.getAppServicePlanCache().invalidateIf(rgKey -> !rgKeys.contains(rgKey));
+        if (forceUpdate) {
+            azureModel.getWebAppCache().invalidateIf(rgKeys::contains);
+            azureModel.getAppServicePlanCache().invalidateIf(rgKeys::contains);
         }
 
-        CountDownLatch countDownLatch = new CountDownLatch(sdSet.size());
-        Observable.from(sdSet).flatMap((sd) ->
-                Observable.create((subscriber) -> {
-                    try {
-                        List<ResourceGroup> rgList = azureModel.getSubscriptionToResourceGroupMap().get(sd);
-                        if (rgList.size() > 0) {
-                            Azure azure = azureManager.getAzure(sd.getSubscriptionId());
-                            updateResGrDependency(azure, rgList, progressIndicator, rgwaMap, rgspMap);
-                        }
-                        subscriber.onCompleted();
-                    } catch (Exception e) {
-                        Exceptions.propagate(e);
-                    } finally {
-                        countDownLatch.countDown();
-                    }
-                }).subscribeOn(Schedulers.io()), sdSet.size()).subscribeOn(Schedulers.io()).subscribe();
-
-        Thread cancelCheckThread = new Thread(() -> {
-            try {
-                while (true) {
-                    if (progressIndicator != null && progressIndicator.isCanceled()) {
-                        long count = countDownLatch.getCount();
-                        for (long i = 0; i < count; i++) {
-                            countDownLatch.countDown();
-                        }
-                        clearAll();
-                        break;
-                    }
-                    if (countDownLatch.getCount() <= 0) {
-                        break;
-                    }
-                    Thread.sleep(1000);
-                }
-            } catch (Exception ex) {
-            }
+        loadResourceGroupDependencies(rgList, progressIndicator);
+        azureModel.setResourceGroupMapsLoaded(true);
+    }
+
+    private static void loadResourceGroupDependencies(List<ResourceGroup> rgList,
+                                                      IProgressIndicator progressIndicator)
+            throws IOException, CanceledByUserException {
+        AzureModel azureModel = AzureModel.getInstance();
+
+        if (progressIndicator != null) {
+            progressIndicator.setText("Reading App Services...");
+        }
+        loadConcurrently(rgList, progressIndicator, rg -> {
+            azureModel.getWebAppCache().get(AzureModel.getResourceGroupKey(rg));
+            azureModel.getAppServicePlanCache().get(AzureModel.getResourceGroupKey(rg));
         });
-        cancelCheckThread.setDaemon(true);
-        cancelCheckThread.start();
+    }
 
+    @FunctionalInterface
+    private interface ItemLoader<T> {
+        void load(T item) throws Exception;
+    }
+
+    private static <T> void loadConcurrently(Collection<T> items,
+                                             IProgressIndicator progressIndicator,
+                                             ItemLoader<T> loader) throws IOException, CanceledByUserException {
         try {
-            countDownLatch.await();
-        } catch (Exception ignore) {
+            Observable.from(items)
+                    .flatMap(item -> Observable
+                                    .fromCallable(() -> {
+                                        if (progressIndicator == null || !progressIndicator.isCanceled()) {
+                                            loader.load(item);
+                                        }
+
+                                        return item;
+                                    })
+                                    .subscribeOn(Schedulers.io()),
+                             MAX_CONCURRENT_LOADS)
+                    .toBlocking()
+                    .lastOrDefault(null);
+        } catch (RuntimeException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+
+            throw ex;
         }
 
         if (progressIndicator != null && progressIndicator.isCanceled()) {
+            clearAll();
             throw new CanceledByUserException();
         }
+    }
+
+    // == resource loaders of AzureModel caches
+
+    static List<ResourceGroup> loadResourceGroups(SubscriptionDetail sd) throws IOException {
+        return new ArrayList<>(getAzure(sd.getSubscriptionId()).resourceGroups().list());
+    }
+
+    static List<Location> loadLocations(SubscriptionDetail sd) throws IOException {
+        Map<String, Subscription> sidToSubscriptionMap = AzureModel.getInstance().getSidToSubscriptionMap();
+        Subscription subscription = sidToSubscriptionMap == null ? null
+                                                                 : sidToSubscriptionMap.get(sd.getSubscriptionId());
+        if (subscription == null) {
+            subscription = getAzure(sd.getSubscriptionId()).getCurrentSubscription();
+        }
+
+        List<Location> locations = new ArrayList<>(subscription.listLocations());
+        locations.sort(Comparator.comparing(Location::displayName));
+        return locations;
+    }
+
+    static List<WebApp> loadWebApps(String rgKey) throws IOException {
+        return new ArrayList<>(getAzure(ResourceUtils.subscriptionFromResourceId(rgKey))
+                .webApps()
+                .listByResourceGroup(ResourceUtils.groupFromResourceId(rgKey)));
+    }
+
+    static List<AppServicePlan> loadAppServicePlans(String rgKey) throws IOException {
+        return new ArrayList<>(getAzure(ResourceUtils.subscriptionFromResourceId(rgKey))
+                .appServices()
+                .appServicePlans()
+                .listByResourceGroup(ResourceUtils.groupFromResourceId(rgKey)));
+    }
+
+    private static Azure getAzure(String sid) throws IOException {
+        AzureManager azureManager = AuthMethodManager.getInstance().getAzureManager();
+        if (azureManager == null) {
+            throw new IOException("Not signed in to Azure.");
+        }
+
+        return azureManager.getAzure(sid);
+    }
+
+    private static <T> List<T> with(List<T> list, T item) {
+        List<T> updated = new ArrayList<>(list);
+        updated.add(item);
+        return updated;
+    }
 
-        azureModel.setResourceGroupToWebAppMap(rgwaMap);
-        azureModel.setResourceGroupToAppServicePlanMap(rgspMap);
+    private static <T extends HasId> List<T> without(List<T> list, T item) {
+        return list.stream()
+                .filter(existing -> !existing.id().equalsIgnoreCase(item.id()))
+                .collect(Collectors.toList());
     }
 
     public static void addNewResourceGroup(SubscriptionDetail sd, ResourceGroup rg) {
-        AzureModel.getInstance().getSubscriptionToResourceGroupMap().get(sd).add(rg);
+        AzureModel.getInstance().getResourceGroupCache().update(sd, rgList -> with(rgList, rg));
         // TODO:notify subscribers
     }
 
     public static void addNewWebAppToJustCreatedResourceGroup(ResourceGroup rg, WebApp webApp) {
         // presume addNewResourceGroup goes first
-        List<WebApp> l = new LinkedList<>();
+        List<WebApp> l = new ArrayList<>();
         l.add(webApp);
-        AzureModel.getInstance().getResourceGroupToWebAppMap().put(rg, l);
+        AzureModel.getInstance().getWebAppCache().put(AzureModel.getResourceGroupKey(rg), l);
         // TODO:notify subscribers
         if (AzureUIRefreshCore.listeners != null) {
             AzureUIRefreshCore.execute(new AzureUIRefreshEvent(AzureUIRefreshEvent.EventType.ADD, new WebAppDetails(rg, webApp, null, null, null)));
@@ -386,7 +393,7 @@ public class AzureModelController {
     }
 
     public static void addNewWebAppToExistingResourceGroup(ResourceGroup rg, WebApp webApp) {
-        AzureModel.getInstance().getResourceGroupToWebAppMap().get(rg).add(webApp);
+        AzureModel.getInstance().getWebAppCache().update(AzureModel.getResourceGroupKey(rg), wal -> with(wal, webApp));
         // TODO:notify subscribers
         if (AzureUIRefreshCore.listeners != null) {
             AzureUIRefreshCore.execute(new AzureUIRefreshEvent(AzureUIRefreshEvent.EventType.ADD, new WebAppDetails(rg, webApp, null, null, null)));
@@ -394,7 +401,7 @@ public class AzureModelController {
     }
 
     public static void removeWebAppFromResourceGroup(ResourceGroup rg, WebApp webApp) {
-        AzureModel.getInstance().getResourceGroupToWebAppMap().get(rg).remove(webApp);
+        AzureModel.getInstance().getWebAppCache().update(AzureModel.getResourceGroupKey(rg), wal -> without(wal, webApp));
         // TODO:notify subscribers
         if (AzureUIRefreshCore.listeners != null) {
             AzureUIRefreshCore.execute(new AzureUIRefreshEvent(AzureUIRefreshEvent.EventType.REMOVE, new WebAppDetails(rg, webApp, null, null, null)));
@@ -402,23 +409,25 @@ public class AzureModelController {
     }
 
     public static void removeAppServicePlanFromResourceGroup(ResourceGroup rg, AppServicePlan appServicePlan) {
-        AzureModel.getInstance().getResourceGroupToAppServicePlanMap().get(rg).remove(appServicePlan);
+        AzureModel.getInstance().getAppServicePlanCache()
+                .update(AzureModel.getResourceGroupKey(rg), aspl -> without(aspl, appServicePlan));
     }
 
     public static void addNewAppServicePlanToJustCreatedResourceGroup(ResourceGroup rg, AppServicePlan appServicePlan) {
         // presume addNewResourceGroup call goes first
-        List<AppServicePlan> l = new LinkedList<>();
+        List<AppServicePlan> l = new ArrayList<>();
         if (appServicePlan != null) {
             l.add(appServicePlan);
         }
-        AzureModel.getInstance().getResourceGroupToAppServicePlanMap().put(rg, l);
+        AzureModel.getInstance().getAppServicePlanCache().put(AzureModel.getResourceGroupKey(rg), l);
         // TODO:notify subscribers
         System.out.println("WEBAPP - IN AzureModelController::addNewAppServicePlanToJustCreatedResourceGroup");
     }
 
     public static void addNewAppServicePlanToExistingResourceGroup(ResourceGroup rg, AppServicePlan appServicePlan) {
         // presume addNewResourceGroup call goes first
-        AzureModel.getInstance().getResourceGroupToAppServicePlanMap().get(rg).add(appServicePlan);
+        AzureModel.getInstance().getAppServicePlanCache()
+                .update(AzureModel.getResourceGroupKey(rg), aspl -> with(aspl, appServicePlan));
         // TODO:notify subscribers
         System.out.println("WEBAPP - IN AzureModelController::addNewAppServicePlanToExistingResourceGroup");
     }
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azuretools.utils;
+
+import com.microsoft.azure.management.appservice.PublishingProfile;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import org.apache.commons.net.ftp.FTPClient;
+import rx.Observable;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The logged in FTP connections kept alive between deployments, keyed by the FTP URL and user of the publishing
+ * profile.
+ *
+ * A connection idle longer than the max idle time is closed, and an idle connection is checked by a NOOP command
+ * before it's borrowed, since the server may close it at any time.
+ */
+public class FtpConnectionPool {
+    public static final long DEFAULT_MAX_IDLE_MS = 60 * 1000L;
+    public static final int DEFAULT_MAX_IDLE_PER_PROFILE = 8;
+
+    private final Map<String, Deque<IdleConnection>> idleConnections = new HashMap<>();
+
+    private final long maxIdleMs;
+
+    private final int maxIdlePerProfile;
+
+    FtpConnectionPool(long maxIdleMs, int maxIdlePerProfile) {
+        this.maxIdleMs = maxIdleMs;
+        this.maxIdlePerProfile = maxIdlePerProfile;
+    }
+
+    private static final class FtpConnectionPoolHolder {
+        private static final FtpConnectionPool INSTANCE =
+                new FtpConnectionPool(DEFAULT_MAX_IDLE_MS, DEFAULT_MAX_IDLE_PER_PROFILE);
+    }
+
+    public static FtpConnectionPool getInstance() {
+        return FtpConnectionPoolHolder.INSTANCE;
+    }
+
+    /**
+     * Borrow a logged in connection of the publishing profile, an idle one is reused if it's still alive.
+     *
+     * @throws IOException if a new connection can't be set up
+     */
+    @NotNull
+    public FTPClient borrow(@NotNull PublishingProfile pp) throws IOException {
+        FTPClient idle;
+
+        while ((idle = pollIdle(getKey(pp))) != null) {
+            try {
+                if (idle.isConnected() && idle.sendNoOp()) {
+                    return idle;
+                }
+            } catch (IOException ignored) {
+                // The server closed it, try the next one
+            }
+
+            close(idle);
+        }
+
+        return WebAppUtils.getFtpConnection(pp);
+    }
+
+    /**
+     * Return a connection borrowed without error, it's kept for the next borrowing if there is room.
+     */
+    public void release(@NotNull PublishingProfile pp, @NotNull FTPClient client) {
+        if (!client.isConnected()) {
+            return;
+        }
+
+        boolean isKept;
+
+        synchronized (this) {
+            Deque<IdleConnection> connections = idleConnections.computeIfAbsent(getKey(pp), key -> new ArrayDeque<>());
+            isKept = connections.size() < maxIdlePerProfile;
+
+            if (isKept) {
+                connections.push(new IdleConnection(client, System.currentTimeMillis()));
+            }
+        }
+
+        if (isKept) {
+            Observable.timer(maxIdleMs, TimeUnit.MILLISECONDS).subscribe(ignored -> evictExpired(), err -> { });
+        } else {
+            close(client);
+        }
+    }
+
+    /**
+     * Close a connection which failed, instead of returning it.
+     */
+    public void invalidate(@NotNull FTPClient client) {
+        close(client);
+    }
+
+    /**
+     * Close all the idle connections.
+     */
+    public void closeAll() {
+        List<FTPClient> closing = new ArrayList<>();
+
+        synchronized (this) {
+            idleConnections.values().forEach(connections -> connections.forEach(idle -> closing.add(idle.client)));
+            idleConnections.clear();
+        }
+
+        closing.forEach(FtpConnectionPool::close);
+    }
+
+    synchronized int getIdleCount(@NotNull PublishingProfile pp) {
+        Deque<IdleConnection> connections = idleConnections.get(getKey(pp));
+
+        return connections == null ? 0 : connections.size();
+    }
+
+    private FTPClient pollIdle(@NotNull String key) {
+        evictExpired();
+
+        synchronized (this) {
+            Deque<IdleConnection> connections = idleConnections.get(key);
+            IdleConnection idle = connections == null ? null : connections.poll();
+
+            return idle == null ? null : idle.client;
+        }
+    }
+
+    private void evictExpired() {
+        List<FTPClient> closing = new ArrayList<>();
+        long expiredTime = System.currentTimeMillis() - maxIdleMs;
+
+        synchronized (this) {
+            for (Iterator<Deque<IdleConnection>> it = idleConnections.values().iterator(); it.hasNext(); ) {
+                Deque<IdleConnection> connections = it.next();
+
+                // The most recently released ones are at the head
+                while (!connections.isEmpty() && connections.peekLast().releasedTime <= expiredTime) {
+                    closing.add(connections.pollLast().client);
+                }
+
+                if (connections.isEmpty()) {
+                    it.remove();
+                }
+            }
+        }
+
+        closing.forEach(FtpConnectionPool::close);
+    }
+
+    @NotNull
+    private static String getKey(@NotNull PublishingProfile pp) {
+        return pp.ftpUrl() + "|" + pp.ftpUsername();
+    }
+
+    private static void close(@NotNull FTPClient client) {
+        try {
+            if (client.isConnected()) {
+                client.logout();
+            }
+        } catch (IOException ignored) {
+            // Disconnect anyway
+        }
+
+        try {
+            if (client.isConnected()) {
+                client.disconnect();
+            }
+        } catch (IOException ignored) {
+            // Nothing to do with a broken connection
+        }
+    }
+
+    private static final class IdleConnection {
+        @NotNull
+        private final FTPClient client;
+
+        private final long releasedTime;
+
+        private IdleConnection(@NotNull FTPClient client, long releasedTime) {
+            this.client = client;
+            this.releasedTime = releasedTime;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azuretools.utils;
+
+import com.microsoft.azure.management.appservice.PublishingProfile;
+import com.microsoft.azuretools.authmanage.CommonSettings;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+/**
+ * The local record of the artifacts deployed to a web app by FTP, which maps the remote path of every deployed
+ * artifact to the size and SHA-256 checksum of the local file uploaded, and the remote modification time (MDTM) after
+ * uploading, so that an artifact changed on the server by others isn't taken as deployed.
+ *
+ * A manifest is kept per FTP URL and user under the settings folder, it's only a hint to skip uploading an unchanged
+ * artifact and is safe to delete.
+ */
+public class FtpDeployManifest {
+    private static final String MANIFEST_FOLDER = "ftpdeploy";
+    private static final String MANIFEST_FILE_SUFFIX = ".properties";
+
+    @NotNull
+    private final File file;
+
+    @NotNull
+    private final Properties deployedFiles = new Properties();
+
+    FtpDeployManifest(@NotNull File file) {
+        this.file = file;
+
+        if (file.isFile()) {
+            try (InputStream in = new FileInputStream(file)) {
+                deployedFiles.load(in);
+            } catch (IOException | IllegalArgumentException ignored) {
+                // A broken manifest just means uploading everything again
+                deployedFiles.clear();
+            }
+        }
+    }
+
+    /**
+     * Load the manifest of the publishing profile, an empty one if there isn't any.
+     */
+    @NotNull
+    public static FtpDeployManifest load(@NotNull PublishingProfile pp) {
+        String baseDir = StringUtils.defaultIfBlank(CommonSettings.getSettingsBaseDir(),
+                                                    System.getProperty("java.io.tmpdir"));
+        String name = DigestUtils.sha256Hex((pp.ftpUrl() + "|" + pp.ftpUsername()).getBytes(StandardCharsets.UTF_8));
+
+        return new FtpDeployManifest(new File(new File(baseDir, MANIFEST_FOLDER), name + MANIFEST_FILE_SUFFIX));
+    }
+
+    /**
+     * Get the fingerprint of a local file, made of its size and SHA-256 checksum.
+     */
+    @NotNull
+    public static String fingerprint(@NotNull File localFile) throws IOException {
+        try (InputStream in = new FileInputStream(localFile)) {
+            return localFile.length() + ":" + DigestUtils.sha256Hex(in);
+        }
+    }
+
+    /**
+     * Check whether the file with the fingerprint has been deployed to the remote path, and not modified since then.
+     *
+     * @param remoteModificationTime the current remote modification time, null if the server doesn't tell
+     */
+    public boolean isDeployed(@NotNull String remotePath, @NotNull String fingerprint,
+                              @Nullable String remoteModificationTime) {
+        return remoteModificationTime != null
+                && toRecord(fingerprint, remoteModificationTime).equals(deployedFiles.getProperty(remotePath));
+    }
+
+    /**
+     * Record the file with the fingerprint deployed to the remote path.
+     *
+     * @param remoteModificationTime the remote modification time after uploading, null if the server doesn't tell,
+     *                               then the file is never taken as deployed
+     */
+    public void markDeployed(@NotNull String remotePath, @NotNull String fingerprint,
+                             @Nullable String remoteModificationTime) {
+        if (remoteModificationTime == null) {
+            deployedFiles.remove(remotePath);
+        } else {
+            deployedFiles.setProperty(remotePath, toRecord(fingerprint, remoteModificationTime));
+        }
+    }
+
+    /**
+     * Forget the remote path, after it's overwritten by other content.
+     *
+     * @return whether the path was recorded
+     */
+    public boolean forget(@NotNull String remotePath) {
+        return deployedFiles.remove(remotePath) != null;
+    }
+
+    @NotNull
+    private static String toRecord(@NotNull String fingerprint, @NotNull String remoteModificationTime) {
+        return fingerprint + "@" + remoteModificationTime;
+    }
+
+    public void save() throws IOException {
+        File dir = file.getParentFile();
+
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Can't create the folder " + dir);
+        }
+
+        try (OutputStream out = new FileOutputStream(file)) {
+            deployedFiles.store(out, "Files deployed by FTP");
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azuretools.utils;
+
+import com.microsoft.azure.management.appservice.PublishingProfile;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPFile;
+import org.apache.commons.net.ftp.FTPReply;
+import rx.Observable;
+import rx.schedulers.Schedulers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Removes the files of a web app by FTP over several pooled connections at the same time.
+ *
+ * Every file deletion borrows its own connection from the {@link FtpConnectionPool}, and is retried with a new
+ * connection if the connection breaks. The directories are removed by a single connection, since they depend on each
+ * other.
+ */
+class FtpParallelTransfer {
+    static final int DEFAULT_CONNECTIONS = 4;
+
+    private static final int FTP_MAX_TRY = 3;
+
+    @FunctionalInterface
+    private interface FtpOperation {
+        /**
+         * Run the operation on the remote path.
+         *
+         * @return false if the server refused it
+         */
+        boolean run(@NotNull FTPClient ftp, @NotNull String remotePath) throws IOException;
+    }
+
+    @NotNull
+    private final PublishingProfile pp;
+
+    @NotNull
+    private final FtpConnectionPool pool;
+
+    private final int connections;
+
+    @Nullable
+    private final IProgressIndicator indicator;
+
+    FtpParallelTransfer(@NotNull PublishingProfile pp,
+                        @NotNull FtpConnectionPool pool,
+                        int connections,
+                        @Nullable IProgressIndicator indicator) {
+        if (connections <= 0) {
+            throw new IllegalArgumentException("Bad FTP connections: " + connections);
+        }
+
+        this.pp = pp;
+        this.pool = pool;
+        this.connections = connections;
+        this.indicator = indicator;
+    }
+
+    /**
+     * Remove the remote directory with all its content, the files are deleted at the same time.
+     */
+    void removeDirectory(@NotNull String remoteDir) throws IOException {
+        List<String> filePaths = new ArrayList<>();
+        List<String> dirPaths = new ArrayList<>();
+
+        withConnection(ftp -> listTree(ftp, remoteDir, filePaths, dirPaths));
+        dirPaths.add(0, remoteDir);
+        deleteFiles(filePaths);
+
+        if (isCanceled()) {
+            return;
+        }
+
+        withConnection(ftp -> {
+            // The deepest directories are listed last
+            for (int i = dirPaths.size() - 1; i >= 0; i--) {
+                setText2("Removing from FTP server: " + dirPaths.get(i));
+                ftp.removeDirectory(dirPaths.get(i));
+            }
+
+            setText2("");
+        });
+    }
+
+    /**
+     * Delete the remote files at the same time, the missing files are ignored.
+     */
+    void deleteFiles(@NotNull Collection<String> remotePaths) throws IOException {
+        runConcurrently(remotePaths, "Removing from FTP server: ",
+                        remotePath -> runWithRetry(remotePath, FtpParallelTransfer::deleteFile));
+    }
+
+    private void runConcurrently(@NotNull Collection<String> remotePaths,
+                                 @NotNull String progressPrefix,
+                                 @NotNull PathTask task) throws IOException {
+        try {
+            Observable.from(remotePaths)
+                    .takeWhile(ignored -> !isCanceled())
+                    .flatMap(remotePath -> Observable.fromCallable(() -> {
+                        setText2(progressPrefix + remotePath);
+
+                        task.run(remotePath);
+
+                        return remotePath;
+                    }).subscribeOn(Schedulers.io()), connections)
+                    .toBlocking()
+                    .lastOrDefault(null);
+        } catch (RuntimeException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+
+            throw ex;
+        } finally {
+            setText2("");
+        }
+    }
+
+    private void runWithRetry(@NotNull String remotePath, @NotNull FtpOperation operation) throws IOException {
+        IOException lastError = null;
+
+        for (int attempt = 1; attempt <= FTP_MAX_TRY; attempt++) {
+            FTPClient ftp = pool.borrow(pp);
+
+            try {
+                boolean isDone = operation.run(ftp, remotePath);
+                int replyCode = ftp.getReplyCode();
+
+                // A refused command leaves the connection usable
+                pool.release(pp, ftp);
+
+                if (isDone) {
+                    return;
+                }
+
+                lastError = new IOException(String.format("FTP operation on %s failed, reply code: %d",
+                                                          remotePath, replyCode));
+            } catch (IOException ex) {
+                pool.invalidate(ftp);
+                lastError = ex;
+            }
+        }
+
+        throw lastError;
+    }
+
+    private void withConnection(@NotNull FtpAction action) throws IOException {
+        FTPClient ftp = pool.borrow(pp);
+
+        try {
+            action.run(ftp);
+        } catch (IOException ex) {
+            pool.invalidate(ftp);
+
+            throw ex;
+        }
+
+        pool.release(pp, ftp);
+    }
+
+    private void listTree(@NotNull FTPClient ftp,
+                          @NotNull String remoteDir,
+                          @NotNull List<String> filePaths,
+                          @NotNull List<String> dirPaths) throws IOException {
+        for (FTPFile ftpFile : ftp.listFiles(remoteDir)) {
+            String name = ftpFile.getName();
+            if (name.equals(".") || name.equals("..")) {
+                continue;
+            }
+
+            String path = remoteDir + "/" + name;
+
+            if (ftpFile.isDirectory()) {
+                dirPaths.add(path);
+                listTree(ftp, path, filePaths, dirPaths);
+            } else {
+                filePaths.add(path);
+            }
+        }
+    }
+
+    private static boolean deleteFile(@NotNull FTPClient ftp, @NotNull String remotePath) throws IOException {
+        return ftp.deleteFile(remotePath) || ftp.getReplyCode() == FTPReply.FILE_UNAVAILABLE;
+    }
+
+    private boolean isCanceled() {
+        return indicator != null && indicator.isCanceled();
+    }
+
+    private void setText2(@NotNull String text2) {
+        if (indicator != null) {
+            indicator.setText2(text2);
+        }
+    }
+
+    @FunctionalInterface
+    private interface PathTask {
+        void run(@NotNull String remotePath) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface FtpAction {
+        void run(@NotNull FTPClient ftp) throws IOException;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azuretools.utils;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import rx.Observable;
+import rx.schedulers.Schedulers;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * A typed concurrent cache of Azure resources, keyed by the parent of the resources, such as a subscription or a
+ * resource group.
+ *
+ * An entry older than the TTL is still returned, and reloaded in background at the same time (stale-while-revalidate),
+ * the stale value is kept if the reloading fails. The concurrent reads of a missing key wait for the same loading, so
+ * a key is loaded once however many callers ask for it.
+ *
+ * @param <K> the key type
+ * @param <V> the cached value type
+ */
+public class ResourceCache<K, V> {
+    /**
+     * The loader of a cache entry.
+     */
+    @FunctionalInterface
+    public interface Loader<K, V> {
+        V load(K key) throws Exception;
+    }
+
+    private static final Executor REVALIDATION_EXECUTOR =
+            command -> Observable.just(command).subscribeOn(Schedulers.io()).subscribe(Runnable::run);
+
+    @NotNull
+    private final LoadingCache<K, V> cache;
+
+    public ResourceCache(long ttl, @NotNull TimeUnit unit, @NotNull Loader<K, V> loader) {
+        this(ttl, unit, loader, REVALIDATION_EXECUTOR);
+    }
+
+    ResourceCache(long ttl, @NotNull TimeUnit unit, @NotNull Loader<K, V> loader, @NotNull Executor executor) {
+        this.cache = CacheBuilder.newBuilder()
+                .refreshAfterWrite(ttl, unit)
+                .recordStats()
+                .build(CacheLoader.asyncReloading(new CacheLoader<K, V>() {
+                    @Override
+                    public V load(@NotNull K key) throws Exception {
+                        return loader.load(key);
+                    }
+                }, executor));
+    }
+
+    /**
+     * Get the value of the key, load it if it's missing, or return the stale one and reload it in background.
+     *
+     * @throws IOException if the loading failed
+     */
+    @NotNull
+    public V get(@NotNull K key) throws IOException {
+        try {
+            return cache.get(key);
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError ex) {
+            Throwable cause = ex.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Get the value of the key without loading, null if it isn't loaded.
+     */
+    @Nullable
+    public V getIfPresent(@NotNull K key) {
+        return cache.getIfPresent(key);
+    }
+
+    public void put(@NotNull K key, @NotNull V value) {
+        cache.put(key, value);
+    }
+
+    /**
+     * Update the value of a loaded key, do nothing if it isn't loaded.
+     */
+    public void update(@NotNull K key, @NotNull UnaryOperator<V> updater) {
+        cache.asMap().computeIfPresent(key, (k, value) -> updater.apply(value));
+    }
+
+    public void invalidate(@NotNull K key) {
+        cache.invalidate(key);
+    }
+
+    public void invalidateIf(@NotNull Predicate<? super K> predicate) {
+        cache.asMap().keySet().removeIf(predicate);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Get a snapshot of the loaded entries.
+     */
+    @NotNull
+    public Map<K, V> snapshot() {
+        return new HashMap<>(cache.asMap());
+    }
+
+    @NotNull
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
@@ -23,7 +23,6 @@
 package com.microsoft.azuretools.utils;
 
 
-import com.microsoft.applicationinsights.web.dependencies.apachecommons.io.FileUtils;
 import com.microsoft.azure.management.Azure;
 import com.microsoft.azure.management.appservice.AppServicePlan;
 import com.microsoft.azure.management.appservice.DeploymentSlot;
@@ -34,12 +33,14 @@ import com.microsoft.azure.management.appservice.RuntimeStack;
 import com.microsoft.azure.management.appservice.WebApp;
 import com.microsoft.azure.management.appservice.WebAppBase;
 import com.microsoft.azure.management.appservice.WebContainer;
+import com.microsoft.azure.management.appservice.implementation.DeploymentInner;
+import com.microsoft.azure.management.appservice.implementation.WebAppsInner;
 import com.microsoft.azure.management.resources.ResourceGroup;
 import com.microsoft.azuretools.Constants;
 import com.microsoft.azuretools.authmanage.AuthMethodManager;
 import com.microsoft.azuretools.authmanage.models.SubscriptionDetail;
 import com.microsoft.azuretools.azurecommons.helpers.NotNull;
-import com.microsoft.azuretools.azurecommons.util.FileUtil;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
 import com.microsoft.azuretools.sdkmanage.AzureManager;
 
 import java.io.UnsupportedEncodingException;
@@ -55,9 +56,11 @@ import org.apache.commons.net.ftp.FTPClient;
 import org.apache.commons.net.ftp.FTPFile;
 import org.apache.commons.net.ftp.FTPReply;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.ConnectException;
@@ -66,6 +69,9 @@ import java.net.URI;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 public class WebAppUtils {
 
@@ -73,7 +79,6 @@ public class WebAppUtils {
     public static final String TYPE_JAR = "jar";
 
     private static final String TEMP_FILE_PREFIX = "azuretoolkit";
-    private static final String TEMP_FOLDER_PREFIX = "azuretoolkitstagingfolder";
     private static final String FTP_ROOT_PATH = "/site/wwwroot/";
     private static final String FTP_WEB_APPS_PATH = FTP_ROOT_PATH + "webapps/";
     private static final String WEB_CONFIG_FILENAME = "web.config";
@@ -81,6 +86,7 @@ public class WebAppUtils {
     private static final String ROOT = "ROOT";
     private static final String JAVASE_ROOT = "app";
     private static final String JAVASE_ARTIFACT_NAME = "app.jar";
+    private static final String RUNNING_STATE = "Running";
     private static final int FTP_MAX_TRY = 3;
     private static final int DEPLOY_MAX_TRY = 3;
     private static final int SLEEP_TIME = 5000; // milliseconds
@@ -94,6 +100,12 @@ public class WebAppUtils {
             " %s, retrying immediately (%d/%d)";
     public static final String RETRY_FAIL_MESSAGE = "Failed to deploy after %d times of retry.";
     public static final String COPYING_RESOURCES = "Copying resources to staging folder...";
+    public static final String PACKAGING_ARTIFACT = "Packaging the artifact...";
+    public static final String CHECKING_ARTIFACT = "Checking the artifact changes since the last deployment...";
+    public static final String ARTIFACT_UP_TO_DATE = "The artifact is the same as the deployed one, skip deploying.";
+    public static final String START_WEB_APP = "Starting web app...";
+    public static final String START_DEPLOYMENT_SLOT = "Starting deployment slot...";
+    public static final String ARTIFACT_CHANGED_ENTRIES = "%d of %d entries changed since the last deployment.";
 
     @NotNull
     public static FTPClient getFtpConnection(PublishingProfile pp) throws IOException {
@@ -127,54 +139,19 @@ public class WebAppUtils {
         if (!file.exists()) {
             throw new FileNotFoundException(String.format(NO_TARGET_FILE, artifactPath));
         }
-        FTPClient ftp = null;
-        InputStream input = null;
-        int uploadingTryCount = 0;
-        try {
-            if (indicator != null) {
-                indicator.setText("Connecting to FTP server...");
-            }
+        int indexOfDot = artifactPath.lastIndexOf(".");
+        String fileType = artifactPath.substring(indexOfDot + 1);
 
-            ftp = getFtpConnection(pp);
-            ensureWebAppsFolderExist(ftp);
-            if (indicator != null) {
-                indicator.setText("Uploading the application...");
-            }
-            input = new FileInputStream(artifactPath);
-            int indexOfDot = artifactPath.lastIndexOf(".");
-            String fileType = artifactPath.substring(indexOfDot + 1);
-
-            switch (fileType) {
-                case TYPE_WAR:
-                    if (toRoot) {
-                        WebAppUtils.removeFtpDirectory(ftp, FTP_WEB_APPS_PATH + ROOT, indicator);
-                        ftp.deleteFile(FTP_WEB_APPS_PATH + ROOT + "." + TYPE_WAR);
-                        uploadingTryCount = uploadFileToFtp(ftp, FTP_WEB_APPS_PATH + ROOT + "." + TYPE_WAR, input, indicator);
-                    } else {
-                        WebAppUtils.removeFtpDirectory(ftp, FTP_WEB_APPS_PATH + artifactName, indicator);
-                        ftp.deleteFile(artifactName + "." + TYPE_WAR);
-                        uploadingTryCount = uploadFileToFtp(ftp, FTP_WEB_APPS_PATH + artifactName + "." + TYPE_WAR, input, indicator);
-                    }
-                    break;
-                case TYPE_JAR:
-                    uploadingTryCount = uploadFileToFtp(ftp, FTP_ROOT_PATH + ROOT + "." + TYPE_JAR, input, indicator);
-                    break;
-                default:
-                    break;
-            }
-            if (indicator != null) {
-                indicator.setText("Logging out of FTP server...");
-            }
-            ftp.logout();
-        } finally {
-            if (input != null) {
-                input.close();
-            }
-            if (ftp != null && ftp.isConnected()) {
-                ftp.disconnect();
-            }
+        switch (fileType) {
+            case TYPE_WAR:
+                String warName = toRoot ? ROOT : artifactName;
+                return uploadArtifactToFtp(file, FTP_WEB_APPS_PATH + warName + "." + TYPE_WAR,
+                        FTP_WEB_APPS_PATH + warName, pp, indicator);
+            case TYPE_JAR:
+                return uploadArtifactToFtp(file, FTP_ROOT_PATH + ROOT + "." + TYPE_JAR, null, pp, indicator);
+            default:
+                return 0;
         }
-        return uploadingTryCount;
     }
 
     public static int deployArtifactForJavaSE(String artifactPath, PublishingProfile pp, IProgressIndicator indicator) throws IOException {
@@ -182,29 +159,60 @@ public class WebAppUtils {
         if (!file.exists()) {
             throw new FileNotFoundException(String.format(NO_TARGET_FILE, artifactPath));
         }
-        FTPClient ftp = null;
-        int uploadingTryCount;
-        try (InputStream input = new FileInputStream(artifactPath)) {
-            if (indicator != null) {
-                indicator.setText("Connecting to FTP server...");
-            }
-            ftp = getFtpConnection(pp);
-            if (indicator != null) {
-                indicator.setText("Uploading the application...");
-            }
-            uploadingTryCount = uploadFileToFtp(ftp, FTP_ROOT_PATH + JAVASE_ROOT + "." + TYPE_JAR, input, indicator);
-            if (indicator != null) {
-                indicator.setText("Logging out of FTP server...");
-            }
-            ftp.logout();
-        } finally {
-            if (ftp != null && ftp.isConnected()) {
-                ftp.disconnect();
+        return uploadArtifactToFtp(file, FTP_ROOT_PATH + JAVASE_ROOT + "." + TYPE_JAR, null, pp, indicator);
+    }
+
+    /**
+     * Upload the artifact file unless the same one has been deployed, the exploded directory of the old artifact
+     * is removed before uploading if it's specified.
+     */
+    private static int uploadArtifactToFtp(File file, String remotePath, String explodedPath, PublishingProfile pp,
+                                           IProgressIndicator indicator) throws IOException {
+        FtpConnectionPool pool = FtpConnectionPool.getInstance();
+        FtpDeployManifest manifest = FtpDeployManifest.load(pp);
+        String fingerprint = FtpDeployManifest.fingerprint(file);
+        int uploadingTryCount = 0;
+        if (indicator != null) {
+            indicator.setText("Connecting to FTP server...");
+        }
+
+        FTPClient ftp = pool.borrow(pp);
+        try {
+            ensureWebAppsFolderExist(ftp);
+            if (manifest.isDeployed(remotePath, fingerprint, ftp.getModificationTime(remotePath))
+                    && doesRemoteFileHaveSize(ftp, remotePath, file.length())) {
+                if (indicator != null) {
+                    indicator.setText("The application is up to date, skip uploading.");
+                }
+            } else {
+                if (indicator != null) {
+                    indicator.setText("Uploading the application...");
+                }
+                if (explodedPath != null) {
+                    new FtpParallelTransfer(pp, pool, FtpParallelTransfer.DEFAULT_CONNECTIONS, indicator)
+                            .removeDirectory(explodedPath);
+                    ftp.deleteFile(remotePath);
+                }
+                try (InputStream input = new FileInputStream(file)) {
+                    uploadingTryCount = uploadFileToFtp(ftp, remotePath, input, indicator);
+                }
+                manifest.markDeployed(remotePath, fingerprint, ftp.getModificationTime(remotePath));
+                manifest.save();
+                ZipDeployManifest.invalidateSite(getSiteName(pp));
             }
+        } catch (IOException | RuntimeException e) {
+            pool.invalidate(ftp);
+            throw e;
         }
+        pool.release(pp, ftp);
         return uploadingTryCount;
     }
 
+    private static boolean doesRemoteFileHaveSize(FTPClient ftp, String path, long size) throws IOException {
+        FTPFile[] files = ftp.listFiles(path);
+        return files.length == 1 && files[0].isFile() && files[0].getSize() == size;
+    }
+
     private static void ensureWebAppsFolderExist(FTPClient ftp) throws IOException {
         int count = 0;
         while (count++ < FTP_MAX_TRY) {
@@ -322,18 +330,65 @@ public class WebAppUtils {
      */
     public static void deployArtifactsToAppService(WebAppBase deployTarget
             , File artifact, boolean isDeployToRoot, IProgressIndicator progressIndicator) throws WebAppException {
+        deployArtifactsToAppService(deployTarget, artifact, isDeployToRoot, false, progressIndicator);
+    }
+
+    /**
+     * Deploys artifact to Azure App Service, in delta mode the deployment is skipped if the artifact content is the
+     * same as the last one successfully deployed to the target from this machine, and that deployment is still the
+     * active one on the server. The target is still started if it isn't running then, as a deployment would do.
+     *
+     * @param deployTarget      the web app or deployment slot
+     * @param artifact          artifact to deploy
+     * @param isDeployToRoot
+     * @param isDeltaDeploy     whether to skip the unchanged artifact
+     * @param progressIndicator
+     */
+    public static void deployArtifactsToAppService(WebAppBase deployTarget, File artifact, boolean isDeployToRoot,
+                                                   boolean isDeltaDeploy, IProgressIndicator progressIndicator)
+            throws WebAppException {
         if (!(deployTarget instanceof WebApp || deployTarget instanceof DeploymentSlot)) {
             throw new WebAppException("Illegal deploy target.");
         }
+        boolean isJar = isJarBaseOnFileName(artifact.getPath());
+        ZipDeployManifest manifest = null;
+        ZipDeployManifest.ArtifactDigest digest = null;
+        Map<String, String> entries = null;
+        if (isDeltaDeploy) {
+            progressIndicator.setText(CHECKING_ARTIFACT);
+            try {
+                String deployPath = isJar ? JAVASE_ARTIFACT_NAME : getWebappPath(artifact, isDeployToRoot);
+                manifest = ZipDeployManifest.load(deployTarget.id(), String.valueOf(deployPath));
+                digest = ZipDeployManifest.ArtifactDigest.of(artifact);
+                if (manifest.isDeployed(digest, getActiveDeploymentId(deployTarget))) {
+                    progressIndicator.setText(ARTIFACT_UP_TO_DATE);
+                    startIfNotRunning(deployTarget, progressIndicator);
+                    return;
+                }
+                entries = ZipDeployManifest.listEntries(artifact);
+                progressIndicator.setText(String.format(ARTIFACT_CHANGED_ENTRIES,
+                        manifest.countChangedEntries(entries), entries.size()));
+            } catch (IOException e) {
+                throw new WebAppException(e.getMessage());
+            }
+        }
         // stop target app service
         String stopMessage = deployTarget instanceof WebApp ? STOP_WEB_APP : STOP_DEPLOYMENT_SLOT;
         progressIndicator.setText(stopMessage);
         deployTarget.stop();
         // deploy with zip/war deploy according to file type
-        boolean deployResult = isJarBaseOnFileName(artifact.getPath()) ?
-                deployWebAppToJavaSERuntime(deployTarget, artifact, progressIndicator) :
+        boolean deployResult = isJar ?
+                deployWebAppToJavaSERuntime(deployTarget, artifact, digest, progressIndicator) :
                 deployWebAppToWebContainer(deployTarget, artifact, isDeployToRoot, progressIndicator);
         if (deployResult) {
+            if (manifest != null) {
+                manifest.update(digest, entries, getSiteName(deployTarget), getActiveDeploymentId(deployTarget));
+                try {
+                    manifest.save();
+                } catch (IOException ignore) {
+                    // The next deployment won't be skipped, that's all
+                }
+            }
             String successMessage = deployTarget instanceof WebApp ?
                     DEPLOY_SUCCESS_WEB_APP : DEPLOY_SUCCESS_DEPLOYMENT_SLOT;
             progressIndicator.setText(successMessage);
@@ -341,6 +396,49 @@ public class WebAppUtils {
         }
     }
 
+    private static void startIfNotRunning(WebAppBase deployTarget, IProgressIndicator progressIndicator) {
+        if (!RUNNING_STATE.equalsIgnoreCase(deployTarget.state())) {
+            progressIndicator.setText(deployTarget instanceof WebApp ? START_WEB_APP : START_DEPLOYMENT_SLOT);
+            deployTarget.start();
+        }
+    }
+
+    /**
+     * Get the ID of the active Kudu deployment of the target, which changes with every zip or war deployment
+     *
+     * @return the deployment ID, or null if it can't be got
+     */
+    @Nullable
+    private static String getActiveDeploymentId(WebAppBase deployTarget) {
+        try {
+            WebAppsInner webApps = deployTarget.manager().inner().webApps();
+            List<DeploymentInner> deployments = deployTarget instanceof DeploymentSlot ?
+                    webApps.listDeploymentsSlot(deployTarget.resourceGroupName(),
+                            ((DeploymentSlot) deployTarget).parent().name(), deployTarget.name()) :
+                    webApps.listDeployments(deployTarget.resourceGroupName(), deployTarget.name());
+            return deployments.stream()
+                    .filter(deployment -> Boolean.TRUE.equals(deployment.active()))
+                    .map(DeploymentInner::id)
+                    .findFirst()
+                    .orElse(null);
+        } catch (RuntimeException e) {
+            // Not skipping the deployment is always safe
+            return null;
+        }
+    }
+
+    private static String getSiteName(WebAppBase deployTarget) {
+        return deployTarget instanceof DeploymentSlot ?
+                ((DeploymentSlot) deployTarget).parent().name() + "__" + deployTarget.name() : deployTarget.name();
+    }
+
+    /**
+     * Get the site name from the FTP user name of the publishing profile, which is in the form of: site\$site
+     */
+    private static String getSiteName(PublishingProfile pp) {
+        return StringUtils.substringBefore(pp.ftpUsername(), "\\");
+    }
+
     private static boolean isJarBaseOnFileName(String filePath) {
         int index = filePath.lastIndexOf(".");
         if (index < 0) {
@@ -351,8 +449,15 @@ public class WebAppUtils {
 
     public static boolean deployWebAppToJavaSERuntime(WebAppBase deployTarget
             , File artifact, IProgressIndicator progressIndicator) throws WebAppException {
+        return deployWebAppToJavaSERuntime(deployTarget, artifact, null, progressIndicator);
+    }
+
+    private static boolean deployWebAppToJavaSERuntime(WebAppBase deployTarget, File artifact,
+                                                       ZipDeployManifest.ArtifactDigest digest,
+                                                       IProgressIndicator progressIndicator) throws WebAppException {
+        File zipPackage = null;
         try {
-            File zipPackage = prepareZipPackage(deployTarget, artifact, progressIndicator);
+            zipPackage = prepareZipPackage(artifact, digest, progressIndicator);
             int retryCount = 0;
             while (retryCount++ < DEPLOY_MAX_TRY) {
                 try {
@@ -366,29 +471,60 @@ public class WebAppUtils {
         } catch (IOException e) {
             progressIndicator.setText(String.format("Deploy failed, %s", e.getMessage()));
             throw new WebAppException(e.getMessage());
+        } finally {
+            if (zipPackage != null && !zipPackage.delete()) {
+                zipPackage.deleteOnExit();
+            }
         }
     }
 
-    private static File prepareZipPackage(WebAppBase deployTarget, File artifact, IProgressIndicator progressIndicator)
-            throws IOException {
-        try {
-            final File tempFolder = Files.createTempDirectory(TEMP_FOLDER_PREFIX).toFile();
-            // copying artifacts to staging folder and rename it to app.jar
-            progressIndicator.setText(COPYING_RESOURCES);
-            FileUtils.copyFile(artifact, new File(tempFolder, JAVASE_ARTIFACT_NAME));
-            // package the artifacts
-            final File result = Files.createTempFile(TEMP_FILE_PREFIX, ".zip").toFile();
-            FileUtil.zipFiles(tempFolder.listFiles(), result);
-            return result;
-        } catch (Exception e) {
-            throw new IOException(e);
+    /**
+     * Package the artifact as app.jar into a zip by streaming it into a stored (not compressed again) entry, so that
+     * no staging copy of the artifact is made.
+     */
+    private static File prepareZipPackage(File artifact, ZipDeployManifest.ArtifactDigest digest,
+                                          IProgressIndicator progressIndicator) throws IOException {
+        progressIndicator.setText(PACKAGING_ARTIFACT);
+        // The size and CRC of a stored entry are written before its content
+        ZipDeployManifest.ArtifactDigest artifactDigest = digest != null ? digest
+                : ZipDeployManifest.ArtifactDigest.of(artifact);
+        ZipEntry entry = new ZipEntry(JAVASE_ARTIFACT_NAME);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(artifactDigest.getSize());
+        entry.setCompressedSize(artifactDigest.getSize());
+        entry.setCrc(artifactDigest.getCrc32());
+
+        final File result = Files.createTempFile(TEMP_FILE_PREFIX, ".zip").toFile();
+        try (InputStream input = new FileInputStream(artifact);
+             ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(result)))) {
+            zip.putNextEntry(entry);
+            byte[] buffer = new byte[64 * 1024];
+            long total = Math.max(artifactDigest.getSize(), 1);
+            long copied = 0;
+            int count;
+            while ((count = input.read(buffer)) >= 0) {
+                zip.write(buffer, 0, count);
+                copied += count;
+                progressIndicator.setFraction((double) copied / total);
+            }
+            zip.closeEntry();
+        } catch (IOException | RuntimeException e) {
+            if (!result.delete()) {
+                result.deleteOnExit();
+            }
+            throw e;
         }
+        return result;
+    }
+
+    private static String getWebappPath(File artifact, boolean isDeployToRoot) throws WebAppException {
+        return isDeployToRoot ? null : WebAppUtils.encodeFileName(FilenameUtils.getBaseName(artifact.getName()));
     }
 
     public static boolean deployWebAppToWebContainer(WebAppBase deployTarget
             , File artifact, boolean isDeployToRoot, IProgressIndicator progressIndicator) throws WebAppException {
         int retryCount = 0;
-        String webappPath = isDeployToRoot ? null : WebAppUtils.encodeFileName(FilenameUtils.getBaseName(artifact.getName()));
+        String webappPath = getWebappPath(artifact, isDeployToRoot);
         while (retryCount++ < DEPLOY_MAX_TRY) {
             try {
                 if (deployTarget instanceof WebApp) {
@@ -483,46 +619,54 @@ public class WebAppUtils {
     }
 
     public static void uploadWebConfig(WebApp webApp, InputStream fileStream, IProgressIndicator indicator) throws IOException {
-        FTPClient ftp = null;
-        try {
-            if (indicator != null) {
-                indicator.setText("Stopping the service...");
-            }
-            webApp.stop();
-
-            PublishingProfile pp = webApp.getPublishingProfile();
-            ftp = getFtpConnection(pp);
+        if (indicator != null) {
+            indicator.setText("Stopping the service...");
+        }
+        webApp.stop();
 
-            if (indicator != null) {
-                indicator.setText("Uploading " + WEB_CONFIG_FILENAME + "...");
-            }
-            uploadFileToFtp(ftp, FTP_ROOT_PATH + WEB_CONFIG_FILENAME, fileStream, indicator);
+        PublishingProfile pp = webApp.getPublishingProfile();
+        if (indicator != null) {
+            indicator.setText("Uploading " + WEB_CONFIG_FILENAME + "...");
+        }
+        uploadStreamToFtp(pp, FTP_ROOT_PATH + WEB_CONFIG_FILENAME, fileStream, indicator);
 
-            if (indicator != null) {
-                indicator.setText("Starting the service...");
-            }
-            webApp.start();
-        } finally {
-            if (ftp != null && ftp.isConnected()) {
-                ftp.disconnect();
-            }
+        if (indicator != null) {
+            indicator.setText("Starting the service...");
         }
+        webApp.start();
     }
 
     public static int uploadToRemoteServer(WebAppBase webApp, String fileName, InputStream ins,
                                            IProgressIndicator indicator, String targetPath) throws IOException {
-        FTPClient ftp = null;
+        PublishingProfile pp = webApp.getPublishingProfile();
+        if (indicator != null) {
+            indicator.setText(String.format("Uploading %s ...", fileName));
+        }
+        return uploadStreamToFtp(pp, targetPath, ins, indicator);
+    }
+
+    private static int uploadStreamToFtp(PublishingProfile pp, String path, InputStream stream,
+                                         IProgressIndicator indicator) throws IOException {
+        FtpConnectionPool pool = FtpConnectionPool.getInstance();
+        FTPClient ftp = pool.borrow(pp);
+        int uploadingTryCount;
         try {
-            PublishingProfile pp = webApp.getPublishingProfile();
-            ftp = getFtpConnection(pp);
-            if (indicator != null) {
-                indicator.setText(String.format("Uploading %s ...", fileName));
-            }
-            return uploadFileToFtp(ftp, targetPath, ins, indicator);
-        } finally {
-            if (ftp != null && ftp.isConnected()) {
-                ftp.disconnect();
-            }
+            uploadingTryCount = uploadFileToFtp(ftp, path, stream, indicator);
+        } catch (IOException | RuntimeException e) {
+            pool.invalidate(ftp);
+            throw e;
+        }
+        pool.release(pp, ftp);
+        // The uploaded content isn't known by the deploy manifests
+        forgetDeployed(pp, path);
+        ZipDeployManifest.invalidateSite(getSiteName(pp));
+        return uploadingTryCount;
+    }
+
+    private static void forgetDeployed(PublishingProfile pp, String path) throws IOException {
+        FtpDeployManifest manifest = FtpDeployManifest.load(pp);
+        if (manifest.forget(path)) {
+            manifest.save();
         }
     }
 
@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azuretools.utils;
+
+import com.microsoft.azuretools.authmanage.CommonSettings;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The local record of the artifact last deployed to a web app or deployment slot, made of the SHA-256 checksum of
+ * the artifact, the CRC and size of every entry in it, and the ID of the Kudu deployment it became.
+ *
+ * An artifact with the same checksum as the recorded one doesn't need to be deployed again as long as the recorded
+ * deployment is still the active one on the server, and the entries tell how much of the artifact changed. A manifest
+ * is kept per deploy target and path under the settings folder, it's only written after a successful deployment, and
+ * is invalidated when the site is deployed by FTP, which doesn't make a Kudu deployment.
+ */
+public class ZipDeployManifest {
+    private static final String MANIFEST_FOLDER = "zipdeploy";
+    private static final String MANIFEST_FILE_SUFFIX = ".properties";
+    private static final String CONTENT_HASH_KEY = "contentHash";
+    private static final String SITE_NAME_KEY = "siteName";
+    private static final String DEPLOYMENT_ID_KEY = "deploymentId";
+    private static final String ENTRY_KEY_PREFIX = "entry.";
+
+    @NotNull
+    private final File file;
+
+    @Nullable
+    private String contentHash;
+
+    @Nullable
+    private String siteName;
+
+    @Nullable
+    private String deploymentId;
+
+    @NotNull
+    private final Map<String, String> entries = new HashMap<>();
+
+    ZipDeployManifest(@NotNull File file) {
+        this.file = file;
+
+        if (!file.isFile()) {
+            return;
+        }
+
+        Properties saved = new Properties();
+
+        try (InputStream in = new FileInputStream(file)) {
+            saved.load(in);
+        } catch (IOException | IllegalArgumentException ignored) {
+            // A broken manifest just means deploying again
+            return;
+        }
+
+        contentHash = saved.getProperty(CONTENT_HASH_KEY);
+        siteName = saved.getProperty(SITE_NAME_KEY);
+        deploymentId = saved.getProperty(DEPLOYMENT_ID_KEY);
+        saved.stringPropertyNames().stream()
+                .filter(key -> key.startsWith(ENTRY_KEY_PREFIX))
+                .forEach(key -> entries.put(key.substring(ENTRY_KEY_PREFIX.length()), saved.getProperty(key)));
+    }
+
+    /**
+     * Load the manifest of the deploy target and path, an empty one if nothing has been deployed there.
+     */
+    @NotNull
+    public static ZipDeployManifest load(@NotNull String targetId, @NotNull String deployPath) {
+        String name = DigestUtils.sha256Hex((targetId.toLowerCase() + "|" + deployPath)
+                                                    .getBytes(StandardCharsets.UTF_8));
+
+        return new ZipDeployManifest(new File(getManifestFolder(), name + MANIFEST_FILE_SUFFIX));
+    }
+
+    /**
+     * Invalidate the manifests of the site, after it's deployed by other means than zip or war deploy.
+     *
+     * @param siteName the site name, such as: myapp, or myapp__slot for a deployment slot
+     */
+    public static void invalidateSite(@NotNull String siteName) {
+        invalidateSite(getManifestFolder(), siteName);
+    }
+
+    static void invalidateSite(@NotNull File manifestFolder, @NotNull String siteName) {
+        File[] manifestFiles = manifestFolder.listFiles((dir, name) -> name.endsWith(MANIFEST_FILE_SUFFIX));
+
+        if (manifestFiles == null) {
+            return;
+        }
+
+        for (File manifestFile : manifestFiles) {
+            if (siteName.equalsIgnoreCase(new ZipDeployManifest(manifestFile).siteName) && !manifestFile.delete()) {
+                manifestFile.deleteOnExit();
+            }
+        }
+    }
+
+    @NotNull
+    private static File getManifestFolder() {
+        String baseDir = StringUtils.defaultIfBlank(CommonSettings.getSettingsBaseDir(),
+                                                    System.getProperty("java.io.tmpdir"));
+
+        return new File(baseDir, MANIFEST_FOLDER);
+    }
+
+    /**
+     * List the CRC and size of every entry in the artifact from its central directory, without reading the entries.
+     */
+    @NotNull
+    public static Map<String, String> listEntries(@NotNull File artifact) throws IOException {
+        Map<String, String> nameToEntry = new HashMap<>();
+
+        try (ZipFile zip = new ZipFile(artifact)) {
+            Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry entry = zipEntries.nextElement();
+
+                if (!entry.isDirectory()) {
+                    nameToEntry.put(entry.getName(), Long.toHexString(entry.getCrc()) + ":" + entry.getSize());
+                }
+            }
+        }
+
+        return nameToEntry;
+    }
+
+    /**
+     * Check whether the artifact has been deployed and is still the active deployment on the server.
+     *
+     * @param activeDeploymentId the ID of the active Kudu deployment of the target, null if it can't be got
+     */
+    public boolean isDeployed(@NotNull ArtifactDigest digest, @Nullable String activeDeploymentId) {
+        return activeDeploymentId != null
+                && activeDeploymentId.equals(deploymentId)
+                && digest.getSha256().equals(contentHash);
+    }
+
+    /**
+     * Count the entries added, removed or changed since the recorded deployment.
+     */
+    public int countChangedEntries(@NotNull Map<String, String> currentEntries) {
+        int changed = (int) currentEntries.entrySet().stream()
+                .filter(entry -> !entry.getValue().equals(entries.get(entry.getKey())))
+                .count();
+        int removed = (int) entries.keySet().stream()
+                .filter(name -> !currentEntries.containsKey(name))
+                .count();
+
+        return changed + removed;
+    }
+
+    /**
+     * Record the artifact deployed.
+     *
+     * @param siteName the site deployed to
+     * @param deploymentId the ID of the Kudu deployment the artifact became, null if it can't be got, then the
+     *                     artifact is never taken as deployed
+     */
+    public void update(@NotNull ArtifactDigest digest, @NotNull Map<String, String> currentEntries,
+                       @NotNull String siteName, @Nullable String deploymentId) {
+        this.contentHash = digest.getSha256();
+        this.siteName = siteName;
+        this.deploymentId = deploymentId;
+        entries.clear();
+        entries.putAll(currentEntries);
+    }
+
+    public void save() throws IOException {
+        File dir = file.getParentFile();
+
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Can't create the folder " + dir);
+        }
+
+        Properties saving = new Properties();
+
+        if (contentHash != null) {
+            saving.setProperty(CONTENT_HASH_KEY, contentHash);
+        }
+
+        if (siteName != null) {
+            saving.setProperty(SITE_NAME_KEY, siteName);
+        }
+
+        if (deploymentId != null) {
+            saving.setProperty(DEPLOYMENT_ID_KEY, deploymentId);
+        }
+
+        entries.forEach((name, entry) -> saving.setProperty(ENTRY_KEY_PREFIX + name, entry));
+
+        try (OutputStream out = new FileOutputStream(file)) {
+            saving.store(out, "Artifact deployed by zip deploy");
+        }
+    }
+
+    /**
+     * The size, CRC-32 and SHA-256 checksum of an artifact file, computed in one pass.
+     */
+    public static class ArtifactDigest {
+        private final long size;
+
+        private final long crc32;
+
+        @NotNull
+        private final String sha256;
+
+        private ArtifactDigest(long size, long crc32, @NotNull String sha256) {
+            this.size = size;
+            this.crc32 = crc32;
+            this.sha256 = sha256;
+        }
+
+        @NotNull
+        public static ArtifactDigest of(@NotNull File artifact) throws IOException {
+            MessageDigest sha256 = DigestUtils.getSha256Digest();
+            CRC32 crc32 = new CRC32();
+            byte[] buffer = new byte[64 * 1024];
+            long size = 0;
+
+            try (InputStream in = new FileInputStream(artifact)) {
+                int count;
+
+                while ((count = in.read(buffer)) >= 0) {
+                    sha256.update(buffer, 0, count);
+                    crc32.update(buffer, 0, count);
+                    size += count;
+                }
+            }
+
+            return new ArtifactDigest(size, crc32.getValue(), Hex.encodeHexString(sha256.digest()));
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getCrc32() {
+            return crc32;
+        }
+
+        @NotNull
+        public String getSha256() {
+            return sha256;
+        }
+    }
+}
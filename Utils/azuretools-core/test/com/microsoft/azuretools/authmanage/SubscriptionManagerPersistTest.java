@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azuretools.authmanage;
+
+import com.microsoft.azure.management.resources.Subscription;
+import com.microsoft.azure.management.resources.Tenant;
+import com.microsoft.azuretools.adauth.JsonHelper;
+import com.microsoft.azuretools.authmanage.models.SubscriptionDetail;
+import com.microsoft.azuretools.sdkmanage.AzureManager;
+import com.microsoft.azuretools.sdkmanage.Settings;
+import com.microsoft.azuretools.utils.Pair;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.powermock.reflect.Whitebox;
+import rx.Observable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SubscriptionManagerPersistTest {
+    private static final String SUBSCRIPTIONS_FILE = "subscriptions.json";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private AzureManager azureManagerMock;
+
+    private SubscriptionManagerPersist subscriptionManager;
+
+    private final AtomicInteger listCount = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        Whitebox.setInternalState(CommonSettings.class, "settingsBaseDir", tempFolder.getRoot().getPath());
+
+        Settings settings = new Settings();
+        settings.setSubscriptionsDetailsFileName(SUBSCRIPTIONS_FILE);
+
+        azureManagerMock = mock(AzureManager.class);
+        when(azureManagerMock.getSettings()).thenReturn(settings);
+
+        subscriptionManager = new SubscriptionManagerPersist(azureManagerMock);
+    }
+
+    @After
+    public void tearDown() {
+        Whitebox.setInternalState(CommonSettings.class, "settingsBaseDir", (String) null);
+        SubscriptionManagerPersist.setSubscriptionsCacheTtl(
+                SubscriptionManagerPersist.DEFAULT_SUBSCRIPTIONS_CACHE_TTL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testListSubscriptionsWithoutPersisted() throws IOException {
+        mockSubscriptions(null, "sid1", "sid2");
+
+        List<SubscriptionDetail> details = subscriptionManager.getSubscriptionDetails();
+
+        assertEquals(Arrays.asList("sid1", "sid2"), getSids(details));
+        assertTrue(details.stream().allMatch(SubscriptionDetail::isSelected));
+        assertEquals(2, subscriptionManager.getSubscriptionIdToSubscriptionMap().size());
+        assertEquals(1, listCount.get());
+    }
+
+    @Test
+    public void testShowFreshPersistedAndRevalidateInBackground() throws Exception {
+        persist(new SubscriptionDetail("sid1", "old name", "tid", true),
+                new SubscriptionDetail("sid2", "sub sid2", "tid", false));
+        CountDownLatch listing = new CountDownLatch(1);
+        mockSubscriptions(listing, "sid1", "sid3");
+
+        // The persisted subscriptions are returned without waiting for the listing
+        List<SubscriptionDetail> details = subscriptionManager.getSubscriptionDetails();
+
+        assertEquals(Arrays.asList("sid1", "sid2"), getSids(details));
+        assertEquals("old name", details.get(0).getSubscriptionName());
+
+        listing.countDown();
+        Map<String, Subscription> sidToSubscription = subscriptionManager.getSubscriptionIdToSubscriptionMap();
+
+        assertEquals(2, sidToSubscription.size());
+        assertTrue(sidToSubscription.containsKey("sid3"));
+
+        details = awaitSubscriptionDetails("sid1", "sid3");
+        assertEquals("sub sid1", details.get(0).getSubscriptionName());
+        assertTrue("The selection should be kept", details.get(0).isSelected());
+        assertFalse("The new subscription shouldn't be selected", details.get(1).isSelected());
+        assertTrue(readPersisted().contains("sid3"));
+        assertEquals(1, listCount.get());
+    }
+
+    @Test
+    public void testListSubscriptionsWithStalePersisted() throws Exception {
+        persist(new SubscriptionDetail("sid1", "sub sid1", "tid", false),
+                new SubscriptionDetail("sid2", "sub sid2", "tid", true));
+        SubscriptionManagerPersist.setSubscriptionsCacheTtl(0, TimeUnit.MILLISECONDS);
+        mockSubscriptions(null, "sid2", "sid3");
+
+        List<SubscriptionDetail> details = subscriptionManager.getSubscriptionDetails();
+
+        assertEquals(Arrays.asList("sid2", "sid3"), getSids(details));
+        assertTrue(details.get(0).isSelected());
+        assertFalse(details.get(1).isSelected());
+        assertEquals(1, listCount.get());
+    }
+
+    @Test
+    public void testKeepPersistedIfRevalidationFailed() throws Exception {
+        persist(new SubscriptionDetail("sid1", "sub sid1", "tid", true));
+        when(azureManagerMock.listSubscriptionsWithTenant()).thenReturn(Observable.error(new IOException("offline")));
+
+        List<SubscriptionDetail> details = subscriptionManager.getSubscriptionDetails();
+
+        assertEquals(Arrays.asList("sid1"), getSids(details));
+        assertTrue(subscriptionManager.getSubscriptionIdToSubscriptionMap().isEmpty());
+        assertEquals(Arrays.asList("sid1"), getSids(subscriptionManager.getSubscriptionDetails()));
+        assertTrue(readPersisted().contains("sid1"));
+    }
+
+    private void mockSubscriptions(CountDownLatch listing, String... sids) {
+        Tenant tenant = mock(Tenant.class);
+        when(tenant.tenantId()).thenReturn("tid");
+
+        List<Pair<Subscription, Tenant>> subscriptions = Arrays.stream(sids)
+                .map(sid -> {
+                    Subscription subscription = mock(Subscription.class);
+                    when(subscription.subscriptionId()).thenReturn(sid);
+                    when(subscription.displayName()).thenReturn("sub " + sid);
+
+                    return new Pair<>(subscription, tenant);
+                })
+                .collect(Collectors.toList());
+
+        when(azureManagerMock.listSubscriptionsWithTenant()).thenReturn(Observable
+                .fromCallable(() -> {
+                    if (listing != null) {
+                        listing.await();
+                    }
+
+                    listCount.incrementAndGet();
+                    return subscriptions;
+                })
+                .flatMapIterable(pairs -> pairs));
+    }
+
+    private List<SubscriptionDetail> awaitSubscriptionDetails(String... sids) throws Exception {
+        List<String> expected = Arrays.asList(sids);
+
+        for (int i = 0; i < 100; i++) {
+            List<SubscriptionDetail> details = subscriptionManager.getSubscriptionDetails();
+            if (getSids(details).equals(expected)) {
+                return details;
+            }
+
+            Thread.sleep(50);
+        }
+
+        assertEquals(expected, getSids(subscriptionManager.getSubscriptionDetails()));
+        return subscriptionManager.getSubscriptionDetails();
+    }
+
+    private void persist(SubscriptionDetail... details) throws IOException {
+        Files.write(new File(tempFolder.getRoot(), SUBSCRIPTIONS_FILE).toPath(),
+                    JsonHelper.serialize(Arrays.asList(details))
+                            .getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String readPersisted() throws IOException {
+        return new String(Files.readAllBytes(new File(tempFolder.getRoot(), SUBSCRIPTIONS_FILE).toPath()),
+                          StandardCharsets.UTF_8);
+    }
+
+    private static List<String> getSids(List<SubscriptionDetail> details) {
+        return details.stream().map(SubscriptionDetail::getSubscriptionId).collect(Collectors.toList());
+    }
+}
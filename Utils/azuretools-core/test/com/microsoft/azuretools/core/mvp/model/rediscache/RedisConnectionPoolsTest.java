@@ -22,11 +22,19 @@
 
 package com.microsoft.azuretools.core.mvp.model.rediscache;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -38,6 +46,7 @@ import org.powermock.modules.junit4.PowerMockRunner;
 
 import com.microsoft.azure.management.redis.RedisAccessKeys;
 import com.microsoft.azure.management.redis.RedisCache;
+import com.microsoft.azuretools.core.mvp.ui.rediscache.RedisPoolMetrics;
 
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
@@ -85,6 +94,10 @@ public class RedisConnectionPoolsTest {
 
     @After
     public void tearDown() {
+        for (int i = 0; i <= RedisConnectionPools.DEFAULT_MAX_POOLS; i++) {
+            RedisConnectionPools.getInstance().releasePool(MOCK_REDIS_ID + i);
+        }
+        RedisConnectionPools.getInstance().releasePool(MOCK_REDIS_ID);
         jedisMock = null;
         jedisPoolMock = null;
         azureRedisMvpModelMock = null;
@@ -107,4 +120,95 @@ public class RedisConnectionPoolsTest {
         RedisConnectionPools.getInstance().releasePool(MOCK_REDIS_ID);
         verify(jedisPoolMock, times(0)).destroy();
     }
+
+    @Test
+    public void testEvictLeastRecentlyUsedPool() throws Exception {
+        JedisPool[] pools = mockPools(RedisConnectionPools.DEFAULT_MAX_POOLS + 1);
+        AtomicLong clock = new AtomicLong();
+        RedisConnectionPools connectionPools = new RedisConnectionPools(clock::get);
+
+        for (int i = 0; i < RedisConnectionPools.DEFAULT_MAX_POOLS; i++) {
+            clock.incrementAndGet();
+            connectionPools.getJedis(MOCK_SUBSCRIPTION, MOCK_REDIS_ID + i);
+        }
+        // Use the first one again, so that the second one is the least recently used
+        clock.incrementAndGet();
+        connectionPools.getJedis(MOCK_SUBSCRIPTION, MOCK_REDIS_ID + 0);
+        clock.incrementAndGet();
+        connectionPools.getJedis(MOCK_SUBSCRIPTION, MOCK_REDIS_ID + RedisConnectionPools.DEFAULT_MAX_POOLS);
+
+        verify(pools[0], never()).destroy();
+        verify(pools[1], times(1)).destroy();
+        assertNull(connectionPools.getMetrics(MOCK_REDIS_ID + 1));
+        assertEquals(RedisConnectionPools.DEFAULT_MAX_POOLS, connectionPools.getAllMetrics().size());
+    }
+
+    @Test
+    public void testNotEvictPoolBeingBorrowed() throws Exception {
+        JedisPool[] pools = mockPools(RedisConnectionPools.DEFAULT_MAX_POOLS + 1);
+        AtomicLong clock = new AtomicLong();
+        RedisConnectionPools connectionPools = new RedisConnectionPools(clock::incrementAndGet);
+        // Fill up the pools while the first one is still handing out its connection
+        when(pools[0].getResource()).thenAnswer(invocation -> {
+            for (int i = 1; i <= RedisConnectionPools.DEFAULT_MAX_POOLS; i++) {
+                connectionPools.getJedis(MOCK_SUBSCRIPTION, MOCK_REDIS_ID + i);
+            }
+            return jedisMock;
+        });
+
+        connectionPools.getJedis(MOCK_SUBSCRIPTION, MOCK_REDIS_ID + 0);
+
+        verify(pools[0], never()).destroy();
+        verify(pools[1], times(1)).destroy();
+        assertEquals(RedisConnectionPools.DEFAULT_MAX_POOLS, connectionPools.getAllMetrics().size());
+    }
+
+    @Test
+    public void testDestroyPoolOfLosingCreator() throws Exception {
+        JedisPool[] pools = mockPools(2);
+        AtomicLong clock = new AtomicLong();
+        RedisConnectionPools connectionPools = new RedisConnectionPools(clock::incrementAndGet);
+        // Another caller creates the pool while the first one is still looking up the Redis Cache
+        AtomicBoolean isLookingUp = new AtomicBoolean();
+        when(azureRedisMvpModelMock.getRedisCache(anyString(), anyString())).thenAnswer(invocation -> {
+            if (isLookingUp.compareAndSet(false, true)) {
+                connectionPools.getJedis(MOCK_SUBSCRIPTION, MOCK_REDIS_ID);
+            }
+            return redisCacheMock;
+        });
+
+        connectionPools.getJedis(MOCK_SUBSCRIPTION, MOCK_REDIS_ID);
+
+        verify(pools[0], times(2)).getResource();
+        verify(pools[0], never()).destroy();
+        verify(pools[1], never()).getResource();
+        verify(pools[1], times(1)).destroy();
+        assertEquals(1, connectionPools.getAllMetrics().size());
+    }
+
+    @Test
+    public void testPoolMetricsAndSize() throws Exception {
+        when(jedisPoolMock.getNumActive()).thenReturn(2);
+        when(jedisPoolMock.getNumIdle()).thenReturn(1);
+        when(jedisPoolMock.getMeanBorrowWaitTimeMillis()).thenReturn(3L);
+        RedisConnectionPools.getInstance().setPoolSize(MOCK_REDIS_ID, 16);
+        RedisConnectionPools.getInstance().getJedis(MOCK_SUBSCRIPTION, MOCK_REDIS_ID);
+
+        RedisPoolMetrics metrics = RedisConnectionPools.getInstance().getMetrics(MOCK_REDIS_ID);
+        assertEquals(16, metrics.getMaxTotal());
+        assertEquals(2, metrics.getActive());
+        assertEquals(1, metrics.getIdle());
+        assertEquals(3L, metrics.getMeanWaitMillis());
+    }
+
+    private JedisPool[] mockPools(int count) throws Exception {
+        JedisPool[] pools = new JedisPool[count];
+        for (int i = 0; i < pools.length; i++) {
+            pools[i] = mock(JedisPool.class);
+            when(pools[i].getResource()).thenReturn(jedisMock);
+        }
+        PowerMockito.whenNew(JedisPool.class).withAnyArguments()
+                .thenReturn(pools[0], Arrays.copyOfRange(pools, 1, pools.length));
+        return pools;
+    }
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azuretools.core.mvp.model.webapp;
+
+import com.microsoft.azure.management.appservice.WebApp;
+import com.microsoft.azure.management.appservice.implementation.SiteInner;
+import com.microsoft.azuretools.core.mvp.model.ResourceEx;
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WebAppListDiffTest {
+    private static final String MOCK_SUBSCRIPTION = "00000000-0000-0000-0000-000000000000";
+    private static final DateTime MODIFIED_TIME = new DateTime(2020, 1, 1, 0, 0);
+
+    @Test
+    public void testCompareAddedRemovedAndChanged() {
+        final ResourceEx<WebApp> kept = mockWebApp("/sites/kept", MODIFIED_TIME, "Running");
+        final ResourceEx<WebApp> stopped = mockWebApp("/sites/stopped", MODIFIED_TIME, "Running");
+        final ResourceEx<WebApp> deleted = mockWebApp("/sites/deleted", MODIFIED_TIME, "Running");
+        final ResourceEx<WebApp> created = mockWebApp("/sites/created", MODIFIED_TIME, "Running");
+        final ResourceEx<WebApp> stoppedNow = mockWebApp("/sites/stopped", MODIFIED_TIME, "Stopped");
+        final ResourceEx<WebApp> keptNow = mockWebApp("/sites/kept", MODIFIED_TIME, "Running");
+
+        final WebAppListDiff diff = WebAppListDiff.compare(MOCK_SUBSCRIPTION,
+                                                           Arrays.asList(kept, stopped, deleted),
+                                                           Arrays.asList(keptNow, stoppedNow, created));
+
+        assertEquals(MOCK_SUBSCRIPTION, diff.getSubscriptionId());
+        assertEquals(Collections.singletonList(created), diff.getAdded());
+        assertEquals(Collections.singletonList(deleted), diff.getRemoved());
+        assertEquals(Collections.singletonList(stoppedNow), diff.getChanged());
+    }
+
+    @Test
+    public void testCompareByLastModifiedTimeAndCaseInsensitiveId() {
+        final ResourceEx<WebApp> app = mockWebApp("/sites/App", MODIFIED_TIME, "Running");
+        final ResourceEx<WebApp> sameApp = mockWebApp("/sites/app", MODIFIED_TIME, "Running");
+        final ResourceEx<WebApp> deployedApp = mockWebApp("/sites/app", MODIFIED_TIME.plusMinutes(1), "Running");
+
+        assertTrue(WebAppListDiff.compare(MOCK_SUBSCRIPTION, Collections.singletonList(app),
+                                          Collections.singletonList(sameApp)).isEmpty());
+        assertEquals(Collections.singletonList(deployedApp),
+                     WebAppListDiff.compare(MOCK_SUBSCRIPTION, Collections.singletonList(app),
+                                            Collections.singletonList(deployedApp)).getChanged());
+    }
+
+    @Test
+    public void testCompareWithoutPreviousOrCurrent() {
+        final ResourceEx<WebApp> app = mockWebApp("/sites/app", MODIFIED_TIME, "Running");
+
+        final WebAppListDiff firstListed = WebAppListDiff.compare(MOCK_SUBSCRIPTION, null,
+                                                                  Collections.singletonList(app));
+        assertSame(app, firstListed.getAdded().get(0));
+        assertTrue(firstListed.getRemoved().isEmpty());
+
+        final WebAppListDiff deselected = WebAppListDiff.compare(MOCK_SUBSCRIPTION,
+                                                                 Collections.singletonList(app), null);
+        assertSame(app, deselected.getRemoved().get(0));
+        assertTrue(deselected.getAdded().isEmpty());
+    }
+
+    private static ResourceEx<WebApp> mockWebApp(String id, DateTime lastModifiedTime, String state) {
+        final WebApp app = mock(WebApp.class);
+        final SiteInner inner = mock(SiteInner.class);
+
+        when(app.id()).thenReturn(id);
+        when(app.inner()).thenReturn(inner);
+        when(inner.lastModifiedTimeUtc()).thenReturn(lastModifiedTime);
+        when(inner.state()).thenReturn(state);
+        when(inner.enabled()).thenReturn(true);
+
+        return new ResourceEx<>(app, MOCK_SUBSCRIPTION);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azuretools.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FtpDeployManifestTest {
+    private static final String REMOTE_PATH = "/site/wwwroot/webapps/ROOT.war";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testDeployedUntilRemoteModified() throws IOException {
+        File manifestFile = new File(tempFolder.getRoot(), "manifest.properties");
+        FtpDeployManifest manifest = new FtpDeployManifest(manifestFile);
+        manifest.markDeployed(REMOTE_PATH, "7:abc", "20201018123456");
+        manifest.save();
+
+        FtpDeployManifest reloaded = new FtpDeployManifest(manifestFile);
+
+        assertTrue(reloaded.isDeployed(REMOTE_PATH, "7:abc", "20201018123456"));
+        assertFalse(reloaded.isDeployed(REMOTE_PATH, "7:abd", "20201018123456"));
+        assertFalse(reloaded.isDeployed(REMOTE_PATH, "7:abc", "20201018130000"));
+        assertFalse(reloaded.isDeployed(REMOTE_PATH, "7:abc", null));
+    }
+
+    @Test
+    public void testNeverDeployedWithoutRemoteModificationTime() {
+        FtpDeployManifest manifest = new FtpDeployManifest(new File(tempFolder.getRoot(), "manifest.properties"));
+        manifest.markDeployed(REMOTE_PATH, "7:abc", "20201018123456");
+        manifest.markDeployed(REMOTE_PATH, "7:abc", null);
+
+        assertFalse(manifest.isDeployed(REMOTE_PATH, "7:abc", "20201018123456"));
+    }
+
+    @Test
+    public void testForgetPath() {
+        FtpDeployManifest manifest = new FtpDeployManifest(new File(tempFolder.getRoot(), "manifest.properties"));
+        manifest.markDeployed("/site/wwwroot/app.jar", "7:abc", "20201018123456");
+        manifest.markDeployed(REMOTE_PATH, "8:abc", "20201018123456");
+
+        assertTrue(manifest.forget("/site/wwwroot/app.jar"));
+        assertFalse(manifest.forget("/site/wwwroot/app.jar"));
+        assertFalse(manifest.isDeployed("/site/wwwroot/app.jar", "7:abc", "20201018123456"));
+        assertTrue(manifest.isDeployed(REMOTE_PATH, "8:abc", "20201018123456"));
+    }
+}
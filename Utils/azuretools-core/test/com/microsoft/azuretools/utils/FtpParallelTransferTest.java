@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azuretools.utils;
+
+import com.microsoft.azure.management.appservice.PublishingProfile;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPFile;
+import org.apache.commons.net.ftp.FTPReply;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FtpParallelTransferTest {
+    private static final String REMOTE_DIR = "/site/wwwroot/webapps/ROOT";
+
+    private final PublishingProfile pp = mock(PublishingProfile.class);
+
+    private final FtpConnectionPool pool = mock(FtpConnectionPool.class);
+
+    private final FTPClient ftp = mock(FTPClient.class);
+
+    @Before
+    public void setUp() throws IOException {
+        when(pool.borrow(pp)).thenReturn(ftp);
+        when(ftp.deleteFile(anyString())).thenReturn(true);
+        when(ftp.removeDirectory(anyString())).thenReturn(true);
+        when(ftp.listFiles(anyString())).thenReturn(new FTPFile[0]);
+        when(ftp.listFiles(REMOTE_DIR)).thenReturn(new FTPFile[] {
+                ftpFile(".", true), ftpFile("index.jsp", false), ftpFile("WEB-INF", true) });
+        when(ftp.listFiles(REMOTE_DIR + "/WEB-INF")).thenReturn(new FTPFile[] {
+                ftpFile("web.xml", false), ftpFile("classes", true) });
+        when(ftp.listFiles(REMOTE_DIR + "/WEB-INF/classes")).thenReturn(new FTPFile[] {
+                ftpFile("App.class", false) });
+    }
+
+    @Test
+    public void testRemoveDirectory() throws IOException {
+        FtpParallelTransfer transfer = new FtpParallelTransfer(pp, pool, 2, null);
+
+        transfer.removeDirectory(REMOTE_DIR);
+
+        verify(ftp).deleteFile(REMOTE_DIR + "/index.jsp");
+        verify(ftp).deleteFile(REMOTE_DIR + "/WEB-INF/web.xml");
+        verify(ftp).deleteFile(REMOTE_DIR + "/WEB-INF/classes/App.class");
+
+        // The deepest directories are removed first
+        InOrder inOrder = inOrder(ftp);
+        inOrder.verify(ftp).removeDirectory(REMOTE_DIR + "/WEB-INF/classes");
+        inOrder.verify(ftp).removeDirectory(REMOTE_DIR + "/WEB-INF");
+        inOrder.verify(ftp).removeDirectory(REMOTE_DIR);
+    }
+
+    @Test
+    public void testDeleteMissingFiles() throws IOException {
+        when(ftp.deleteFile(REMOTE_DIR + "/missing.jsp")).thenReturn(false);
+        when(ftp.getReplyCode()).thenReturn(FTPReply.FILE_UNAVAILABLE);
+
+        FtpParallelTransfer transfer = new FtpParallelTransfer(pp, pool, 2, null);
+
+        transfer.deleteFiles(Arrays.asList(REMOTE_DIR + "/index.jsp", REMOTE_DIR + "/missing.jsp"));
+
+        verify(ftp).deleteFile(REMOTE_DIR + "/missing.jsp");
+        verify(pool, times(2)).release(pp, ftp);
+    }
+
+    @Test
+    public void testRetryWithNewConnection() throws IOException {
+        FTPClient broken = mock(FTPClient.class);
+        when(broken.deleteFile(anyString())).thenThrow(new IOException("Connection reset"));
+        when(pool.borrow(pp)).thenReturn(broken, ftp);
+
+        FtpParallelTransfer transfer = new FtpParallelTransfer(pp, pool, 1, null);
+
+        transfer.deleteFiles(Arrays.asList(REMOTE_DIR + "/index.jsp"));
+
+        verify(pool).invalidate(broken);
+        verify(ftp).deleteFile(REMOTE_DIR + "/index.jsp");
+    }
+
+    private static FTPFile ftpFile(String name, boolean isDirectory) {
+        FTPFile file = new FTPFile();
+        file.setName(name);
+        file.setType(isDirectory ? FTPFile.DIRECTORY_TYPE : FTPFile.FILE_TYPE);
+
+        return file;
+    }
+}
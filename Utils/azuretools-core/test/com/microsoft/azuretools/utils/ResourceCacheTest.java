@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azuretools.utils;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class ResourceCacheTest {
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    private final Queue<Runnable> revalidations = new ArrayDeque<>();
+
+    @Test
+    public void testLoadOnceAndReadFresh() throws IOException {
+        ResourceCache<String, String> cache = new ResourceCache<>(
+                1, TimeUnit.HOURS, key -> key + loadCount.incrementAndGet(), revalidations::add);
+
+        assertNull(cache.getIfPresent("sub"));
+        assertEquals("sub1", cache.get("sub"));
+        assertEquals("sub1", cache.get("sub"));
+        assertEquals("sub1", cache.getIfPresent("sub"));
+        assertEquals(1, loadCount.get());
+        assertEquals(0, revalidations.size());
+    }
+
+    @Test
+    public void testConcurrentReadsShareOneLoading() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        ResourceCache<String, String> cache = new ResourceCache<>(1, TimeUnit.HOURS, key -> {
+            loading.await();
+            return key + loadCount.incrementAndGet();
+        });
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+
+        try {
+            Future<?>[] reads = new Future<?>[4];
+            for (int i = 0; i < reads.length; i++) {
+                reads[i] = readers.submit(() -> cache.get("rg"));
+            }
+
+            Thread.sleep(100);
+            loading.countDown();
+
+            for (Future<?> read : reads) {
+                assertEquals("rg1", read.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loadCount.get());
+        } finally {
+            readers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testReturnStaleAndRevalidateInBackground() throws Exception {
+        ResourceCache<String, String> cache = new ResourceCache<>(
+                1, TimeUnit.MILLISECONDS, key -> key + loadCount.incrementAndGet(), revalidations::add);
+
+        assertEquals("sub1", cache.get("sub"));
+        Thread.sleep(10);
+
+        assertEquals("The stale value should be returned at once", "sub1", cache.get("sub"));
+        assertEquals(1, revalidations.size());
+
+        revalidations.poll().run();
+        assertEquals("sub2", cache.getIfPresent("sub"));
+        assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    public void testKeepStaleIfRevalidationFailed() throws Exception {
+        ResourceCache<String, String> cache = new ResourceCache<>(1, TimeUnit.MILLISECONDS, key -> {
+            if (loadCount.incrementAndGet() > 1) {
+                throw new IOException("offline");
+            }
+
+            return key;
+        }, revalidations::add);
+
+        assertEquals("sub", cache.get("sub"));
+        Thread.sleep(10);
+        assertEquals("sub", cache.get("sub"));
+
+        revalidations.poll().run();
+        assertEquals("sub", cache.getIfPresent("sub"));
+    }
+
+    @Test
+    public void testLoadingErrorIsThrown() {
+        ResourceCache<String, String> cache = new ResourceCache<>(1, TimeUnit.HOURS, key -> {
+            throw new IOException("Failed to list " + key);
+        });
+
+        try {
+            cache.get("rg");
+            fail("The loading error should be thrown");
+        } catch (IOException ex) {
+            assertEquals("Failed to list rg", ex.getMessage());
+        }
+
+        assertNull(cache.getIfPresent("rg"));
+    }
+
+    @Test
+    public void testUpdateAndInvalidate() throws IOException {
+        ResourceCache<String, String> cache = new ResourceCache<>(
+                1, TimeUnit.HOURS, key -> key + loadCount.incrementAndGet(), revalidations::add);
+
+        cache.get("sub-a");
+        cache.get("sub-b");
+        cache.update("sub-a", value -> value + "-updated");
+        cache.update("sub-c", value -> value + "-updated");
+
+        assertEquals("sub-a1-updated", cache.getIfPresent("sub-a"));
+        assertNull("Only the loaded key is updated", cache.getIfPresent("sub-c"));
+
+        cache.invalidateIf(key -> key.endsWith("-a"));
+        assertNull(cache.getIfPresent("sub-a"));
+        assertEquals("sub-b2", cache.getIfPresent("sub-b"));
+
+        assertEquals("sub-a3", cache.get("sub-a"));
+        cache.invalidateAll();
+        assertEquals(0, cache.snapshot().size());
+    }
+}
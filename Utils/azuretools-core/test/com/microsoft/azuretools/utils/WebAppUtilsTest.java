@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.microsoft.azuretools.utils;
+
+import com.microsoft.azure.management.appservice.WebApp;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({
+        WebAppUtils.class
+})
+public class WebAppUtilsTest {
+    private static final String DEPLOYMENT_ID =
+            "/subscriptions/sid/resourceGroups/rg/providers/Microsoft.Web/sites/myapp/deployments/abc";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Mock
+    private WebApp webApp;
+
+    @Mock
+    private IProgressIndicator progressIndicator;
+
+    private String siteName;
+    private File artifact;
+
+    @Before
+    public void setUp() throws Exception {
+        siteName = "myapp-" + UUID.randomUUID();
+        when(webApp.id()).thenReturn("/subscriptions/sid/resourceGroups/rg/providers/Microsoft.Web/sites/" + siteName);
+        PowerMockito.spy(WebAppUtils.class);
+        PowerMockito.doReturn(DEPLOYMENT_ID).when(WebAppUtils.class, "getActiveDeploymentId", webApp);
+
+        artifact = tempFolder.newFile("app.jar");
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(artifact))) {
+            zip.putNextEntry(new ZipEntry("BOOT-INF/classes/App.class"));
+            zip.write("App".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+
+        // Record the artifact as the active deployment of the web app
+        ZipDeployManifest manifest = ZipDeployManifest.load(webApp.id(), "app.jar");
+        manifest.update(ZipDeployManifest.ArtifactDigest.of(artifact), ZipDeployManifest.listEntries(artifact),
+                        siteName, DEPLOYMENT_ID);
+        manifest.save();
+    }
+
+    @After
+    public void tearDown() {
+        ZipDeployManifest.invalidateSite(siteName);
+    }
+
+    @Test
+    public void testStartStoppedAppWhenArtifactIsUpToDate() throws Exception {
+        when(webApp.state()).thenReturn("Stopped");
+
+        WebAppUtils.deployArtifactsToAppService(webApp, artifact, true, true, progressIndicator);
+
+        verify(progressIndicator).setText(WebAppUtils.ARTIFACT_UP_TO_DATE);
+        verify(webApp, never()).stop();
+        verify(webApp).start();
+    }
+
+    @Test
+    public void testKeepRunningAppWhenArtifactIsUpToDate() throws Exception {
+        when(webApp.state()).thenReturn("Running");
+
+        WebAppUtils.deployArtifactsToAppService(webApp, artifact, true, true, progressIndicator);
+
+        verify(progressIndicator).setText(WebAppUtils.ARTIFACT_UP_TO_DATE);
+        verify(webApp, never()).stop();
+        verify(webApp, never()).start();
+    }
+}
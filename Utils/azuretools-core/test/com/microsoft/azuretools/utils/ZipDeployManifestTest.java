@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azuretools.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ZipDeployManifestTest {
+    private static final String SITE_NAME = "myapp";
+    private static final String DEPLOYMENT_ID =
+            "/subscriptions/sid/resourceGroups/rg/providers/Microsoft.Web/sites/myapp/deployments/abc";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testArtifactDigest() throws IOException {
+        File artifact = tempFolder.newFile("app.jar");
+        byte[] content = "Spring Boot".getBytes(StandardCharsets.UTF_8);
+        Files.write(artifact.toPath(), content);
+        CRC32 crc32 = new CRC32();
+        crc32.update(content);
+
+        ZipDeployManifest.ArtifactDigest digest = ZipDeployManifest.ArtifactDigest.of(artifact);
+
+        assertEquals(content.length, digest.getSize());
+        assertEquals(crc32.getValue(), digest.getCrc32());
+        assertEquals(64, digest.getSha256().length());
+    }
+
+    @Test
+    public void testSkipDeployedArtifactAndCountChangedEntries() throws IOException {
+        File manifestFile = new File(tempFolder.getRoot(), "manifest.properties");
+        File artifact = writeJar("v1", "BOOT-INF/classes/App.class", "BOOT-INF/lib/lib.jar");
+        ZipDeployManifest.ArtifactDigest digest = ZipDeployManifest.ArtifactDigest.of(artifact);
+        Map<String, String> entries = ZipDeployManifest.listEntries(artifact);
+
+        ZipDeployManifest manifest = new ZipDeployManifest(manifestFile);
+        assertFalse(manifest.isDeployed(digest, DEPLOYMENT_ID));
+        assertEquals(2, manifest.countChangedEntries(entries));
+
+        manifest.update(digest, entries, SITE_NAME, DEPLOYMENT_ID);
+        manifest.save();
+
+        ZipDeployManifest reloaded = new ZipDeployManifest(manifestFile);
+        assertTrue(reloaded.isDeployed(digest, DEPLOYMENT_ID));
+        assertEquals(0, reloaded.countChangedEntries(entries));
+
+        File changedArtifact = writeJar("v2", "BOOT-INF/classes/App.class", "BOOT-INF/classes/New.class");
+        ZipDeployManifest.ArtifactDigest changedDigest = ZipDeployManifest.ArtifactDigest.of(changedArtifact);
+
+        assertNotEquals(digest.getSha256(), changedDigest.getSha256());
+        assertFalse(reloaded.isDeployed(changedDigest, DEPLOYMENT_ID));
+        // App.class changed, New.class added and lib.jar removed
+        assertEquals(3, reloaded.countChangedEntries(ZipDeployManifest.listEntries(changedArtifact)));
+    }
+
+    @Test
+    public void testNotDeployedOnceServerDeploymentChanged() throws IOException {
+        File artifact = writeJar("v1", "BOOT-INF/classes/App.class");
+        ZipDeployManifest.ArtifactDigest digest = ZipDeployManifest.ArtifactDigest.of(artifact);
+
+        ZipDeployManifest manifest = new ZipDeployManifest(new File(tempFolder.getRoot(), "manifest.properties"));
+        manifest.update(digest, ZipDeployManifest.listEntries(artifact), SITE_NAME, DEPLOYMENT_ID);
+
+        assertFalse(manifest.isDeployed(digest, DEPLOYMENT_ID + "1"));
+        assertFalse(manifest.isDeployed(digest, null));
+
+        manifest.update(digest, ZipDeployManifest.listEntries(artifact), SITE_NAME, null);
+        assertFalse(manifest.isDeployed(digest, DEPLOYMENT_ID));
+    }
+
+    @Test
+    public void testInvalidateSite() throws IOException {
+        File manifestFolder = tempFolder.newFolder("zipdeploy");
+        File artifact = writeJar("v1", "BOOT-INF/classes/App.class");
+        ZipDeployManifest.ArtifactDigest digest = ZipDeployManifest.ArtifactDigest.of(artifact);
+        Map<String, String> entries = ZipDeployManifest.listEntries(artifact);
+
+        ZipDeployManifest app = new ZipDeployManifest(new File(manifestFolder, "app.properties"));
+        app.update(digest, entries, SITE_NAME, DEPLOYMENT_ID);
+        app.save();
+        ZipDeployManifest slot = new ZipDeployManifest(new File(manifestFolder, "slot.properties"));
+        slot.update(digest, entries, SITE_NAME + "__staging", DEPLOYMENT_ID);
+        slot.save();
+
+        ZipDeployManifest.invalidateSite(manifestFolder, SITE_NAME);
+
+        assertFalse(new File(manifestFolder, "app.properties").exists());
+        assertTrue(new ZipDeployManifest(new File(manifestFolder, "slot.properties"))
+                           .isDeployed(digest, DEPLOYMENT_ID));
+    }
+
+    private File writeJar(String version, String... entryNames) throws IOException {
+        File jar = new File(tempFolder.getRoot(), "app-" + version + ".jar");
+
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(jar))) {
+            for (String name : entryNames) {
+                zip.putNextEntry(new ZipEntry(name));
+                zip.write((name.endsWith("App.class") ? name + version : name).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+
+        return jar;
+    }
+}
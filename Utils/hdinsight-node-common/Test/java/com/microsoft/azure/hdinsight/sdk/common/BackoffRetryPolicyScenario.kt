@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.sdk.common
+
+import cucumber.api.java.Before
+import cucumber.api.java.en.Given
+import cucumber.api.java.en.Then
+import cucumber.api.java.en.When
+import org.assertj.core.api.Assertions.assertThat
+import rx.Observable
+import rx.observers.TestSubscriber
+import rx.schedulers.TestScheduler
+import java.io.IOException
+import java.util.concurrent.TimeUnit
+
+class BackoffRetryPolicyScenario {
+    private val scheduler = TestScheduler()
+    private var policy: BackoffRetryPolicy? = null
+    private var attempts = 0
+    private var subscriber = TestSubscriber<String>()
+
+    @Before
+    fun setUp() {
+        attempts = 0
+        subscriber = TestSubscriber()
+    }
+
+    @Given("^create a backoff retry policy with (\\d+) retries, initial delay (\\d+)ms, max delay (\\d+)ms, jitter ([0-9.]+) and budget (\\d+)ms$")
+    fun createPolicy(maxRetries: Int, initialDelayMs: Long, maxDelayMs: Long, jitter: Double, budgetMs: Long) {
+        policy = BackoffRetryPolicy(maxRetries, initialDelayMs, maxDelayMs, 2.0, jitter, budgetMs, scheduler)
+    }
+
+    @Then("^the retry delays of the policy should be$")
+    fun checkDelays(expect: Map<Int, Long>) {
+        expect.forEach { (retry, delayMs) -> assertThat(policy!!.getDelayMs(retry)).isEqualTo(delayMs) }
+    }
+
+    @Then("^the retry delays of the policy should be between half and full of$")
+    fun checkJitteredDelays(expect: Map<Int, Long>) {
+        expect.forEach { (retry, delayMs) ->
+            repeat(20) { assertThat(policy!!.getDelayMs(retry)).isBetween(delayMs / 2, delayMs) }
+        }
+    }
+
+    @When("^subscribe a call failing with (IOException|IllegalStateException) (\\d+) times with the policy$")
+    fun subscribeFailingCall(error: String, failures: Int) {
+        Observable.fromCallable {
+            if (++attempts <= failures) {
+                throw if (error == "IOException") IOException("failure $attempts") else IllegalStateException("bad")
+            }
+
+            "done"
+        }
+                .retryWhen(policy!!.retryWhen { retries, err -> IOException("exhausted after $retries retries", err) })
+                .subscribe(subscriber)
+    }
+
+    @When("^advance the time by (\\d+)ms$")
+    fun advanceTime(ms: Long) {
+        scheduler.advanceTimeBy(ms, TimeUnit.MILLISECONDS)
+    }
+
+    @Then("^the call should be attempted (\\d+) times$")
+    fun checkAttempts(expect: Int) {
+        assertThat(attempts).isEqualTo(expect)
+    }
+
+    @Then("^the call should get '(.+)'$")
+    fun checkResult(expect: String) {
+        subscriber.assertValue(expect)
+        subscriber.assertCompleted()
+    }
+
+    @Then("^the call should fail with message '(.+)'$")
+    fun checkError(expect: String) {
+        subscriber.assertNoValues()
+        assertThat(subscriber.onErrorEvents).hasSize(1)
+        assertThat(subscriber.onErrorEvents[0].message).isEqualTo(expect)
+    }
+}
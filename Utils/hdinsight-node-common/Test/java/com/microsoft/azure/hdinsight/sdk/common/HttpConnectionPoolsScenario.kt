@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.sdk.common
+
+import com.microsoft.azure.hdinsight.spark.common.MockHttpService
+import cucumber.api.java.Before
+import cucumber.api.java.en.Given
+import cucumber.api.java.en.Then
+import cucumber.api.java.en.When
+import org.apache.http.client.methods.HttpGet
+import org.apache.http.pool.PoolStats
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatThrownBy
+
+class HttpConnectionPoolsScenario {
+    private var httpServerMock = MockHttpService()
+    private var stats: PoolStats? = null
+
+    @Before
+    fun setUp() {
+        httpServerMock = MockHttpService()
+        stats = null
+    }
+
+    @Given("^the mocked HTTP server responds '(.+)' to GET '(.+)'$")
+    fun mockGet(response: String, path: String) {
+        httpServerMock.stub("GET", path, 200, response)
+    }
+
+    @When("^(\\d+) new HttpObservables send GET '(.+)' one by one$")
+    fun sendGetsByNewObservables(count: Int, path: String) {
+        repeat(count) {
+            val response = HttpObservable()
+                    .requestWithHttpResponse(HttpGet(httpServerMock.completeUrl(path)), null, null, null)
+                    .toBlocking()
+                    .single()
+
+            assertThat(response.code).isEqualTo(200)
+        }
+    }
+
+    @When("^(\\d+) new OAuthTokenHttpObservables send GET '(.+)' one by one$")
+    fun sendGetsByNewOAuthObservables(count: Int, path: String) {
+        repeat(count) {
+            val response = OAuthTokenHttpObservable("token")
+                    .requestWithHttpResponse(HttpGet(httpServerMock.completeUrl(path)), null, null, null)
+                    .toBlocking()
+                    .single()
+
+            assertThat(response.code).isEqualTo(200)
+        }
+    }
+
+    @Then("^the pooled connections to the mocked HTTP server should be (\\d+) leased and (\\d+) available$")
+    fun checkHostStats(leased: Int, available: Int) {
+        stats = HttpConnectionPools.getStatsByHost()["localhost:${httpServerMock.port}"]
+
+        assertThat(stats).isNotNull
+        assertThat(stats!!.leased).isEqualTo(leased)
+        assertThat(stats!!.available).isEqualTo(available)
+    }
+
+    @Then("^the total pooled connections should include the mocked HTTP server ones$")
+    fun checkTotalStats() {
+        val total = HttpConnectionPools.getTotalStats()
+
+        assertThat(total.available).isGreaterThanOrEqualTo(stats!!.available)
+        assertThat(total.leased).isGreaterThanOrEqualTo(stats!!.leased)
+        assertThat(total.max).isGreaterThanOrEqualTo(HttpConnectionPools.DEFAULT_MAX_TOTAL)
+    }
+
+    @Then("^setting (-?\\d+) max pooled connections and (-?\\d+) per route should be rejected$")
+    fun checkBadMaxConnections(maxTotal: Int, maxPerRoute: Int) {
+        assertThatThrownBy { HttpConnectionPools.setMaxConnections(maxTotal, maxPerRoute) }
+                .isInstanceOf(IllegalArgumentException::class.java)
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.sdk.io.spark
+
+import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.Session
+import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.SparkSession
+import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.exceptions.StatementExecutionError
+import cucumber.api.java.Before
+import cucumber.api.java.en.And
+import cucumber.api.java.en.Given
+import cucumber.api.java.en.Then
+import org.apache.commons.codec.binary.Base64
+import org.apache.commons.codec.digest.DigestUtils
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatThrownBy
+import org.mockito.ArgumentMatchers.anyString
+import org.mockito.Mockito.*
+import rx.Observable
+import java.io.ByteArrayOutputStream
+import java.io.IOException
+import java.net.URI
+import java.util.*
+import java.util.zip.Inflater
+
+class ClusterFilePipelinedOutputStreamScenario {
+    private val pageStatementPattern = Regex("""writeSeqPage\((\d+), Seq\(((?:"[^"]*"(?:, )?)+)\), (\d+), (true|false)\)""")
+    private val stringLiteralPattern = Regex(""""([^"]*)"""")
+
+    var pipelinedOutputStream: ClusterFilePipelinedOutputStream? = null
+    var sessionMock: Session? = null
+    var statements: MutableList<String> = Collections.synchronizedList(mutableListOf())
+    var uploaded: ByteArray = ByteArray(0)
+
+    @Before
+    fun setUp() {
+        statements.clear()
+    }
+
+    @Given("^create a mocked Livy session for ClusterFilePipelinedOutputStream$")
+    fun mockLivySession() {
+        sessionMock = mock(SparkSession::class.java)
+        doAnswer {
+            statements.add(it.getArgument(0))
+            Observable.just(mapOf("text/plain" to ""))
+        }.`when`(sessionMock!!).runCodes(anyString())
+    }
+
+    @Given("^create a mocked Livy session for ClusterFilePipelinedOutputStream which fails page statements$")
+    fun mockFailedLivySession() {
+        sessionMock = mock(SparkSession::class.java)
+        doAnswer {
+            val codes: String = it.getArgument(0)
+            statements.add(codes)
+
+            if (codes.startsWith("writeSeqPage"))
+                Observable.error<Map<String, String>>(StatementExecutionError("IOException", "disk full", emptyList()))
+            else
+                Observable.just(mapOf("text/plain" to ""))
+        }.`when`(sessionMock!!).runCodes(anyString())
+    }
+
+    @And("^create a Spark cluster file pipelined output stream '(.+)' with page size from (\\d+)KB to (\\d+)KB, (\\d+) statements in flight and deflate (enabled|disabled)$")
+    fun createPipelinedOutputStream(dest: String, initialPageSize: Int, maxPageSize: Int, inFlight: Int, deflate: String) {
+        pipelinedOutputStream = ClusterFilePipelinedOutputStream(
+                sessionMock, URI.create(dest), initialPageSize, maxPageSize, inFlight, deflate == "enabled")
+
+        assertThat(statements.first()).contains("val fileOutput = \"$dest\"")
+    }
+
+    @Then("^uploading (\\d+) random bytes with seed (\\d+) through the pipelined output stream$")
+    fun uploadRandomBytes(size: Int, seed: Long) {
+        uploaded = ByteArray(size).apply { Random(seed).nextBytes(this) }
+
+        pipelinedOutputStream.use { it!!.write(uploaded) }
+    }
+
+    @Then("^check uploading (\\d+) random bytes through the pipelined output stream should throw IOException$")
+    fun checkUploadingFailure(size: Int) {
+        assertThatThrownBy { uploadRandomBytes(size, 0) }
+                .isInstanceOf(IOException::class.java)
+
+        verify(sessionMock!!).close()
+    }
+
+    @Then("^check the page sizes sent to Livy session should be (.+)$")
+    fun checkPageSizes(sizesExpect: String) {
+        val sizes = statements.mapNotNull { pageStatementPattern.find(it) }
+                .map { it.groupValues[3].toInt() }
+
+        assertThat(sizes.joinToString(", ")).isEqualTo(sizesExpect)
+    }
+
+    @And("^check the pages sent to Livy session should be reassembled into the uploaded bytes$")
+    fun checkReassembledPages() {
+        val reassembled = ByteArrayOutputStream()
+
+        statements.mapNotNull { pageStatementPattern.find(it) }
+                .sortedBy { it.groupValues[1].toInt() }
+                .forEach {
+                    val encoded = Base64.decodeBase64(stringLiteralPattern.findAll(it.groupValues[2])
+                            .joinToString("") { literal -> literal.groupValues[1] })
+                    val rawSize = it.groupValues[3].toInt()
+
+                    if (it.groupValues[4].toBoolean()) {
+                        val inflater = Inflater().apply { setInput(encoded) }
+                        val raw = ByteArray(rawSize)
+
+                        assertThat(inflater.inflate(raw)).isEqualTo(rawSize)
+                        inflater.end()
+                        reassembled.write(raw)
+                    } else {
+                        reassembled.write(encoded)
+                    }
+                }
+
+        assertThat(reassembled.toByteArray()).isEqualTo(uploaded)
+    }
+
+    @And("^check every string literal sent to Livy session should be shorter than (\\d+) bytes$")
+    fun checkStringLiteralLength(maxLength: Int) {
+        val literalLengths = statements.flatMap { statement ->
+            stringLiteralPattern.findAll(statement).map { it.groupValues[1].toByteArray().size }.toList()
+        }
+
+        assertThat(literalLengths).isNotEmpty
+        assertThat(literalLengths.max()).isLessThan(maxLength)
+    }
+
+    @And("^check the last statement sent to Livy session should verify (\\d+) pages, (\\d+) bytes and the MD5 of the uploaded bytes$")
+    fun checkVerifyStatement(pages: Int, size: Long) {
+        assertThat(statements.last())
+                .isEqualTo("verifyAndClose($pages, ${size}L, \"${DigestUtils.md5Hex(uploaded)}\")")
+
+        verify(sessionMock!!).close()
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.sdk.io.spark
+
+import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.Session
+import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.SparkSession
+import org.apache.commons.codec.binary.Base64OutputStream
+import org.mockito.ArgumentMatchers.anyString
+import org.mockito.Mockito.doAnswer
+import org.mockito.Mockito.mock
+import rx.Observable
+import java.io.OutputStream
+import java.net.URI
+import java.util.*
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Throughput benchmark of uploading files into a local Livy stand-in, which answers every statement after a
+ * fixed round trip latency plus the transfer time of the statement codes at the specified bandwidth.
+ *
+ * Run with: `ClusterFileUploadBenchmarkKt [fileSizeMB] [latencyMs] [bandwidthMBps]`
+ */
+class LivyStandIn(private val latencyMs: Long, private val bandwidthMBps: Long) {
+    val statements = AtomicInteger()
+    val codesBytes = AtomicLong()
+
+    val session: Session = mock(SparkSession::class.java).apply {
+        doAnswer {
+            val codes: String = it.getArgument(0)
+            val transferMs = codes.length * 1000L / (bandwidthMBps * 1024 * 1024)
+
+            statements.incrementAndGet()
+            codesBytes.addAndGet(codes.length.toLong())
+
+            Observable.timer(latencyMs + transferMs, TimeUnit.MILLISECONDS)
+                    .map { mapOf("text/plain" to "") }
+        }.`when`(this).runCodes(anyString())
+    }
+}
+
+fun benchmark(name: String, file: ByteArray, standIn: LivyStandIn, createStream: (Session) -> OutputStream) {
+    val start = System.nanoTime()
+
+    createStream(standIn.session).use { it.write(file) }
+
+    val seconds = (System.nanoTime() - start) / 1e9
+    println(String.format("%-24s %8.2f s %8.2f MB/s %6d statements %10d bytes of codes",
+            name, seconds, file.size / 1024.0 / 1024.0 / seconds, standIn.statements.get(), standIn.codesBytes.get()))
+}
+
+fun main(args: Array<String>) {
+    val fileSizeMB = args.getOrNull(0)?.toInt() ?: 16
+    val latencyMs = args.getOrNull(1)?.toLong() ?: 200
+    val bandwidthMBps = args.getOrNull(2)?.toLong() ?: 10
+
+    // Jar files are mostly deflated already, a random payload is the worst case for the pages compression
+    val file = ByteArray(fileSizeMB * 1024 * 1024).apply { Random(0).nextBytes(this) }
+
+    println("Upload $fileSizeMB MB file with $latencyMs ms latency and $bandwidthMBps MB/s bandwidth per statement:")
+
+    benchmark("BASE64 buffered (32KB)", file, LivyStandIn(latencyMs, bandwidthMBps)) {
+        Base64OutputStream(ClusterFileBase64BufferedOutputStream(it, URI.create("/tmp/bench.jar")), true)
+    }
+
+    benchmark("Pipelined", file, LivyStandIn(latencyMs, bandwidthMBps)) {
+        ClusterFilePipelinedOutputStream(it, URI.create("/tmp/bench.jar"))
+    }
+}
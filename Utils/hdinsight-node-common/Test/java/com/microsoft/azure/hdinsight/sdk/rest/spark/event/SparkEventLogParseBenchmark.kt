@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.sdk.rest.spark.event
+
+import com.microsoft.azure.hdinsight.sdk.rest.ObjectConvertUtils
+import org.apache.commons.io.IOUtils
+import org.json.JSONObject
+import java.io.File
+import java.lang.management.ManagementFactory
+import java.nio.charset.StandardCharsets
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+import java.util.zip.ZipOutputStream
+
+/**
+ * Ad-hoc timing harness of getting the job start events from a synthetic Spark event log zip, which has a job start
+ * event every 1000 task end events, as long running applications do.
+ *
+ * The legacy way loads the whole event log into a String and binds every line as a JSONObject, it's skipped for
+ * the event logs larger than a quarter of the max heap since it runs out of memory.
+ *
+ * Run with: `SparkEventLogParseBenchmarkKt [eventLogSizeMB]`
+ */
+private const val TASKS_PER_JOB = 1000
+
+private fun taskEndLine(taskId: Long) = """{"Event":"SparkListenerTaskEnd","Stage ID":${taskId / 200},""" +
+        """"Stage Attempt ID":0,"Task Type":"ResultTask","Task End Reason":{"Reason":"Success"},""" +
+        """"Task Info":{"Task ID":$taskId,"Index":${taskId % 200},"Attempt":0,"Launch Time":1528340000000,""" +
+        """"Executor ID":"${taskId % 16}","Host":"wn${taskId % 4}-spark.internal.cloudapp.net","Locality":"PROCESS_LOCAL",""" +
+        """"Speculative":false,"Getting Result Time":0,"Finish Time":1528340000123,"Failed":false,"Killed":false,""" +
+        """"Accumulables":[{"ID":${taskId * 3},"Name":"internal.metrics.executorRunTime","Update":120,"Value":${taskId * 120},""" +
+        """"Internal":true,"Count Failed Values":true}]}}"""
+
+private fun jobStartLine(jobId: Long) = """{"Event":"SparkListenerJobStart","Job ID":$jobId,""" +
+        """"Submission Time":1528340000000,"Stage Infos":[],"Stage IDs":[${jobId * 2},${jobId * 2 + 1}],""" +
+        """"Properties":{"spark.job.description":"benchmark job $jobId"}}"""
+
+fun createEventLogZip(appId: String, sizeMB: Int): File {
+    val file = File.createTempFile("eventLogs", ".zip").apply { deleteOnExit() }
+    val sizeLimit = sizeMB * 1024L * 1024L
+    var written = 0L
+    var line = 0L
+
+    ZipOutputStream(file.outputStream().buffered()).use { zip ->
+        zip.putNextEntry(ZipEntry("${appId}_1"))
+
+        while (written < sizeLimit) {
+            val text = (if (line % TASKS_PER_JOB == 0L) jobStartLine(line / TASKS_PER_JOB) else taskEndLine(line)) + "\n"
+            val bytes = text.toByteArray(StandardCharsets.UTF_8)
+
+            zip.write(bytes)
+            written += bytes.size
+            line++
+        }
+
+        zip.closeEntry()
+    }
+
+    return file
+}
+
+private fun usedHeapMB(): Long {
+    val heap = ManagementFactory.getMemoryMXBean().heapMemoryUsage
+
+    return heap.used / 1024 / 1024
+}
+
+private fun benchmark(name: String, sizeMB: Int, parse: () -> List<JobStartEventLog>) {
+    System.gc()
+
+    val startHeapMB = usedHeapMB()
+    var peakHeapMB = startHeapMB
+    val sampler = Thread {
+        while (!Thread.currentThread().isInterrupted) {
+            peakHeapMB = maxOf(peakHeapMB, usedHeapMB())
+
+            try {
+                Thread.sleep(10)
+            } catch (ignored: InterruptedException) {
+                return@Thread
+            }
+        }
+    }.apply { isDaemon = true; start() }
+
+    val start = System.nanoTime()
+    val events = parse()
+    val seconds = (System.nanoTime() - start) / 1e9
+
+    sampler.interrupt()
+    sampler.join()
+
+    println(String.format("%-28s %8.2f s %8.2f MB/s %8d job starts %8d MB peak heap growth",
+            name, seconds, sizeMB / seconds, events.size, peakHeapMB - startHeapMB))
+}
+
+fun main(args: Array<String>) {
+    val sizeMB = args.getOrNull(0)?.toInt() ?: 1024
+    val appId = "application_1528340000000_0001"
+
+    println("Create $sizeMB MB synthetic Spark event log...")
+    val zipFile = ZipFile(createEventLogZip(appId, sizeMB))
+    val entry = zipFile.getEntry("${appId}_1")
+
+    benchmark("Streaming parser", sizeMB) {
+        SparkEventLogParser.parseJobStartEvents { zipFile.getInputStream(entry) }
+                .toList()
+                .toBlocking()
+                .single()
+    }
+
+    if (sizeMB * 4L * 1024 * 1024 > Runtime.getRuntime().maxMemory()) {
+        println(String.format("%-28s skipped, the event log doesn't fit in the heap", "String split and JSONObject"))
+    } else {
+        benchmark("String split and JSONObject", sizeMB) {
+            IOUtils.toString(zipFile.getInputStream(entry), StandardCharsets.UTF_8)
+                    .split("\n")
+                    .filter { it.isNotEmpty() && JSONObject(it).getString("Event") == SparkEventLogParser.JOB_START_EVENT }
+                    .mapNotNull { ObjectConvertUtils.convertToObjectQuietly(it, JobStartEventLog::class.java) }
+        }
+    }
+
+    zipFile.close()
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.sdk.rest.spark.event
+
+import cucumber.api.java.Before
+import cucumber.api.java.en.Given
+import cucumber.api.java.en.Then
+import org.assertj.core.api.Assertions.assertThat
+import java.io.ByteArrayInputStream
+import java.io.InputStream
+
+class SparkEventLogParserScenario {
+    private var eventLog = ""
+    private var isEventLogClosed = false
+
+    private fun openEventLog(): InputStream = object : ByteArrayInputStream(eventLog.toByteArray()) {
+        override fun close() {
+            isEventLogClosed = true
+            super.close()
+        }
+    }
+
+    @Before
+    fun setUp() {
+        eventLog = ""
+        isEventLogClosed = false
+    }
+
+    @Then("^the Spark event name of line '(.*)' should be '(.*)'$")
+    fun checkEventName(line: String, expect: String) {
+        assertThat(SparkEventLogParser.getEventName(line)).isEqualTo(expect.ifEmpty { null })
+    }
+
+    @Given("^a Spark event log with lines$")
+    fun createEventLog(lines: List<String>) {
+        eventLog = lines.joinToString("\n")
+    }
+
+    @Then("^the parsed Spark job start events should have job IDs (.*)$")
+    fun checkJobStartEvents(jobIds: List<Int>) {
+        val events = SparkEventLogParser.parseJobStartEvents { openEventLog() }
+                .toList()
+                .toBlocking()
+                .single()
+
+        assertThat(events.map { it.jobId }).isEqualTo(jobIds)
+        assertThat(isEventLogClosed).isTrue()
+    }
+
+    @Then("^taking the first parsed Spark job start event should get job ID (\\d+) and close the event log$")
+    fun checkFirstJobStartEvent(jobId: Int) {
+        val event = SparkEventLogParser.parseJobStartEvents { openEventLog() }
+                .take(1)
+                .toBlocking()
+                .single()
+
+        assertThat(event.jobId).isEqualTo(jobId)
+        assertThat(isEventLogClosed).isTrue()
+    }
+}
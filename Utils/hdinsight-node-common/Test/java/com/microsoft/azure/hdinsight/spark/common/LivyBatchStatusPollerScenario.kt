@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.spark.common
+
+import com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor
+import com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo
+import com.github.tomakehurst.wiremock.client.WireMock.verify
+import cucumber.api.java.Before
+import cucumber.api.java.en.Given
+import cucumber.api.java.en.Then
+import org.assertj.core.api.Assertions.assertThat
+import rx.Observable
+import java.net.URI
+import java.util.concurrent.TimeUnit
+
+class LivyBatchStatusPollerScenario {
+    private var httpServerMock: MockHttpService? = null
+    private var poller: LivyBatchStatusPoller? = null
+    private var doneStates: List<String> = emptyList()
+    private var caught: Throwable? = null
+
+    @Before
+    fun setUp() {
+        httpServerMock = MockHttpService()
+        poller = LivyBatchStatusPoller(URI.create(httpServerMock!!.completeUrl("/batches")),
+                                       SparkBatchSubmission.getInstance())
+        doneStates = emptyList()
+        caught = null
+    }
+
+    @Given("^create a Livy batch status poller getting up to (\\d+) watched batches one by one$")
+    fun createPoller(singleFetchMaxBatches: Int) {
+        poller = LivyBatchStatusPoller(URI.create(httpServerMock!!.completeUrl("/batches")),
+                                       SparkBatchSubmission.getInstance(),
+                                       singleFetchMaxBatches)
+    }
+
+    @Given("^mock Livy batches listing '(.+)' to return '(.+)'$")
+    fun mockBatchesListing(listUrl: String, response: String) {
+        httpServerMock!!.stub("GET", listUrl, 200, response)
+    }
+
+    @Then("^watching Livy batches (.+) until done should get states (.+)$")
+    fun watchUntilDone(batchIds: String, expectStates: String) {
+        val watches = batchIds.split(",").map { id ->
+            poller!!.watch(id.trim().toInt())
+                    .filter { it.state in setOf("success", "dead", "error") }
+                    .first()
+                    .map { it.state }
+        }
+
+        doneStates = Observable.zip(watches) { states -> states.map { it as String } }
+                .timeout(10, TimeUnit.SECONDS)
+                .toBlocking()
+                .single()
+
+        assertThat(doneStates).containsExactlyElementsOf(expectStates.split(",").map { it.trim() })
+    }
+
+    @Then("^watching Livy batch (\\d+) should fail with message '(.+)'$")
+    fun watchFailed(batchId: Int, expectMessage: String) {
+        try {
+            poller!!.watch(batchId).timeout(10, TimeUnit.SECONDS).toBlocking().last()
+        } catch (ex: Exception) {
+            caught = ex
+        }
+
+        assertThat(caught).hasMessageContaining(expectMessage)
+    }
+
+    @Then("^Livy batches listing '(.+)' should be requested$")
+    fun checkListingRequested(listUrl: String) {
+        verify(getRequestedFor(urlEqualTo(listUrl)))
+    }
+
+    @Then("^Livy batches listing '(.+)' should not be requested$")
+    fun checkListingNotRequested(listUrl: String) {
+        verify(0, getRequestedFor(urlEqualTo(listUrl)))
+    }
+
+    @Then("^the shared Livy batch status pollers should be per batches URI and submission, and released when idle$")
+    fun checkSharedPollers() {
+        val batchesUri = URI.create(httpServerMock!!.completeUrl("/batches"))
+        val submission = SparkBatchSubmission.getInstance()
+        val shared = LivyBatchStatusPoller.getPoller(batchesUri, submission)
+
+        assertThat(LivyBatchStatusPoller.getPoller(URI.create("$batchesUri/"), submission)).isSameAs(shared)
+        assertThat(LivyBatchStatusPoller.getPoller(batchesUri, SparkBatchSubmission())).isNotSameAs(shared)
+
+        // The poller is released after the last watcher leaves
+        val statuses = shared.watch(1).replay()
+        val watching = statuses.connect()
+
+        statuses.first().timeout(10, TimeUnit.SECONDS).toBlocking().single()
+        watching.unsubscribe()
+
+        assertThat(LivyBatchStatusPoller.getPoller(batchesUri, submission)).isNotSameAs(shared)
+    }
+}
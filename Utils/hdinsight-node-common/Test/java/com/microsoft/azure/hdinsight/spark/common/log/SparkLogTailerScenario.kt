@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.spark.common.log
+
+import cucumber.api.java.Before
+import cucumber.api.java.en.Given
+import cucumber.api.java.en.Then
+import cucumber.api.java.en.When
+import org.assertj.core.api.Assertions.assertThat
+import rx.Observable
+import rx.Subscription
+import rx.schedulers.TestScheduler
+import java.util.AbstractMap.SimpleImmutableEntry
+import java.util.concurrent.TimeUnit
+
+class SparkLogTailerScenario {
+    private val scheduler = TestScheduler()
+    private var log = StringBuilder()
+    private val fetchedRanges = mutableListOf<Pair<Long, Int>>()
+    private var tailer: SparkLogTailer? = null
+    private var tailing: Subscription? = null
+
+    @Before
+    fun setUp() {
+        log = StringBuilder()
+        fetchedRanges.clear()
+    }
+
+    @Given("^create a Spark log tailer with max (\\d+) buffered lines$")
+    fun createTailer(maxBufferedLines: Int) {
+        tailer = SparkLogTailer({ offset, size ->
+            synchronized(fetchedRanges) { fetchedRanges.add(Pair(offset, size)) }
+
+            if (offset >= log.length) {
+                Observable.empty()
+            } else {
+                Observable.just(SimpleImmutableEntry(log.substring(offset.toInt(), minOf(log.length, (offset + size).toInt())), offset))
+            }
+        }, maxBufferedLines, 1000, scheduler)
+    }
+
+    @Given("^the Spark job log has (\\d+) lines of (\\d+) characters$")
+    fun appendLog(lineCount: Int, lineLength: Int) {
+        val start = log.length
+
+        repeat(lineCount) { log.append("%0${lineLength}d\n".format(start + it)) }
+    }
+
+    @When("^start tailing the Spark job log$")
+    fun startTailing() {
+        tailing = tailer!!.fetch().subscribe()
+    }
+
+    @When("^stop tailing the Spark job log$")
+    fun stopTailing() {
+        tailing!!.unsubscribe()
+    }
+
+    @When("^wait until the Spark log tailer offset reaches the log end$")
+    fun waitUntilLogEnd() {
+        val deadline = System.currentTimeMillis() + 10000
+
+        while (tailer!!.offset < log.length && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10)
+        }
+
+        assertThat(tailer!!.offset).isEqualTo(log.length.toLong())
+    }
+
+    @When("^advance the Spark log tailer time by (\\d+)ms$")
+    fun advanceTime(ms: Long) {
+        scheduler.advanceTimeBy(ms, TimeUnit.MILLISECONDS)
+    }
+
+    @Then("^the Spark log tailer chunk size should be more than (\\d+)$")
+    fun checkChunkSizeGrown(size: Int) {
+        assertThat(synchronized(fetchedRanges) { fetchedRanges.map { it.second }.max() }).isGreaterThan(size)
+    }
+
+    @Then("^no Spark log range should be fetched twice$")
+    fun checkNoRangeFetchedTwice() {
+        val nonEmptyOffsets = synchronized(fetchedRanges) { fetchedRanges.map { it.first }.filter { it < log.length } }
+
+        assertThat(nonEmptyOffsets).doesNotHaveDuplicates()
+    }
+
+    @Then("^draining (\\d+) Spark log lines should get$")
+    fun checkDrained(maxLines: Int, expect: List<String>) {
+        assertThat(tailer!!.drain(maxLines)).containsExactlyElementsOf(expect)
+    }
+
+    @Then("^draining all Spark log lines should get (\\d+) lines$")
+    fun checkDrainedCount(expect: Int) {
+        assertThat(tailer!!.drain(Int.MAX_VALUE)).hasSize(expect)
+    }
+}
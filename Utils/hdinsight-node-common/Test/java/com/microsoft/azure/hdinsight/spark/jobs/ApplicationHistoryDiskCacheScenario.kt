@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.spark.jobs
+
+import com.microsoft.azure.hdinsight.sdk.cluster.IClusterDetail
+import com.microsoft.azure.hdinsight.sdk.rest.spark.stage.Stage
+import com.microsoft.azuretools.authmanage.models.SubscriptionDetail
+import cucumber.api.java.After
+import cucumber.api.java.en.Given
+import cucumber.api.java.en.Then
+import cucumber.api.java.en.When
+import org.apache.commons.io.FileUtils
+import org.assertj.core.api.Assertions.assertThat
+import java.io.File
+import java.nio.file.Files
+
+class ApplicationHistoryDiskCacheScenario {
+    private val cluster = object : IClusterDetail {
+        override fun getName(): String = "diskCacheCluster"
+        override fun getTitle(): String = "diskCacheCluster"
+        override fun getConnectionUrl(): String = "https://diskCacheCluster.azurehdinsight.net"
+        override fun getSubscription(): SubscriptionDetail? = null
+    }
+
+    private var rootDir: File = Files.createTempDirectory("appHistoryCache").toFile()
+    private var diskCache = ApplicationHistoryDiskCache(rootDir, ApplicationHistoryDiskCache.DEFAULT_MAX_SIZE_BYTES)
+
+    private fun appKey(appId: String) = ApplicationKey(cluster, appId)
+
+    private fun stages(count: Int, status: String) = (0 until count).map { id ->
+        Stage().apply {
+            stageId = id
+            this.status = status
+            name = "stage $id of a completed application with a long enough name to fill the cache"
+        }
+    }
+
+    @After
+    fun cleanUp() {
+        FileUtils.deleteQuietly(rootDir)
+    }
+
+    @Given("^an application history disk cache with max size (\\d+) bytes$")
+    fun createDiskCache(maxSizeBytes: Long) {
+        diskCache = ApplicationHistoryDiskCache(rootDir, maxSizeBytes)
+    }
+
+    @When("^put (\\d+) (\\w+) stages of application '(.+)' into the history disk cache$")
+    fun putStages(count: Int, status: String, appId: String) {
+        diskCache.put(appKey(appId), "stages", stages(count, status))
+
+        // Keep the last used times of applications apart for LRU eviction
+        Thread.sleep(20)
+    }
+
+    @When("^read the stages of application '(.+)' from the history disk cache$")
+    fun readStages(appId: String) {
+        diskCache.getList(appKey(appId), "stages", Stage::class.java)
+
+        Thread.sleep(20)
+    }
+
+    @When("^the stages cache file of application '(.+)' is corrupted$")
+    fun corruptStages(appId: String) {
+        val file = rootDir.walk().first { it.isFile && it.name.startsWith("stages") }
+
+        file.writeText("not a cache file of $appId")
+    }
+
+    @Then("^the history disk cache should have (\\d+) (\\w+) stages of application '(.+)'$")
+    fun checkStages(count: Int, status: String, appId: String) {
+        val cached = diskCache.getList(appKey(appId), "stages", Stage::class.java)
+
+        assertThat(cached).isNotNull
+        assertThat(cached!!.map { it.stageId }).isEqualTo((0 until count).toList())
+        assertThat(cached.map { it.status }.distinct()).containsExactly(status)
+    }
+
+    @Then("^the history disk cache should have no stages of application '(.+)'$")
+    fun checkNoStages(appId: String) {
+        assertThat(diskCache.getList(appKey(appId), "stages", Stage::class.java)).isNull()
+    }
+
+    @Then("^the history disk cache size should be between (\\d+) and (\\d+) bytes$")
+    fun checkSize(min: Long, max: Long) {
+        assertThat(diskCache.sizeBytes).isBetween(min, max)
+        assertThat(FileUtils.sizeOfDirectory(rootDir)).isEqualTo(diskCache.sizeBytes)
+    }
+
+    @Then("^a new history disk cache on the same folder should have (\\d+) (\\w+) stages of application '(.+)'$")
+    fun checkStagesAfterRestart(count: Int, status: String, appId: String) {
+        diskCache = ApplicationHistoryDiskCache(rootDir, ApplicationHistoryDiskCache.DEFAULT_MAX_SIZE_BYTES)
+
+        checkStages(count, status, appId)
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.spark.jobs
+
+import com.github.tomakehurst.wiremock.client.WireMock
+import com.microsoft.azure.hdinsight.common.JobViewManager
+import com.microsoft.azure.hdinsight.sdk.cluster.IClusterDetail
+import com.microsoft.azure.hdinsight.spark.common.MockHttpService
+import com.microsoft.azuretools.authmanage.models.SubscriptionDetail
+import cucumber.api.java.Before
+import cucumber.api.java.en.Given
+import cucumber.api.java.en.Then
+import org.assertj.core.api.Assertions.assertThat
+import java.util.*
+
+class JobViewCacheManagerScenario {
+    private val jsonHeader = mapOf("Content-Type" to "application/json")
+    private var httpServerMock = MockHttpService()
+    private lateinit var cluster: IClusterDetail
+    private var appId = ""
+
+    // The resource paths are appended to the applications endpoint with a leading slash
+    private fun historyPath(path: String) = "/sparkhistory/api/v1/applications/$path"
+
+    @Before
+    fun setUp() {
+        httpServerMock = MockHttpService()
+        appId = "application_" + UUID.randomUUID().toString().replace("-", "")
+
+        val clusterName = "cluster-$appId"
+        val connectionUrl = httpServerMock.completeUrl("/")
+        cluster = object : IClusterDetail {
+            override fun getName(): String = clusterName
+            override fun getTitle(): String = clusterName
+            override fun getConnectionUrl(): String = connectionUrl
+            override fun getSubscription(): SubscriptionDetail? = null
+            override fun getHttpUserName(): String = "user"
+            override fun getHttpPassword(): String = "password"
+        }
+
+        JobViewManager.registerJovViewNode(clusterName, cluster)
+    }
+
+    @Given("^the Spark history server has the application with completed status (true|false)$")
+    fun mockApplication(completed: Boolean) {
+        httpServerMock.stubWithHeader("GET", historyPath(""), 200,
+                """[{"id":"$appId","attempts":[{"attemptId":"1","completed":"$completed"}]}]""", jsonHeader)
+    }
+
+    @Given("^the Spark history server has the application stages$")
+    fun mockStages(stages: Map<Int, String>) {
+        httpServerMock.stubWithHeader("GET", historyPath("/$appId/1/stages"), 200,
+                stages.entries.joinToString(",", "[", "]") { (id, status) ->
+                    """{"stageId":$id,"attemptId":0,"status":"$status"}"""
+                },
+                jsonHeader)
+    }
+
+    @Given("^the Spark history server has the tasks (.+) of stage (\\d+)$")
+    fun mockStageTasks(taskIds: List<String>, stageId: Int) {
+        httpServerMock.stubWithHeader("GET", historyPath("/$appId/1/stages/$stageId/0/taskList"), 200,
+                taskIds.joinToString(",", "[", "]") { """{"taskId":"$it"}""" },
+                jsonHeader)
+    }
+
+    @Then("^getting the application tasks from the job view cache should be (.+)$")
+    fun checkTasks(taskIds: List<String>) {
+        val tasks = JobViewCacheManager.getTasks(ApplicationKey(cluster, appId))
+
+        assertThat(tasks.map { it.taskId }).isEqualTo(taskIds)
+    }
+
+    @Then("^the tasks of stage (\\d+) should be fetched (\\d+) times?$")
+    fun checkStageTasksFetches(stageId: Int, times: Int) {
+        WireMock.configureFor(httpServerMock.port)
+        WireMock.verify(times, WireMock.getRequestedFor(
+                WireMock.urlEqualTo(historyPath("/$appId/1/stages/$stageId/0/taskList"))))
+    }
+
+    @Then("^getting the application stages from the job view cache twice should fetch them once$")
+    fun checkStagesCached() {
+        val key = ApplicationKey(cluster, appId)
+        val stages = JobViewCacheManager.getStages(key)
+
+        assertThat(JobViewCacheManager.getStages(ApplicationKey(cluster, appId))).isSameAs(stages)
+
+        WireMock.configureFor(httpServerMock.port)
+        WireMock.verify(1, WireMock.getRequestedFor(WireMock.urlEqualTo(historyPath("/$appId/1/stages"))))
+    }
+
+    @Then("^the job view cache stats should have '(.+)' with hits and misses$")
+    fun checkCacheStats(cacheName: String) {
+        val stats = JobViewCacheManager.getCacheStats()[cacheName]
+
+        assertThat(stats).isNotNull
+        assertThat(stats!!["hitCount"] as Long).isGreaterThan(0)
+        assertThat(stats["missCount"] as Long).isGreaterThan(0)
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.spark.jobs
+
+import com.sun.net.httpserver.HttpServer
+import cucumber.api.java.After
+import cucumber.api.java.Before
+import cucumber.api.java.en.Given
+import cucumber.api.java.en.Then
+import cucumber.api.java.en.When
+import org.assertj.core.api.Assertions.assertThat
+import rx.Observable
+import rx.observers.TestSubscriber
+import rx.schedulers.TestScheduler
+import java.net.HttpURLConnection
+import java.net.InetSocketAddress
+import java.net.URL
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.zip.GZIPInputStream
+
+class JobViewHttpResponderScenario {
+    private val scheduler = TestScheduler()
+    private val upstreamCalls = AtomicInteger()
+    private var subscribers = listOf<TestSubscriber<String>>()
+    private var server: HttpServer? = null
+    private var responseBody = ""
+    private var connection: HttpURLConnection? = null
+    private var eTag: String? = null
+
+    @Before
+    fun setUp() {
+        upstreamCalls.set(0)
+    }
+
+    @After
+    fun cleanUp() {
+        server?.stop(0)
+    }
+
+    @When("^(\\d+) identical job view requests '(.+)' are in flight$")
+    fun sendIdenticalRequests(count: Int, requestKey: String) {
+        subscribers = (1..count).map {
+            TestSubscriber<String>().apply {
+                JobViewHttpResponder.coalesce(requestKey, {
+                    "response ${upstreamCalls.incrementAndGet()}"
+                }, scheduler).subscribe(this)
+            }
+        }
+    }
+
+    @Then("^the upstream of job view requests should be called (\\d+) times? after the scheduler runs$")
+    fun checkUpstreamCalls(times: Int) {
+        scheduler.triggerActions()
+
+        assertThat(upstreamCalls.get()).isEqualTo(times)
+    }
+
+    @Then("^all the identical job view requests should get '(.+)'$")
+    fun checkResponses(expect: String) {
+        subscribers.forEach {
+            it.assertValue(expect)
+            it.assertCompleted()
+        }
+    }
+
+    @Then("^no job view request '(.+)' should be in flight$")
+    fun checkNoInFlight(requestKey: String) {
+        assertThat(JobViewHttpResponder.coalesce(requestKey, { "new" }, scheduler))
+                .isNotSameAs(JobViewHttpResponder.coalesce(requestKey, { "new" }, scheduler))
+
+        subscribers = listOf(TestSubscriber<String>().apply {
+            JobViewHttpResponder.coalesce(requestKey, { "response ${upstreamCalls.incrementAndGet()}" }, scheduler)
+                    .subscribe(this)
+        })
+    }
+
+    @Given("^a job view responder server responding (\\d+) characters of '(.)'$")
+    fun startServer(length: Int, char: String) {
+        responseBody = char.repeat(length)
+        server = HttpServer.create(InetSocketAddress("localhost", 0), 0).apply {
+            createContext("/ok") { JobViewHttpResponder.respond(it, Observable.just(responseBody)) }
+            createContext("/error") { JobViewHttpResponder.respond(it, Observable.error(IllegalStateException("upstream broken"))) }
+            start()
+        }
+    }
+
+    @When("^request the job view responder server '(.+)' with headers$")
+    fun requestServer(path: String, headers: Map<String, String>) {
+        connection = (URL("http://localhost:${server!!.address.port}$path").openConnection() as HttpURLConnection).apply {
+            headers.forEach { (name, value) -> setRequestProperty(name, value.replace("<last ETag>", eTag ?: "")) }
+            connect()
+        }
+
+        eTag = connection!!.getHeaderField("ETag") ?: eTag
+    }
+
+    @Then("^the job view responder status should be (\\d+) with encoding '(.*)'$")
+    fun checkStatus(code: Int, encoding: String) {
+        assertThat(connection!!.responseCode).isEqualTo(code)
+        assertThat(connection!!.getHeaderField("Content-Encoding") ?: "").isEqualTo(encoding)
+    }
+
+    @Then("^the job view responder body should be the response$")
+    fun checkBody() {
+        val stream = if (connection!!.getHeaderField("Content-Encoding") == "gzip") {
+            GZIPInputStream(connection!!.inputStream)
+        } else {
+            connection!!.inputStream
+        }
+
+        assertThat(stream.use { it.readBytes().toString(Charsets.UTF_8) }).isEqualTo(responseBody)
+    }
+
+    @Then("^the job view responder error should be '(.+)'$")
+    fun checkError(message: String) {
+        assertThat(connection!!.errorStream.use { it.readBytes().toString(Charsets.UTF_8) }).isEqualTo(message)
+    }
+}
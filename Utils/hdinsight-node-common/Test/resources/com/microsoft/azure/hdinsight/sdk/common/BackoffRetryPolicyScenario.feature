@@ -0,0 +1,48 @@
+Feature: Backoff Retry Policy Tests
+
+  Scenario: The retry delays grow exponentially until the max delay
+    Given create a backoff retry policy with 5 retries, initial delay 1000ms, max delay 5000ms, jitter 0 and budget 60000ms
+    Then the retry delays of the policy should be
+      | 1 | 1000 |
+      | 2 | 2000 |
+      | 3 | 4000 |
+      | 4 | 5000 |
+
+  Scenario: The retry delays are reduced by jitter
+    Given create a backoff retry policy with 5 retries, initial delay 1000ms, max delay 5000ms, jitter 0.5 and budget 60000ms
+    Then the retry delays of the policy should be between half and full of
+      | 1 | 1000 |
+      | 2 | 2000 |
+      | 3 | 4000 |
+
+  Scenario: The failed call is retried by timers until success
+    Given create a backoff retry policy with 3 retries, initial delay 1000ms, max delay 5000ms, jitter 0 and budget 60000ms
+    When subscribe a call failing with IOException 2 times with the policy
+    Then the call should be attempted 1 times
+    When advance the time by 1000ms
+    Then the call should be attempted 2 times
+    When advance the time by 1999ms
+    Then the call should be attempted 2 times
+    When advance the time by 1ms
+    Then the call should be attempted 3 times
+    And the call should get 'done'
+
+  Scenario: The retries stop when the retry count is used up
+    Given create a backoff retry policy with 2 retries, initial delay 1000ms, max delay 5000ms, jitter 0 and budget 60000ms
+    When subscribe a call failing with IOException 5 times with the policy
+    And advance the time by 10000ms
+    Then the call should be attempted 3 times
+    And the call should fail with message 'exhausted after 2 retries'
+
+  Scenario: The retries stop when the budget is used up
+    Given create a backoff retry policy with 10 retries, initial delay 1000ms, max delay 5000ms, jitter 0 and budget 3500ms
+    When subscribe a call failing with IOException 5 times with the policy
+    And advance the time by 10000ms
+    Then the call should be attempted 3 times
+    And the call should fail with message 'exhausted after 2 retries'
+
+  Scenario: The non-retriable error is not retried
+    Given create a backoff retry policy with 3 retries, initial delay 1000ms, max delay 5000ms, jitter 0 and budget 60000ms
+    When subscribe a call failing with IllegalStateException 1 times with the policy
+    Then the call should be attempted 1 times
+    And the call should fail with message 'bad'
@@ -0,0 +1,17 @@
+Feature: Http Connection Pools Tests
+
+  Scenario: The HttpObservables reuse the kept-alive connection to the same host
+    Given the mocked HTTP server responds '{}' to GET '/pooled'
+    When 5 new HttpObservables send GET '/pooled' one by one
+    Then the pooled connections to the mocked HTTP server should be 0 leased and 1 available
+    And the total pooled connections should include the mocked HTTP server ones
+
+  Scenario: The HttpObservables with different SSL settings are pooled separately
+    Given the mocked HTTP server responds '{}' to GET '/pooled'
+    When 3 new HttpObservables send GET '/pooled' one by one
+    And 3 new OAuthTokenHttpObservables send GET '/pooled' one by one
+    Then the pooled connections to the mocked HTTP server should be 0 leased and 2 available
+
+  Scenario: The bad max connections are rejected
+    Then setting 0 max pooled connections and 1 per route should be rejected
+    And setting 10 max pooled connections and 20 per route should be rejected
@@ -0,0 +1,31 @@
+Feature: ClusterFilePipelinedOutputStream tests
+
+  Scenario: Upload deflated pages with mocked Livy session
+    Given create a mocked Livy session for ClusterFilePipelinedOutputStream
+    And create a Spark cluster file pipelined output stream '/tmp/test.jar' with page size from 1KB to 4KB, 2 statements in flight and deflate enabled
+    Then uploading 20000 random bytes with seed 42 through the pipelined output stream
+    Then check the page sizes sent to Livy session should be 1024, 2048, 4096, 4096, 4096, 4096, 544
+    And check the pages sent to Livy session should be reassembled into the uploaded bytes
+    And check the last statement sent to Livy session should verify 7 pages, 20000 bytes and the MD5 of the uploaded bytes
+
+  Scenario: Upload raw pages with mocked Livy session
+    Given create a mocked Livy session for ClusterFilePipelinedOutputStream
+    And create a Spark cluster file pipelined output stream '/tmp/test.jar' with page size from 4KB to 4KB, 1 statements in flight and deflate disabled
+    Then uploading 10000 random bytes with seed 7 through the pipelined output stream
+    Then check the page sizes sent to Livy session should be 4096, 4096, 1808
+    And check the pages sent to Livy session should be reassembled into the uploaded bytes
+    And check the last statement sent to Livy session should verify 3 pages, 10000 bytes and the MD5 of the uploaded bytes
+
+  Scenario: Large pages are split into string literals within the JVM constant limit
+    Given create a mocked Livy session for ClusterFilePipelinedOutputStream
+    And create a Spark cluster file pipelined output stream '/tmp/test.jar' with page size from 64KB to 1024KB, 4 statements in flight and deflate enabled
+    Then uploading 3000000 random bytes with seed 11 through the pipelined output stream
+    Then check the page sizes sent to Livy session should be 65536, 131072, 262144, 524288, 1048576, 968384
+    And check every string literal sent to Livy session should be shorter than 65535 bytes
+    And check the pages sent to Livy session should be reassembled into the uploaded bytes
+    And check the last statement sent to Livy session should verify 6 pages, 3000000 bytes and the MD5 of the uploaded bytes
+
+  Scenario: Page statement failure is thrown when closing
+    Given create a mocked Livy session for ClusterFilePipelinedOutputStream which fails page statements
+    And create a Spark cluster file pipelined output stream '/tmp/test.jar' with page size from 1KB to 1KB, 2 statements in flight and deflate enabled
+    Then check uploading 1000 random bytes through the pipelined output stream should throw IOException
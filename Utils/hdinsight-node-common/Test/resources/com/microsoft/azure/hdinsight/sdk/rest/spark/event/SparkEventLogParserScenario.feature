@@ -0,0 +1,25 @@
+Feature: Spark Event Log Parser Tests
+
+  Scenario: The event name is matched without binding the line
+    Then the Spark event name of line '{"Event":"SparkListenerJobStart","Job ID":0}' should be 'SparkListenerJobStart'
+    Then the Spark event name of line '{"Job ID":0,"Stage Infos":[{"Event":"Nested"}],"Event":"SparkListenerJobEnd"}' should be 'SparkListenerJobEnd'
+    Then the Spark event name of line '{"Job ID":0}' should be ''
+    Then the Spark event name of line '{"Event":1}' should be ''
+    Then the Spark event name of line 'not a JSON' should be ''
+    Then the Spark event name of line '   ' should be ''
+
+  Scenario: Only the job start events are bound
+    Given a Spark event log with lines
+      | {"Event":"SparkListenerLogStart","Spark Version":"2.3.0"}                                     |
+      | {"Event":"SparkListenerJobStart","Job ID":0,"Submission Time":1,"Stage IDs":[0,1]}            |
+      | {"Event":"SparkListenerTaskEnd","Stage ID":0,"Task Info":{"Event":"SparkListenerJobStart"}}   |
+      | {"Job ID":1,"Event":"SparkListenerJobStart","Stage IDs":[2]}                                  |
+      | {"Event":"SparkListenerJobStart","Job ID":                                                    |
+      | {"Event":"SparkListenerJobEnd","Job ID":0}                                                    |
+    Then the parsed Spark job start events should have job IDs 0, 1
+
+  Scenario: The event log is read lazily and closed when unsubscribed
+    Given a Spark event log with lines
+      | {"Event":"SparkListenerJobStart","Job ID":3}                                                  |
+      | {"Event":"SparkListenerJobStart","Job ID":4}                                                  |
+    Then taking the first parsed Spark job start event should get job ID 3 and close the event log
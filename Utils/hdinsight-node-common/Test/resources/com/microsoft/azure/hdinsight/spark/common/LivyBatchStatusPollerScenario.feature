@@ -0,0 +1,39 @@
+Feature: Livy Batch Status Poller Tests
+
+  Scenario: Livy Batch Status Poller fans the listed states out to the watched batches
+    Given create a Livy batch status poller getting up to 0 watched batches one by one
+    And mock Livy batches listing '/batches?from=0&size=100' to return '{"from":0,"total":3,"sessions":[{"id":1,"state":"success","appId":"application_1","log":[]},{"id":2,"state":"dead","appId":"application_2","log":[]},{"id":3,"state":"running","appId":"application_3","log":[]}]}'
+    Then watching Livy batches 1, 2 until done should get states success, dead
+    And Livy batches listing '/batches?from=0&size=100' should be requested
+
+  Scenario: Livy Batch Status Poller lists the next page for the batches not found
+    Given create a Livy batch status poller getting up to 0 watched batches one by one
+    And mock Livy batches listing '/batches?from=0&size=100' to return '{"from":0,"total":2,"sessions":[{"id":1,"state":"running","appId":"application_1","log":[]}]}'
+    And mock Livy batches listing '/batches?from=1&size=100' to return '{"from":1,"total":2,"sessions":[{"id":7,"state":"success","appId":"application_7","log":[]}]}'
+    Then watching Livy batches 7 until done should get states success
+    And Livy batches listing '/batches?from=1&size=100' should be requested
+
+  Scenario: Livy Batch Status Poller reports the batch missing from the listing
+    Given create a Livy batch status poller getting up to 0 watched batches one by one
+    And mock Livy batches listing '/batches?from=0&size=100' to return '{"from":0,"total":1,"sessions":[{"id":1,"state":"running","appId":"application_1","log":[]}]}'
+    Then watching Livy batch 9 should fail with message 'The Spark batch job 9 isn't found'
+
+  Scenario: Livy Batch Status Poller lists the batches from the tail
+    Given create a Livy batch status poller getting up to 0 watched batches one by one
+    And mock Livy batches listing '/batches?from=0&size=100' to return '{"from":0,"total":300,"sessions":[{"id":0,"state":"success","appId":"application_0","log":[]}]}'
+    And mock Livy batches listing '/batches?from=299&size=100' to return '{"from":299,"total":300,"sessions":[{"id":299,"state":"success","appId":"application_299","log":[]}]}'
+    Then watching Livy batches 299 until done should get states success
+    And Livy batches listing '/batches?from=299&size=100' should be requested
+    And Livy batches listing '/batches?from=1&size=100' should not be requested
+
+  Scenario: Livy Batch Status Poller gets a few watched batches one by one
+    Given create a Livy batch status poller getting up to 3 watched batches one by one
+    And mock Livy batches listing '/batches/4' to return '{"id":4,"state":"success","appId":"application_4","log":[]}'
+    And mock Livy batches listing '/batches/5' to return '{"id":5,"state":"dead","appId":"application_5","log":[]}'
+    Then watching Livy batches 4, 5 until done should get states success, dead
+    And Livy batches listing '/batches/4' should be requested
+    And Livy batches listing '/batches?from=0&size=100' should not be requested
+
+  Scenario: Livy Batch Status Poller is shared per batches URI and submission
+    Given mock Livy batches listing '/batches/1' to return '{"id":1,"state":"success","appId":"application_1","log":[]}'
+    Then the shared Livy batch status pollers should be per batches URI and submission, and released when idle
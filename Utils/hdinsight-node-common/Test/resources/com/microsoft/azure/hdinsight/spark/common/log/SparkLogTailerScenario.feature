@@ -0,0 +1,35 @@
+Feature: Spark Log Tailer Tests
+
+  Scenario: Spark Log Tailer splits the log into lines and grows the chunk size for a chatty log
+    Given create a Spark log tailer with max 100000 buffered lines
+    And the Spark job log has 5000 lines of 9 characters
+    When start tailing the Spark job log
+    And wait until the Spark log tailer offset reaches the log end
+    Then the Spark log tailer chunk size should be more than 4096
+    And draining 2 Spark log lines should get
+      | 000000000 |
+      | 000000001 |
+    And draining all Spark log lines should get 4998 lines
+
+  Scenario: Spark Log Tailer continues from the offset after reconnection
+    Given create a Spark log tailer with max 100000 buffered lines
+    And the Spark job log has 100 lines of 9 characters
+    When start tailing the Spark job log
+    And wait until the Spark log tailer offset reaches the log end
+    And stop tailing the Spark job log
+    And the Spark job log has 2 lines of 9 characters
+    And start tailing the Spark job log
+    And wait until the Spark log tailer offset reaches the log end
+    Then no Spark log range should be fetched twice
+    And draining all Spark log lines should get 102 lines
+
+  Scenario: Spark Log Tailer drops the oldest lines with a summary when the consumer falls behind
+    Given create a Spark log tailer with max 3 buffered lines
+    And the Spark job log has 5 lines of 9 characters
+    When start tailing the Spark job log
+    And wait until the Spark log tailer offset reaches the log end
+    Then draining 10 Spark log lines should get
+      | ... 2 log lines are skipped since the console can't catch up ... |
+      | 000000002 |
+      | 000000003 |
+      | 000000004 |
@@ -0,0 +1,33 @@
+Feature: Application History Disk Cache Tests
+
+  Scenario: The history survives the restart
+    Given an application history disk cache with max size 1048576 bytes
+    When put 100 COMPLETE stages of application 'application_01' into the history disk cache
+    Then the history disk cache should have 100 COMPLETE stages of application 'application_01'
+    And the history disk cache should have no stages of application 'application_02'
+    And a new history disk cache on the same folder should have 100 COMPLETE stages of application 'application_01'
+
+  Scenario: The history is compressed and replaced
+    Given an application history disk cache with max size 1048576 bytes
+    When put 100 COMPLETE stages of application 'application_01' into the history disk cache
+    And put 100 FAILED stages of application 'application_01' into the history disk cache
+    Then the history disk cache should have 100 FAILED stages of application 'application_01'
+    And the history disk cache size should be between 1 and 8192 bytes
+
+  Scenario: The least recently used application is evicted when oversize
+    Given an application history disk cache with max size 2500 bytes
+    When put 100 COMPLETE stages of application 'application_01' into the history disk cache
+    And put 100 COMPLETE stages of application 'application_02' into the history disk cache
+    And read the stages of application 'application_01' from the history disk cache
+    And put 100 COMPLETE stages of application 'application_03' into the history disk cache
+    Then the history disk cache should have 100 COMPLETE stages of application 'application_01'
+    And the history disk cache should have no stages of application 'application_02'
+    And the history disk cache should have 100 COMPLETE stages of application 'application_03'
+    And the history disk cache size should be between 1 and 2500 bytes
+
+  Scenario: The corrupted history is dropped
+    Given an application history disk cache with max size 1048576 bytes
+    When put 10 COMPLETE stages of application 'application_01' into the history disk cache
+    And the stages cache file of application 'application_01' is corrupted
+    Then the history disk cache should have no stages of application 'application_01'
+    And the history disk cache size should be between 0 and 0 bytes
@@ -0,0 +1,38 @@
+Feature: Job View Cache Manager Tests
+
+  Background:
+    Given the Spark history server has the tasks 1, 2 of stage 0
+    And the Spark history server has the tasks 3 of stage 1
+    And the Spark history server has the tasks 4, 5 of stage 2
+
+  Scenario: Only the tasks of the running stages are fetched again
+    Given the Spark history server has the application with completed status false
+    And the Spark history server has the application stages
+      | 2 | ACTIVE   |
+      | 1 | COMPLETE |
+      | 0 | COMPLETE |
+    Then getting the application tasks from the job view cache should be 4, 5, 3, 1, 2
+    And getting the application tasks from the job view cache should be 4, 5, 3, 1, 2
+    And the tasks of stage 2 should be fetched 2 times
+    And the tasks of stage 1 should be fetched 1 time
+    And the tasks of stage 0 should be fetched 1 time
+    And the job view cache stats should have 'stageTasks' with hits and misses
+
+  Scenario: The failed and skipped stages are completed too
+    Given the Spark history server has the application with completed status true
+    And the Spark history server has the application stages
+      | 2 | SKIPPED  |
+      | 1 | FAILED   |
+      | 0 | COMPLETE |
+    Then getting the application tasks from the job view cache should be 4, 5, 3, 1, 2
+    And getting the application tasks from the job view cache should be 4, 5, 3, 1, 2
+    And the tasks of stage 2 should be fetched 1 time
+    And the tasks of stage 1 should be fetched 1 time
+    And the tasks of stage 0 should be fetched 1 time
+
+  Scenario: The application key hits the cache
+    Given the Spark history server has the application with completed status true
+    And the Spark history server has the application stages
+      | 0 | COMPLETE |
+    Then getting the application stages from the job view cache twice should fetch them once
+    And the job view cache stats should have 'stages' with hits and misses
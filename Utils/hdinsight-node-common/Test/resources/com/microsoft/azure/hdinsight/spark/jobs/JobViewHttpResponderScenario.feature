@@ -0,0 +1,43 @@
+Feature: Job View Http Responder Tests
+
+  Scenario: The identical requests in flight share one upstream call
+    When 3 identical job view requests 'cluster|app_1|stages_summary' are in flight
+    Then the upstream of job view requests should be called 1 time after the scheduler runs
+    And all the identical job view requests should get 'response 1'
+    And no job view request 'cluster|app_1|stages_summary' should be in flight
+    And the upstream of job view requests should be called 2 times after the scheduler runs
+    And all the identical job view requests should get 'response 2'
+
+  Scenario: The large response is gzipped if accepted
+    Given a job view responder server responding 4096 characters of 'a'
+    When request the job view responder server '/ok' with headers
+      | Accept-Encoding | gzip, deflate |
+    Then the job view responder status should be 200 with encoding 'gzip'
+    And the job view responder body should be the response
+
+  Scenario: The small response or the one not accepting gzip is plain
+    Given a job view responder server responding 100 characters of 'a'
+    When request the job view responder server '/ok' with headers
+      | Accept-Encoding | gzip |
+    Then the job view responder status should be 200 with encoding ''
+    And the job view responder body should be the response
+
+  Scenario: The conditional request with the same ETag isn't responded the body
+    Given a job view responder server responding 4096 characters of 'b'
+    When request the job view responder server '/ok' with headers
+      | Accept-Encoding | identity |
+    Then the job view responder status should be 200 with encoding ''
+    And the job view responder body should be the response
+    When request the job view responder server '/ok' with headers
+      | If-None-Match | <last ETag> |
+    Then the job view responder status should be 304 with encoding ''
+    When request the job view responder server '/ok' with headers
+      | If-None-Match | "stale" |
+    Then the job view responder status should be 200 with encoding ''
+
+  Scenario: The upstream error is responded with status 500
+    Given a job view responder server responding 1 characters of 'c'
+    When request the job view responder server '/error' with headers
+      | Accept-Encoding | gzip |
+    Then the job view responder status should be 500 with encoding ''
+    And the job view responder error should be 'upstream broken'
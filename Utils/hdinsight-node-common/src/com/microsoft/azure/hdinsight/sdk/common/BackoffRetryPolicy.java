@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.sdk.common;
+
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import rx.Observable;
+import rx.Scheduler;
+import rx.functions.Func1;
+import rx.functions.Func2;
+import rx.schedulers.Schedulers;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The retry policy with exponential backoff delays, jitter and a retry budget, for {@link Observable#retryWhen}.
+ *
+ * The delays are Rx timers, so no thread is blocked between the attempts: the n-th retry waits for
+ * {@code min(initialDelay * multiplier^(n-1), maxDelay)} reduced by a random part of up to {@code jitter} of it,
+ * which keeps the jobs failed together from retrying in lockstep. The retries stop when either the max retry count or
+ * the total backoff time budget is used up.
+ */
+public class BackoffRetryPolicy {
+    public static final double DEFAULT_MULTIPLIER = 2;
+    public static final double DEFAULT_JITTER = 0.5;
+    public static final long DEFAULT_MAX_DELAY_MS = TimeUnit.MINUTES.toMillis(1);
+    public static final long DEFAULT_BUDGET_MS = TimeUnit.MINUTES.toMillis(2);
+
+    private final int maxRetries;
+
+    private final long initialDelayMs;
+
+    private final long maxDelayMs;
+
+    private final double multiplier;
+
+    private final double jitter;
+
+    private final long budgetMs;
+
+    @NotNull
+    private final Scheduler scheduler;
+
+    public BackoffRetryPolicy(final int maxRetries,
+                              final long initialDelayMs,
+                              final long maxDelayMs,
+                              final double multiplier,
+                              final double jitter,
+                              final long budgetMs,
+                              @NotNull final Scheduler scheduler) {
+        if (maxRetries < 0 || initialDelayMs < 0 || maxDelayMs < initialDelayMs || multiplier < 1
+                || jitter < 0 || jitter > 1 || budgetMs < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Bad retry policy: %d retries, delay %dms ~ %dms, multiplier %f, jitter %f, budget %dms.",
+                    maxRetries, initialDelayMs, maxDelayMs, multiplier, jitter, budgetMs));
+        }
+
+        this.maxRetries = maxRetries;
+        this.initialDelayMs = initialDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.multiplier = multiplier;
+        this.jitter = jitter;
+        this.budgetMs = budgetMs;
+        this.scheduler = scheduler;
+    }
+
+    public BackoffRetryPolicy(final int maxRetries, final long initialDelayMs) {
+        this(maxRetries,
+             initialDelayMs,
+             Math.max(initialDelayMs, DEFAULT_MAX_DELAY_MS),
+             DEFAULT_MULTIPLIER,
+             DEFAULT_JITTER,
+             DEFAULT_BUDGET_MS,
+             Schedulers.computation());
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Get the delay before the retry, with jitter applied.
+     *
+     * @param retry the retry number, starts from 1
+     * @return the delay in milliseconds
+     */
+    public long getDelayMs(final int retry) {
+        final double backoff = Math.min(initialDelayMs * Math.pow(multiplier, Math.max(retry - 1, 0)), maxDelayMs);
+
+        return (long) (backoff * (1 - jitter * ThreadLocalRandom.current().nextDouble()));
+    }
+
+    /**
+     * Whether the error is worth another try, only the IO errors are retried by default.
+     */
+    protected boolean isRetriable(@NotNull final Throwable err) {
+        return err instanceof IOException;
+    }
+
+    /**
+     * The notification handler for {@link Observable#retryWhen}. The non-retriable error is passed through, and the
+     * last error is passed to {@code onExhausted} with the retried count to build the final error when the retry count
+     * or the budget is used up.
+     *
+     * @param onExhausted the final error factory with the retried count and the last error
+     * @return the retryWhen notification handler
+     */
+    @NotNull
+    public Func1<Observable<? extends Throwable>, Observable<?>> retryWhen(
+            @NotNull final Func2<Integer, Throwable, Throwable> onExhausted) {
+        return errors -> {
+            // The handler is called once per subscription, and the errors come in sequence
+            final RetryState state = new RetryState();
+
+            return errors.flatMap(err -> {
+                if (!isRetriable(err)) {
+                    return Observable.error(err);
+                }
+
+                final long delayMs = getDelayMs(state.retries + 1);
+
+                if (state.retries >= maxRetries || state.backoffMs + delayMs > budgetMs) {
+                    return Observable.error(onExhausted.call(state.retries, err));
+                }
+
+                state.retries++;
+                state.backoffMs += delayMs;
+
+                return Observable.timer(delayMs, TimeUnit.MILLISECONDS, scheduler);
+            });
+        };
+    }
+
+    private static class RetryState {
+        private int retries = 0;
+        private long backoffMs = 0;
+    }
+}
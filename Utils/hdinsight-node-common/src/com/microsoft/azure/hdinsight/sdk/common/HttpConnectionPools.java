@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.sdk.common;
+
+import com.microsoft.azure.hdinsight.common.logger.ILogger;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.service.ServiceManager;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.DefaultHostnameVerifier;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.client.IdleConnectionEvictor;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.ssl.SSLContextBuilder;
+import org.apache.http.ssl.TrustStrategy;
+
+import javax.net.ssl.SSLContext;
+import java.security.KeyManagementException;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The process-wide pooled HTTP connection managers shared by all {@link HttpObservable}s.
+ *
+ * The connections are pooled by route (scheme, host and port), so the requests to the same cluster or service reuse
+ * the kept-alive connections instead of paying a TCP and TLS handshake per HttpObservable instance. There is one
+ * connection manager per SSL setting, since the socket factories are bound to the manager. The idle connections are
+ * evicted in background.
+ */
+public final class HttpConnectionPools {
+    public static final int DEFAULT_MAX_TOTAL = 200;
+    public static final int DEFAULT_MAX_PER_ROUTE = 20;
+    public static final long DEFAULT_IDLE_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(30);
+    public static final int VALIDATE_AFTER_INACTIVITY_MS = 2000;
+
+    private static final ILogger logger = new ILogger() { };
+
+    private static final ConcurrentMap<SslMode, PoolingHttpClientConnectionManager> connectionManagers =
+            new ConcurrentHashMap<>();
+
+    private static volatile int maxTotal = DEFAULT_MAX_TOTAL;
+
+    private static volatile int maxPerRoute = DEFAULT_MAX_PER_ROUTE;
+
+    private static volatile long idleTimeoutMs = DEFAULT_IDLE_TIMEOUT_MS;
+
+    /**
+     * The SSL settings of the pools
+     */
+    enum SslMode {
+        // The JVM default trust store
+        SYSTEM,
+        // The IDE trust strategy with host name verified
+        IDE_TRUST,
+        // The IDE trust strategy without host name verified
+        IDE_TRUST_NO_HOSTNAME_VERIFY
+    }
+
+    private HttpConnectionPools() {
+    }
+
+    /**
+     * Get a HTTP client builder with the shared connection manager, the client built can be closed without closing
+     * the shared connections
+     *
+     * @param useIdeTrustStrategy whether to trust the certificates by IDE trust strategy, or by JVM default trust store
+     * @return the HTTP client builder with system properties used
+     */
+    @NotNull
+    public static HttpClientBuilder custom(final boolean useIdeTrustStrategy) {
+        final SslMode sslMode = !useIdeTrustStrategy
+                ? SslMode.SYSTEM
+                : (HttpObservable.isSSLCertificateValidationDisabled()
+                   ? SslMode.IDE_TRUST_NO_HOSTNAME_VERIFY
+                   : SslMode.IDE_TRUST);
+
+        return HttpClients.custom()
+                .useSystemProperties()
+                .setConnectionManager(getConnectionManager(sslMode))
+                .setConnectionManagerShared(true);
+    }
+
+    @NotNull
+    static PoolingHttpClientConnectionManager getConnectionManager(@NotNull final SslMode sslMode) {
+        return connectionManagers.computeIfAbsent(sslMode, mode -> {
+            final Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
+                    .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                    .register("https", createSSLSocketFactory(mode))
+                    .build();
+            final PoolingHttpClientConnectionManager connectionManager =
+                    new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+
+            connectionManager.setMaxTotal(maxTotal);
+            connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+            connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MS);
+
+            final IdleConnectionEvictor evictor = new IdleConnectionEvictor(
+                    connectionManager, idleTimeoutMs, TimeUnit.MILLISECONDS, idleTimeoutMs, TimeUnit.MILLISECONDS);
+            evictor.start();
+
+            return connectionManager;
+        });
+    }
+
+    @NotNull
+    private static SSLConnectionSocketFactory createSSLSocketFactory(@NotNull final SslMode sslMode) {
+        final TrustStrategy ts = sslMode == SslMode.SYSTEM ? null : ServiceManager.getServiceProvider(TrustStrategy.class);
+
+        if (ts != null) {
+            try {
+                final SSLContext sslContext = new SSLContextBuilder()
+                        .loadTrustMaterial(ts)
+                        .build();
+
+                return new SSLConnectionSocketFactory(sslContext,
+                                                      sslMode == SslMode.IDE_TRUST_NO_HOSTNAME_VERIFY
+                                                              ? NoopHostnameVerifier.INSTANCE
+                                                              : new DefaultHostnameVerifier());
+            } catch (NoSuchAlgorithmException | KeyManagementException | KeyStoreException e) {
+                logger.log().error("Prepare SSL Context for HTTPS failure. " + ExceptionUtils.getStackTrace(e));
+            }
+        }
+
+        return SSLConnectionSocketFactory.getSystemSocketFactory();
+    }
+
+    /**
+     * Set the max connections of every pool, and the max connections per route, such as a cluster gateway
+     */
+    public static void setMaxConnections(final int maxTotal, final int maxPerRoute) {
+        if (maxTotal <= 0 || maxPerRoute <= 0 || maxPerRoute > maxTotal) {
+            throw new IllegalArgumentException(String.format(
+                    "Bad max connections %d or max connections per route %d.", maxTotal, maxPerRoute));
+        }
+
+        HttpConnectionPools.maxTotal = maxTotal;
+        HttpConnectionPools.maxPerRoute = maxPerRoute;
+
+        connectionManagers.values().forEach(connectionManager -> {
+            connectionManager.setMaxTotal(maxTotal);
+            connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        });
+    }
+
+    /**
+     * Set the idle time before a kept-alive connection is evicted, it applies to the pools created after
+     */
+    public static void setIdleTimeout(final long idleTimeout, @NotNull final TimeUnit unit) {
+        if (idleTimeout <= 0) {
+            throw new IllegalArgumentException("Bad idle timeout " + idleTimeout);
+        }
+
+        HttpConnectionPools.idleTimeoutMs = unit.toMillis(idleTimeout);
+    }
+
+    /**
+     * Get the connections stats of all pools
+     *
+     * @return the total leased, pending, available and max connections
+     */
+    @NotNull
+    public static PoolStats getTotalStats() {
+        int leased = 0;
+        int pending = 0;
+        int available = 0;
+        int max = 0;
+
+        for (final PoolingHttpClientConnectionManager connectionManager : connectionManagers.values()) {
+            final PoolStats stats = connectionManager.getTotalStats();
+
+            leased += stats.getLeased();
+            pending += stats.getPending();
+            available += stats.getAvailable();
+            max += stats.getMax();
+        }
+
+        return new PoolStats(leased, pending, available, max);
+    }
+
+    /**
+     * Get the connections stats by host
+     *
+     * @return the leased, pending, available and max connections of every host, the max is of all its routes
+     */
+    @NotNull
+    public static Map<String, PoolStats> getStatsByHost() {
+        final Map<String, PoolStats> statsByHost = new HashMap<>();
+
+        for (final PoolingHttpClientConnectionManager connectionManager : connectionManagers.values()) {
+            for (final HttpRoute route : connectionManager.getRoutes()) {
+                final PoolStats stats = connectionManager.getStats(route);
+
+                statsByHost.merge(route.getTargetHost().toHostString(), stats, (s1, s2) -> new PoolStats(
+                        s1.getLeased() + s2.getLeased(),
+                        s1.getPending() + s2.getPending(),
+                        s1.getAvailable() + s2.getAvailable(),
+                        s1.getMax() + s2.getMax()));
+            }
+        }
+
+        return statsByHost;
+    }
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.sdk.io.spark;
+
+import com.microsoft.azure.hdinsight.common.logger.ILogger;
+import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.Session;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Hex;
+import rx.schedulers.Schedulers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
+
+/**
+ * The binary output stream to upload a file into the cluster through a Livy interactive session.
+ *
+ * Different from {@link ClusterFileBase64BufferedOutputStream} which takes BASE64 encoded inputs and waits for every
+ * page statement, this stream takes the raw bytes, deflates every page and keeps several page statements in flight
+ * over the same session. The pages are numbered, the cluster side writes them in sequence whatever order they arrive,
+ * and the MD5 checksum and size of the whole file are verified at the cluster side when the stream is closed.
+ *
+ * The page size starts small to get the pipeline going and doubles after every page until the max page size.
+ */
+public class ClusterFilePipelinedOutputStream extends OutputStream implements ILogger {
+    public static final int DEFAULT_INITIAL_PAGE_SIZE_KB = 64;
+    public static final int DEFAULT_MAX_PAGE_SIZE_KB = 1024;
+    public static final int DEFAULT_MAX_STATEMENTS_IN_FLIGHT = 4;
+
+    // A Scala string literal is compiled into a JVM constant, which can't be longer than 65535 bytes
+    static final int MAX_LITERAL_LENGTH = 60000;
+
+    private final String preloadedCodes = String.join("\n",
+            "import java.io._",
+            "import java.util.Base64",
+            "import java.util.zip.Inflater",
+            "import java.security.MessageDigest",
+            "",
+            "val fileOutput = \"%s\"",
+            "val fs = org.apache.hadoop.fs.FileSystem.get(sc.hadoopConfiguration)",
+            "val fileOutputStream = fs.create(new org.apache.hadoop.fs.Path(fileOutput), true)",
+            "val out = new DataOutputStream(new BufferedOutputStream(fileOutputStream))",
+            "val outDigest = MessageDigest.getInstance(\"MD5\")",
+            "val pendingPages = scala.collection.mutable.Map[Int, Array[Byte]]()",
+            "var nextPageSeq = 0",
+            "var writtenBytes = 0L",
+            "",
+            "def decodePage(encodedBase64: String, rawSize: Int, deflated: Boolean): Array[Byte] = {",
+            "    val pageBytes = Base64.getDecoder.decode(encodedBase64)",
+            "    if (!deflated) {",
+            "        pageBytes",
+            "    } else {",
+            "        val inflater = new Inflater()",
+            "        val raw = new Array[Byte](rawSize)",
+            "        var inflated = 0",
+            "        inflater.setInput(pageBytes)",
+            "        while (inflated < rawSize && !inflater.finished() && !inflater.needsInput()) {",
+            "            inflated += inflater.inflate(raw, inflated, rawSize - inflated)",
+            "        }",
+            "        inflater.end()",
+            "        raw",
+            "    }",
+            "}",
+            "",
+            "def writeSeqPage(seq: Int, encodedBase64Parts: Seq[String], rawSize: Int, deflated: Boolean) = pendingPages.synchronized {",
+            "    pendingPages.put(seq, decodePage(encodedBase64Parts.mkString, rawSize, deflated))",
+            "    while (pendingPages.contains(nextPageSeq)) {",
+            "        val page = pendingPages.remove(nextPageSeq).get",
+            "        out.write(page, 0, page.length)",
+            "        outDigest.update(page)",
+            "        writtenBytes += page.length",
+            "        nextPageSeq += 1",
+            "    }",
+            "}",
+            "",
+            "def verifyAndClose(pages: Int, size: Long, md5: String) = pendingPages.synchronized {",
+            "    out.close()",
+            "    val actualMd5 = outDigest.digest().map(\"%%02x\".format(_)).mkString",
+            "    if (nextPageSeq != pages || writtenBytes != size || actualMd5 != md5) {",
+            "        throw new IOException(s\"Uploaded $fileOutput mismatched: expect $pages pages, $size bytes, MD5 $md5, \" +",
+            "                              s\"but got $nextPageSeq pages, $writtenBytes bytes, MD5 $actualMd5\")",
+            "    }",
+            "}");
+
+    @NotNull
+    private final Session session;
+
+    private final int maxPageSize;
+
+    private final int maxStatementsInFlight;
+
+    private final boolean isDeflateEnabled;
+
+    @NotNull
+    private final Semaphore inFlightStatements;
+
+    @NotNull
+    private final AtomicReference<Throwable> firstError = new AtomicReference<>();
+
+    @NotNull
+    private final MessageDigest digest;
+
+    @NotNull
+    private byte[] page;
+
+    private int pageLength = 0;
+
+    private int nextPageSeq = 0;
+
+    private long totalBytes = 0;
+
+    private boolean isClosed = false;
+
+    public ClusterFilePipelinedOutputStream(@NotNull Session session,
+                                            @NotNull URI destination,
+                                            final int initialPageSizeKB,
+                                            final int maxPageSizeKB,
+                                            final int maxStatementsInFlight,
+                                            final boolean isDeflateEnabled) {
+        if (initialPageSizeKB <= 0 || maxPageSizeKB < initialPageSizeKB || maxStatementsInFlight <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Bad page sizes %dKB ~ %dKB or statements in flight %d.",
+                    initialPageSizeKB, maxPageSizeKB, maxStatementsInFlight));
+        }
+
+        this.session = session;
+        this.page = new byte[initialPageSizeKB * 1024];
+        this.maxPageSize = maxPageSizeKB * 1024;
+        this.maxStatementsInFlight = maxStatementsInFlight;
+        this.inFlightStatements = new Semaphore(maxStatementsInFlight);
+        this.isDeflateEnabled = isDeflateEnabled;
+
+        try {
+            this.digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 algorithm isn't supported.", e);
+        }
+
+        // Pre-load
+        session.runCodes(String.format(preloadedCodes, destination.toString()))
+                .toBlocking()
+                .singleOrDefault(null);
+    }
+
+    public ClusterFilePipelinedOutputStream(@NotNull Session session, @NotNull URI destination) {
+        this(session,
+             destination,
+             DEFAULT_INITIAL_PAGE_SIZE_KB,
+             DEFAULT_MAX_PAGE_SIZE_KB,
+             DEFAULT_MAX_STATEMENTS_IN_FLIGHT,
+             true);
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public int getPageCount() {
+        return nextPageSeq;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+
+        if (pageLength == page.length) {
+            flush();
+        }
+
+        page[pageLength++] = (byte) b;
+    }
+
+    @Override
+    public void write(@NotNull byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        while (len > 0) {
+            if (pageLength == page.length) {
+                flush();
+            }
+
+            int copied = Math.min(len, page.length - pageLength);
+            System.arraycopy(b, off, page, pageLength, copied);
+            pageLength += copied;
+            off += copied;
+            len -= copied;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        checkStatementsError();
+
+        if (pageLength > 0) {
+            sendPage();
+        }
+
+        super.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (isClosed) {
+            return;
+        }
+
+        try {
+            flush();
+            awaitAllStatements();
+            checkStatementsError();
+
+            try {
+                session.runCodes(String.format("verifyAndClose(%d, %dL, \"%s\")",
+                                               nextPageSeq, totalBytes, Hex.encodeHexString(digest.digest())))
+                        .toBlocking()
+                        .singleOrDefault(null);
+            } catch (RuntimeException ex) {
+                throw new IOException("Failed to verify the uploaded file at the cluster side.", ex);
+            }
+        } finally {
+            isClosed = true;
+            session.close();
+            super.close();
+        }
+    }
+
+    private void sendPage() throws IOException {
+        digest.update(page, 0, pageLength);
+        totalBytes += pageLength;
+
+        String codes = String.format("writeSeqPage(%d, %s, %d, %s)",
+                                     nextPageSeq,
+                                     toLiteralParts(Base64.encodeBase64String(isDeflateEnabled
+                                                                                      ? deflate(page, pageLength)
+                                                                                      : copyOfPage())),
+                                     pageLength,
+                                     isDeflateEnabled);
+
+        try {
+            inFlightStatements.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted when waiting for the page statements in flight.", e);
+        }
+
+        session.runCodes(codes)
+                .subscribeOn(Schedulers.io())
+                .subscribe(
+                        ignored -> { },
+                        err -> {
+                            firstError.compareAndSet(null, err);
+                            inFlightStatements.release();
+                        },
+                        inFlightStatements::release);
+
+        nextPageSeq++;
+        pageLength = 0;
+
+        // Slow start, double the page size until the max one
+        if (page.length < maxPageSize) {
+            page = new byte[Math.min(page.length * 2, maxPageSize)];
+        }
+    }
+
+    /**
+     * Split the encoded page into a Scala sequence of string literals, each of them within the JVM constant limit.
+     * The literals aren't concatenated by "+", which the Scala compiler folds back into one constant.
+     */
+    static String toLiteralParts(@NotNull String encoded) {
+        StringBuilder parts = new StringBuilder("Seq(");
+
+        for (int start = 0; start < encoded.length() || start == 0; start += MAX_LITERAL_LENGTH) {
+            if (start > 0) {
+                parts.append(", ");
+            }
+
+            parts.append('"')
+                 .append(encoded, start, Math.min(encoded.length(), start + MAX_LITERAL_LENGTH))
+                 .append('"');
+        }
+
+        return parts.append(')').toString();
+    }
+
+    private byte[] copyOfPage() {
+        byte[] copied = new byte[pageLength];
+        System.arraycopy(page, 0, copied, 0, pageLength);
+
+        return copied;
+    }
+
+    private static byte[] deflate(@NotNull byte[] data, int length) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        ByteArrayOutputStream deflated = new ByteArrayOutputStream(length / 2 + 64);
+        byte[] buf = new byte[8192];
+
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+
+            while (!deflater.finished()) {
+                int size = deflater.deflate(buf);
+                deflated.write(buf, 0, size);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        return deflated.toByteArray();
+    }
+
+    private void awaitAllStatements() throws IOException {
+        try {
+            inFlightStatements.acquire(maxStatementsInFlight);
+            inFlightStatements.release(maxStatementsInFlight);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted when waiting for the page statements in flight.", e);
+        }
+    }
+
+    private void checkStatementsError() throws IOException {
+        Throwable err = firstError.get();
+
+        if (err != null) {
+            log().warn("Failed to upload page to cluster.", err);
+            throw new IOException("Failed to upload page to cluster: " + err.getMessage(), err);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (isClosed) {
+            throw new IOException("The stream is closed.");
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.sdk.rest.spark.event;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.microsoft.azure.hdinsight.sdk.rest.ObjectConvertUtils;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import rx.Observable;
+import rx.functions.Func0;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * The streaming parser of Spark event logs, which are JSON lines of Spark listener events.
+ *
+ * The lines are read one by one while subscribed, the event type is matched by the leading {@code "Event"} field
+ * without binding the line, and only the matched lines are bound to the event classes. So the memory used doesn't
+ * grow with the event log size, which can be several GB for long running applications.
+ */
+public class SparkEventLogParser {
+    public static final String JOB_START_EVENT = "SparkListenerJobStart";
+
+    private static final String EVENT_FIELD = "Event";
+
+    // Spark JsonProtocol always writes the event type as the first field
+    private static final String EVENT_LINE_PREFIX = "{\"" + EVENT_FIELD + "\":\"";
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private SparkEventLogParser() {
+    }
+
+    /**
+     * Read the event log lines lazily, the stream is opened at subscription and closed at termination or
+     * unsubscription
+     *
+     * @param openEventLog the event log stream opener
+     * @return the event log lines observable
+     */
+    @NotNull
+    public static Observable<String> readLines(@NotNull Func0<InputStream> openEventLog) {
+        return Observable.using(
+                () -> new BufferedReader(new InputStreamReader(openEventLog.call(), StandardCharsets.UTF_8),
+                                         READ_BUFFER_SIZE),
+                reader -> Observable.from(() -> reader.lines().iterator()),
+                IOUtils::closeQuietly);
+    }
+
+    /**
+     * Parse the events of the specified type lazily
+     *
+     * @param openEventLog the event log stream opener
+     * @param eventName the Spark listener event name, such as {@link #JOB_START_EVENT}
+     * @param eventClass the class to bind the event to
+     * @return the events observable, the lines failed to bind are skipped
+     */
+    @NotNull
+    public static <T> Observable<T> parseEvents(@NotNull Func0<InputStream> openEventLog,
+                                                @NotNull String eventName,
+                                                @NotNull Class<T> eventClass) {
+        return readLines(openEventLog)
+                .filter(line -> eventName.equalsIgnoreCase(getEventName(line)))
+                .map(line -> ObjectConvertUtils.convertToObjectQuietly(line, eventClass))
+                .filter(Objects::nonNull);
+    }
+
+    @NotNull
+    public static Observable<JobStartEventLog> parseJobStartEvents(@NotNull Func0<InputStream> openEventLog) {
+        return parseEvents(openEventLog, JOB_START_EVENT, JobStartEventLog.class);
+    }
+
+    /**
+     * Get the event name of an event log line without binding the whole line
+     *
+     * @param line the event log line
+     * @return the event name, or null for the blank or bad lines
+     */
+    @Nullable
+    public static String getEventName(@NotNull String line) {
+        if (line.startsWith(EVENT_LINE_PREFIX)) {
+            int end = line.indexOf('"', EVENT_LINE_PREFIX.length());
+
+            // The event names have no escaped characters
+            if (end > 0 && line.charAt(end - 1) != '\\') {
+                return line.substring(EVENT_LINE_PREFIX.length(), end);
+            }
+        }
+
+        if (StringUtils.isBlank(line)) {
+            return null;
+        }
+
+        return getEventNameByTokens(line);
+    }
+
+    /**
+     * Scan the top level fields until the event field, skipping the nested objects and arrays without binding them
+     */
+    @Nullable
+    private static String getEventNameByTokens(@NotNull String line) {
+        try (JsonParser parser = jsonFactory.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+
+                if (EVENT_FIELD.equals(field)) {
+                    return value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                }
+
+                parser.skipChildren();
+            }
+        } catch (IOException ignored) {
+            // Not a JSON object line
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,435 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.spark.common;
+
+import com.microsoft.azure.hdinsight.common.logger.ILogger;
+import com.microsoft.azure.hdinsight.sdk.common.BackoffRetryPolicy;
+import com.microsoft.azure.hdinsight.sdk.common.HttpResponse;
+import com.microsoft.azure.hdinsight.sdk.rest.ObjectConvertUtils;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import org.apache.commons.lang3.StringUtils;
+import rx.Observable;
+import rx.Subscription;
+import rx.schedulers.Schedulers;
+import rx.subjects.BehaviorSubject;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.UnknownServiceException;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Livy batch status poller shared by all the watched batch jobs of a cluster.
+ *
+ * Instead of every job polling {@code GET /batches/{id}} by its own, the poller lists {@code GET /batches} once per
+ * interval and fans the status changes out to the watchers of each batch, so the request volume doesn't grow with the
+ * number of jobs. The listing is paged from the tail, where the recently submitted batches are, and only a few watched
+ * batches are got by {@code GET /batches/{id}} directly. The interval is short while any watched batch is starting and
+ * long when all of them are running. The polling starts with the first watcher and stops after the last one
+ * unsubscribes, then the poller is released.
+ */
+public class LivyBatchStatusPoller implements ILogger {
+    public static final long STARTING_POLL_INTERVAL_MS = 1000;
+    public static final long RUNNING_POLL_INTERVAL_MS = 5000;
+    public static final int LIST_PAGE_SIZE = 100;
+
+    /**
+     * The watched batches up to which are got one by one rather than listed
+     */
+    public static final int SINGLE_FETCH_MAX_BATCHES = 3;
+
+    /**
+     * The polls a watched batch can be missing from the listing before it's reported as not found
+     */
+    private static final int MAX_MISSING_POLLS = 3;
+    private static final ConcurrentMap<PollerKey, LivyBatchStatusPoller> pollers = new ConcurrentHashMap<>();
+
+    @NotNull
+    private final URI batchesUri;
+
+    @NotNull
+    private final SparkBatchSubmission submission;
+
+    @NotNull
+    private final PollerKey key;
+
+    private final int singleFetchMaxBatches;
+
+    /**
+     * Whether the poller is shared in {@link #pollers}
+     */
+    private boolean shared = false;
+
+    /**
+     * The total number of batches got by the last listing, to start the next listing from the tail
+     */
+    private volatile int lastListedTotal = 0;
+
+    @NotNull
+    private final BackoffRetryPolicy retryPolicy = new BackoffRetryPolicy(3, STARTING_POLL_INTERVAL_MS);
+
+    /**
+     * The watched batches by ID, accessing with the poller lock
+     */
+    @NotNull
+    private final Map<Integer, WatchedBatch> watchedBatches = new HashMap<>();
+
+    @Nullable
+    private Subscription polling;
+
+    LivyBatchStatusPoller(@NotNull URI batchesUri, @NotNull SparkBatchSubmission submission) {
+        this(batchesUri, submission, SINGLE_FETCH_MAX_BATCHES);
+    }
+
+    LivyBatchStatusPoller(@NotNull URI batchesUri, @NotNull SparkBatchSubmission submission, int singleFetchMaxBatches) {
+        this.batchesUri = batchesUri;
+        this.submission = submission;
+        this.key = new PollerKey(batchesUri, submission);
+        this.singleFetchMaxBatches = singleFetchMaxBatches;
+    }
+
+    /**
+     * Get the shared poller of the Livy batches URI and the submission
+     *
+     * @param batchesUri the Livy batches URI, such as: http://livy:8998/batches
+     * @param submission the submission with the cluster credential
+     * @return the poller of the URI and the submission
+     */
+    @NotNull
+    public static LivyBatchStatusPoller getPoller(@NotNull URI batchesUri, @NotNull SparkBatchSubmission submission) {
+        final URI normalizedUri = URI.create(StringUtils.stripEnd(batchesUri.toString(), "/"));
+
+        return pollers.computeIfAbsent(new PollerKey(normalizedUri, submission), key -> {
+            final LivyBatchStatusPoller poller = new LivyBatchStatusPoller(normalizedUri, submission);
+            poller.shared = true;
+
+            return poller;
+        });
+    }
+
+    /**
+     * Watch the status of the batch, the latest status is emitted at subscribing and then every state change
+     *
+     * @param batchId the Livy batch ID
+     * @return the batch status observable, never completes unless unsubscribed
+     */
+    @NotNull
+    public Observable<SparkSubmitResponse> watch(final int batchId) {
+        return Observable.defer(() -> {
+            final WatchedBatch watched = addWatcher(batchId);
+
+            return watched.statuses.asObservable().doOnUnsubscribe(() -> removeWatcher(batchId, watched));
+        });
+    }
+
+    private synchronized WatchedBatch addWatcher(final int batchId) {
+        if (shared && watchedBatches.isEmpty()) {
+            // Share the poller again if it has been released after the last watcher left
+            pollers.putIfAbsent(key, this);
+        }
+
+        final WatchedBatch watched = watchedBatches.computeIfAbsent(batchId, id -> new WatchedBatch());
+        watched.watchers++;
+
+        if (polling == null) {
+            polling = Observable.fromCallable(this::listWatchedBatches)
+                    .subscribeOn(Schedulers.io())
+                    .retryWhen(retryPolicy.retryWhen((retries, err) -> err))
+                    .repeatWhen(polled -> polled.concatMap(ignored ->
+                            Observable.timer(getPollIntervalMs(), TimeUnit.MILLISECONDS)))
+                    .subscribe(this::dispatch, this::dispatchError);
+        }
+
+        return watched;
+    }
+
+    private synchronized void removeWatcher(final int batchId, @NotNull final WatchedBatch watched) {
+        if (watchedBatches.get(batchId) == watched && --watched.watchers <= 0) {
+            watchedBatches.remove(batchId);
+        }
+
+        if (watchedBatches.isEmpty()) {
+            if (polling != null) {
+                polling.unsubscribe();
+                polling = null;
+            }
+
+            release();
+        }
+    }
+
+    /**
+     * Release the idle poller from the shared ones, should be called with the poller lock
+     */
+    private void release() {
+        if (shared) {
+            pollers.remove(key, this);
+        }
+    }
+
+    synchronized long getPollIntervalMs() {
+        for (final WatchedBatch watched : watchedBatches.values()) {
+            if (watched.lastState == null || isStarting(watched.lastState)) {
+                return STARTING_POLL_INTERVAL_MS;
+            }
+        }
+
+        return RUNNING_POLL_INTERVAL_MS;
+    }
+
+    private static boolean isStarting(@NotNull final String state) {
+        switch (state.toLowerCase()) {
+            case "not_started":
+            case "starting":
+            case "recovering":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @NotNull
+    private synchronized Set<Integer> getWatchedBatchIds() {
+        return new HashSet<>(watchedBatches.keySet());
+    }
+
+    /**
+     * Get the watched batches, one by one for a few of them, or list the Livy batches page by page from the tail,
+     * until all the watched batches are found
+     */
+    @NotNull
+    private SimpleImmutableEntry<Set<Integer>, Map<Integer, SparkSubmitResponse>> listWatchedBatches()
+            throws IOException {
+        final Set<Integer> wanted = getWatchedBatchIds();
+        final Map<Integer, SparkSubmitResponse> found = new HashMap<>();
+
+        if (wanted.size() <= singleFetchMaxBatches) {
+            for (final Integer batchId : wanted) {
+                final SparkSubmitResponse batch = getBatch(batchId);
+
+                if (batch != null) {
+                    found.put(batchId, batch);
+                }
+            }
+
+            return new SimpleImmutableEntry<>(wanted, found);
+        }
+
+        int total = lastListedTotal;
+        int step = LIST_PAGE_SIZE;
+        int tailFrom = -1;  // The start index of the listed batches contiguous to the tail, -1 for not reached yet
+
+        while (found.size() < wanted.size()) {
+            final int from = Math.max(0, (tailFrom < 0 ? total : tailFrom) - step);
+            final SparkBatchesResponse batches = listBatches(from);
+            final int size = batches.getSessions().size();
+
+            for (final SparkSubmitResponse batch : batches.getSessions()) {
+                if (wanted.contains(batch.getId())) {
+                    found.put(batch.getId(), batch);
+                }
+            }
+
+            total = batches.getTotal();
+
+            if (size == 0) {
+                if (tailFrom < 0 && from > 0 && from >= total) {
+                    // Some batches are deleted since the last listing, start over from the new tail
+                    continue;
+                }
+
+                break;
+            }
+
+            if (from + size >= (tailFrom < 0 ? total : tailFrom)) {
+                tailFrom = from;
+            }
+
+            if (tailFrom == 0) {
+                break;
+            }
+
+            step = size;
+        }
+
+        lastListedTotal = total;
+
+        return new SimpleImmutableEntry<>(wanted, found);
+    }
+
+    @NotNull
+    private SparkBatchesResponse listBatches(final int from) throws IOException {
+        final String listUrl = String.format("%s?from=%d&size=%d", batchesUri, from, LIST_PAGE_SIZE);
+        final HttpResponse httpResponse = submission.getAllBatchesSparkJobs(listUrl);
+
+        if (httpResponse.getCode() < 200 || httpResponse.getCode() >= 300) {
+            throw new UnknownServiceException("Got status code " + httpResponse.getCode() + " from " + listUrl);
+        }
+
+        return ObjectConvertUtils.convertJsonToObject(httpResponse.getMessage(), SparkBatchesResponse.class)
+                .orElseThrow(() -> new UnknownServiceException(
+                        "Bad spark batches response: " + httpResponse.getMessage()));
+    }
+
+    /**
+     * Get the batch by {@code GET /batches/{id}}
+     *
+     * @return the batch, or null if it isn't found
+     */
+    @Nullable
+    private SparkSubmitResponse getBatch(final int batchId) throws IOException {
+        final HttpResponse httpResponse = submission.getBatchSparkJobStatus(batchesUri.toString(), batchId);
+
+        if (httpResponse.getCode() == 404) {
+            return null;
+        }
+
+        if (httpResponse.getCode() < 200 || httpResponse.getCode() >= 300) {
+            throw new UnknownServiceException(
+                    "Got status code " + httpResponse.getCode() + " from " + batchesUri + "/" + batchId);
+        }
+
+        return ObjectConvertUtils.convertJsonToObject(httpResponse.getMessage(), SparkSubmitResponse.class)
+                .orElseThrow(() -> new UnknownServiceException("Bad spark job response: " + httpResponse.getMessage()));
+    }
+
+    private void dispatch(@NotNull final SimpleImmutableEntry<Set<Integer>, Map<Integer, SparkSubmitResponse>> polled) {
+        final List<Runnable> notifications = new ArrayList<>();
+
+        synchronized (this) {
+            for (final Integer batchId : polled.getKey()) {
+                final WatchedBatch watched = watchedBatches.get(batchId);
+                final SparkSubmitResponse status = polled.getValue().get(batchId);
+
+                if (watched == null) {
+                    continue;
+                }
+
+                if (status == null) {
+                    if (++watched.missingPolls >= MAX_MISSING_POLLS) {
+                        watchedBatches.remove(batchId);
+
+                        if (watchedBatches.isEmpty() && polling != null) {
+                            polling.unsubscribe();
+                            polling = null;
+                            release();
+                        }
+
+                        notifications.add(() -> watched.statuses.onError(new SparkJobException(
+                                "The Spark batch job " + batchId + " isn't found in " + batchesUri)));
+                    }
+
+                    continue;
+                }
+
+                watched.missingPolls = 0;
+
+                if (!StringUtils.equals(status.getState(), watched.lastState)
+                        || !StringUtils.equals(status.getAppId(), watched.lastAppId)) {
+                    watched.lastState = status.getState();
+                    watched.lastAppId = status.getAppId();
+                    notifications.add(() -> watched.statuses.onNext(status));
+                }
+            }
+        }
+
+        // Notify out of the lock, the watchers may unsubscribe in the callbacks
+        notifications.forEach(Runnable::run);
+    }
+
+    private void dispatchError(@NotNull final Throwable err) {
+        final List<WatchedBatch> failed;
+
+        log().warn("Failed to poll Livy batches from " + batchesUri, err);
+
+        synchronized (this) {
+            failed = new ArrayList<>(watchedBatches.values());
+            watchedBatches.clear();
+            polling = null;
+            release();
+        }
+
+        failed.forEach(watched -> watched.statuses.onError(err));
+    }
+
+    /**
+     * The key of the shared pollers, the submission is compared by identity since it carries the cluster credential
+     */
+    private static final class PollerKey {
+        @NotNull
+        private final String batchesUri;
+
+        @NotNull
+        private final SparkBatchSubmission submission;
+
+        private PollerKey(@NotNull URI batchesUri, @NotNull SparkBatchSubmission submission) {
+            this.batchesUri = batchesUri.toString();
+            this.submission = submission;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof PollerKey)) {
+                return false;
+            }
+
+            final PollerKey other = (PollerKey) o;
+
+            return batchesUri.equals(other.batchesUri) && submission == other.submission;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * batchesUri.hashCode() + System.identityHashCode(submission);
+        }
+    }
+
+    private static class WatchedBatch {
+        @NotNull
+        private final BehaviorSubject<SparkSubmitResponse> statuses = BehaviorSubject.create();
+
+        private int watchers = 0;
+
+        private int missingPolls = 0;
+
+        @Nullable
+        private String lastState;
+
+        @Nullable
+        private String lastAppId;
+    }
+}
@@ -28,6 +28,7 @@ import com.microsoft.azure.hdinsight.common.logger.ILogger;
 import com.microsoft.azure.hdinsight.sdk.cluster.IClusterDetail;
 import com.microsoft.azure.hdinsight.sdk.cluster.LivyCluster;
 import com.microsoft.azure.hdinsight.sdk.cluster.YarnCluster;
+import com.microsoft.azure.hdinsight.sdk.common.BackoffRetryPolicy;
 import com.microsoft.azure.hdinsight.sdk.common.HDIException;
 import com.microsoft.azure.hdinsight.sdk.common.HttpObservable;
 import com.microsoft.azure.hdinsight.sdk.common.HttpResponse;
@@ -45,7 +46,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import rx.Observable;
 import rx.Observer;
-import rx.Subscriber;
+import rx.schedulers.Schedulers;
 import rx.subjects.PublishSubject;
 
 import java.io.File;
@@ -54,15 +55,17 @@ import java.net.URI;
 import java.net.UnknownServiceException;
 import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import static com.microsoft.azure.hdinsight.common.MessageInfoType.Error;
 import static com.microsoft.azure.hdinsight.common.MessageInfoType.*;
 import static com.microsoft.azure.hdinsight.spark.common.log.SparkLogLine.LIVY;
 import static com.microsoft.azure.hdinsight.spark.common.log.SparkLogLine.TOOL;
-import static java.lang.Thread.sleep;
 import static rx.exceptions.Exceptions.propagate;
 
 public class SparkBatchJob implements ISparkBatchJob, ILogger {
@@ -504,45 +507,94 @@ public class SparkBatchJob implements ISparkBatchJob, ILogger {
     }
 
     /**
-     * Get Spark Job Yarn application state with retries
+     * Get the retry policy for RestAPI calling, with the backoff delays starting from the delay seconds setting
      *
-     * @return the Yarn application state got
-     * @throws IOException exceptions in transaction
+     * @return the retry policy with the retry count and delay settings
      */
-    public String getState() throws IOException {
-        if (getConnectUri() == null) {
-            throw new SparkJobNotConfiguredException("Can't get Spark job connection URI, " +
-                    "please configure Spark cluster which the Spark job will be submitted.");
+    @NotNull
+    protected BackoffRetryPolicy getRetryPolicy() {
+        return new BackoffRetryPolicy(Math.max(this.getRetriesMax() - 1, 0),
+                                      TimeUnit.SECONDS.toMillis(this.getDelaySeconds()));
+    }
+
+    /**
+     * Call the RestAPI with retries, each try runs on IO scheduler and the retries are delayed by Rx timers,
+     * so no thread is blocked between tries.
+     *
+     * @param failure the failure description when the retries are used up
+     * @param attempt the RestAPI calling, throws IOException to retry
+     * @return the result observable
+     */
+    @NotNull
+    private <T> Observable<T> withRetries(@NotNull final String failure, @NotNull final Callable<T> attempt) {
+        return Observable.fromCallable(attempt)
+                .subscribeOn(Schedulers.io())
+                .doOnError(err -> log().debug("Got exception " + err.toString() + ", waiting for a while to try", err))
+                .retryWhen(getRetryPolicy().retryWhen((retries, err) -> {
+                    final UnknownServiceException exhausted = new UnknownServiceException(
+                            failure + ": Unknown service error after " + retries + " retries");
+                    exhausted.initCause(err);
+
+                    return exhausted;
+                }));
+    }
+
+    /**
+     * Wait for the result of RestAPI calling with retries, for the blocking APIs
+     */
+    private static <T> T awaitRetries(@NotNull final Observable<T> retries) throws IOException {
+        try {
+            return retries.toBlocking().single();
+        } catch (final RuntimeException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+
+            if (ex.getCause() instanceof InterruptedException) {
+                throw new IOException("Interrupted in retry attempting", ex.getCause());
+            }
+
+            throw ex;
         }
+    }
 
-        int retries = 0;
+    @NotNull
+    private SparkSubmitResponse getBatchSparkJobResponse(@NotNull final URI batchBaseUri, final int batchId)
+            throws IOException {
+        final HttpResponse httpResponse = this.getSubmission().getBatchSparkJobStatus(batchBaseUri.toString(), batchId);
 
-        do {
-            try {
-                final HttpResponse httpResponse = this.getSubmission().getBatchSparkJobStatus(
-                        this.getConnectUri().toString(), batchId);
+        if (httpResponse.getCode() < 200 || httpResponse.getCode() >= 300) {
+            throw new UnknownServiceException("Got status code " + httpResponse.getCode() + " for Spark job " + batchId);
+        }
 
-                if (httpResponse.getCode() >= 200 && httpResponse.getCode() < 300) {
-                    final SparkSubmitResponse jobResp = ObjectConvertUtils.convertJsonToObject(
-                            httpResponse.getMessage(), SparkSubmitResponse.class)
-                                                                          .orElseThrow(() -> new UnknownServiceException(
-                                    "Bad spark job response: " + httpResponse.getMessage()));
+        return ObjectConvertUtils.convertJsonToObject(httpResponse.getMessage(), SparkSubmitResponse.class)
+                .orElseThrow(() -> new UnknownServiceException("Bad spark job response: " + httpResponse.getMessage()));
+    }
 
-                    return jobResp.getState();
-                }
-            } catch (final IOException e) {
-                log().debug("Got exception " + e.toString() + ", waiting for a while to try", e);
-            }
+    /**
+     * Get Spark Job Yarn application state with retries
+     *
+     * @return the Yarn application state got
+     * @throws IOException exceptions in transaction
+     */
+    public String getState() throws IOException {
+        return awaitRetries(getStateWithRetries());
+    }
 
-            try {
-                // Retry interval
-                sleep(TimeUnit.SECONDS.toMillis(this.getDelaySeconds()));
-            } catch (final InterruptedException ex) {
-                throw new IOException("Interrupted in retry attempting", ex);
-            }
-        } while (++retries < this.getRetriesMax());
+    /**
+     * New RxAPI: Get Spark Job Yarn application state with retries
+     *
+     * @return the Yarn application state observable
+     */
+    @NotNull
+    private Observable<String> getStateWithRetries() {
+        if (getConnectUri() == null) {
+            return Observable.error(new SparkJobNotConfiguredException("Can't get Spark job connection URI, " +
+                    "please configure Spark cluster which the Spark job will be submitted."));
+        }
 
-        throw new UnknownServiceException("Failed to get job state: Unknown service error after " + --retries + " retries");
+        return withRetries("Failed to get job state",
+                           () -> getBatchSparkJobResponse(this.getConnectUri(), batchId).getState());
     }
 
     /**
@@ -554,84 +606,53 @@ public class SparkBatchJob implements ISparkBatchJob, ILogger {
      * @throws IOException exceptions in transaction
      */
     String getSparkJobApplicationId(URI batchBaseUri, int batchId) throws IOException {
-        int retries = 0;
-
-        do {
-            try {
-                final HttpResponse httpResponse = this.getSubmission().getBatchSparkJobStatus(
-                        batchBaseUri.toString(), batchId);
-
-                if (httpResponse.getCode() >= 200 && httpResponse.getCode() < 300) {
-                    final SparkSubmitResponse jobResp = ObjectConvertUtils.convertJsonToObject(
-                            httpResponse.getMessage(), SparkSubmitResponse.class)
-                                                                          .orElseThrow(() -> new UnknownServiceException(
-                                    "Bad spark job response: " + httpResponse.getMessage()));
+        return awaitRetries(getSparkJobApplicationIdWithRetries(batchBaseUri, batchId));
+    }
 
-                    if (jobResp.getAppId() != null) {
-                        return jobResp.getAppId();
-                    }
-                }
-            } catch (final IOException e) {
-                log().debug("Got exception " + e.toString() + ", waiting for a while to try", e);
-            }
+    @NotNull
+    private Observable<String> getSparkJobApplicationIdWithRetries(URI batchBaseUri, int batchId) {
+        return withRetries("Failed to get job Application ID", () -> {
+            final SparkSubmitResponse jobResp = getBatchSparkJobResponse(batchBaseUri, batchId);
 
-            try {
-                // Retry interval
-                sleep(TimeUnit.SECONDS.toMillis(this.getDelaySeconds()));
-            } catch (final InterruptedException ex) {
-                throw new IOException("Interrupted in retry attempting", ex);
+            if (jobResp.getAppId() == null) {
+                throw new UnknownServiceException("The Spark job " + batchId + " has no application ID yet");
             }
-        } while (++retries < this.getRetriesMax());
 
-        throw new UnknownServiceException("Failed to get job Application ID: Unknown service error after " + --retries + " retries");
+            return jobResp.getAppId();
+        });
     }
 
     /**
-     * Get Spark Job Yarn application with retries
+     * New RxAPI: Get Spark Job Yarn application with retries
      *
      * @param yarnConnectUri the connection URI of HDInsight Livy batch job, http://livy:8998/batches, the function will help translate it to Yarn connection URI.
      * @param applicationID the Yarn application ID
-     * @return the Yarn application got
-     * @throws IOException exceptions in transaction
+     * @return the Yarn application observable, emits null if the Yarn connection URI isn't set
      */
-    @Nullable
-    private App getSparkJobYarnApplication(URI yarnConnectUri, String applicationID) throws Exception {
+    @NotNull
+    private Observable<App> getSparkJobYarnApplicationWithRetries(@Nullable URI yarnConnectUri, String applicationID) {
         if (yarnConnectUri == null) {
-            return null;
+            return Observable.just(null);
         }
 
-        int retries = 0;
-
-        do {
-            // TODO: An issue here when the yarnui not sharing root with Livy batch job URI
-            final URI getYarnClusterAppURI = URI.create(yarnConnectUri.toString() + applicationID);
+        // TODO: An issue here when the yarnui not sharing root with Livy batch job URI
+        final URI getYarnClusterAppURI = URI.create(yarnConnectUri.toString() + applicationID);
 
-            try {
-                final HttpResponse httpResponse = this.getSubmission()
-                                                      .getHttpResponseViaGet(getYarnClusterAppURI.toString());
+        return withRetries("Failed to get job Yarn application", () -> {
+            final HttpResponse httpResponse = this.getSubmission()
+                                                  .getHttpResponseViaGet(getYarnClusterAppURI.toString());
 
-                if (httpResponse.getCode() >= 200 && httpResponse.getCode() < 300) {
-                    final Optional<AppResponse> appResponse = ObjectConvertUtils.convertJsonToObject(
-                            httpResponse.getMessage(), AppResponse.class);
-                    return appResponse
-                            .orElseThrow(() -> new UnknownServiceException(
-                                    "Bad response when getting from " + getYarnClusterAppURI + ", " +
-                                            "response " + httpResponse.getMessage()))
-                            .getApp();
-                }
-            } catch (final IOException e) {
-                log().debug("Got exception " + e.toString() + ", waiting for a while to try", e);
-            }
-
-            try {
-                // Retry interval
-                sleep(TimeUnit.SECONDS.toMillis(this.getDelaySeconds()));
-            } catch (final InterruptedException ex) {
-                throw new IOException("Interrupted in retry attempting", ex);
+            if (httpResponse.getCode() < 200 || httpResponse.getCode() >= 300) {
+                throw new UnknownServiceException(
+                        "Got status code " + httpResponse.getCode() + " from " + getYarnClusterAppURI);
             }
-        } while (++retries < this.getRetriesMax());
 
-        throw new UnknownServiceException("Failed to get job Yarn application: Unknown service error after " + --retries + " retries");
+            return ObjectConvertUtils.convertJsonToObject(httpResponse.getMessage(), AppResponse.class)
+                    .orElseThrow(() -> new UnknownServiceException(
+                            "Bad response when getting from " + getYarnClusterAppURI + ", " +
+                                    "response " + httpResponse.getMessage()))
+                    .getApp();
+        });
     }
 
     /**
@@ -727,37 +748,15 @@ public class SparkBatchJob implements ISparkBatchJob, ILogger {
     @Nullable
     @Deprecated
     public String getSparkJobDriverLogUrl(URI batchBaseUri, int batchId) throws IOException {
-        int retries = 0;
+        return awaitRetries(withRetries("Failed to get job driver log URL", () -> {
+            final SparkSubmitResponse jobResp = getBatchSparkJobResponse(batchBaseUri, batchId);
 
-        do {
-            final HttpResponse httpResponse = this.getSubmission().getBatchSparkJobStatus(
-                    batchBaseUri.toString(), batchId);
-
-            try {
-                if (httpResponse.getCode() >= 200 && httpResponse.getCode() < 300) {
-                    final SparkSubmitResponse jobResp = ObjectConvertUtils.convertJsonToObject(
-                            httpResponse.getMessage(), SparkSubmitResponse.class)
-                                                                          .orElseThrow(() -> new UnknownServiceException(
-                                    "Bad spark job response: " + httpResponse.getMessage()));
-
-                    if (jobResp.getAppId() != null && jobResp.getAppInfo().get("driverLogUrl") != null) {
-                        return jobResp.getAppInfo().get("driverLogUrl").toString();
-                    }
-                }
-            } catch (final IOException e) {
-                log().debug("Got exception " + e.toString() + ", waiting for a while to try", e);
-            }
-
-
-            try {
-                // Retry interval
-                sleep(TimeUnit.SECONDS.toMillis(this.getDelaySeconds()));
-            } catch (final InterruptedException ex) {
-                throw new IOException("Interrupted in retry attempting", ex);
+            if (jobResp.getAppId() == null || jobResp.getAppInfo().get("driverLogUrl") == null) {
+                throw new UnknownServiceException("The Spark job " + batchId + " has no driver log URL yet");
             }
-        } while (++retries < this.getRetriesMax());
 
-        throw new UnknownServiceException("Failed to get job driver log URL: Unknown service error after " + --retries + " retries");
+            return jobResp.getAppInfo().get("driverLogUrl").toString();
+        }));
     }
 
     /**
@@ -767,41 +766,41 @@ public class SparkBatchJob implements ISparkBatchJob, ILogger {
      */
     @Override
     public Observable<String> getSparkDriverHost() {
-        return Observable.fromCallable(() -> {
-            if (getConnectUri() == null) {
-                throw new SparkJobNotConfiguredException("Can't get Spark job connection URI, " +
-                        "please configure Spark cluster which the Spark job will be submitted.");
-            }
-
-            final String applicationId = this.getSparkJobApplicationId(this.getConnectUri(), this.getBatchId());
-
-            final App yarnApp = this.getSparkJobYarnApplication(this.getYarnNMConnectUri(), applicationId);
-
-            if (yarnApp == null) {
-                throw new Exception("Can not access yarn applicaition since yarnConnectUri is null");
-            }
-
-            if (yarnApp.isFinished()) {
-                throw new UnknownServiceException("The Livy job " + this.getBatchId() + " on yarn is not running.");
-            }
-
-            final String driverHttpAddress = yarnApp.getAmHostHttpAddress();
-
-            /*
-             * The sample here is:
-             *     host.domain.com:8900
-             *       or
-             *     10.0.0.15:30060
-             */
-            final String driverHost = this.parseAmHostHttpAddressHost(driverHttpAddress);
-
-            if (driverHost == null) {
-                throw new UnknownServiceException(
-                        "Bad amHostHttpAddress got from /yarnui/ws/v1/cluster/apps/" + applicationId);
-            }
+        if (getConnectUri() == null) {
+            return Observable.error(new SparkJobNotConfiguredException("Can't get Spark job connection URI, " +
+                    "please configure Spark cluster which the Spark job will be submitted."));
+        }
 
-            return driverHost;
-        });
+        return getSparkJobApplicationIdWithRetries(this.getConnectUri(), this.getBatchId())
+                .flatMap(applicationId -> getSparkJobYarnApplicationWithRetries(this.getYarnNMConnectUri(), applicationId)
+                        .flatMap(yarnApp -> {
+                            if (yarnApp == null) {
+                                return Observable.error(new Exception(
+                                        "Can not access yarn applicaition since yarnConnectUri is null"));
+                            }
+
+                            if (yarnApp.isFinished()) {
+                                return Observable.error(new UnknownServiceException(
+                                        "The Livy job " + this.getBatchId() + " on yarn is not running."));
+                            }
+
+                            final String driverHttpAddress = yarnApp.getAmHostHttpAddress();
+
+                            /*
+                             * The sample here is:
+                             *     host.domain.com:8900
+                             *       or
+                             *     10.0.0.15:30060
+                             */
+                            final String driverHost = this.parseAmHostHttpAddressHost(driverHttpAddress);
+
+                            if (driverHost == null) {
+                                return Observable.error(new UnknownServiceException(
+                                        "Bad amHostHttpAddress got from /yarnui/ws/v1/cluster/apps/" + applicationId));
+                            }
+
+                            return Observable.just(driverHost);
+                        }));
     }
 
     @Override
@@ -812,6 +811,50 @@ public class SparkBatchJob implements ISparkBatchJob, ILogger {
                     "please configure Spark cluster which the Spark job will be submitted."));
         }
 
+        final int maxLinesPerGet = 128;
+        final AtomicReference<LivyLogPage> lastPage = new AtomicReference<>();
+
+        // Fetch the next page at once while getting lines, or after the delay while the job is starting,
+        // the timer doesn't hold any thread between fetches
+        return Observable.fromCallable(() -> fetchLivyLogPage(maxLinesPerGet))
+                .subscribeOn(Schedulers.io())
+                .doOnNext(lastPage::set)
+                .repeatWhen(fetched -> fetched
+                        .concatMap(ignored -> getNextLivyLogFetchDelayMs(lastPage.get()))
+                        .takeWhile(delayMs -> delayMs >= 0)
+                        .concatMap(delayMs -> Observable.timer(delayMs, TimeUnit.MILLISECONDS)))
+                .concatMapIterable(LivyLogPage::getLines)
+                .map(line -> new SparkLogLine(LIVY, Log, line))
+                .onErrorResumeNext(err -> err instanceof IOException
+                                          ? Observable.just(new SparkLogLine(TOOL, Error, err.getMessage()))
+                                          : Observable.error(err));
+    }
+
+    /**
+     * The Livy batch log lines got in one fetch
+     */
+    private static class LivyLogPage {
+        @NotNull
+        private final List<String> lines;
+
+        private final boolean isOffsetMoved;
+
+        private final boolean isAppIdAllocated;
+
+        LivyLogPage(@NotNull List<String> lines, boolean isOffsetMoved, boolean isAppIdAllocated) {
+            this.lines = lines;
+            this.isOffsetMoved = isOffsetMoved;
+            this.isAppIdAllocated = isAppIdAllocated;
+        }
+
+        @NotNull
+        List<String> getLines() {
+            return lines;
+        }
+    }
+
+    @NotNull
+    private LivyLogPage fetchLivyLogPage(final int maxLinesPerGet) throws IOException {
         // Those lines are carried per response,
         // if there is no value followed, the line should not be sent to console
         final Set<String> ignoredEmptyLines = new HashSet<>(Arrays.asList(
@@ -819,55 +862,51 @@ public class SparkBatchJob implements ISparkBatchJob, ILogger {
                 "stderr:",
                 "yarn diagnostics:"));
 
-        return Observable.create(ob -> {
-            try {
-                final int maxLinesPerGet = 128;
-                int linesGot;
-                boolean isFetching = true;
-
-                while (isFetching) {
-                    final int start = nextLivyLogOffset;
-                    final boolean isAppIdAllocated = !this.getSparkJobApplicationIdObservable().isEmpty().toBlocking()
-                            .lastOrDefault(true);
-                    final String logUrl = String.format("%s/%d/log?from=%d&size=%d",
-                                                        this.getConnectUri().toString(), batchId, start, maxLinesPerGet);
-
-                    final HttpResponse httpResponse = this.getSubmission().getHttpResponseViaGet(logUrl);
-
-                    final SparkJobLog sparkJobLog = ObjectConvertUtils.convertJsonToObject(httpResponse.getMessage(),
-                                                                                           SparkJobLog.class)
-                                                                      .orElseThrow(() -> new UnknownServiceException(
-                                    "Bad spark log response: " + httpResponse.getMessage()));
-
-                    synchronized (livyLogOffsetLock) {
-                        if (start != nextLivyLogOffset) {
-                            // The offset is moved by another fetching thread, re-do it with new offset
-                            continue;
-                        }
-
-                        // To subscriber
-                        sparkJobLog.getLog().stream()
-                                .filter(line -> !ignoredEmptyLines.contains(line.trim().toLowerCase()))
-                                .forEach(line -> ob.onNext(new SparkLogLine(LIVY, Log, line)));
+        final int start = nextLivyLogOffset;
+        final boolean isAppIdAllocated = !this.getSparkJobApplicationIdObservable().isEmpty().toBlocking()
+                .lastOrDefault(true);
+        final String logUrl = String.format("%s/%d/log?from=%d&size=%d",
+                                            this.getConnectUri().toString(), batchId, start, maxLinesPerGet);
 
-                        linesGot = sparkJobLog.getLog().size();
-                        nextLivyLogOffset += linesGot;
-                    }
+        final HttpResponse httpResponse = this.getSubmission().getHttpResponseViaGet(logUrl);
 
-                    // Retry interval
-                    if (linesGot == 0) {
-                        isFetching = "starting".equals(this.getState()) && !isAppIdAllocated;
+        final SparkJobLog sparkJobLog = ObjectConvertUtils.convertJsonToObject(httpResponse.getMessage(),
+                                                                               SparkJobLog.class)
+                                                          .orElseThrow(() -> new UnknownServiceException(
+                        "Bad spark log response: " + httpResponse.getMessage()));
 
-                        sleep(TimeUnit.SECONDS.toMillis(this.getDelaySeconds()));
-                    }
-                }
-            } catch (final IOException ex) {
-                ob.onNext(new SparkLogLine(TOOL, Error, ex.getMessage()));
-            } catch (final InterruptedException ignored) {
-            } finally {
-                ob.onCompleted();
+        synchronized (livyLogOffsetLock) {
+            if (start != nextLivyLogOffset) {
+                // The offset is moved by another fetching thread, re-do it with new offset
+                return new LivyLogPage(Collections.emptyList(), true, isAppIdAllocated);
             }
-        });
+
+            nextLivyLogOffset += sparkJobLog.getLog().size();
+        }
+
+        return new LivyLogPage(
+                sparkJobLog.getLog().stream()
+                        .filter(line -> !ignoredEmptyLines.contains(line.trim().toLowerCase()))
+                        .collect(Collectors.toList()),
+                false,
+                isAppIdAllocated);
+    }
+
+    /**
+     * Get the delay before fetching the next Livy log page, -1 to stop fetching
+     */
+    @NotNull
+    private Observable<Long> getNextLivyLogFetchDelayMs(@NotNull final LivyLogPage page) {
+        if (page.isOffsetMoved || !page.getLines().isEmpty()) {
+            return Observable.just(0L);
+        }
+
+        if (page.isAppIdAllocated) {
+            return Observable.just(-1L);
+        }
+
+        return getStateWithRetries()
+                .map(state -> "starting".equals(state) ? TimeUnit.SECONDS.toMillis(this.getDelaySeconds()) : -1L);
     }
 
     public boolean isActive() throws IOException {
@@ -876,34 +915,44 @@ public class SparkBatchJob implements ISparkBatchJob, ILogger {
                     "please configure Spark cluster which the Spark job will be submitted.");
         }
 
-        int retries = 0;
-
-        do {
-            try {
-                final HttpResponse httpResponse = this.getSubmission().getBatchSparkJobStatus(
-                        this.getConnectUri().toString(), batchId);
+        return awaitRetries(withRetries("Failed to detect job activity",
+                                        () -> getBatchSparkJobResponse(this.getConnectUri(), batchId).isAlive()));
+    }
 
-                if (httpResponse.getCode() >= 200 && httpResponse.getCode() < 300) {
-                    final SparkSubmitResponse jobResp = ObjectConvertUtils.convertJsonToObject(
-                            httpResponse.getMessage(), SparkSubmitResponse.class)
-                                                                          .orElseThrow(() -> new UnknownServiceException(
-                                    "Bad spark job response: " + httpResponse.getMessage()));
+    /**
+     * Get the Livy batch status poller shared by the jobs of the cluster
+     *
+     * @return the poller of the job connection URI
+     */
+    @NotNull
+    protected LivyBatchStatusPoller getBatchStatusPoller() {
+        return LivyBatchStatusPoller.getPoller(getConnectUri(), getSubmission());
+    }
 
-                    return jobResp.isAlive();
-                }
-            } catch (final IOException e) {
-                log().debug("Got exception " + e.toString() + ", waiting for a while to try", e);
-            }
+    /**
+     * Check whether the job status is watched by the shared Livy batch status poller, or polled by {@link #getStatus()}
+     * of the job itself. The jobs getting their status from other than the Livy batches API override it to false.
+     *
+     * @return true for the shared poller
+     */
+    protected boolean isBatchStatusPollerEnabled() {
+        return true;
+    }
 
-            try {
-                // Retry interval
-                sleep(TimeUnit.SECONDS.toMillis(this.getDelaySeconds()));
-            } catch (final InterruptedException ex) {
-                throw new IOException("Interrupted in retry attempting", ex);
-            }
-        } while (++retries < this.getRetriesMax());
+    /**
+     * Watch the job status, by the shared Livy batch status poller or by polling {@link #getStatus()} periodically
+     *
+     * @return the job status observable, never completes unless unsubscribed
+     */
+    @NotNull
+    protected Observable<? extends SparkSubmitResponse> watchStatus() {
+        if (isBatchStatusPollerEnabled()) {
+            return getBatchStatusPoller().watch(getBatchId());
+        }
 
-        throw new UnknownServiceException("Failed to detect job activity: Unknown service error after " + --retries + " retries");
+        return getStatus()
+                .retry(getRetriesMax())
+                .repeatWhen(ob -> ob.delay(getDelaySeconds(), TimeUnit.SECONDS));
     }
 
     protected Observable<SimpleImmutableEntry<String, String>> getJobDoneObservable() {
@@ -912,50 +961,16 @@ public class SparkBatchJob implements ISparkBatchJob, ILogger {
                     "please configure Spark cluster which the Spark job will be submitted."));
         }
 
-        return Observable.create((Subscriber<? super SimpleImmutableEntry<String, String>> ob) -> {
-            try {
-                boolean isJobActive;
-                SparkBatchJobState state = SparkBatchJobState.NOT_STARTED;
-                String diagnostics = "";
-
-                do {
-                    final HttpResponse httpResponse = this.getSubmission().getBatchSparkJobStatus(
-                            this.getConnectUri().toString(), batchId);
-
-                    if (httpResponse.getCode() >= 200 && httpResponse.getCode() < 300) {
-                        final SparkSubmitResponse jobResp = ObjectConvertUtils.convertJsonToObject(
-                                httpResponse.getMessage(), SparkSubmitResponse.class)
-                                                                              .orElseThrow(() -> new UnknownServiceException(
-                                        "Bad spark job response: " + httpResponse.getMessage()));
-
-                        state = SparkBatchJobState.valueOf(jobResp.getState().toUpperCase());
-                        diagnostics = String.join("\n", jobResp.getLog());
-
-                        isJobActive = !isDone(state.toString());
-                    } else {
-                        isJobActive = false;
-                    }
-
-
-                    // Retry interval
-                    sleep(1000);
-                } while (isJobActive);
-
-                ob.onNext(new SimpleImmutableEntry<>(state.toString(), diagnostics));
-                ob.onCompleted();
-            } catch (final IOException ex) {
-                ob.onError(ex);
-            } catch (final InterruptedException ignored) {
-                ob.onCompleted();
-            }
-        });
+        return watchStatus()
+                .filter(jobResp -> isDone(jobResp.getState()))
+                .first()
+                .map(jobResp -> new SimpleImmutableEntry<>(jobResp.getState(), String.join("\n", jobResp.getLog())));
     }
 
     protected Observable<String> getJobLogAggregationDoneObservable() {
         return getSparkJobApplicationIdObservable()
                 .flatMap(applicationId ->
-                        Observable.fromCallable(() ->
-                                getSparkJobYarnApplication(this.getYarnNMConnectUri(), applicationId))
+                        getSparkJobYarnApplicationWithRetries(this.getYarnNMConnectUri(), applicationId)
                                 .repeatWhen(ob -> ob.delay(getDelaySeconds(), TimeUnit.SECONDS))
                                 .filter(Objects::nonNull)
                                 .takeUntil(this::isYarnAppLogAggregationDone)
@@ -967,8 +982,7 @@ public class SparkBatchJob implements ISparkBatchJob, ILogger {
         final int DEFAULT_YARN_CONTAINER_LOG_URL_PORT = 30060;
         return getSparkJobApplicationIdObservable()
                 .flatMap(applicationId ->
-                        Observable.fromCallable(() ->
-                                getSparkJobYarnApplication(this.getYarnNMConnectUri(), applicationId)))
+                        getSparkJobYarnApplicationWithRetries(this.getYarnNMConnectUri(), applicationId))
                 .doOnError(err -> log().warn("Error getting yarn application. " + ExceptionUtils.getStackTrace(err)))
                 .map(app -> {
                     String amHostHttpAddress = app.getAmHostHttpAddress();
@@ -1182,12 +1196,18 @@ public class SparkBatchJob implements ISparkBatchJob, ILogger {
     @NotNull
     @Override
     public Observable<String> awaitStarted() {
-        return getStatus()
+        if (getConnectUri() == null) {
+            return Observable.error(new SparkJobNotConfiguredException("Can't get Spark job connection URI, " +
+                    "please configure Spark cluster which the Spark job will be submitted."));
+        }
+
+        return watchStatus()
                 .map(status -> new SimpleImmutableEntry<>(status.getState(), String.join("\n", status.getLog())))
-                .retry(getRetriesMax())
-                .repeatWhen(ob -> ob.doOnNext(ignored -> getCtrlSubject().onNext(
-                        new SparkLogLine(TOOL, Info, "The Spark job is starting...")))
-                                    .delay(getDelaySeconds(), TimeUnit.SECONDS))
+                .doOnNext(stateLogPair -> {
+                    if (!isDone(stateLogPair.getKey()) && !isRunning(stateLogPair.getKey())) {
+                        getCtrlSubject().onNext(new SparkLogLine(TOOL, Info, "The Spark job is starting..."));
+                    }
+                })
                 .takeUntil(stateLogPair -> isDone(stateLogPair.getKey()) || isRunning(stateLogPair.getKey()))
                 .filter(stateLogPair -> isDone(stateLogPair.getKey()) || isRunning(stateLogPair.getKey()))
                 .flatMap(stateLogPair -> {
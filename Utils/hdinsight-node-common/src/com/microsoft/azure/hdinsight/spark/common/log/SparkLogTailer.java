@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.spark.common.log;
+
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import rx.Observable;
+import rx.Scheduler;
+import rx.functions.Func2;
+import rx.schedulers.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tails a Spark job log fetched by offset and size, such as the driver or container log.
+ *
+ * The fetched chunks are split into lines and kept in a bounded buffer, the consumer takes the lines in batches, one
+ * batch per UI frame. The chunk size grows while the log has more to fetch and shrinks when the log goes quiet. When
+ * the consumer falls behind and the buffer is full, the oldest lines are dropped and a summary line telling how many
+ * are skipped is put in their place. The fetching offset is kept by the tailer, so re-subscribing after a disconnection
+ * continues from where it stopped without fetching any line twice.
+ */
+public class SparkLogTailer {
+    public static final int DEFAULT_MAX_BUFFERED_LINES = 10000;
+    public static final int DEFAULT_MAX_LINES_PER_FRAME = 500;
+    public static final long DEFAULT_FRAME_MS = 100;
+    public static final long DEFAULT_IDLE_DELAY_MS = 3000;
+    public static final int MIN_CHUNK_SIZE = 4 * 1024;
+    public static final int MAX_CHUNK_SIZE = 1024 * 1024;
+
+    /**
+     * The log fetching function, takes the offset and size, returns the log slice and the offset it starts from,
+     * or empty if there isn't new log. The offset returned can differ from the requested one when the log is switched,
+     * e.g. a new driver attempt starts a new log from 0.
+     */
+    @NotNull
+    private final Func2<Long, Integer, Observable<SimpleImmutableEntry<String, Long>>> fetcher;
+
+    private final int maxBufferedLines;
+
+    private final long idleDelayMs;
+
+    @NotNull
+    private final Scheduler scheduler;
+
+    /**
+     * The buffered lines, accessing with the tailer lock
+     */
+    @NotNull
+    private final ArrayDeque<String> lines = new ArrayDeque<>();
+
+    /**
+     * The tail of the last chunk without a line end yet
+     */
+    @NotNull
+    private String partialLine = "";
+
+    private long droppedLines = 0;
+
+    private long offset = 0;
+
+    private int chunkSize = MIN_CHUNK_SIZE;
+
+    private boolean lastChunkFull = false;
+
+    public SparkLogTailer(@NotNull final Func2<Long, Integer, Observable<SimpleImmutableEntry<String, Long>>> fetcher,
+                          final int maxBufferedLines,
+                          final long idleDelayMs,
+                          @NotNull final Scheduler scheduler) {
+        if (maxBufferedLines <= 0 || idleDelayMs < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Bad max buffered lines %d or idle delay %dms.", maxBufferedLines, idleDelayMs));
+        }
+
+        this.fetcher = fetcher;
+        this.maxBufferedLines = maxBufferedLines;
+        this.idleDelayMs = idleDelayMs;
+        this.scheduler = scheduler;
+    }
+
+    public SparkLogTailer(@NotNull final Func2<Long, Integer, Observable<SimpleImmutableEntry<String, Long>>> fetcher) {
+        this(fetcher, DEFAULT_MAX_BUFFERED_LINES, DEFAULT_IDLE_DELAY_MS, Schedulers.computation());
+    }
+
+    public synchronized long getOffset() {
+        return offset;
+    }
+
+    public synchronized int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * The fetching loop, fetches the next chunk at once when the last one is full, or after the idle delay when
+     * there isn't new log. Subscribe to start fetching into the buffer and unsubscribe to stop.
+     *
+     * @return the observable of the fetched bytes of every chunk
+     */
+    @NotNull
+    public Observable<Integer> fetch() {
+        return Observable.defer(() -> {
+                    final long fetchOffset;
+                    final int fetchSize;
+
+                    synchronized (this) {
+                        fetchOffset = offset;
+                        fetchSize = chunkSize;
+                    }
+
+                    return fetcher.call(fetchOffset, fetchSize)
+                            .map(sliceOffsetPair -> append(fetchOffset, sliceOffsetPair.getKey(),
+                                                           sliceOffsetPair.getValue()))
+                            .defaultIfEmpty(0)
+                            .doOnNext(this::adaptChunkSize);
+                })
+                .subscribeOn(Schedulers.io())
+                .repeatWhen(fetched -> fetched.concatMap(ignored -> isLastChunkFull()
+                        ? Observable.just(0L)
+                        : Observable.timer(idleDelayMs, TimeUnit.MILLISECONDS, scheduler)));
+    }
+
+    /**
+     * Tail the log in line batches, one batch per frame. The frames are skipped while the consumer is busy.
+     *
+     * @param frameMs the frame interval in milliseconds
+     * @param maxLinesPerFrame the max lines of a batch
+     * @return the line batches observable, never completes unless unsubscribed
+     */
+    @NotNull
+    public Observable<List<String>> tail(final long frameMs, final int maxLinesPerFrame) {
+        final Observable<List<String>> batches = Observable.interval(frameMs, TimeUnit.MILLISECONDS, scheduler)
+                .onBackpressureDrop()
+                .map(frame -> drain(maxLinesPerFrame))
+                .filter(batch -> !batch.isEmpty());
+
+        return batches.mergeWith(fetch().flatMap(ignored -> Observable.empty()));
+    }
+
+    @NotNull
+    public Observable<List<String>> tail() {
+        return tail(DEFAULT_FRAME_MS, DEFAULT_MAX_LINES_PER_FRAME);
+    }
+
+    /**
+     * Take the buffered lines, with a summary line ahead if some lines were dropped
+     *
+     * @param maxLines the max lines to take
+     * @return the lines taken, empty if there isn't any
+     */
+    @NotNull
+    public synchronized List<String> drain(final int maxLines) {
+        if (lines.isEmpty() && droppedLines == 0) {
+            return Collections.emptyList();
+        }
+
+        final List<String> batch = new ArrayList<>(Math.min(lines.size() + 1, maxLines));
+
+        if (droppedLines > 0) {
+            batch.add(String.format("... %d log lines are skipped since the console can't catch up ...",
+                                    droppedLines));
+            droppedLines = 0;
+        }
+
+        while (batch.size() < maxLines && !lines.isEmpty()) {
+            batch.add(lines.poll());
+        }
+
+        return batch;
+    }
+
+    /**
+     * Wait for the buffered lines and take them
+     *
+     * @param timeoutMs the max time to wait in milliseconds
+     * @param maxLines the max lines to take
+     * @return the lines taken, empty if there isn't any after the timeout
+     * @throws InterruptedException when interrupted in waiting
+     */
+    @NotNull
+    public synchronized List<String> awaitLines(final long timeoutMs, final int maxLines) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + timeoutMs;
+
+        for (long left = timeoutMs; lines.isEmpty() && droppedLines == 0 && left > 0;
+                left = deadline - System.currentTimeMillis()) {
+            wait(left);
+        }
+
+        return drain(maxLines);
+    }
+
+    private synchronized int append(final long fetchOffset, @NotNull final String slice, final long sliceOffset) {
+        if (sliceOffset != fetchOffset) {
+            // The log is switched, the partial line belongs to the previous one
+            flushPartialLine();
+        }
+
+        final int sliceBytes = slice.getBytes(StandardCharsets.UTF_8).length;
+        offset = sliceOffset + sliceBytes;
+
+        final String text = partialLine + slice;
+        int lineStart = 0;
+
+        for (int lineEnd = text.indexOf('\n'); lineEnd >= 0; lineEnd = text.indexOf('\n', lineStart)) {
+            addLine(text.substring(lineStart, lineEnd > lineStart && text.charAt(lineEnd - 1) == '\r'
+                                              ? lineEnd - 1 : lineEnd));
+            lineStart = lineEnd + 1;
+        }
+
+        partialLine = text.substring(lineStart);
+        notifyAll();
+
+        return sliceBytes;
+    }
+
+    private void flushPartialLine() {
+        if (!partialLine.isEmpty()) {
+            addLine(partialLine);
+            partialLine = "";
+            notifyAll();
+        }
+    }
+
+    private void addLine(@NotNull final String line) {
+        if (lines.size() >= maxBufferedLines) {
+            lines.poll();
+            droppedLines++;
+        }
+
+        lines.add(line);
+    }
+
+    private synchronized void adaptChunkSize(final int fetchedBytes) {
+        if (fetchedBytes == 0) {
+            // No new log, the quiet log shows the lines as soon as they come
+            flushPartialLine();
+            chunkSize = MIN_CHUNK_SIZE;
+            lastChunkFull = false;
+        } else if (fetchedBytes >= chunkSize) {
+            chunkSize = Math.min(chunkSize * 2, MAX_CHUNK_SIZE);
+            lastChunkFull = true;
+        } else {
+            if (fetchedBytes < chunkSize / 4) {
+                chunkSize = Math.max(chunkSize / 2, MIN_CHUNK_SIZE);
+            }
+
+            lastChunkFull = false;
+        }
+    }
+
+    private synchronized boolean isLastChunkFull() {
+        return lastChunkFull;
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.spark.jobs;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.azure.hdinsight.common.HDInsightHelper;
+import com.microsoft.azure.hdinsight.common.HDInsightLoader;
+import com.microsoft.azure.hdinsight.common.logger.ILogger;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The size bounded disk cache of the completed Spark applications history, such as jobs, stages, executors, tasks and
+ * event logs, which never change once the application is completed. So the history survives IDE restarts without
+ * fetching from Spark history server again.
+ *
+ * Every application has a folder named by the hash of the cluster connection URL and application ID, and every
+ * resource is a file in it. The file has a header of magic number, format version and raw size, followed by the
+ * deflated JSON. The file is written into a temporary file then moved in atomically.
+ *
+ * When the cache size exceeds the max size, the least recently used applications are evicted as a whole.
+ */
+public class ApplicationHistoryDiskCache implements ILogger {
+    public static final long DEFAULT_MAX_SIZE_BYTES = 256 * 1024 * 1024L;
+    public static final String CACHE_FOLDER_NAME = "SparkAppHistoryCache";
+
+    private static final int MAGIC = 0x53414843;    // "SAHC"
+    private static final short FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 2 + 4;
+    private static final String CACHE_FILE_SUFFIX = ".bin";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Nullable
+    private static ApplicationHistoryDiskCache instance;
+
+    @NotNull
+    private final File rootDir;
+
+    private final long maxSizeBytes;
+
+    // The total size of the cache files, scanned at the first access
+    private long sizeBytes = -1;
+
+    public ApplicationHistoryDiskCache(@NotNull File rootDir, long maxSizeBytes) {
+        if (maxSizeBytes <= 0) {
+            throw new IllegalArgumentException("Bad max cache size " + maxSizeBytes);
+        }
+
+        this.rootDir = rootDir;
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    /**
+     * Get the cache under the plugin root path
+     *
+     * @return the cache, or empty if the plugin root path isn't ready
+     */
+    @NotNull
+    public static synchronized Optional<ApplicationHistoryDiskCache> getInstance() {
+        final String pluginRootPath = Optional.ofNullable(HDInsightLoader.getHDInsightHelper())
+                .map(HDInsightHelper::getPluginRootPath)
+                .orElse(null);
+
+        if (instance == null && pluginRootPath != null) {
+            instance = new ApplicationHistoryDiskCache(new File(pluginRootPath, CACHE_FOLDER_NAME), DEFAULT_MAX_SIZE_BYTES);
+        }
+
+        return Optional.ofNullable(instance);
+    }
+
+    @NotNull
+    public File getRootDir() {
+        return rootDir;
+    }
+
+    public synchronized long getSizeBytes() {
+        if (sizeBytes < 0) {
+            sizeBytes = sizeOfCacheFiles(rootDir);
+        }
+
+        return sizeBytes;
+    }
+
+    @Nullable
+    public <T> T get(@NotNull ApplicationKey key, @NotNull String resource, @NotNull Class<T> clazz) {
+        return read(key, resource, objectMapper.getTypeFactory().constructType(clazz));
+    }
+
+    @Nullable
+    public <T> List<T> getList(@NotNull ApplicationKey key, @NotNull String resource, @NotNull Class<T> elementClass) {
+        return read(key, resource, objectMapper.getTypeFactory().constructCollectionType(List.class, elementClass));
+    }
+
+    /**
+     * Put the resource of a completed application, which should never change then
+     */
+    public void put(@NotNull ApplicationKey key, @NotNull String resource, @NotNull Object value) {
+        final File appDir = getAppDir(key);
+        final File cacheFile = getCacheFile(appDir, resource);
+        final File tempFile = new File(appDir, cacheFile.getName() + "." + Thread.currentThread().getId() + TEMP_FILE_SUFFIX);
+
+        try {
+            final byte[] json = objectMapper.writeValueAsBytes(value);
+
+            FileUtils.forceMkdir(appDir);
+
+            try (DataOutputStream out = new DataOutputStream(new FileOutputStream(tempFile))) {
+                out.writeInt(MAGIC);
+                out.writeShort(FORMAT_VERSION);
+                out.writeInt(json.length);
+
+                final DeflaterOutputStream deflated = new DeflaterOutputStream(out);
+                deflated.write(json);
+                deflated.finish();
+            }
+
+            synchronized (this) {
+                final long oldSizeBytes = getSizeBytes();
+                final long replacedSize = cacheFile.length();
+
+                Files.move(tempFile.toPath(), cacheFile.toPath(),
+                           StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                sizeBytes = oldSizeBytes + cacheFile.length() - replacedSize;
+                appDir.setLastModified(System.currentTimeMillis());
+
+                evictIfOversize(appDir);
+            }
+        } catch (IOException ex) {
+            log().warn("Failed to write Spark application history cache " + cacheFile, ex);
+            FileUtils.deleteQuietly(tempFile);
+        }
+    }
+
+    /**
+     * Remove all the cached resources of an application
+     */
+    public synchronized void remove(@NotNull ApplicationKey key) {
+        final File appDir = getAppDir(key);
+
+        if (appDir.isDirectory()) {
+            sizeBytes = getSizeBytes() - deleteAppDir(appDir);
+        }
+    }
+
+    @Nullable
+    private <T> T read(@NotNull ApplicationKey key, @NotNull String resource, @NotNull JavaType type) {
+        final File appDir = getAppDir(key);
+        final File cacheFile = getCacheFile(appDir, resource);
+
+        if (!cacheFile.isFile()) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+            final ByteBuffer buffer = readFully(channel);
+
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getShort() != FORMAT_VERSION) {
+                throw new IOException("Unknown cache file format");
+            }
+
+            final int rawSize = buffer.getInt();
+
+            try (InputStream in = new InflaterInputStream(
+                    new ByteArrayInputStream(buffer.array(), buffer.position(), buffer.remaining()), new Inflater(),
+                                                           Math.max(512, Math.min(rawSize, 64 * 1024)))) {
+                final T value = objectMapper.readValue(in, type);
+
+                // Mark the application recently used for LRU eviction
+                appDir.setLastModified(System.currentTimeMillis());
+
+                return value;
+            }
+        } catch (IOException ex) {
+            log().warn("Drop the bad Spark application history cache " + cacheFile, ex);
+
+            synchronized (this) {
+                FileUtils.deleteQuietly(cacheFile);
+
+                // Scan again since the bad file size could be changed by others
+                sizeBytes = -1;
+            }
+
+            return null;
+        }
+    }
+
+    private void evictIfOversize(@NotNull File justWrittenAppDir) {
+        if (sizeBytes <= maxSizeBytes) {
+            return;
+        }
+
+        final File[] appDirs = Optional.ofNullable(rootDir.listFiles(File::isDirectory)).orElse(new File[0]);
+        Arrays.sort(appDirs, Comparator.comparingLong(File::lastModified));
+
+        for (File appDir : appDirs) {
+            if (sizeBytes <= maxSizeBytes) {
+                break;
+            }
+
+            if (appDir.equals(justWrittenAppDir)) {
+                continue;
+            }
+
+            sizeBytes -= deleteAppDir(appDir);
+        }
+    }
+
+    /**
+     * Delete the application folder
+     *
+     * @return the size of the cache files actually deleted, the files failed to delete are still counted in the cache
+     */
+    private static long deleteAppDir(@NotNull File appDir) {
+        final long appSizeBytes = sizeOfCacheFiles(appDir);
+
+        if (FileUtils.deleteQuietly(appDir)) {
+            return appSizeBytes;
+        }
+
+        return appSizeBytes - sizeOfCacheFiles(appDir);
+    }
+
+    /**
+     * Read the whole file into a heap buffer, which is ready to get from the beginning
+     */
+    @NotNull
+    private static ByteBuffer readFully(@NotNull FileChannel channel) throws IOException {
+        final long size = channel.size();
+
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Too large cache file of " + size + " bytes");
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Unexpected end of cache file");
+            }
+        }
+
+        buffer.flip();
+
+        return buffer;
+    }
+
+    /**
+     * Get the size of the cache files in the folder, the temporary files being written are excluded
+     */
+    private static long sizeOfCacheFiles(@NotNull File dir) {
+        if (!dir.isDirectory()) {
+            return 0;
+        }
+
+        return FileUtils.listFiles(dir, new String[] { CACHE_FILE_SUFFIX.substring(1) }, true).stream()
+                .mapToLong(File::length)
+                .sum();
+    }
+
+    @NotNull
+    private File getAppDir(@NotNull ApplicationKey key) {
+        return new File(rootDir, DigestUtils.sha1Hex(
+                key.getClusterConnString().toLowerCase() + "|" + key.getAppId().toLowerCase()));
+    }
+
+    @NotNull
+    private static File getCacheFile(@NotNull File appDir, @NotNull String resource) {
+        return new File(appDir, resource.replaceAll("[^A-Za-z0-9_.-]", "_") + CACHE_FILE_SUFFIX);
+    }
+}
@@ -45,7 +45,7 @@ import com.microsoft.azure.hdinsight.sdk.common.AuthenticationException;
 import com.microsoft.azure.hdinsight.sdk.common.HDIException;
 import com.microsoft.azure.hdinsight.sdk.common.HttpObservable;
 import com.microsoft.azure.hdinsight.sdk.common.livy.interactive.SparkSession;
-import com.microsoft.azure.hdinsight.sdk.io.spark.ClusterFileBase64BufferedOutputStream;
+import com.microsoft.azure.hdinsight.sdk.io.spark.ClusterFilePipelinedOutputStream;
 import com.microsoft.azure.hdinsight.sdk.rest.yarn.rm.App;
 import com.microsoft.azure.hdinsight.sdk.rest.yarn.rm.ApplicationMasterLogs;
 import com.microsoft.azure.hdinsight.sdk.storage.HDStorageAccount;
@@ -67,7 +67,6 @@ import com.microsoft.tooling.msservices.helpers.azure.sdk.StorageClientSDKManage
 import com.microsoft.tooling.msservices.model.storage.BlobContainer;
 import com.microsoft.tooling.msservices.model.storage.ClientStorageAccount;
 import com.sun.net.httpserver.HttpExchange;
-import org.apache.commons.codec.binary.Base64OutputStream;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.*;
@@ -674,9 +673,8 @@ public class JobUtils {
                                                         err -> ctrlError(legacyLogSubject, newLogSubject, err),
                                                         () -> {});
 
-                                 ClusterFileBase64BufferedOutputStream clusterFileBase64Out =
-                                         new ClusterFileBase64BufferedOutputStream(sparkSession, destUri);
-                                 Base64OutputStream base64Enc = new Base64OutputStream(clusterFileBase64Out, true);
+                                 ClusterFilePipelinedOutputStream clusterFileOut =
+                                         new ClusterFilePipelinedOutputStream(sparkSession, destUri);
                                  InputStream inFile;
 
                                  try {
@@ -684,10 +682,10 @@ public class JobUtils {
 
                                      ctrlInfo(legacyLogSubject, newLogSubject, String.format("Uploading %s...",
                                                                                              srcJarFile));
-                                     IOUtils.copy(inFile, base64Enc);
+                                     IOUtils.copy(inFile, clusterFileOut);
 
                                      inFile.close();
-                                     base64Enc.close();
+                                     clusterFileOut.close();
                                  } catch (FileNotFoundException fnfEx) {
                                      throw propagate(new HDIException(String.format("Source file %s not found.",
                                                                                     srcJarFile), fnfEx));
@@ -19,15 +19,20 @@
  * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
  * SOFTWARE.
  */
-
 package com.microsoft.azure.hdinsight.spark.jobs;
 
+import com.google.common.cache.AbstractCache;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.microsoft.azure.hdinsight.common.JobViewManager;
 import com.microsoft.azure.hdinsight.sdk.cluster.IClusterDetail;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.Application;
+import com.microsoft.azure.hdinsight.sdk.rest.spark.Attempt;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.event.JobStartEventLog;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.executor.Executor;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.job.Job;
@@ -36,45 +41,108 @@ import com.microsoft.azure.hdinsight.sdk.rest.spark.task.Task;
 import com.microsoft.azure.hdinsight.sdk.rest.yarn.rm.App;
 import com.microsoft.azure.hdinsight.sdk.rest.yarn.rm.ApplicationMasterLogs;
 import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import rx.Observable;
+import rx.schedulers.Schedulers;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * The local caches of the Spark and Yarn application resources for the job view.
+ *
+ * The caches are refreshed after {@link #REFRESH_INTERVAL_SECONDS}, but the jobs and stages of a completed application
+ * are kept as they are. The tasks are cached per stage attempt once the stage is completed, so a refresh only fetches
+ * the tasks of the stages still running, several stages at the same time.
+ */
 public class JobViewCacheManager {
+    public static final long REFRESH_INTERVAL_SECONDS = 30;
+    public static final int MAX_CONCURRENT_STAGE_TASKS_FETCHES = 8;
+
+    private static final List<String> COMPLETED_JOB_STATUSES = Arrays.asList("SUCCEEDED", "FAILED");
+    private static final List<String> COMPLETED_STAGE_STATUSES = Arrays.asList("COMPLETE", "FAILED", "SKIPPED");
+
     private static final LoadingCache<ApplicationKey, List<Job>> sparkJobLocalCache = CacheBuilder.newBuilder()
             .maximumSize(100)
             .initialCapacity(20)
+            .refreshAfterWrite(REFRESH_INTERVAL_SECONDS, TimeUnit.SECONDS)
+            .recordStats()
             .build(new CacheLoader<ApplicationKey, List<Job>>() {
                 @Override
                 public List<Job> load(ApplicationKey key) throws Exception {
                     return SparkRestUtil.getLastAttemptJobsFromApp(key);
                 }
+
+                @Override
+                public ListenableFuture<List<Job>> reload(ApplicationKey key, List<Job> oldJobs) throws Exception {
+                    if (isApplicationCompleted(key) && oldJobs.stream().allMatch(JobViewCacheManager::isJobCompleted)) {
+                        return Futures.immediateFuture(oldJobs);
+                    }
+
+                    return super.reload(key, oldJobs);
+                }
             });
 
     private static final LoadingCache<ApplicationKey, List<Stage>> sparkStageLocalCache = CacheBuilder.newBuilder()
             .maximumSize(100)
             .initialCapacity(20)
+            .refreshAfterWrite(REFRESH_INTERVAL_SECONDS, TimeUnit.SECONDS)
+            .recordStats()
             .build(new CacheLoader<ApplicationKey, List<Stage>>() {
                 @Override
                 public List<Stage> load(ApplicationKey key) throws Exception {
                     return SparkRestUtil.getAllStageFromApp(key);
                 }
+
+                @Override
+                public ListenableFuture<List<Stage>> reload(ApplicationKey key, List<Stage> oldStages) throws Exception {
+                    if (isApplicationCompleted(key) && oldStages.stream().allMatch(JobViewCacheManager::isStageCompleted)) {
+                        return Futures.immediateFuture(oldStages);
+                    }
+
+                    // Keep the completed stages as they were
+                    final Map<String, Stage> completedStages = oldStages.stream()
+                            .filter(JobViewCacheManager::isStageCompleted)
+                            .collect(Collectors.toMap(JobViewCacheManager::getStageAttemptKey,
+                                                      Function.identity(),
+                                                      (stage1, stage2) -> stage2));
+
+                    return Futures.immediateFuture(load(key).stream()
+                            .map(stage -> completedStages.getOrDefault(getStageAttemptKey(stage), stage))
+                            .collect(Collectors.toList()));
+                }
             });
 
     private static final LoadingCache<ApplicationKey, List<Executor>> sparkExecutorLocalCache = CacheBuilder.newBuilder()
             .maximumSize(100)
             .initialCapacity(20)
+            .refreshAfterWrite(REFRESH_INTERVAL_SECONDS, TimeUnit.SECONDS)
+            .recordStats()
             .build(new CacheLoader<ApplicationKey, List<Executor>>() {
                 @Override
                 public List<Executor> load(ApplicationKey key) throws Exception {
                     return SparkRestUtil.getAllExecutorFromApp(key);
                 }
+
+                @Override
+                public ListenableFuture<List<Executor>> reload(ApplicationKey key, List<Executor> oldExecutors) throws Exception {
+                    return isApplicationCompleted(key) ? Futures.immediateFuture(oldExecutors) : super.reload(key, oldExecutors);
+                }
             });
 
     private static final LoadingCache<String, List<Application>> sparkApplicationsLocalCache = CacheBuilder.newBuilder()
             .maximumSize(100)
             .initialCapacity(20)
+            .refreshAfterWrite(REFRESH_INTERVAL_SECONDS, TimeUnit.SECONDS)
+            .recordStats()
             .build(new CacheLoader<String, List<Application>>() {
                 @Override
                 public List<Application> load(String key) throws Exception {
@@ -82,27 +150,18 @@ public class JobViewCacheManager {
                 }
             });
 
-    private static final LoadingCache<ApplicationKey, List<Task>> sparkTasksSummaryLocalCache = CacheBuilder.newBuilder()
+    // The tasks of the completed stage attempts, keyed by "{stageId}_{attemptId}"
+    private static final Cache<ApplicationKey, ConcurrentMap<String, List<Task>>> sparkCompletedStageTasksLocalCache = CacheBuilder.newBuilder()
             .maximumSize(100)
             .initialCapacity(20)
-            .build(new CacheLoader<ApplicationKey, List<Task>>() {
-                @Override
-                public List<Task> load(ApplicationKey key) throws Exception {
-                    List<Task> allTasks = new ArrayList<>();
-                    List<Stage> stages = sparkStageLocalCache.get(key);
-                    for (Stage stage: stages) {
-                        int stageId = stage.getStageId();
-                        int attemptedId = stage.getAttemptId();
-                        List<Task> tasks = SparkRestUtil.getSparkTasks(key, stageId, attemptedId);
-                        allTasks.addAll(tasks);
-                    }
-                    return allTasks;
-                }
-            });
+            .build();
+
+    private static final AbstractCache.SimpleStatsCounter sparkStageTasksStatsCounter = new AbstractCache.SimpleStatsCounter();
 
     private static final LoadingCache<ApplicationKey, ApplicationMasterLogs> yarnAppLogLocalCache = CacheBuilder.newBuilder()
             .maximumSize(100)
             .initialCapacity(20)
+            .recordStats()
             .build(new CacheLoader<ApplicationKey, ApplicationMasterLogs>() {
                 @Override
                 public ApplicationMasterLogs load(ApplicationKey key) throws Exception {
@@ -113,16 +172,24 @@ public class JobViewCacheManager {
     private static final LoadingCache<ApplicationKey, App> yarnApplicationLocalCache = CacheBuilder.newBuilder()
             .maximumSize(100)
             .initialCapacity(20)
+            .refreshAfterWrite(REFRESH_INTERVAL_SECONDS, TimeUnit.SECONDS)
+            .recordStats()
             .build(new CacheLoader<ApplicationKey, App>() {
                 @Override
                 public App load(ApplicationKey key) throws Exception {
                     return YarnRestUtil.getApp(key);
                 }
+
+                @Override
+                public ListenableFuture<App> reload(ApplicationKey key, App oldApp) throws Exception {
+                    return isApplicationCompleted(key) ? Futures.immediateFuture(oldApp) : super.reload(key, oldApp);
+                }
             });
 
     private static final LoadingCache<ApplicationKey, List<JobStartEventLog>> sparkJobStartEventLogCache = CacheBuilder.newBuilder()
             .maximumSize(100)
             .initialCapacity(20)
+            .recordStats()
             .build(new CacheLoader<ApplicationKey, List<JobStartEventLog>>() {
                 @Override
                 public List<JobStartEventLog> load(ApplicationKey key) throws Exception {
@@ -164,11 +231,134 @@ public class JobViewCacheManager {
         return sparkJobLocalCache.get(key);
     }
 
+    /**
+     * Get the tasks of all stages, the tasks of the completed stages are got from the local cache, the others are
+     * fetched with at most {@link #MAX_CONCURRENT_STAGE_TASKS_FETCHES} stages at the same time
+     */
     public static List<Task> getTasks(@NotNull ApplicationKey key) throws ExecutionException {
-        return sparkTasksSummaryLocalCache.get(key);
+        final List<Stage> stages = sparkStageLocalCache.get(key);
+        final ConcurrentMap<String, List<Task>> completedStageTasks =
+                sparkCompletedStageTasksLocalCache.get(key, ConcurrentHashMap::new);
+
+        try {
+            return Observable.from(stages)
+                    .concatMapEager(stage -> getStageTasks(key, stage, completedStageTasks),
+                                    stages.size() + 1,
+                                    MAX_CONCURRENT_STAGE_TASKS_FETCHES)
+                    .flatMapIterable(tasks -> tasks)
+                    .toList()
+                    .toBlocking()
+                    .single();
+        } catch (RuntimeException ex) {
+            throw new ExecutionException(ex.getCause() != null ? ex.getCause() : ex);
+        }
     }
 
     public static List<Stage> getStages(@NotNull ApplicationKey key) throws ExecutionException {
         return sparkStageLocalCache.get(key);
     }
+
+    /**
+     * Get the hit, miss and load statistics of the caches
+     *
+     * @return the statistics by cache name
+     */
+    @NotNull
+    public static Map<String, Map<String, Object>> getCacheStats() {
+        final Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+
+        stats.put("applications", toStatsMap(sparkApplicationsLocalCache.stats(), sparkApplicationsLocalCache.size()));
+        stats.put("jobs", toStatsMap(sparkJobLocalCache.stats(), sparkJobLocalCache.size()));
+        stats.put("stages", toStatsMap(sparkStageLocalCache.stats(), sparkStageLocalCache.size()));
+        stats.put("stageTasks", toStatsMap(sparkStageTasksStatsCounter.snapshot(),
+                                           sparkCompletedStageTasksLocalCache.asMap().values().stream()
+                                                   .mapToLong(Map::size)
+                                                   .sum()));
+        stats.put("executors", toStatsMap(sparkExecutorLocalCache.stats(), sparkExecutorLocalCache.size()));
+        stats.put("jobStartEventLogs", toStatsMap(sparkJobStartEventLogCache.stats(), sparkJobStartEventLogCache.size()));
+        stats.put("yarnApps", toStatsMap(yarnApplicationLocalCache.stats(), yarnApplicationLocalCache.size()));
+        stats.put("yarnLogs", toStatsMap(yarnAppLogLocalCache.stats(), yarnAppLogLocalCache.size()));
+
+        return stats;
+    }
+
+    @NotNull
+    private static Map<String, Object> toStatsMap(@NotNull CacheStats stats, long size) {
+        final Map<String, Object> statsMap = new LinkedHashMap<>();
+
+        statsMap.put("size", size);
+        statsMap.put("hitCount", stats.hitCount());
+        statsMap.put("missCount", stats.missCount());
+        statsMap.put("hitRate", stats.hitRate());
+        statsMap.put("loadSuccessCount", stats.loadSuccessCount());
+        statsMap.put("loadExceptionCount", stats.loadExceptionCount());
+        statsMap.put("averageLoadPenaltyMs", stats.averageLoadPenalty() / TimeUnit.MILLISECONDS.toNanos(1));
+        statsMap.put("totalLoadTimeMs", TimeUnit.NANOSECONDS.toMillis(stats.totalLoadTime()));
+        statsMap.put("evictionCount", stats.evictionCount());
+
+        return statsMap;
+    }
+
+    @NotNull
+    private static Observable<List<Task>> getStageTasks(@NotNull ApplicationKey key,
+                                                        @NotNull Stage stage,
+                                                        @NotNull ConcurrentMap<String, List<Task>> completedStageTasks) {
+        final String stageAttemptKey = getStageAttemptKey(stage);
+        final List<Task> cachedTasks = completedStageTasks.get(stageAttemptKey);
+
+        if (cachedTasks != null) {
+            sparkStageTasksStatsCounter.recordHits(1);
+
+            return Observable.just(cachedTasks);
+        }
+
+        sparkStageTasksStatsCounter.recordMisses(1);
+
+        return Observable.fromCallable(() -> {
+                    final long start = System.nanoTime();
+
+                    try {
+                        final List<Task> tasks = SparkRestUtil.getSparkTasks(key, stage.getStageId(), stage.getAttemptId());
+                        sparkStageTasksStatsCounter.recordLoadSuccess(System.nanoTime() - start);
+
+                        return tasks;
+                    } catch (Exception ex) {
+                        sparkStageTasksStatsCounter.recordLoadException(System.nanoTime() - start);
+                        throw ex;
+                    }
+                })
+                .subscribeOn(Schedulers.io())
+                .doOnNext(tasks -> {
+                    // The tasks of a completed stage attempt never change
+                    if (isStageCompleted(stage)) {
+                        completedStageTasks.put(stageAttemptKey, Collections.unmodifiableList(tasks));
+                    }
+                });
+    }
+
+    @NotNull
+    private static String getStageAttemptKey(@NotNull Stage stage) {
+        return stage.getStageId() + "_" + stage.getAttemptId();
+    }
+
+    private static boolean isStageCompleted(@NotNull Stage stage) {
+        return stage.getStatus() != null && COMPLETED_STAGE_STATUSES.contains(stage.getStatus().toUpperCase());
+    }
+
+    private static boolean isJobCompleted(@NotNull Job job) {
+        return job.getStatus() != null && COMPLETED_JOB_STATUSES.contains(job.getStatus().toUpperCase());
+    }
+
+    private static boolean isApplicationCompleted(@NotNull ApplicationKey key) throws ExecutionException {
+        final Application application = getSingleSparkApplication(key);
+
+        if (application == null || application.getAttempts() == null || application.getAttempts().isEmpty()) {
+            return false;
+        }
+
+        // The former attempts are completed anyway, the application is completed once the last attempt is
+        return application.getAttempts().stream()
+                .map(Attempt::getCompleted)
+                .allMatch(Boolean::parseBoolean);
+    }
 }
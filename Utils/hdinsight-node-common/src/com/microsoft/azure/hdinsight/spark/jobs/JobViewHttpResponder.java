@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) Microsoft Corporation
+ *
+ * All rights reserved.
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation
+ * the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of
+ * the Software.
+ *
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO
+ * THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT,
+ * TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.microsoft.azure.hdinsight.spark.jobs;
+
+import com.microsoft.azure.hdinsight.common.logger.ILogger;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
+import com.sun.net.httpserver.HttpExchange;
+import org.apache.commons.codec.digest.DigestUtils;
+import rx.Observable;
+import rx.Scheduler;
+import rx.schedulers.Schedulers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The asynchronous responses of the job view HTTP server.
+ *
+ * The handlers return once the response is subscribed, so the server threads aren't held while the cluster REST
+ * calls are in flight. The identical requests in flight, keyed by the cluster, application and resource, share one
+ * upstream call. The responses carry ETags for the browser conditional requests, and are gzipped if accepted.
+ */
+public class JobViewHttpResponder {
+    public static final int GZIP_MIN_SIZE = 1024;
+
+    private static final ILogger logger = new ILogger() { };
+
+    private static final ConcurrentMap<String, Observable<String>> inFlightRequests = new ConcurrentHashMap<>();
+
+    private JobViewHttpResponder() {
+    }
+
+    @NotNull
+    public static String getRequestKey(@NotNull ApplicationKey key, @NotNull String resource) {
+        return String.format("%s|%s|%s", key.getClusterConnString().toLowerCase(), key.getAppId().toLowerCase(), resource);
+    }
+
+    /**
+     * Share one upstream call among the identical requests in flight
+     *
+     * @param requestKey the key of the identical requests
+     * @param loader the upstream call, runs on IO scheduler
+     * @return the response content observable
+     */
+    @NotNull
+    public static Observable<String> coalesce(@NotNull String requestKey, @NotNull Callable<String> loader) {
+        return coalesce(requestKey, loader, Schedulers.io());
+    }
+
+    @NotNull
+    static Observable<String> coalesce(@NotNull String requestKey,
+                                       @NotNull Callable<String> loader,
+                                       @NotNull Scheduler scheduler) {
+        return Observable.defer(() -> inFlightRequests.computeIfAbsent(requestKey, key -> {
+            final AtomicReference<Observable<String>> self = new AtomicReference<>();
+            final Observable<String> upstream = Observable.fromCallable(loader)
+                    .subscribeOn(scheduler)
+                    .doOnTerminate(() -> inFlightRequests.remove(key, self.get()))
+                    .cache();
+
+            self.set(upstream);
+
+            return upstream;
+        }));
+    }
+
+    public static int getInFlightRequestsCount() {
+        return inFlightRequests.size();
+    }
+
+    /**
+     * Send the response content when it's ready, with status 500 and the error message for the errors
+     */
+    public static void respond(@NotNull HttpExchange httpExchange, @NotNull Observable<String> content) {
+        content.subscribe(
+                body -> send(httpExchange, HttpURLConnection.HTTP_OK, body),
+                err -> {
+                    final Throwable cause = err instanceof ExecutionException && err.getCause() != null
+                                            ? err.getCause()
+                                            : err;
+
+                    logger.log().warn("Job view request " + httpExchange.getRequestURI() + " failed", cause);
+                    send(httpExchange, HttpURLConnection.HTTP_INTERNAL_ERROR, Optional.ofNullable(cause.getMessage()).orElse(""));
+                });
+    }
+
+    public static void send(@NotNull HttpExchange httpExchange, int code, @NotNull String body) {
+        try {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+            if (code == HttpURLConnection.HTTP_OK) {
+                final String eTag = "\"" + DigestUtils.sha1Hex(bytes) + "\"";
+
+                httpExchange.getResponseHeaders().set("ETag", eTag);
+                httpExchange.getResponseHeaders().set("Cache-Control", "no-cache");
+                httpExchange.getResponseHeaders().set("Access-Control-Expose-Headers", "ETag");
+
+                if (isETagMatched(httpExchange.getRequestHeaders().getFirst("If-None-Match"), eTag)) {
+                    httpExchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_MODIFIED, -1);
+                    return;
+                }
+            }
+
+            final String acceptEncoding = httpExchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (bytes.length >= GZIP_MIN_SIZE && acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip")) {
+                bytes = gzip(bytes);
+                httpExchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                httpExchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+            }
+
+            httpExchange.sendResponseHeaders(code, bytes.length == 0 ? -1 : bytes.length);
+
+            if (bytes.length > 0) {
+                try (OutputStream stream = httpExchange.getResponseBody()) {
+                    stream.write(bytes);
+                }
+            }
+        } catch (IOException e) {
+            logger.log().warn("Failed to send job view response of " + httpExchange.getRequestURI(), e);
+        } finally {
+            httpExchange.close();
+        }
+    }
+
+    private static boolean isETagMatched(String ifNoneMatch, @NotNull String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            final String trimmed = candidate.trim();
+
+            if (trimmed.equals("*") || trimmed.equals(eTag) || trimmed.equals("W/" + eTag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @NotNull
+    private static byte[] gzip(@NotNull byte[] bytes) throws IOException {
+        final ByteArrayOutputStream gzipped = new ByteArrayOutputStream(bytes.length / 4 + 64);
+
+        try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write(bytes);
+        }
+
+        return gzipped.toByteArray();
+    }
+}
@@ -22,6 +22,7 @@
 
 package com.microsoft.azure.hdinsight.spark.jobs;
 
+import com.microsoft.azure.hdinsight.sdk.rest.ObjectConvertUtils;
 import com.microsoft.azuretools.azurecommons.helpers.StringHelper;
 import com.microsoft.tooling.msservices.components.DefaultLoader;
 import com.sun.net.httpserver.HttpExchange;
@@ -29,6 +30,7 @@ import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 
 import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.util.concurrent.ExecutorService;
@@ -37,7 +39,8 @@ import java.util.concurrent.TimeUnit;
 
 public class JobViewHttpServer {
     private static HttpServer server;
-    private static final int NUMBER_OF_THREADS = 50;
+    // The handlers respond asynchronously, the threads only dispatch the requests
+    private static final int NUMBER_OF_DISPATCH_THREADS = 4;
     private static ExecutorService executorService;
     private static boolean isEnabled = false;
     private static int port = -1;
@@ -77,17 +80,23 @@ public class JobViewHttpServer {
             InetSocketAddress socketAddress = new InetSocketAddress(s.getLocalPort());
             port = socketAddress.getPort();
 
-            server = HttpServer.create(socketAddress, NUMBER_OF_THREADS);
+            server = HttpServer.create(socketAddress, 0);
 
             server.createContext("/try", (httpExchange) -> {
                     httpExchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
                     JobUtils.setResponse(httpExchange, "Connect Successfully");
             });
+            server.createContext("/cache_stats", (httpExchange) -> {
+                    httpExchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
+                    JobViewHttpResponder.send(httpExchange, HttpURLConnection.HTTP_OK, ObjectConvertUtils
+                            .convertObjectToJsonString(JobViewCacheManager.getCacheStats())
+                            .orElse("{}"));
+            });
             server.createContext("/applications", new SparkJobHttpHandler());
             server.createContext("/apps", new YarnJobHttpHandler());
             server.createContext("/actions", new ActionHttpHandler());
 
-            executorService = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+            executorService = Executors.newFixedThreadPool(NUMBER_OF_DISPATCH_THREADS);
             server.setExecutor(executorService);
             server.start();
             isEnabled = true;
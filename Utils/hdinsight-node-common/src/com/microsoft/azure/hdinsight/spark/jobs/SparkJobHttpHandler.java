@@ -27,20 +27,18 @@ import com.microsoft.azure.hdinsight.sdk.rest.ObjectConvertUtils;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.Application;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.YarnAppWithJobs;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.event.JobStartEventLog;
-import com.microsoft.azure.hdinsight.sdk.rest.spark.executor.Executor;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.job.Job;
-import com.microsoft.azure.hdinsight.sdk.rest.spark.stage.Stage;
-import com.microsoft.azure.hdinsight.sdk.rest.spark.task.Task;
 import com.microsoft.azure.hdinsight.sdk.rest.yarn.rm.App;
 import com.microsoft.azure.hdinsight.spark.jobs.framework.JobRequestDetails;
+import com.microsoft.azuretools.azurecommons.helpers.NotNull;
 import com.microsoft.tooling.msservices.components.DefaultLoader;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
 import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.util.List;
-import java.util.Optional;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Callable;
 
 public class SparkJobHttpHandler implements HttpHandler {
 
@@ -48,40 +46,56 @@ public class SparkJobHttpHandler implements HttpHandler {
     public void handle(HttpExchange httpExchange) throws IOException {
         httpExchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
         JobRequestDetails requestDetail = JobRequestDetails.getJobRequestDetail(httpExchange);
-        try {
-            String path = requestDetail.getRequestPath();
-            if (path.equalsIgnoreCase("/applications/") && requestDetail.getAppId().equalsIgnoreCase("0")) {
+        String path = requestDetail.getRequestPath();
+        if (requestDetail.getCluster() == null) {
+            JobViewHttpResponder.send(httpExchange, HttpURLConnection.HTTP_NOT_FOUND, "Cluster not found");
+            return;
+        }
+
+        ApplicationKey key = new ApplicationKey(requestDetail.getCluster(), requestDetail.getAppId());
+        String resource;
+        Callable<String> loader;
+
+        if (path.equalsIgnoreCase("/applications/") && requestDetail.getAppId().equalsIgnoreCase("0")) {
+            resource = "applications";
+            loader = () -> {
                 try {
                     List<Application> applications = SparkRestUtil.getSparkApplications(requestDetail.getCluster());
-                    Optional<String> responseString = ObjectConvertUtils.convertObjectToJsonString(applications);
-                    JobUtils.setResponse(httpExchange, responseString.orElseThrow(IOException::new));
+                    return toJson(applications);
                 } catch (HDIException e) {
                     DefaultLoader.getUIHelper().logError("get applications list error", e);
+                    throw e;
                 }
-            } else if (path.contains("application_graph")) {
-                ApplicationKey key = new ApplicationKey(requestDetail.getCluster(), requestDetail.getAppId());
+            };
+        } else if (path.contains("application_graph")) {
+            resource = "application_graph";
+            loader = () -> {
                 List<Job> jobs = JobViewCacheManager.getJob(key);
                 App app = JobViewCacheManager.getYarnApp(key);
                 List<JobStartEventLog> jobStartEventLogs = JobViewCacheManager.getJobStartEventLogs(key);
-                YarnAppWithJobs yarnAppWithJobs = new YarnAppWithJobs(app, jobs, jobStartEventLogs);
-                Optional<String> responseString = ObjectConvertUtils.convertObjectToJsonString(yarnAppWithJobs);
-                JobUtils.setResponse(httpExchange, responseString.orElseThrow(IOException::new));
-            } else if (path.contains("stages_summary")) {
-                List<Stage> stages = JobViewCacheManager.getStages(new ApplicationKey(requestDetail.getCluster(), requestDetail.getAppId()));
-                Optional<String> responseString = ObjectConvertUtils.convertObjectToJsonString(stages);
-                JobUtils.setResponse(httpExchange, responseString.orElseThrow(IOException::new));
-            } else if (path.contains("executors_summary")) {
-                List<Executor> executors = JobViewCacheManager.getExecutors(new ApplicationKey(requestDetail.getCluster(), requestDetail.getAppId()));
-                Optional<String> responseString = ObjectConvertUtils.convertObjectToJsonString(executors);
-                JobUtils.setResponse(httpExchange, responseString.orElseThrow(IOException::new));
-            } else if (path.contains("tasks_summary")) {
-                List<Task> tasks = JobViewCacheManager.getTasks(new ApplicationKey(requestDetail.getCluster(), requestDetail.getAppId()));
-                Optional<String> responseString = ObjectConvertUtils.convertObjectToJsonString(tasks);
-                JobUtils.setResponse(httpExchange, responseString.orElseThrow(IOException::new));
-            }
-        } catch (ExecutionException e) {
-            JobUtils.setResponse(httpExchange, e.getMessage(), 500);
+                return toJson(new YarnAppWithJobs(app, jobs, jobStartEventLogs));
+            };
+        } else if (path.contains("stages_summary")) {
+            resource = "stages_summary";
+            loader = () -> toJson(JobViewCacheManager.getStages(key));
+        } else if (path.contains("executors_summary")) {
+            resource = "executors_summary";
+            loader = () -> toJson(JobViewCacheManager.getExecutors(key));
+        } else if (path.contains("tasks_summary")) {
+            resource = "tasks_summary";
+            loader = () -> toJson(JobViewCacheManager.getTasks(key));
+        } else {
+            JobViewHttpResponder.send(httpExchange, HttpURLConnection.HTTP_NOT_FOUND, "");
+            return;
         }
+
+        // The identical requests in flight share one call to the cluster, and the server thread isn't held
+        JobViewHttpResponder.respond(httpExchange,
+                                     JobViewHttpResponder.coalesce(JobViewHttpResponder.getRequestKey(key, resource), loader));
     }
-}
 
+    @NotNull
+    static String toJson(@NotNull Object obj) throws IOException {
+        return ObjectConvertUtils.convertObjectToJsonString(obj).orElseThrow(IOException::new);
+    }
+}
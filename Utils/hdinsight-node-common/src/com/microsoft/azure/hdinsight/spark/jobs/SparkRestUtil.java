@@ -30,6 +30,7 @@ import com.microsoft.azure.hdinsight.sdk.rest.ObjectConvertUtils;
 import com.microsoft.azure.hdinsight.sdk.rest.RestUtil;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.Application;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.event.JobStartEventLog;
+import com.microsoft.azure.hdinsight.sdk.rest.spark.event.SparkEventLogParser;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.executor.Executor;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.job.Job;
 import com.microsoft.azure.hdinsight.sdk.rest.spark.stage.Stage;
@@ -38,19 +39,19 @@ import com.microsoft.azuretools.azurecommons.helpers.NotNull;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.http.HttpEntity;
-import org.json.JSONObject;
 
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.Charset;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
+import static rx.exceptions.Exceptions.propagate;
+
 public class SparkRestUtil {
     public static final String SPARK_REST_API_ENDPOINT = "%s/sparkhistory/api/v1/applications/%s";
 
@@ -67,22 +68,28 @@ public class SparkRestUtil {
     }
 
     public static List<Executor> getAllExecutorFromApp(@NotNull ApplicationKey key) throws IOException, HDIException, ExecutionException {
-        final AttemptWithAppId attemptWithAppId = getLastAttemptFromLocalCache(key);
-        final HttpEntity entity = getSparkRestEntity(key.getClusterDetails(), String.format("/%s/%s/executors", attemptWithAppId.getAppId(), attemptWithAppId.getAttemptId()));
-        Optional<List<Executor>> executors = ObjectConvertUtils.convertEntityToList(entity, Executor.class);
-        return executors.orElse(RestUtil.getEmptyList(Executor.class));
+        return getListWithDiskCache(key, "executors", Executor.class, () -> {
+            final AttemptWithAppId attemptWithAppId = getLastAttemptFromLocalCache(key);
+            final HttpEntity entity = getSparkRestEntity(key.getClusterDetails(), String.format("/%s/%s/executors", attemptWithAppId.getAppId(), attemptWithAppId.getAttemptId()));
+            Optional<List<Executor>> executors = ObjectConvertUtils.convertEntityToList(entity, Executor.class);
+            return executors.orElse(RestUtil.getEmptyList(Executor.class));
+        });
     }
 
     public static List<Stage> getAllStageFromApp(@NotNull ApplicationKey key) throws IOException, HDIException, ExecutionException {
-        final AttemptWithAppId attemptWithAppId = getLastAttemptFromLocalCache(key);
-        final HttpEntity entity = getSparkRestEntity(key.getClusterDetails(), String.format("/%s/%s/stages", attemptWithAppId.getAppId(), attemptWithAppId.getAttemptId()));
-        final Optional<List<Stage>> stages = ObjectConvertUtils.convertEntityToList(entity, Stage.class);
-        return stages.orElse(RestUtil.getEmptyList(Stage.class));
+        return getListWithDiskCache(key, "stages", Stage.class, () -> {
+            final AttemptWithAppId attemptWithAppId = getLastAttemptFromLocalCache(key);
+            final HttpEntity entity = getSparkRestEntity(key.getClusterDetails(), String.format("/%s/%s/stages", attemptWithAppId.getAppId(), attemptWithAppId.getAttemptId()));
+            final Optional<List<Stage>> stages = ObjectConvertUtils.convertEntityToList(entity, Stage.class);
+            return stages.orElse(RestUtil.getEmptyList(Stage.class));
+        });
     }
 
     public static List<Job> getLastAttemptJobsFromApp(@NotNull ApplicationKey key) throws IOException, HDIException, ExecutionException {
-        AttemptWithAppId attemptWithAppId = getLastAttemptFromLocalCache(key);
-        return getSparkJobsFromApp(key.getClusterDetails(), key.getAppId(), attemptWithAppId.getAttemptId());
+        return getListWithDiskCache(key, "jobs", Job.class, () -> {
+            AttemptWithAppId attemptWithAppId = getLastAttemptFromLocalCache(key);
+            return getSparkJobsFromApp(key.getClusterDetails(), key.getAppId(), attemptWithAppId.getAttemptId());
+        });
     }
 
     public static List<Job> getSparkJobsFromApp(@NotNull IClusterDetail clusterDetail, @NotNull String appId, @NotNull String attemptId) throws IOException, HDIException {
@@ -92,15 +99,21 @@ public class SparkRestUtil {
     }
 
     public static List<Task> getSparkTasks(@NotNull ApplicationKey key, @NotNull int stage, int attemptId) throws IOException, ExecutionException, HDIException {
-        AttemptWithAppId attemptWithAppId = getLastAttemptFromLocalCache(key);
-        String url = String.format("/%s/%s/stages/%s/%s/taskList", attemptWithAppId.getAppId(), attemptWithAppId.getAttemptId(),stage, attemptId);
-        HttpEntity entity = getSparkRestEntity(key.getClusterDetails(), url);
+        return getListWithDiskCache(key, String.format("tasks_%d_%d", stage, attemptId), Task.class, () -> {
+            AttemptWithAppId attemptWithAppId = getLastAttemptFromLocalCache(key);
+            String url = String.format("/%s/%s/stages/%s/%s/taskList", attemptWithAppId.getAppId(), attemptWithAppId.getAttemptId(),stage, attemptId);
+            HttpEntity entity = getSparkRestEntity(key.getClusterDetails(), url);
+
+            Optional<List<Task>> tasks = ObjectConvertUtils.convertEntityToList(entity, Task.class);
+            return tasks.orElse(RestUtil.getEmptyList(Task.class));
+        });
+    }
 
-        Optional<List<Task>> tasks = ObjectConvertUtils.convertEntityToList(entity, Task.class);
-        return tasks.orElse(RestUtil.getEmptyList(Task.class));
+    public static List<JobStartEventLog> getSparkEventLogs(@NotNull ApplicationKey key) throws HDIException, IOException, ExecutionException {
+        return getListWithDiskCache(key, "jobStartEventLogs", JobStartEventLog.class, () -> downloadSparkEventLogs(key));
     }
 
-    public static List<JobStartEventLog> getSparkEventLogs(@NotNull ApplicationKey key) throws HDIException, IOException {
+    private static List<JobStartEventLog> downloadSparkEventLogs(@NotNull ApplicationKey key) throws HDIException, IOException {
         String url = String.format("%s/logs", key.getAppId());
         String eventLogsPath = String.format("%s/SparkEventLogs/%s/eventLogs.zip", HDInsightLoader.getHDInsightHelper().getPluginRootPath(), key.getAppId());
         File file = new File(eventLogsPath);
@@ -109,30 +122,71 @@ public class SparkRestUtil {
         FileUtils.copyInputStreamToFile(inputStream, file);
         IOUtils.closeQuietly(inputStream);
 
-        ZipFile zipFile = new ZipFile(file);
-        List<? extends ZipEntry> entities =  Collections.list(zipFile.entries());
-        // every application has an attempt in event log
-        // and the entity name should be in formation "{appId}_{attemptId}"
-        String entityName = String.format("%s_%s", key.getAppId(), entities.size());
-        ZipEntry lastEntity = zipFile.getEntry(entityName);
-        if (lastEntity == null) {
-            throw new HDIException(String.format("No Spark event log entity found for app: %s", key.getAppId()));
-        }
-        InputStream zipFileInputStream = zipFile.getInputStream(lastEntity);
-        String entityContent = IOUtils.toString(zipFileInputStream, Charset.forName("utf-8"));
-
-        String[] lines = entityContent.split("\n");
-        List<JobStartEventLog> jobStartEvents = Arrays.stream(lines)
-                .filter(line -> {
-                    JSONObject jsonObject = new JSONObject(line);
-                    String eventName = jsonObject.getString("Event");
-                    return eventName.equalsIgnoreCase("SparkListenerJobStart");
+        try (ZipFile zipFile = new ZipFile(file)) {
+            // every application has an attempt in event log
+            // and the entity name should be in formation "{appId}_{attemptId}"
+            String entityName = String.format("%s_%s", key.getAppId(), zipFile.size());
+            ZipEntry lastEntity = zipFile.getEntry(entityName);
+            if (lastEntity == null) {
+                throw new HDIException(String.format("No Spark event log entity found for app: %s", key.getAppId()));
+            }
+
+            // Stream the entity line by line rather than loading the whole event log into memory
+            return SparkEventLogParser
+                    .parseJobStartEvents(() -> {
+                        try {
+                            return zipFile.getInputStream(lastEntity);
+                        } catch (IOException ex) {
+                            throw propagate(ex);
+                        }
                     })
-                .map(oneLine -> ObjectConvertUtils.convertToObjectQuietly(oneLine, JobStartEventLog.class))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+                    .toList()
+                    .toBlocking()
+                    .single();
+        } catch (RuntimeException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+
+            throw ex;
+        }
+    }
+
+    /**
+     * Get the history of the completed application from the disk cache, or load it and put it into the disk cache
+     * if the application is completed
+     */
+    private static <T> List<T> getListWithDiskCache(@NotNull ApplicationKey key,
+                                                    @NotNull String resource,
+                                                    @NotNull Class<T> clazz,
+                                                    @NotNull HistoryLoader<List<T>> loader) throws IOException, HDIException, ExecutionException {
+        final Optional<ApplicationHistoryDiskCache> diskCache = ApplicationHistoryDiskCache.getInstance();
+        final List<T> cached = diskCache.map(cache -> cache.getList(key, resource, clazz)).orElse(null);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        // Check the completion before loading, the history loaded while the application is running could be partial
+        final boolean isCompletedBeforeLoading = diskCache.isPresent() && isApplicationCompleted(key);
+        final List<T> loaded = loader.load();
+
+        if (isCompletedBeforeLoading) {
+            diskCache.get().put(key, resource, loaded);
+        }
+
+        return loaded;
+    }
+
+    private static boolean isApplicationCompleted(@NotNull ApplicationKey key) throws ExecutionException, HDIException {
+        final AttemptWithAppId lastAttempt = getLastAttemptFromLocalCache(key);
+
+        return lastAttempt != null && Boolean.parseBoolean(lastAttempt.getCompleted());
+    }
 
-        return jobStartEvents;
+    @FunctionalInterface
+    private interface HistoryLoader<T> {
+        T load() throws IOException, HDIException, ExecutionException;
     }
 
     private static AttemptWithAppId getLastAttemptFromLocalCache(@NotNull ApplicationKey key) throws ExecutionException, HDIException {
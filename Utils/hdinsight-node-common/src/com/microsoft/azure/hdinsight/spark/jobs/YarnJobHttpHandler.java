@@ -22,17 +22,13 @@
 
 package com.microsoft.azure.hdinsight.spark.jobs;
 
-import com.microsoft.azure.hdinsight.sdk.common.HDIException;
-import com.microsoft.azure.hdinsight.sdk.rest.ObjectConvertUtils;
-import com.microsoft.azure.hdinsight.sdk.rest.yarn.rm.App;
-import com.microsoft.azure.hdinsight.sdk.rest.yarn.rm.ApplicationMasterLogs;
 import com.microsoft.azure.hdinsight.spark.jobs.framework.JobRequestDetails;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
 import java.io.IOException;
-import java.util.Optional;
-import java.util.concurrent.ExecutionException;
+import java.net.HttpURLConnection;
+import java.util.concurrent.Callable;
 
 public class YarnJobHttpHandler implements HttpHandler {
     @Override
@@ -41,18 +37,27 @@ public class YarnJobHttpHandler implements HttpHandler {
 
         JobRequestDetails requestDetail = JobRequestDetails.getJobRequestDetail(httpExchange);
         String path = requestDetail.getRequestPath();
-        try {
-            if (path.contains("/apps/app") && requestDetail.isSpecificApp()) {
-                App app = JobViewCacheManager.getYarnApp(new ApplicationKey(requestDetail.getCluster(), requestDetail.getAppId()));
-                Optional<String> responseString = ObjectConvertUtils.convertObjectToJsonString(app);
-                JobUtils.setResponse(httpExchange, responseString.orElseThrow(IOException::new));
-            } else if (path.contains("/apps/logs") && requestDetail.isSpecificApp()) {
-                ApplicationMasterLogs logs = JobViewCacheManager.getYarnLogs(new ApplicationKey(requestDetail.getCluster(), requestDetail.getAppId()));
-                Optional<String> responseString = ObjectConvertUtils.convertObjectToJsonString(logs);
-                JobUtils.setResponse(httpExchange, responseString.orElseThrow(IOException::new));
-            }
-        } catch (ExecutionException e) {
-            JobUtils.setResponse(httpExchange, e.getMessage(), 500);
+        if (requestDetail.getCluster() == null) {
+            JobViewHttpResponder.send(httpExchange, HttpURLConnection.HTTP_NOT_FOUND, "Cluster not found");
+            return;
         }
+
+        ApplicationKey key = new ApplicationKey(requestDetail.getCluster(), requestDetail.getAppId());
+        String resource;
+        Callable<String> loader;
+
+        if (path.contains("/apps/app") && requestDetail.isSpecificApp()) {
+            resource = "yarn_app";
+            loader = () -> SparkJobHttpHandler.toJson(JobViewCacheManager.getYarnApp(key));
+        } else if (path.contains("/apps/logs") && requestDetail.isSpecificApp()) {
+            resource = "yarn_logs";
+            loader = () -> SparkJobHttpHandler.toJson(JobViewCacheManager.getYarnLogs(key));
+        } else {
+            JobViewHttpResponder.send(httpExchange, HttpURLConnection.HTTP_NOT_FOUND, "");
+            return;
+        }
+
+        JobViewHttpResponder.respond(httpExchange,
+                                     JobViewHttpResponder.coalesce(JobViewHttpResponder.getRequestKey(key, resource), loader));
     }
 }
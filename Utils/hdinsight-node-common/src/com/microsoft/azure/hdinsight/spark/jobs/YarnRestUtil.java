@@ -38,6 +38,7 @@ import java.util.stream.Collectors;
 
 public class YarnRestUtil {
     private static final String YARN_UI_HISTORY_URL = "%s/yarnui/ws/v1/cluster/%s";
+    private static final String YARN_APP_CACHE_RESOURCE = "yarnApp";
 
     private static List<App> getSparkAppFromYarn(@NotNull final IClusterDetail clusterDetail) throws IOException, HDIException {
         final HttpEntity entity = getYarnRestEntity(clusterDetail, "cluster/apps");
@@ -51,8 +52,21 @@ public class YarnRestUtil {
     }
 
     public static App getApp(@NotNull ApplicationKey key) throws HDIException, IOException {
+        final Optional<ApplicationHistoryDiskCache> diskCache = ApplicationHistoryDiskCache.getInstance();
+        final App cachedApp = diskCache.map(cache -> cache.get(key, YARN_APP_CACHE_RESOURCE, App.class)).orElse(null);
+        if (cachedApp != null) {
+            return cachedApp;
+        }
+
         HttpEntity entity = getYarnRestEntity(key.getClusterDetails(), String.format("/apps/%s", key.getAppId()));
-        return ObjectConvertUtils.convertEntityToObject(entity, AppResponse.class).orElseThrow(()-> new HDIException(String.format("get Yarn app %s on cluster %s error", key.getAppId(), key.getClusterDetails().getName()))).getApp();
+        App app = ObjectConvertUtils.convertEntityToObject(entity, AppResponse.class).orElseThrow(()-> new HDIException(String.format("get Yarn app %s on cluster %s error", key.getAppId(), key.getClusterDetails().getName()))).getApp();
+
+        // The finished app never changes
+        if (app != null && app.getState() != null && app.isFinished()) {
+            diskCache.ifPresent(cache -> cache.put(key, YARN_APP_CACHE_RESOURCE, app));
+        }
+
+        return app;
     }
 
     private static HttpEntity getYarnRestEntity(@NotNull IClusterDetail clusterDetail, @NotNull String restUrl) throws HDIException, IOException {
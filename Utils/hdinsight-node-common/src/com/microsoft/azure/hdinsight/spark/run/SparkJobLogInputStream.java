@@ -23,23 +23,42 @@
 package com.microsoft.azure.hdinsight.spark.run;
 
 import com.microsoft.azure.hdinsight.spark.common.ISparkBatchJob;
+import com.microsoft.azure.hdinsight.spark.common.log.SparkLogTailer;
 import com.microsoft.azuretools.azurecommons.helpers.NotNull;
 import com.microsoft.azuretools.azurecommons.helpers.Nullable;
+import rx.Observable;
+import rx.Subscription;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
-import static java.lang.Thread.sleep;
-
+/**
+ * The input stream of Spark job log for the console, the log is tailed by {@link SparkLogTailer} in background once
+ * a job is attached, and read in line batches.
+ */
 public class SparkJobLogInputStream extends InputStream {
+    /**
+     * The max time to wait for new log lines in {@link #available()}
+     */
+    private static final long AWAIT_LINES_TIMEOUT_MS = 1000;
+
     @NotNull
     private String logType;
     @Nullable
     private ISparkBatchJob sparkBatchJob;
 
-    private long offset = 0;
+    @NotNull
+    private final SparkLogTailer tailer = new SparkLogTailer(
+            (offset, size) -> Observable.fromCallable(() -> fetchLog(offset, size))
+                                        .flatMap(slice -> slice.map(Observable::just).orElseGet(Observable::empty)));
+    @Nullable
+    private Subscription tailing;
+
     @NotNull
     private byte[] buffer = new byte[0];
     private int bufferPos;
@@ -62,6 +81,23 @@ public class SparkJobLogInputStream extends InputStream {
 
     void setSparkBatchJob(@Nullable ISparkBatchJob sparkBatchJob) {
         this.sparkBatchJob = sparkBatchJob;
+
+        startTailing();
+    }
+
+    /**
+     * Start tailing the log of attached job, the tailer keeps the offset, so the failed fetching is retried from where
+     * it stopped.
+     */
+    private synchronized void startTailing() {
+        if (tailing != null) {
+            tailing.unsubscribe();
+        }
+
+        tailing = sparkBatchJob == null ? null : tailer.fetch()
+                .retryWhen(errors -> errors.flatMap(err ->
+                        Observable.timer(SparkLogTailer.DEFAULT_IDLE_DELAY_MS, TimeUnit.MILLISECONDS)))
+                .subscribe();
     }
 
     public Optional<ISparkBatchJob> getAttachedJob() {
@@ -74,29 +110,58 @@ public class SparkJobLogInputStream extends InputStream {
             throw new IOException("Beyond the buffer end, needs a new log fetch");
         }
 
-        return buffer[bufferPos++];
+        return buffer[bufferPos++] & 0xff;
+    }
+
+    @Override
+    public int read(@NotNull byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        if (bufferPos >= buffer.length) {
+            throw new IOException("Beyond the buffer end, needs a new log fetch");
+        }
+
+        final int copied = Math.min(len, buffer.length - bufferPos);
+        System.arraycopy(buffer, bufferPos, b, off, copied);
+        bufferPos += copied;
+
+        return copied;
     }
 
     @Override
     public int available() throws IOException {
         if (bufferPos >= buffer.length) {
-            return fetchLog(offset, -1)
-                    .map(sliceOffsetPair -> {
-                        buffer = sliceOffsetPair.getKey().getBytes();
-                        bufferPos = 0;
-                        offset = sliceOffsetPair.getValue() + sliceOffsetPair.getKey().length();
-
-                        return buffer.length;
-                    }).orElseGet(() -> {
-                        try {
-                            sleep(3000);
-                        } catch (InterruptedException ignore) { }
-
-                        return 0;
-                    });
-        } else {
-            return buffer.length - bufferPos;
+            final List<String> lines;
+
+            try {
+                lines = tailer.awaitLines(AWAIT_LINES_TIMEOUT_MS, SparkLogTailer.DEFAULT_MAX_LINES_PER_FRAME);
+            } catch (InterruptedException ignore) {
+                Thread.currentThread().interrupt();
+
+                return 0;
+            }
+
+            if (lines.isEmpty()) {
+                return 0;
+            }
+
+            buffer = (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8);
+            bufferPos = 0;
         }
+
+        return buffer.length - bufferPos;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (tailing != null) {
+            tailing.unsubscribe();
+            tailing = null;
+        }
+
+        super.close();
     }
 
     @NotNull